@@ -15,10 +15,6 @@ import static org.eclipse.lsp4j.jsonrpc.CompletableFutures.computeAsync;
 import static org.eclipse.lsp4xml.utils.VersionHelper.getVersion;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.eclipse.lsp4j.InitializeParams;
@@ -31,6 +27,8 @@ import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4j.services.WorkspaceService;
 import org.eclipse.lsp4xml.commons.ParentProcessWatcher.ProcessLanguageServer;
+import org.eclipse.lsp4xml.commons.RequestPriority;
+import org.eclipse.lsp4xml.commons.RequestScheduler;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.XMLDocument;
 import org.eclipse.lsp4xml.logs.LogHelper;
@@ -42,6 +40,9 @@ import org.eclipse.lsp4xml.settings.LogsSettings;
 import org.eclipse.lsp4xml.settings.XMLClientSettings;
 import org.eclipse.lsp4xml.settings.XMLExperimentalCapabilities;
 import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
+import org.eclipse.lsp4xml.settings.XMLLargeFileSettings;
+import org.eclipse.lsp4xml.settings.XMLSchedulerSettings;
+import org.eclipse.lsp4xml.settings.XMLValidationSettings;
 import org.eclipse.lsp4xml.settings.capabilities.ServerCapabilitiesInitializer;
 import org.eclipse.lsp4xml.settings.capabilities.XMLCapabilityManager;
 
@@ -55,19 +56,19 @@ public class XMLLanguageServer
 	private static final Logger LOGGER = Logger.getLogger(XMLLanguageServer.class.getName());
 
 	private final XMLLanguageService xmlLanguageService;
+	private final RequestScheduler requestScheduler;
 	private final XMLTextDocumentService xmlTextDocumentService;
 	private final XMLWorkspaceService xmlWorkspaceService;
 	private LanguageClient languageClient;
-	private final ScheduledExecutorService delayer;
 	private Integer parentProcessId;
 	public XMLCapabilityManager capabilityManager;
 
 	public XMLLanguageServer() {
 		xmlLanguageService = new XMLLanguageService();
 		xmlLanguageService.setDocumentProvider(this);
+		requestScheduler = new RequestScheduler();
 		xmlTextDocumentService = new XMLTextDocumentService(this);
 		xmlWorkspaceService = new XMLWorkspaceService(this);
-		delayer = Executors.newScheduledThreadPool(1);
 	}
 
 	@Override
@@ -131,6 +132,24 @@ public class XMLLanguageServer
 				xmlTextDocumentService.updateCompletionSettings(newCompletions);
 			}
 
+			// Update large file settings
+			XMLLargeFileSettings largeFileSettings = clientSettings.getLargeFile();
+			if (largeFileSettings != null) {
+				xmlTextDocumentService.setLargeFileSettings(largeFileSettings);
+			}
+
+			// Update request scheduler settings
+			XMLSchedulerSettings schedulerSettings = clientSettings.getScheduler();
+			if (schedulerSettings != null) {
+				updateSchedulerSettings(schedulerSettings);
+			}
+
+			// Update validation settings
+			XMLValidationSettings validationSettings = clientSettings.getValidation();
+			if (validationSettings != null) {
+				xmlTextDocumentService.updateValidationSettings(validationSettings);
+			}
+
 			// Experimental capabilities
 			XMLExperimentalCapabilities experimental = clientSettings.getExperimental();
 			if (experimental != null) {
@@ -145,6 +164,18 @@ public class XMLLanguageServer
 		xmlTextDocumentService.updateSettings(initializationOptionsSettings);
 	}
 
+	private void updateSchedulerSettings(XMLSchedulerSettings schedulerSettings) {
+		if (schedulerSettings.getInteractiveThreads() != null) {
+			requestScheduler.setThreads(RequestPriority.INTERACTIVE, schedulerSettings.getInteractiveThreads());
+		}
+		if (schedulerSettings.getBackgroundThreads() != null) {
+			requestScheduler.setThreads(RequestPriority.BACKGROUND, schedulerSettings.getBackgroundThreads());
+		}
+		if (schedulerSettings.getBulkThreads() != null) {
+			requestScheduler.setThreads(RequestPriority.BULK, schedulerSettings.getBulkThreads());
+		}
+	}
+
 	@Override
 	public CompletableFuture<Object> shutdown() {
 		return computeAsync((cc) -> {
@@ -159,7 +190,8 @@ public class XMLLanguageServer
 
 	@Override
 	public void exit(int exitCode) {
-		delayer.shutdown();
+		xmlTextDocumentService.shutdown();
+		requestScheduler.shutdown();
 		System.exit(exitCode);
 	}
 
@@ -186,8 +218,14 @@ public class XMLLanguageServer
 		return xmlLanguageService;
 	}
 
-	public ScheduledFuture<?> schedule(Runnable command, int delay, TimeUnit unit) {
-		return delayer.schedule(command, delay, unit);
+	/**
+	 * Returns the scheduler which runs the requests on an executor per request
+	 * priority.
+	 * 
+	 * @return the request scheduler.
+	 */
+	public RequestScheduler getRequestScheduler() {
+		return requestScheduler;
 	}
 
 	@Override
@@ -197,7 +235,7 @@ public class XMLLanguageServer
 
 	@Override
 	public CompletableFuture<String> closeTag(TextDocumentPositionParams params) {
-		return computeAsync((monitor) -> {
+		return requestScheduler.computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = xmlTextDocumentService.getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = xmlTextDocumentService.getXMLDocument(document);
 			return getXMLLanguageService().doAutoClose(xmlDocument, params.getPosition());
@@ -10,18 +10,16 @@
  */
 package org.eclipse.lsp4xml;
 
-import static org.eclipse.lsp4j.jsonrpc.CompletableFutures.computeAsync;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CancellationException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -33,6 +31,7 @@ import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionParams;
 import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
@@ -49,7 +48,9 @@ import org.eclipse.lsp4j.FoldingRangeCapabilities;
 import org.eclipse.lsp4j.FoldingRangeRequestParams;
 import org.eclipse.lsp4j.Hover;
 import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.ReferenceParams;
 import org.eclipse.lsp4j.RenameParams;
 import org.eclipse.lsp4j.SymbolInformation;
@@ -62,7 +63,10 @@ import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.TextDocumentService;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.DebounceScheduler;
 import org.eclipse.lsp4xml.commons.LanguageModelCache;
+import org.eclipse.lsp4xml.commons.RequestPriority;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.commons.TextDocuments;
 import org.eclipse.lsp4xml.dom.XMLDocument;
@@ -71,6 +75,8 @@ import org.eclipse.lsp4xml.services.XMLLanguageService;
 import org.eclipse.lsp4xml.services.extensions.CompletionSettings;
 import org.eclipse.lsp4xml.services.extensions.save.AbstractSaveContext;
 import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
+import org.eclipse.lsp4xml.settings.XMLLargeFileSettings;
+import org.eclipse.lsp4xml.settings.XMLValidationSettings;
 
 /**
  * XML text document service.
@@ -78,29 +84,20 @@ import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
  */
 public class XMLTextDocumentService implements TextDocumentService {
 
+	// estimated retained size in bytes of a node of a parsed XML document (with
+	// its attributes and its tokens) and of a compact XML document
+	private static final int NODE_SIZE = 300;
+	private static final int COMPACT_NODE_SIZE = 60;
+	// maximum estimated size in bytes of the cached XML documents
+	private static final long MAX_CACHED_DOCUMENTS_SIZE = 256 * 1024 * 1024;
+
 	private final XMLLanguageServer xmlLanguageServer;
 	private final TextDocuments documents;
 	private final LanguageModelCache<XMLDocument> xmlDocuments;
 	private final CompletionSettings sharedCompletionSettings;
 	private final FoldingRangeCapabilities sharedFoldingsSettings;
 	private XMLFormattingOptions sharedFormattingOptions;
-
-	class BasicCancelChecker implements CancelChecker {
-
-		private boolean canceled;
-
-		@Override
-		public void checkCanceled() {
-			if (canceled) {
-				throw new CancellationException();
-			}
-		}
-
-		public void setCanceled(boolean canceled) {
-			this.canceled = canceled;
-		}
-
-	}
+	private XMLLargeFileSettings largeFileSettings;
 
 	/**
 	 * Save context.
@@ -139,22 +136,39 @@ public class XMLTextDocumentService implements TextDocumentService {
 		}
 	}
 
-	final ScheduledExecutorService delayer = Executors.newScheduledThreadPool(2);
-	private ScheduledFuture<?> future;
-	private BasicCancelChecker monitor;
+	// the validation of a document is debounced per URI and runs on a bounded pool
+	// of threads, separated from the threads which handle the requests.
+	private final DebounceScheduler validationScheduler = new DebounceScheduler("xml-validation",
+			XMLValidationSettings.DEFAULT_DELAY, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
 	private boolean codeActionLiteralSupport;
+	// with the fast validation, a changed document is validated with its DOM and
+	// the full validation is done on save or after the idle delay
+	private volatile boolean fastValidation;
+	private volatile int idleDelay = XMLValidationSettings.DEFAULT_IDLE_DELAY;
+	// the diagnostics of the last full validation of the opened documents, which
+	// are published with the diagnostics of the fast validation
+	private final Map<String, List<Diagnostic>> validationDiagnostics = new ConcurrentHashMap<>();
 
 	public XMLTextDocumentService(XMLLanguageServer xmlLanguageServer) {
 		this.xmlLanguageServer = xmlLanguageServer;
 		this.documents = new TextDocuments();
 		XMLParser parser = XMLParser.getInstance();
-		this.xmlDocuments = new LanguageModelCache<XMLDocument>(10, 60, documents, document -> {
-			return parser.parse(document, getXMLLanguageService().getResolverExtensionManager());
-		});
+		this.xmlDocuments = new LanguageModelCache<XMLDocument>(10, MAX_CACHED_DOCUMENTS_SIZE, 60, documents,
+				(document, previousDocument) -> {
+					if (isLargeFile(document)) {
+						// degraded mode: the nodes are stored in compact columns
+						return parser.parseCompact(document, getXMLLanguageService().getResolverExtensionManager());
+					}
+					return parser.parse(document,
+							previousDocument != null && !previousDocument.isCompact() ? previousDocument : null,
+							getXMLLanguageService().getResolverExtensionManager());
+				}, xmlDocument -> (long) xmlDocument.getNodeCount()
+						* (xmlDocument.isCompact() ? COMPACT_NODE_SIZE : NODE_SIZE));
 		this.sharedCompletionSettings = new CompletionSettings();
 		this.sharedFoldingsSettings = new FoldingRangeCapabilities();
 		this.sharedFormattingOptions = new XMLFormattingOptions(true); // to be sure that formattings options is not
 																		// null.
+		this.largeFileSettings = new XMLLargeFileSettings();
 	}
 
 	public void updateClientCapabilities(ClientCapabilities capabilities) {
@@ -181,19 +195,19 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			String uri = params.getTextDocument().getUri();
 			TextDocument document = getDocument(uri);
 			XMLDocument xmlDocument = getXMLDocument(document);
 			CompletionList list = getXMLLanguageService().doComplete(xmlDocument, params.getPosition(),
-					sharedCompletionSettings, getFormattingSettings(uri));
+					sharedCompletionSettings, getFormattingSettings(uri), monitor);
 			return Either.forRight(list);
 		});
 	}
 
 	@Override
 	public CompletableFuture<Hover> hover(TextDocumentPositionParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().doHover(xmlDocument, params.getPosition());
@@ -208,7 +222,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<? extends DocumentHighlight>> documentHighlight(TextDocumentPositionParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().findDocumentHighlights(xmlDocument, params.getPosition());
@@ -218,10 +232,13 @@ public class XMLTextDocumentService implements TextDocumentService {
 	@Override
 	public CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> documentSymbol(
 			DocumentSymbolParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.BACKGROUND, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
-			return getXMLLanguageService().findDocumentSymbols(xmlDocument) //
+			int maxDepth = isLargeFile(document) ? largeFileSettings.getMaxDepth() : Integer.MAX_VALUE;
+			List<SymbolInformation> symbols = getXMLLanguageService().findDocumentSymbols(xmlDocument, maxDepth,
+					monitor);
+			return symbols //
 					.stream() //
 					.map(s -> {
 						Either<SymbolInformation, DocumentSymbol> e = Either.forLeft(s);
@@ -233,27 +250,27 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<? extends TextEdit>> formatting(DocumentFormattingParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.BULK, (monitor) -> {
 			String uri = params.getTextDocument().getUri();
 			TextDocument document = getDocument(uri);
 			return getXMLLanguageService().format(document, null,
-					XMLFormattingOptions.create(params.getOptions(), getFormattingSettings(uri)));
+					XMLFormattingOptions.create(params.getOptions(), getFormattingSettings(uri)), monitor);
 		});
 	}
 
 	@Override
 	public CompletableFuture<List<? extends TextEdit>> rangeFormatting(DocumentRangeFormattingParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.BULK, (monitor) -> {
 			String uri = params.getTextDocument().getUri();
 			TextDocument document = getDocument(uri);
 			return getXMLLanguageService().format(document, params.getRange(),
-					XMLFormattingOptions.create(params.getOptions(), getFormattingSettings(uri)));
+					XMLFormattingOptions.create(params.getOptions(), getFormattingSettings(uri)), monitor);
 		});
 	}
 
 	@Override
 	public CompletableFuture<WorkspaceEdit> rename(RenameParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().doRename(xmlDocument, params.getPosition(), params.getNewName());
@@ -269,7 +286,16 @@ public class XMLTextDocumentService implements TextDocumentService {
 	@Override
 	public void didChange(DidChangeTextDocumentParams params) {
 		documents.onDidChangeTextDocument(params);
-		triggerValidation(params.getTextDocument().getUri(), params.getTextDocument().getVersion());
+		String uri = params.getTextDocument().getUri();
+		int version = params.getTextDocument().getVersion();
+		if (fastValidation) {
+			// the diagnostics of the last full validation follow the changed lines
+			validationDiagnostics.computeIfPresent(uri, (u, diagnostics) -> getXMLLanguageService()
+					.updateDiagnostics(diagnostics, params.getContentChanges()));
+			triggerFastValidation(uri, version);
+		} else {
+			triggerValidation(uri, version);
+		}
 	}
 
 	@Override
@@ -278,6 +304,8 @@ public class XMLTextDocumentService implements TextDocumentService {
 		xmlDocuments.onDocumentRemoved(params.getTextDocument().getUri());
 		TextDocumentIdentifier document = params.getTextDocument();
 		String uri = document.getUri();
+		validationScheduler.cancel(uri);
+		validationDiagnostics.remove(uri);
 		xmlLanguageServer.getLanguageClient()
 				.publishDiagnostics(new PublishDiagnosticsParams(uri, new ArrayList<Diagnostic>()));
 
@@ -285,16 +313,22 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<FoldingRange>> foldingRange(FoldingRangeRequestParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.BACKGROUND, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
-			return getXMLLanguageService().getFoldingRanges(document, sharedFoldingsSettings);
+			XMLDocument xmlDocument = getXMLDocument(document);
+			int maxDepth = isLargeFile(document) ? largeFileSettings.getMaxDepth() : Integer.MAX_VALUE;
+			return getXMLLanguageService().getFoldingRanges(xmlDocument, sharedFoldingsSettings, maxDepth, monitor);
 		});
 	}
 
 	@Override
 	public CompletableFuture<List<DocumentLink>> documentLink(DocumentLinkParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.BACKGROUND, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
+			if (isLargeFile(document)) {
+				// the links are not detected in degraded mode
+				return Collections.emptyList();
+			}
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().findDocumentLinks(xmlDocument);
 		});
@@ -302,7 +336,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<? extends Location>> definition(TextDocumentPositionParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().findDefinition(xmlDocument, params.getPosition());
@@ -311,7 +345,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<? extends Location>> references(ReferenceParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			XMLDocument xmlDocument = getXMLDocument(document);
 			return getXMLLanguageService().findReferences(xmlDocument, params.getPosition(), params.getContext());
@@ -320,7 +354,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<List<Either<Command, CodeAction>>> codeAction(CodeActionParams params) {
-		return computeAsync((monitor) -> {
+		return computeAsync(RequestPriority.INTERACTIVE, (monitor) -> {
 			String uri = params.getTextDocument().getUri();
 			TextDocument document = getDocument(uri);
 			XMLDocument xmlDocument = getXMLDocument(document);
@@ -345,7 +379,16 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	@Override
 	public void didSave(DidSaveTextDocumentParams params) {
-		computeAsync((monitor) -> {
+		String uri = params.getTextDocument().getUri();
+		if (fastValidation && validationScheduler.isScheduled(uri)) {
+			// the full validation of the saved document is not deferred anymore
+			TextDocument document = getDocument(uri);
+			if (document != null) {
+				int version = document.getVersion();
+				validationScheduler.schedule(uri, monitor -> doTriggerValidation(uri, version, monitor), 0);
+			}
+		}
+		computeAsync(RequestPriority.BULK, (monitor) -> {
 			// A document was saved, collect documents to revalidate
 			SaveContext context = new SaveContext(params.getTextDocument().getUri());
 			doSave(context);
@@ -374,48 +417,156 @@ public class XMLTextDocumentService implements TextDocumentService {
 	}
 
 	private void triggerValidationFor(Collection<TextDocument> documents) {
-		if (!documents.isEmpty()) {
-			xmlLanguageServer.schedule(() -> {
-				documents.forEach(document -> {
-					String uri = document.getUri();
-					int version = document.getVersion();
-					doTriggerValidation(uri, version, monitor);
-				});
-			}, 500, TimeUnit.MILLISECONDS);
-		}
+		documents.forEach(document -> triggerValidation(document.getUri(), document.getVersion()));
 	}
 
+	/**
+	 * Schedules the validation of the given document: the pending or running
+	 * validation of the same document is cancelled, the validation of the other
+	 * documents is not affected.
+	 * 
+	 * @param uri     the document URI.
+	 * @param version the document version.
+	 */
 	private void triggerValidation(String uri, int version) {
-		if (future != null && !future.isCancelled()) {
-			future.cancel(true);
-		}
-		if (monitor != null) {
-			monitor.setCanceled(true);
-		}
-		monitor = new BasicCancelChecker();
-		triggerValidation(uri, version, monitor);
+		validationScheduler.schedule(uri, monitor -> doTriggerValidation(uri, version, monitor));
+	}
+
+	/**
+	 * Schedules the fast validation of the given document, which is followed by
+	 * its full validation when the document is not changed during the idle delay.
+	 * 
+	 * @param uri     the document URI.
+	 * @param version the document version.
+	 */
+	private void triggerFastValidation(String uri, int version) {
+		validationScheduler.schedule(uri, monitor -> doTriggerFastValidation(uri, version, monitor));
 	}
 
-	private void triggerValidation(String uri, int version, CancelChecker monitor) {
-		future = xmlLanguageServer.schedule(() -> {
-			doTriggerValidation(uri, version, monitor);
-		}, 500, TimeUnit.MILLISECONDS);
+	private void doTriggerFastValidation(String uri, int version, CancelChecker monitor) {
+		TextDocument currDocument = getDocument(uri);
+		if (currDocument != null && currDocument.getVersion() == version) {
+			if (!isLargeFile(currDocument)) {
+				// the DOM is shared with the requests, the text is not parsed again
+				XMLDocument xmlDocument = getXMLDocument(currDocument);
+				// the errors which are only reported by the full validation are published
+				// until the next full validation
+				List<Diagnostic> diagnostics = getXMLLanguageService().doFastDiagnostics(xmlDocument,
+						validationDiagnostics.getOrDefault(uri, Collections.emptyList()), monitor);
+				monitor.checkCanceled();
+				xmlLanguageServer.getLanguageClient().publishDiagnostics(new PublishDiagnosticsParams(uri, diagnostics));
+			}
+			validationScheduler.schedule(uri, m -> doTriggerValidation(uri, version, m), idleDelay);
+		}
 	}
 
 	private void doTriggerValidation(String uri, int version, CancelChecker monitor) {
 		TextDocument currDocument = getDocument(uri);
 		if (currDocument != null && currDocument.getVersion() == version) {
+			Consumer<PublishDiagnosticsParams> publishDiagnostics = params -> xmlLanguageServer.getLanguageClient()
+					.publishDiagnostics(params);
+			if (isLargeFile(currDocument)) {
+				// degraded mode: the client is notified with an information diagnostic
+				Diagnostic largeFileDiagnostic = createLargeFileDiagnostic(currDocument);
+				if (!largeFileSettings.isValidation()) {
+					publishDiagnostics.accept(
+							new PublishDiagnosticsParams(uri, Collections.singletonList(largeFileDiagnostic)));
+					return;
+				}
+				Consumer<PublishDiagnosticsParams> publishValidationDiagnostics = publishDiagnostics;
+				publishDiagnostics = params -> {
+					List<Diagnostic> diagnostics = new ArrayList<>(params.getDiagnostics());
+					diagnostics.add(0, largeFileDiagnostic);
+					publishValidationDiagnostics.accept(new PublishDiagnosticsParams(params.getUri(), diagnostics));
+				};
+			}
+			Consumer<PublishDiagnosticsParams> publishFullDiagnostics = publishDiagnostics;
+			publishDiagnostics = params -> {
+				// the diagnostics of a previous version would not follow the changes
+				TextDocument document = getDocument(uri);
+				if (document != null && document.getVersion() == version) {
+					validationDiagnostics.put(uri, params.getDiagnostics());
+				}
+				publishFullDiagnostics.accept(params);
+			};
 			XMLDocument xmlDocument = getXMLDocument(currDocument);
-			getXMLLanguageService().publishDiagnostics(xmlDocument,
-					params -> xmlLanguageServer.getLanguageClient().publishDiagnostics(params),
+			getXMLLanguageService().publishDiagnostics(xmlDocument, publishDiagnostics,
 					(u, v) -> triggerValidation(u, v), monitor);
 		}
 	}
 
+	/**
+	 * Returns true if the given document exceeds the size or the number of lines
+	 * of the large file settings and is opened in degraded mode.
+	 * 
+	 * @param document the text document.
+	 * @return true if the given document is opened in degraded mode.
+	 */
+	public boolean isLargeFile(TextDocument document) {
+		XMLLargeFileSettings settings = largeFileSettings;
+		int length = document.getSnapshot().length();
+		if (length > settings.getMaxSize()) {
+			return true;
+		}
+		if (length < settings.getMaxLines()) {
+			// a text has at most length + 1 lines
+			return false;
+		}
+		return getLineCount(document, length) > settings.getMaxLines();
+	}
+
+	private static int getLineCount(TextDocument document, int length) {
+		try {
+			return document.positionAt(length).getLine() + 1;
+		} catch (BadLocationException e) {
+			return 0;
+		}
+	}
+
+	private Diagnostic createLargeFileDiagnostic(TextDocument document) {
+		int length = document.getSnapshot().length();
+		String message = "Large file (" + length + " characters, " + getLineCount(document, length)
+				+ " lines) opened in degraded mode: "
+				+ (largeFileSettings.isValidation() ? "" : "validation is disabled, ")
+				+ "symbols and folding ranges are limited to the top-level elements and document links are not detected.";
+		Range range = new Range(new Position(0, 0), new Position(0, 0));
+		return new Diagnostic(range, message, DiagnosticSeverity.Information, "XML");
+	}
+
+	/**
+	 * Runs the given request code on the executor of the given priority.
+	 */
+	private <R> CompletableFuture<R> computeAsync(RequestPriority priority, Function<CancelChecker, R> code) {
+		return xmlLanguageServer.getRequestScheduler().computeAsync(priority, code);
+	}
+
 	private XMLLanguageService getXMLLanguageService() {
 		return xmlLanguageServer.getXMLLanguageService();
 	}
 
+	public void setLargeFileSettings(XMLLargeFileSettings largeFileSettings) {
+		this.largeFileSettings = largeFileSettings;
+	}
+
+	public XMLLargeFileSettings getLargeFileSettings() {
+		return largeFileSettings;
+	}
+
+	public void updateValidationSettings(XMLValidationSettings validationSettings) {
+		validationScheduler.setDelay(validationSettings.getDelay());
+		fastValidation = validationSettings.isFast();
+		idleDelay = validationSettings.getIdleDelay();
+	}
+
+	/**
+	 * Cancels the pending validations, stops the validation threads and releases
+	 * the cached XML documents.
+	 */
+	public void shutdown() {
+		validationScheduler.shutdown();
+		xmlDocuments.dispose();
+	}
+
 	public void setSharedFormattingOptions(XMLFormattingOptions formattingOptions) {
 		this.sharedFormattingOptions = formattingOptions;
 	}
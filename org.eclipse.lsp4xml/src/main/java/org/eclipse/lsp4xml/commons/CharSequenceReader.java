@@ -0,0 +1,120 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader over a {@link CharSequence} (ex : a {@link String} or a {@link Rope}
+ * snapshot of a text document) which copies the characters directly from the
+ * sequence into the buffer of the caller, without copying the whole text.
+ *
+ * <p>
+ * The sequence must not be modified while it is read. This reader is not
+ * thread-safe.
+ * </p>
+ *
+ */
+public class CharSequenceReader extends Reader {
+
+	private CharSequence text;
+	private int position;
+	private int mark;
+
+	public CharSequenceReader(CharSequence text) {
+		this.text = text;
+	}
+
+	@Override
+	public int read() throws IOException {
+		ensureOpen();
+		if (position >= text.length()) {
+			return -1;
+		}
+		return text.charAt(position++);
+	}
+
+	@Override
+	public int read(char[] buffer, int offset, int length) throws IOException {
+		ensureOpen();
+		if (offset < 0 || length < 0 || offset + length > buffer.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (length == 0) {
+			return 0;
+		}
+		int remaining = text.length() - position;
+		if (remaining <= 0) {
+			return -1;
+		}
+		int count = Math.min(length, remaining);
+		getChars(position, position + count, buffer, offset);
+		position += count;
+		return count;
+	}
+
+	private void getChars(int start, int end, char[] buffer, int offset) {
+		if (text instanceof String) {
+			((String) text).getChars(start, end, buffer, offset);
+		} else if (text instanceof Rope) {
+			((Rope) text).getChars(start, end, buffer, offset);
+		} else if (text instanceof StringBuilder) {
+			((StringBuilder) text).getChars(start, end, buffer, offset);
+		} else {
+			for (int i = start; i < end; i++) {
+				buffer[offset++] = text.charAt(i);
+			}
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		ensureOpen();
+		int skipped = (int) Math.max(0, Math.min(n, text.length() - position));
+		position += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		ensureOpen();
+		return true;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public void mark(int readAheadLimit) throws IOException {
+		ensureOpen();
+		mark = position;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		ensureOpen();
+		position = mark;
+	}
+
+	@Override
+	public void close() {
+		text = null;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (text == null) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
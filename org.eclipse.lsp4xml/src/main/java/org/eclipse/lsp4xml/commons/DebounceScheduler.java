@@ -0,0 +1,189 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+/**
+ * Scheduler which runs one task per key (ex : the URI of a document) after a
+ * delay. Scheduling a task for a key cancels the pending or running task of the
+ * same key, the tasks of the other keys are not affected.
+ *
+ * <p>
+ * The tasks are run by a bounded pool of daemon threads. A running task is
+ * cancelled with the {@link CancelChecker} given to the task, which must be
+ * checked regularly.
+ * </p>
+ *
+ */
+public class DebounceScheduler {
+
+	private static final Logger LOGGER = Logger.getLogger(DebounceScheduler.class.getName());
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final ConcurrentMap<String, PendingTask> tasks;
+	private volatile int delay;
+
+	/**
+	 * Task scheduled for a key, which is also the cancel checker of the task.
+	 */
+	private class PendingTask implements Runnable, CancelChecker {
+
+		private final String key;
+		private final Consumer<CancelChecker> task;
+		private volatile boolean canceled;
+		private volatile ScheduledFuture<?> future;
+
+		PendingTask(String key, Consumer<CancelChecker> task) {
+			this.key = key;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!canceled) {
+					task.accept(this);
+				}
+			} catch (CancellationException e) {
+				// the task has been cancelled by a new task of the same key.
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "Error while running the scheduled task of '" + key + "'", e);
+			} finally {
+				tasks.remove(key, this);
+			}
+		}
+
+		@Override
+		public void checkCanceled() {
+			if (canceled) {
+				throw new CancellationException();
+			}
+		}
+
+		void cancel() {
+			canceled = true;
+			ScheduledFuture<?> future = this.future;
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Creates a scheduler.
+	 *
+	 * @param name    the name of the threads.
+	 * @param delay   the delay in milliseconds before a task is run.
+	 * @param threads the max number of threads which run the tasks.
+	 */
+	public DebounceScheduler(String name, int delay, int threads) {
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.setRemoveOnCancelPolicy(true);
+		this.tasks = new ConcurrentHashMap<>();
+		this.delay = delay;
+	}
+
+	/**
+	 * Schedules the given task for the given key after the delay of this
+	 * scheduler. The pending or running task of the same key is cancelled.
+	 *
+	 * @param key  the key.
+	 * @param task the task, which receives its cancel checker.
+	 */
+	public void schedule(String key, Consumer<CancelChecker> task) {
+		schedule(key, task, delay);
+	}
+
+	/**
+	 * Schedules the given task for the given key after the given delay. The
+	 * pending or running task of the same key is cancelled.
+	 *
+	 * @param key   the key.
+	 * @param task  the task, which receives its cancel checker.
+	 * @param delay the delay in milliseconds before the task is run.
+	 */
+	public void schedule(String key, Consumer<CancelChecker> task, int delay) {
+		PendingTask pendingTask = new PendingTask(key, task);
+		PendingTask previousTask = tasks.put(key, pendingTask);
+		if (previousTask != null) {
+			previousTask.cancel();
+		}
+		pendingTask.future = executor.schedule(pendingTask, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels the pending or running task of the given key.
+	 *
+	 * @param key the key.
+	 */
+	public void cancel(String key) {
+		PendingTask pendingTask = tasks.remove(key);
+		if (pendingTask != null) {
+			pendingTask.cancel();
+		}
+	}
+
+	/**
+	 * Returns true if a task is scheduled or running for the given key and false
+	 * otherwise.
+	 *
+	 * @param key the key.
+	 * @return true if a task is scheduled or running for the given key and false
+	 *         otherwise.
+	 */
+	public boolean isScheduled(String key) {
+		return tasks.containsKey(key);
+	}
+
+	/**
+	 * Returns the delay in milliseconds before a task is run.
+	 *
+	 * @return the delay in milliseconds before a task is run.
+	 */
+	public int getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Sets the delay in milliseconds before the next scheduled tasks are run.
+	 *
+	 * @param delay the delay in milliseconds.
+	 */
+	public void setDelay(int delay) {
+		this.delay = delay;
+	}
+
+	/**
+	 * Cancels all the tasks and stops the threads.
+	 */
+	public void shutdown() {
+		tasks.values().forEach(PendingTask::cancel);
+		tasks.clear();
+		executor.shutdownNow();
+	}
+}
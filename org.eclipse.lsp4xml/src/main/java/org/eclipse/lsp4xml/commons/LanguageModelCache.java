@@ -10,46 +10,195 @@
  */
 package org.eclipse.lsp4xml.commons;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import org.eclipse.lsp4j.TextDocumentItem;
 
 /**
  * Language model cache.
- * 
+ *
+ * <p>
+ * The cache is bounded by a number of entries and by an estimated size of the
+ * cached models, computed by a size estimator (ex : from the number of nodes of
+ * a DOM) or from the text length of the parsed documents by default. When one
+ * of those limits is exceeded, the least recently used models are evicted. The
+ * most recently used models are never evicted because of their size, so a
+ * large document which exceeds the estimated size alone is not parsed again on
+ * each request. Models which are not accessed since more than the cleanup
+ * interval are removed by a periodic sweep.
+ * </p>
+ *
+ * <p>
+ * Parsing is done per URI: concurrent requests for the same URI and version
+ * share one in-flight parse, and requests for other URIs are parsed in
+ * parallel.
+ * </p>
+ *
+ * <p>
+ * When a new version of a document must be parsed, the model of the previous
+ * version is removed from the cache and given to the parse function which can
+ * reuse it (ex : incremental parse).
+ * </p>
+ *
  * @see https://github.com/Microsoft/vscode/blob/master/extensions/json-language-features/server/src/languageModelCache.ts
  *
  * @param <T>
  */
 public class LanguageModelCache<T> {
 
+	/**
+	 * Default maximum estimated size of the cached models, in characters when the
+	 * size is estimated from the text length of the parsed documents.
+	 */
+	public static final long DEFAULT_MAX_ESTIMATED_SIZE = 50 * 1024 * 1024;
+
 	private final Map<String, LanguageModeInfo> languageModels;
-	private final Function<TextDocument, T> parse;
+	private final Map<ParseKey, CompletableFuture<T>> parsings;
+	private final int maxEntries;
+	private final long maxEstimatedSize;
+	private final long cleanupIntervalTimeInMillis;
+	private final BiFunction<TextDocument, T, T> parse;
+	private final ToLongFunction<T> sizeEstimator;
 	private final ITextDocumentFactory documentFactory;
+	private final ScheduledExecutorService cleanupExecutor;
+
+	private final AtomicLong estimatedSize;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong evictions;
 
 	class LanguageModeInfo {
 
 		public final int version;
 		public final String languageId;
-		public long cTime;
+		public final long estimatedSize;
+		public volatile long cTime;
 		public T languageModel;
 
-		public LanguageModeInfo(T languageModel, int version, String languageId, long cTime) {
+		public LanguageModeInfo(T languageModel, int version, String languageId, long estimatedSize, long cTime) {
 			this.languageModel = languageModel;
 			this.version = version;
 			this.languageId = languageId;
+			this.estimatedSize = estimatedSize;
 			this.cTime = cTime;
 		}
 	}
 
+	/**
+	 * Key of an in-flight parse.
+	 */
+	private static class ParseKey {
+
+		private final String uri;
+		private final int version;
+		private final String languageId;
+
+		public ParseKey(String uri, int version, String languageId) {
+			this.uri = uri;
+			this.version = version;
+			this.languageId = languageId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(uri, version, languageId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ParseKey)) {
+				return false;
+			}
+			ParseKey other = (ParseKey) obj;
+			return version == other.version && Objects.equals(uri, other.uri)
+					&& Objects.equals(languageId, other.languageId);
+		}
+	}
+
 	public LanguageModelCache(int maxEntries, int cleanupIntervalTimeInSec, ITextDocumentFactory documentFactory,
 			Function<TextDocument, T> parse) {
-		this.languageModels = new HashMap<>();
+		this(maxEntries, DEFAULT_MAX_ESTIMATED_SIZE, cleanupIntervalTimeInSec, documentFactory, parse);
+	}
+
+	public LanguageModelCache(int maxEntries, long maxEstimatedSize, int cleanupIntervalTimeInSec,
+			ITextDocumentFactory documentFactory, Function<TextDocument, T> parse) {
+		this(maxEntries, maxEstimatedSize, cleanupIntervalTimeInSec, documentFactory,
+				(document, previousLanguageModel) -> parse.apply(document));
+	}
+
+	/**
+	 * Creates a language model cache with a parse function which receives the
+	 * model of the previous version of the document (or null if there is no
+	 * previous model). The previous model can still be used by other threads, the
+	 * parse function must not modify it.
+	 *
+	 * @param maxEntries               the maximum number of cached models.
+	 * @param maxEstimatedSize         the maximum estimated size (in characters)
+	 *                                 of the cached models.
+	 * @param cleanupIntervalTimeInSec the cleanup interval in seconds.
+	 * @param documentFactory          the text document factory.
+	 * @param parse                    the parse function.
+	 */
+	public LanguageModelCache(int maxEntries, long maxEstimatedSize, int cleanupIntervalTimeInSec,
+			ITextDocumentFactory documentFactory, BiFunction<TextDocument, T, T> parse) {
+		this(maxEntries, maxEstimatedSize, cleanupIntervalTimeInSec, documentFactory, parse, null);
+	}
+
+	/**
+	 * Creates a language model cache whose size is estimated from the parsed
+	 * models with the given size estimator.
+	 *
+	 * @param maxEntries               the maximum number of cached models.
+	 * @param maxEstimatedSize         the maximum estimated size of the cached
+	 *                                 models, in the unit of the size estimator.
+	 * @param cleanupIntervalTimeInSec the cleanup interval in seconds.
+	 * @param documentFactory          the text document factory.
+	 * @param parse                    the parse function.
+	 * @param sizeEstimator            the size estimator of a model, or null to
+	 *                                 use the text length of the parsed document.
+	 */
+	public LanguageModelCache(int maxEntries, long maxEstimatedSize, int cleanupIntervalTimeInSec,
+			ITextDocumentFactory documentFactory, BiFunction<TextDocument, T, T> parse,
+			ToLongFunction<T> sizeEstimator) {
+		this.languageModels = new ConcurrentHashMap<>();
+		this.parsings = new ConcurrentHashMap<>();
+		this.maxEntries = maxEntries;
+		this.maxEstimatedSize = maxEstimatedSize;
+		this.cleanupIntervalTimeInMillis = TimeUnit.SECONDS.toMillis(cleanupIntervalTimeInSec);
 		this.parse = parse;
+		this.sizeEstimator = sizeEstimator;
 		this.documentFactory = documentFactory;
+		this.estimatedSize = new AtomicLong();
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+		this.evictions = new AtomicLong();
+		if (cleanupIntervalTimeInSec > 0) {
+			this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "lsp4xml-language-model-cache-cleanup");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.cleanupExecutor.scheduleWithFixedDelay(this::cleanup, cleanupIntervalTimeInSec,
+					cleanupIntervalTimeInSec, TimeUnit.SECONDS);
+		} else {
+			this.cleanupExecutor = null;
+		}
 	}
 
 	public T get(TextDocumentItem document) {
@@ -58,6 +207,7 @@ public class LanguageModelCache<T> {
 		String uri = document.getUri();
 		T languageModel = getLanguageModel(version, languageId, uri);
 		if (languageModel != null) {
+			hits.incrementAndGet();
 			return languageModel;
 		}
 		return parseAndGet(document, version, languageId, uri);
@@ -73,20 +223,224 @@ public class LanguageModelCache<T> {
 		return null;
 	}
 
-	private synchronized T parseAndGet(TextDocumentItem document, int version, String languageId, String uri) {
-		T languageModel = getLanguageModel(version, languageId, uri);
-		if (languageModel != null) {
+	private T parseAndGet(TextDocumentItem document, int version, String languageId, String uri) {
+		ParseKey key = new ParseKey(uri, version, languageId);
+		CompletableFuture<T> parsing = new CompletableFuture<>();
+		CompletableFuture<T> inFlightParsing = parsings.putIfAbsent(key, parsing);
+		if (inFlightParsing != null) {
+			// the same version of the document is being parsed by another thread, wait
+			// for its result.
+			hits.incrementAndGet();
+			return join(inFlightParsing);
+		}
+		try {
+			// the parse may have been finished between the cache lookup and the
+			// registration of the in-flight parse.
+			T languageModel = getLanguageModel(version, languageId, uri);
+			if (languageModel != null) {
+				hits.incrementAndGet();
+			} else {
+				misses.incrementAndGet();
+				languageModel = parse(document, version, languageId, uri);
+			}
+			parsing.complete(languageModel);
 			return languageModel;
+		} catch (RuntimeException | Error e) {
+			parsing.completeExceptionally(e);
+			throw e;
+		} finally {
+			parsings.remove(key, parsing);
 		}
+	}
+
+	private T parse(TextDocumentItem document, int version, String languageId, String uri) {
 		TextDocument textDocument = document instanceof TextDocument ? (TextDocument) document
 				: documentFactory.createDocument(document);
-		languageModel = parse.apply(textDocument);
-		languageModels.put(uri, new LanguageModeInfo(languageModel, version, languageId, System.currentTimeMillis()));
+		// the snapshot is used to not flatten the text of an incremental document
+		CharSequence text = textDocument.getSnapshot();
+		T languageModel = parse.apply(textDocument, getPreviousLanguageModel(version, languageId, uri));
+		long size = sizeEstimator != null ? sizeEstimator.applyAsLong(languageModel)
+				: text != null ? text.length() : 0;
+		LanguageModeInfo languageModelInfo = new LanguageModeInfo(languageModel, version, languageId, size,
+				System.currentTimeMillis());
+		languageModels.compute(uri, (u, old) -> {
+			if (old != null && old.version > version) {
+				// a newer version of the document has been parsed in the meantime
+				return old;
+			}
+			if (old != null) {
+				estimatedSize.addAndGet(-old.estimatedSize);
+			}
+			estimatedSize.addAndGet(size);
+			return languageModelInfo;
+		});
+		evictIfNeeded(uri);
 		return languageModel;
 	}
 
+	/**
+	 * Returns the model of a previous version of the document, or null if there is
+	 * no such model. The model stays in the cache until it is replaced by the new
+	 * one: it can still be used by other threads and must not be modified by the
+	 * parse function.
+	 *
+	 * @param version    the version of the document to parse.
+	 * @param languageId the language id of the document to parse.
+	 * @param uri        the URI of the document to parse.
+	 * @return the model of a previous version of the document, or null.
+	 */
+	private T getPreviousLanguageModel(int version, String languageId, String uri) {
+		LanguageModeInfo languageModelInfo = languageModels.get(uri);
+		if (languageModelInfo != null && languageModelInfo.version < version
+				&& Objects.equals(languageId, languageModelInfo.languageId)) {
+			return languageModelInfo.languageModel;
+		}
+		return null;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Evict the least recently used models while the number of entries or the
+	 * estimated size exceeds the limits. The model of the given URI is never
+	 * evicted, and the most recently used of the other models is not evicted
+	 * because of the estimated size.
+	 *
+	 * @param uriToKeep the URI of the model which must be kept.
+	 */
+	private synchronized void evictIfNeeded(String uriToKeep) {
+		while (languageModels.size() > 1) {
+			boolean tooManyEntries = languageModels.size() > maxEntries;
+			if (!tooManyEntries && estimatedSize.get() <= maxEstimatedSize) {
+				return;
+			}
+			Entry<String, LanguageModeInfo> oldest = null;
+			Entry<String, LanguageModeInfo> newest = null;
+			for (Entry<String, LanguageModeInfo> entry : languageModels.entrySet()) {
+				if (entry.getKey().equals(uriToKeep)) {
+					continue;
+				}
+				if (oldest == null || entry.getValue().cTime < oldest.getValue().cTime) {
+					oldest = entry;
+				}
+				if (newest == null || entry.getValue().cTime >= newest.getValue().cTime) {
+					newest = entry;
+				}
+			}
+			if (oldest == null || (!tooManyEntries && oldest == newest)) {
+				return;
+			}
+			if (remove(oldest.getKey(), oldest.getValue())) {
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Remove the models which have not been accessed since more than the cleanup
+	 * interval.
+	 */
+	void cleanup() {
+		cleanup(System.currentTimeMillis() - cleanupIntervalTimeInMillis);
+	}
+
+	/**
+	 * Remove the models which have not been accessed since the given time.
+	 *
+	 * @param cutoffTime the time in milliseconds.
+	 */
+	synchronized void cleanup(long cutoffTime) {
+		Iterator<Entry<String, LanguageModeInfo>> iterator = languageModels.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, LanguageModeInfo> entry = iterator.next();
+			if (entry.getValue().cTime < cutoffTime && remove(entry.getKey(), entry.getValue())) {
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private boolean remove(String uri, LanguageModeInfo languageModelInfo) {
+		if (languageModels.remove(uri, languageModelInfo)) {
+			estimatedSize.addAndGet(-languageModelInfo.estimatedSize);
+			return true;
+		}
+		return false;
+	}
+
 	public void onDocumentRemoved(String uri) {
-		languageModels.remove(uri);
+		LanguageModeInfo languageModelInfo = languageModels.get(uri);
+		if (languageModelInfo != null) {
+			remove(uri, languageModelInfo);
+		}
+	}
+
+	/**
+	 * Returns the number of cached models.
+	 *
+	 * @return the number of cached models.
+	 */
+	public int size() {
+		return languageModels.size();
+	}
+
+	/**
+	 * Returns the estimated size of the cached models.
+	 *
+	 * @return the estimated size of the cached models.
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize.get();
+	}
+
+	/**
+	 * Returns the number of requests which have been served by a cached model.
+	 *
+	 * @return the number of requests which have been served by a cached model.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests which have required a parse.
+	 *
+	 * @return the number of requests which have required a parse.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of models which have been evicted from the cache.
+	 *
+	 * @return the number of models which have been evicted from the cache.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Dispose the cache.
+	 */
+	public void dispose() {
+		if (cleanupExecutor != null) {
+			cleanupExecutor.shutdownNow();
+		}
+		languageModels.clear();
+		estimatedSize.set(0);
 	}
 
 }
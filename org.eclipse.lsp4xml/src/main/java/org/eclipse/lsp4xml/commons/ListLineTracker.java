@@ -44,6 +44,14 @@ class ListLineTracker /* implements ILineTracker */ {
 	private final List<Line> fLines = new ArrayList<>();
 	/** The length of the tracked text */
 	private int fTextLength;
+	/**
+	 * The index of the first line whose offset must be shifted by
+	 * <code>fGapDelta</code>. The offsets of the lines which follow a change are
+	 * shifted lazily: they are updated only when a change occurs before the gap.
+	 */
+	private int fGapIndex;
+	/** The delta to add to the offset of the lines after the gap */
+	private int fGapDelta;
 
 	/**
 	 * Combines the information of the occurrence of a line delimiter.
@@ -82,28 +90,56 @@ class ListLineTracker /* implements ILineTracker */ {
 
 			mid = (left + right) / 2;
 
-			line = fLines.get(mid);
-			if (offset < line.offset) {
+			int lineOffset = getLineOffsetAt(mid);
+			if (offset < lineOffset) {
 				if (left == mid)
 					right = left;
 				else
 					right = mid - 1;
-			} else if (offset > line.offset) {
+			} else if (offset > lineOffset) {
 				if (right == mid)
 					left = right;
 				else
 					left = mid + 1;
-			} else if (offset == line.offset) {
+			} else if (offset == lineOffset) {
 				left = right = mid;
 			}
 		}
 
-		line = fLines.get(left);
-		if (line.offset > offset)
+		if (getLineOffsetAt(left) > offset)
 			--left;
 		return left;
 	}
 
+	/**
+	 * Returns the offset of the line stored at the given index.
+	 *
+	 * @param index the index of the line
+	 * @return the offset of the line
+	 */
+	private int getLineOffsetAt(int index) {
+		int offset = fLines.get(index).offset;
+		return index >= fGapIndex ? offset + fGapDelta : offset;
+	}
+
+	/**
+	 * Moves the gap to the given line index without changing the offsets of the
+	 * lines.
+	 *
+	 * @param index the new index of the gap
+	 */
+	private void moveGap(int index) {
+		if (fGapDelta != 0) {
+			for (int i = fGapIndex; i < index; i++) {
+				fLines.get(i).offset += fGapDelta;
+			}
+			for (int i = index; i < fGapIndex; i++) {
+				fLines.get(i).offset -= fGapDelta;
+			}
+		}
+		fGapIndex = index;
+	}
+
 	public final Position getPositionAt(int offset) throws BadLocationException {
 		int lineNumber = getLineNumberOfOffset(offset);
 		int lines = fLines.size();
@@ -111,10 +147,9 @@ class ListLineTracker /* implements ILineTracker */ {
 		if (lines > 0) {
 			if (lineNumber == lines) {
 				Line l = fLines.get(lineNumber - 1);
-				character = offset - l.offset - l.length;
+				character = offset - getLineOffsetAt(lineNumber - 1) - l.length;
 			} else {
-				Line l = fLines.get(lineNumber);
-				character = offset - l.offset;
+				character = offset - getLineOffsetAt(lineNumber);
 			}
 		}
 		return new Position(lineNumber, character);
@@ -155,11 +190,11 @@ class ListLineTracker /* implements ILineTracker */ {
 		} else {
 			if (line == lines) {
 				Line l = fLines.get(line - 1);
-				lineOffset = l.offset + l.length;
+				lineOffset = getLineOffsetAt(line - 1) + l.length;
 				lineLength = 0;
 			} else {
 				Line l = fLines.get(line);
-				lineOffset = l.offset;
+				lineOffset = getLineOffsetAt(line);
 				lineLength = l.delimiter != null ? l.length - l.delimiter.length() : l.length;
 			}
 		}
@@ -183,11 +218,11 @@ class ListLineTracker /* implements ILineTracker */ {
 
 		if (line == lines) {
 			Line l = fLines.get(line - 1);
-			return new Line(l.offset + l.length, 0);
+			return new Line(getLineOffsetAt(line - 1) + l.length, 0);
 		}
 
 		Line l = fLines.get(line);
-		return (l.delimiter != null ? new Line(l.offset, l.length - l.delimiter.length()) : l);
+		return new Line(getLineOffsetAt(line), l.delimiter != null ? l.length - l.delimiter.length() : l.length);
 	}
 
 	// @Override
@@ -203,12 +238,11 @@ class ListLineTracker /* implements ILineTracker */ {
 		if (line == lines) {
 			Line l = fLines.get(line - 1);
 			if (l.delimiter != null)
-				return l.offset + l.length;
+				return getLineOffsetAt(line - 1) + l.length;
 			throw new BadLocationException();
 		}
 
-		Line l = fLines.get(line);
-		return l.offset;
+		return getLineOffsetAt(line);
 	}
 
 	// @Override
@@ -266,7 +300,7 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * @param offset the offset in the given text
 	 * @return the information of the first found delimiter or <code>null</code>
 	 */
-	protected DelimiterInfo nextDelimiterInfo(String text, int offset) {
+	protected DelimiterInfo nextDelimiterInfo(CharSequence text, int offset) {
 		char ch;
 		int length = text.length();
 		for (int i = offset; i < length; i++) {
@@ -312,7 +346,7 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * @param offset         the offset of all newly created lines
 	 * @return the number of newly created lines
 	 */
-	private int createLines(String text, int insertPosition, int offset) {
+	private int createLines(CharSequence text, int insertPosition, int offset) {
 
 		int count = 0;
 		int start = 0;
@@ -348,15 +382,111 @@ class ListLineTracker /* implements ILineTracker */ {
 		return count;
 	}
 
+	/**
+	 * Updates the line structure after a replace of the tracked text. Only the
+	 * lines touched by the change (and their neighbours, to take care of "\r\n"
+	 * delimiters which can be split or joined) are rescanned, the offsets of the
+	 * following lines are shifted lazily.
+	 *
+	 * @param offset    the offset of the change
+	 * @param length    the length of the replaced text
+	 * @param newLength the length of the inserted text
+	 * @param text      the tracked text after the change
+	 * @throws BadLocationException if the change is not in the tracked text
+	 */
+	public final void replace(int offset, int length, int newLength, CharSequence text)
+			throws BadLocationException {
+		if (offset < 0 || length < 0 || offset + length > fTextLength) {
+			throw new BadLocationException("Bad change : offset " + offset + ", length " + length); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		int delta = newLength - length;
+		if (fLines.isEmpty() || fTextLength + delta != text.length()) {
+			set(text);
+			return;
+		}
+
+		// lines to rescan
+		int first = Math.max(0, findLine(offset) - 1);
+		int last = Math.min(fLines.size() - 1, findLine(offset + length) + 1);
+		int regionStart = getLineOffsetAt(first);
+		int regionEnd = getLineOffsetAt(last) + fLines.get(last).length + delta;
+
+		// the lines before the rescanned lines keep their offsets, the lines after are
+		// shifted with the delta of the change.
+		moveGap(last + 1);
+		fGapDelta += delta;
+		fTextLength += delta;
+
+		List<Line> newLines = new ArrayList<>();
+		CharSequence region = text.subSequence(regionStart, regionEnd);
+		int start = 0;
+		DelimiterInfo delimiterInfo = nextDelimiterInfo(region, 0);
+		while (delimiterInfo != null && delimiterInfo.delimiterIndex > -1) {
+			int index = delimiterInfo.delimiterIndex + (delimiterInfo.delimiterLength - 1);
+			newLines.add(new Line(regionStart + start, regionStart + index, delimiterInfo.delimiter));
+			start = index + 1;
+			delimiterInfo = nextDelimiterInfo(region, start);
+		}
+		if (start < region.length()) {
+			newLines.add(new Line(regionStart + start, regionStart + region.length() - 1, null));
+		}
+
+		int count = last - first + 1;
+		if (newLines.size() == count) {
+			// the number of lines doesn't change (ex : typing in a line)
+			for (int i = 0; i < count; i++) {
+				fLines.set(first + i, newLines.get(i));
+			}
+		} else {
+			fLines.subList(first, last + 1).clear();
+			fLines.addAll(first, newLines);
+			fGapIndex = first + newLines.size();
+		}
+	}
+
 	// @Override
-	public final void set(String text) {
+	public final void set(CharSequence text) {
 		fLines.clear();
+		fGapIndex = 0;
+		fGapDelta = 0;
 		if (text != null) {
 			fTextLength = text.length();
 			createLines(text, 0, 0);
 		}
 	}
 
+	/**
+	 * Sets the tracked text with the offsets of the line starts which have been
+	 * computed while the text was scanned: the text is not scanned again.
+	 *
+	 * @param text        the text to be tracked
+	 * @param lineOffsets the sorted offsets of the line starts, the first one is 0
+	 * @param count       the number of line starts
+	 */
+	final void set(CharSequence text, int[] lineOffsets, int count) {
+		fLines.clear();
+		fGapIndex = 0;
+		fGapDelta = 0;
+		fTextLength = text.length();
+		for (int i = 1; i < count; i++) {
+			int start = lineOffsets[i - 1];
+			int end = lineOffsets[i] - 1;
+			String delimiter;
+			if (text.charAt(end) == '\r') {
+				delimiter = DELIMITERS[0];
+			} else if (end > start && text.charAt(end - 1) == '\r') {
+				delimiter = DELIMITERS[2];
+			} else {
+				delimiter = DELIMITERS[1];
+			}
+			fLines.add(new Line(start, end, delimiter));
+		}
+		int start = lineOffsets[count - 1];
+		if (start < fTextLength) {
+			fLines.add(new Line(start, fTextLength - 1, null));
+		}
+	}
+
 	/**
 	 * Returns the internal data structure, a {@link List} of {@link Line}s. Used
 	 * only by {@link TreeLineTracker#TreeLineTracker(ListLineTracker)}.
@@ -364,6 +494,7 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * @return the internal list of lines.
 	 */
 	final List<Line> getLines() {
+		moveGap(fLines.size());
 		return fLines;
 	}
 }
@@ -0,0 +1,52 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+/**
+ * Class of a request, which selects the executor of the
+ * {@link RequestScheduler} which runs the request.
+ *
+ */
+public enum RequestPriority {
+
+	/**
+	 * Requests which are waited by the user while typing (completion, hover,
+	 * highlight, etc).
+	 */
+	INTERACTIVE(Thread.NORM_PRIORITY + 1),
+
+	/**
+	 * Requests which are sent by the client after a change and which refresh a
+	 * view (symbols, folding ranges, document links).
+	 */
+	BACKGROUND(Thread.NORM_PRIORITY),
+
+	/**
+	 * Requests which process a whole document or several documents (formatting,
+	 * revalidation of the documents after a save).
+	 */
+	BULK(Thread.MIN_PRIORITY);
+
+	private final int threadPriority;
+
+	private RequestPriority(int threadPriority) {
+		this.threadPriority = threadPriority;
+	}
+
+	/**
+	 * Returns the priority of the threads which run the requests of this class.
+	 *
+	 * @return the priority of the threads which run the requests of this class.
+	 */
+	public int getThreadPriority() {
+		return threadPriority;
+	}
+}
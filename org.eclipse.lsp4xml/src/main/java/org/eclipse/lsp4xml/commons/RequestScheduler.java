@@ -0,0 +1,202 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4j.jsonrpc.CompletableFutures;
+
+/**
+ * Scheduler which runs the requests on a bounded executor per
+ * {@link RequestPriority}, so that the interactive requests (completion,
+ * hover, etc) are not queued behind the bulk requests (formatting,
+ * revalidation, etc).
+ *
+ * <p>
+ * The queues of the executors are not bounded: a request which would be
+ * rejected by a full queue would fail on the client side, whereas the queued
+ * requests come from one client connection and the client cancels the requests
+ * which are superseded (a cancelled request returns as soon as it starts). A
+ * warning with the statistics of the executor is logged each time the queue of
+ * a priority reaches a multiple of {@link #QUEUE_WARNING_LENGTH} requests, and
+ * the statistics of all the executors are logged on shutdown.
+ * </p>
+ *
+ */
+public class RequestScheduler {
+
+	private static final Logger LOGGER = Logger.getLogger(RequestScheduler.class.getName());
+
+	/**
+	 * Number of queued requests of a priority from which a warning is logged.
+	 */
+	static final int QUEUE_WARNING_LENGTH = 100;
+
+	private final Map<RequestPriority, ThreadPoolExecutor> executors;
+
+	/**
+	 * Creates a scheduler with the default number of threads per priority.
+	 */
+	public RequestScheduler() {
+		this.executors = new EnumMap<>(RequestPriority.class);
+		for (RequestPriority priority : RequestPriority.values()) {
+			int threads = getDefaultThreads(priority);
+			AtomicInteger count = new AtomicInteger();
+			String name = "lsp4xml-" + priority.name().toLowerCase() + "-";
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, name + count.incrementAndGet());
+						thread.setDaemon(true);
+						thread.setPriority(priority.getThreadPriority());
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			executors.put(priority, executor);
+		}
+	}
+
+	/**
+	 * Returns the default number of threads of the given priority.
+	 *
+	 * @param priority the request priority.
+	 * @return the default number of threads of the given priority.
+	 */
+	public static int getDefaultThreads(RequestPriority priority) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		switch (priority) {
+		case INTERACTIVE:
+			return Math.max(2, processors);
+		case BACKGROUND:
+			return Math.max(1, processors / 2);
+		default:
+			return 1;
+		}
+	}
+
+	/**
+	 * Runs the given code on the executor of the given priority.
+	 *
+	 * @param priority the request priority.
+	 * @param code     the code which receives the cancel checker of the request.
+	 * @return the future of the result, which cancels the request when it is
+	 *         cancelled.
+	 */
+	public <R> CompletableFuture<R> computeAsync(RequestPriority priority, Function<CancelChecker, R> code) {
+		ThreadPoolExecutor executor = executors.get(priority);
+		CompletableFuture<R> future = CompletableFutures.computeAsync(executor, code);
+		int queueLength = executor.getQueue().size();
+		if (queueLength > 0 && queueLength % QUEUE_WARNING_LENGTH == 0) {
+			LOGGER.warning("Requests are queued: " + getStatistics(priority));
+		}
+		return future;
+	}
+
+	/**
+	 * Sets the max number of threads which run the requests of the given priority.
+	 *
+	 * @param priority the request priority.
+	 * @param threads  the number of threads.
+	 */
+	public void setThreads(RequestPriority priority, int threads) {
+		if (threads < 1) {
+			return;
+		}
+		ThreadPoolExecutor executor = executors.get(priority);
+		synchronized (executor) {
+			if (threads > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(threads);
+				executor.setCorePoolSize(threads);
+			} else {
+				executor.setCorePoolSize(threads);
+				executor.setMaximumPoolSize(threads);
+			}
+		}
+	}
+
+	/**
+	 * Returns the max number of threads which run the requests of the given
+	 * priority.
+	 *
+	 * @param priority the request priority.
+	 * @return the max number of threads which run the requests of the given
+	 *         priority.
+	 */
+	public int getThreads(RequestPriority priority) {
+		return executors.get(priority).getMaximumPoolSize();
+	}
+
+	/**
+	 * Returns the number of requests of the given priority which wait for a
+	 * thread.
+	 *
+	 * @param priority the request priority.
+	 * @return the number of requests of the given priority which wait for a
+	 *         thread.
+	 */
+	public int getQueueLength(RequestPriority priority) {
+		return executors.get(priority).getQueue().size();
+	}
+
+	/**
+	 * Returns the number of requests of the given priority which are running.
+	 *
+	 * @param priority the request priority.
+	 * @return the number of requests of the given priority which are running.
+	 */
+	public int getActiveCount(RequestPriority priority) {
+		return executors.get(priority).getActiveCount();
+	}
+
+	/**
+	 * Returns the approximate number of requests of the given priority which have
+	 * been run.
+	 *
+	 * @param priority the request priority.
+	 * @return the approximate number of requests of the given priority which have
+	 *         been run.
+	 */
+	public long getCompletedCount(RequestPriority priority) {
+		return executors.get(priority).getCompletedTaskCount();
+	}
+
+	/**
+	 * Returns the statistics of the requests of the given priority (threads,
+	 * running, queued and completed requests).
+	 *
+	 * @param priority the request priority.
+	 * @return the statistics of the requests of the given priority.
+	 */
+	public String getStatistics(RequestPriority priority) {
+		return priority.name().toLowerCase() + " (" + getThreads(priority) + " threads, " + getActiveCount(priority)
+				+ " running, " + getQueueLength(priority) + " queued, " + getCompletedCount(priority) + " completed)";
+	}
+
+	/**
+	 * Logs the statistics of the requests of each priority and stops the threads,
+	 * the queued requests are not run.
+	 */
+	public void shutdown() {
+		LOGGER.info("Request scheduler statistics: " + Arrays.stream(RequestPriority.values())
+				.map(this::getStatistics).collect(Collectors.joining(", ")));
+		executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+	}
+}
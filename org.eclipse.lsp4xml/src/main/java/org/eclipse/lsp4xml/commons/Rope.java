@@ -0,0 +1,336 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+/**
+ * Immutable text buffer stored as a balanced tree of text chunks.
+ *
+ * <p>
+ * Replacing a range of text creates a new rope which shares the unchanged
+ * chunks with the original rope in O(log n), so a rope can be used as a cheap
+ * snapshot of a text document. The rope is a {@link CharSequence}: sequential
+ * reads with {@link #charAt(int)} reuse the last visited chunk and don't need
+ * to flatten the text to a {@link String}.
+ * </p>
+ *
+ */
+public abstract class Rope implements CharSequence {
+
+	/**
+	 * Maximum length of a text chunk.
+	 */
+	static final int MAX_LEAF_LENGTH = 1024;
+
+	private static final Rope EMPTY = new Leaf("");
+
+	private Rope() {
+	}
+
+	/**
+	 * Returns a rope for the given text.
+	 *
+	 * @param text the text.
+	 * @return a rope for the given text.
+	 */
+	public static Rope of(CharSequence text) {
+		if (text instanceof Rope) {
+			return (Rope) text;
+		}
+		return of(text.toString(), 0, text.length());
+	}
+
+	private static Rope of(String text, int start, int end) {
+		int length = end - start;
+		if (length == 0) {
+			return EMPTY;
+		}
+		if (length <= MAX_LEAF_LENGTH) {
+			return new Leaf(start == 0 && end == text.length() ? text : text.substring(start, end));
+		}
+		int middle = start + length / 2;
+		return new Concat(of(text, start, middle), of(text, middle, end));
+	}
+
+	/**
+	 * Returns a new rope where the text between the given offsets is replaced with
+	 * the given text. This rope is not modified.
+	 *
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @param text  the new text.
+	 * @return a new rope where the text between the given offsets is replaced with
+	 *         the given text.
+	 */
+	public Rope replace(int start, int end, CharSequence text) {
+		checkRange(start, end);
+		Rope[] startSplit = split(this, start);
+		Rope right = split(startSplit[1], end - start)[1];
+		return concat(concat(startSplit[0], of(text)), right);
+	}
+
+	/**
+	 * Returns a rope which is the concatenation of the given ropes.
+	 *
+	 * @param left  the left rope.
+	 * @param right the right rope.
+	 * @return a rope which is the concatenation of the given ropes.
+	 */
+	public static Rope concat(Rope left, Rope right) {
+		if (left.length() == 0) {
+			return right;
+		}
+		if (right.length() == 0) {
+			return left;
+		}
+		if (left instanceof Leaf && right instanceof Leaf && left.length() + right.length() <= MAX_LEAF_LENGTH) {
+			return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+		}
+		// a small chunk (ex: a typed character) is merged into the adjacent chunk of
+		// the other rope, instead of adding a small leaf for each edit.
+		if (left instanceof Concat && right instanceof Leaf
+				&& lastLeaf(left).length() + right.length() <= MAX_LEAF_LENGTH) {
+			Concat l = (Concat) left;
+			return concat(l.left, concat(l.right, right));
+		}
+		if (right instanceof Concat && left instanceof Leaf
+				&& left.length() + firstLeaf(right).length() <= MAX_LEAF_LENGTH) {
+			Concat r = (Concat) right;
+			return concat(concat(left, r.left), r.right);
+		}
+		if (left.height() > right.height() + 1) {
+			Concat l = (Concat) left;
+			return balance(l.left, concat(l.right, right));
+		}
+		if (right.height() > left.height() + 1) {
+			Concat r = (Concat) right;
+			return balance(concat(left, r.left), r.right);
+		}
+		return new Concat(left, right);
+	}
+
+	private static Rope lastLeaf(Rope rope) {
+		while (rope instanceof Concat) {
+			rope = ((Concat) rope).right;
+		}
+		return rope;
+	}
+
+	private static Rope firstLeaf(Rope rope) {
+		while (rope instanceof Concat) {
+			rope = ((Concat) rope).left;
+		}
+		return rope;
+	}
+
+	private static Rope balance(Rope left, Rope right) {
+		if (left.height() > right.height() + 1) {
+			Concat l = (Concat) left;
+			if (l.left.height() >= l.right.height()) {
+				return new Concat(l.left, new Concat(l.right, right));
+			}
+			Concat lr = (Concat) l.right;
+			return new Concat(new Concat(l.left, lr.left), new Concat(lr.right, right));
+		}
+		if (right.height() > left.height() + 1) {
+			Concat r = (Concat) right;
+			if (r.right.height() >= r.left.height()) {
+				return new Concat(new Concat(left, r.left), r.right);
+			}
+			Concat rl = (Concat) r.left;
+			return new Concat(new Concat(left, rl.left), new Concat(rl.right, r.right));
+		}
+		return new Concat(left, right);
+	}
+
+	private static Rope[] split(Rope rope, int index) {
+		if (index == 0) {
+			return new Rope[] { EMPTY, rope };
+		}
+		if (index == rope.length()) {
+			return new Rope[] { rope, EMPTY };
+		}
+		if (rope instanceof Leaf) {
+			String text = ((Leaf) rope).text;
+			return new Rope[] { new Leaf(text.substring(0, index)), new Leaf(text.substring(index)) };
+		}
+		Concat concat = (Concat) rope;
+		int leftLength = concat.left.length();
+		if (index < leftLength) {
+			Rope[] leftSplit = split(concat.left, index);
+			return new Rope[] { leftSplit[0], concat(leftSplit[1], concat.right) };
+		}
+		if (index > leftLength) {
+			Rope[] rightSplit = split(concat.right, index - leftLength);
+			return new Rope[] { concat(concat.left, rightSplit[0]), rightSplit[1] };
+		}
+		return new Rope[] { concat.left, concat.right };
+	}
+
+	@Override
+	public Rope subSequence(int start, int end) {
+		checkRange(start, end);
+		return split(split(this, end)[0], start)[1];
+	}
+
+	/**
+	 * Copies the characters between the given offsets into the given array.
+	 *
+	 * @param start    the start offset (inclusive).
+	 * @param end      the end offset (exclusive).
+	 * @param dst      the destination array.
+	 * @param dstBegin the start offset in the destination array.
+	 */
+	public void getChars(int start, int end, char[] dst, int dstBegin) {
+		checkRange(start, end);
+		copyChars(start, end, dst, dstBegin);
+	}
+
+	private void checkRange(int start, int end) {
+		if (start < 0 || end > length() || start > end) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+		}
+	}
+
+	abstract void copyChars(int start, int end, char[] dst, int dstBegin);
+
+	abstract int height();
+
+	/**
+	 * Chunk of text.
+	 */
+	private static class Leaf extends Rope {
+
+		private final String text;
+
+		Leaf(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public int length() {
+			return text.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return text.charAt(index);
+		}
+
+		@Override
+		int height() {
+			return 0;
+		}
+
+		@Override
+		void copyChars(int start, int end, char[] dst, int dstBegin) {
+			text.getChars(start, end, dst, dstBegin);
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+
+	/**
+	 * Concatenation of two ropes.
+	 */
+	private static class Concat extends Rope {
+
+		private final Rope left;
+		private final Rope right;
+		private final int length;
+		private final int height;
+
+		// last visited chunk, used to read sequentially the rope in O(1).
+		private ChunkPosition lastChunk;
+
+		Concat(Rope left, Rope right) {
+			this.left = left;
+			this.right = right;
+			this.length = left.length() + right.length();
+			this.height = Math.max(left.height(), right.height()) + 1;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		int height() {
+			return height;
+		}
+
+		@Override
+		public char charAt(int index) {
+			ChunkPosition chunk = lastChunk;
+			if (chunk == null || index < chunk.start || index >= chunk.start + chunk.text.length()) {
+				if (index < 0 || index >= length) {
+					throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+				}
+				chunk = findChunk(index);
+				lastChunk = chunk;
+			}
+			return chunk.text.charAt(index - chunk.start);
+		}
+
+		private ChunkPosition findChunk(int index) {
+			Rope rope = this;
+			int start = 0;
+			while (rope instanceof Concat) {
+				Concat concat = (Concat) rope;
+				int leftLength = concat.left.length();
+				if (index < leftLength) {
+					rope = concat.left;
+				} else {
+					rope = concat.right;
+					index -= leftLength;
+					start += leftLength;
+				}
+			}
+			return new ChunkPosition(((Leaf) rope).text, start);
+		}
+
+		@Override
+		void copyChars(int start, int end, char[] dst, int dstBegin) {
+			int leftLength = left.length();
+			if (start < leftLength) {
+				left.copyChars(start, Math.min(end, leftLength), dst, dstBegin);
+			}
+			if (end > leftLength) {
+				int rightStart = Math.max(start, leftLength);
+				right.copyChars(rightStart - leftLength, end - leftLength, dst, dstBegin + rightStart - start);
+			}
+		}
+
+		@Override
+		public String toString() {
+			char[] chars = new char[length];
+			copyChars(0, length, chars, 0);
+			return new String(chars);
+		}
+	}
+
+	/**
+	 * Text chunk with its start offset in the rope.
+	 */
+	private static class ChunkPosition {
+
+		private final String text;
+		private final int start;
+
+		ChunkPosition(String text, int start) {
+			this.text = text;
+			this.start = start;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+
+/**
+ * Offset-based representation of a {@link TextDocumentContentChangeEvent}
+ * applied to a {@link TextDocument}.
+ *
+ */
+public class TextChange {
+
+	private final int version;
+	private final int offset;
+	private final int length;
+	private final int newLength;
+
+	/**
+	 * Creates a text change.
+	 *
+	 * @param version   the version of the document produced by the change.
+	 * @param offset    the offset of the change in the text before the change.
+	 * @param length    the length of the replaced text.
+	 * @param newLength the length of the inserted text.
+	 */
+	public TextChange(int version, int offset, int length, int newLength) {
+		this.version = version;
+		this.offset = offset;
+		this.length = length;
+		this.newLength = newLength;
+	}
+
+	/**
+	 * Returns the version of the document produced by the change.
+	 *
+	 * @return the version of the document produced by the change.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the offset of the change in the text before the change.
+	 *
+	 * @return the offset of the change in the text before the change.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the length of the replaced text.
+	 *
+	 * @return the length of the replaced text.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the length of the inserted text.
+	 *
+	 * @return the length of the inserted text.
+	 */
+	public int getNewLength() {
+		return newLength;
+	}
+
+	@Override
+	public String toString() {
+		return "TextChange [version: " + version + ", offset: " + offset + ", length: " + length + ", newLength: "
+				+ newLength + "]";
+	}
+}
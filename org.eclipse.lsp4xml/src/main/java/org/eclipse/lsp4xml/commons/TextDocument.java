@@ -10,6 +10,8 @@
  */
 package org.eclipse.lsp4xml.commons;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -28,10 +30,23 @@ public class TextDocument extends TextDocumentItem {
 
 	private static String DEFAULT_DELIMTER = System.lineSeparator();
 
+	/**
+	 * Maximum number of text changes kept to parse the document incrementally.
+	 */
+	private static final int MAX_CHANGES = 100;
+
 	private ListLineTracker lineTracker;
 
 	// Buffer of the text document used only in incremental mode.
-	private StringBuilder buffer;
+	private volatile Rope buffer;
+
+	// Flatten text of the buffer, computed on demand by getText().
+	private volatile FlattenText flattenText;
+
+	// Changes applied to the text since the base version, used only in incremental
+	// mode.
+	private final List<TextChange> changes = new ArrayList<>();
+	private int changesBaseVersion;
 
 	public TextDocument(TextDocumentItem document) {
 		this(document.getText(), document.getUri());
@@ -44,38 +59,129 @@ public class TextDocument extends TextDocumentItem {
 		super.setText(text);
 	}
 
-	public void setIncremental(boolean incremental) {
+	public synchronized void setIncremental(boolean incremental) {
 		if (incremental) {
-			buffer = new StringBuilder(getText());
+			buffer = Rope.of(getText());
+			// the text is now stored in the buffer.
+			super.setText("");
 		} else {
+			String text = getText();
 			buffer = null;
+			flattenText = null;
+			super.setText(text);
 		}
 	}
 
 	@Override
-	public void setText(String text) {
-		super.setText(text);
+	public synchronized void setText(String text) {
+		if (buffer != null) {
+			buffer = Rope.of(text);
+			flattenText = null;
+		} else {
+			super.setText(text);
+		}
 		lineTracker = null;
+		resetChanges();
+	}
+
+	/**
+	 * Returns the text of the document. In incremental mode, the text is built on
+	 * demand from the buffer, use {@link #getSnapshot()} to read the text without
+	 * copying it.
+	 *
+	 * @return the text of the document.
+	 */
+	@Override
+	public String getText() {
+		Rope buffer = this.buffer;
+		if (buffer != null) {
+			// the text is flattened once per version of the buffer.
+			FlattenText flattenText = this.flattenText;
+			if (flattenText == null || flattenText.buffer != buffer) {
+				flattenText = new FlattenText(buffer, buffer.toString());
+				this.flattenText = flattenText;
+			}
+			return flattenText.text;
+		}
+		return super.getText();
+	}
+
+	/**
+	 * Returns an immutable snapshot of the text of the document. In incremental
+	 * mode, the snapshot shares its content with the buffer of the document and
+	 * taking it doesn't copy the text.
+	 *
+	 * @return an immutable snapshot of the text of the document.
+	 */
+	public CharSequence getSnapshot() {
+		Rope buffer = this.buffer;
+		if (buffer != null) {
+			return buffer;
+		}
+		return super.getText();
 	}
 
-	public Position positionAt(int position) throws BadLocationException {
+	private void resetChanges() {
+		synchronized (changes) {
+			changes.clear();
+			changesBaseVersion = getVersion();
+		}
+	}
+
+	private void addChange(TextChange change) {
+		synchronized (changes) {
+			if (changes.size() == MAX_CHANGES) {
+				changesBaseVersion = changes.remove(0).getVersion();
+			}
+			changes.add(change);
+		}
+	}
+
+	/**
+	 * Returns the offset-based changes applied to the text since the given version
+	 * and null if the changes are not available (the document is not managed in
+	 * incremental mode, the whole text has been replaced or too many changes have
+	 * been applied since the given version).
+	 *
+	 * @param version the version of the document.
+	 * @return the changes applied to the text since the given version and null if
+	 *         the changes are not available.
+	 */
+	public List<TextChange> getChangesSince(int version) {
+		synchronized (changes) {
+			if (version < changesBaseVersion || version > getVersion()) {
+				return null;
+			}
+			if (version == getVersion()) {
+				return Collections.emptyList();
+			}
+			List<TextChange> result = new ArrayList<>();
+			for (TextChange change : changes) {
+				if (change.getVersion() > version) {
+					result.add(change);
+				}
+			}
+			return result;
+		}
+	}
+
+	public synchronized Position positionAt(int position) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		return lineTracker.getPositionAt(position);
 	}
 
-	public int offsetAt(Position position) throws BadLocationException {
+	public synchronized int offsetAt(Position position) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		return lineTracker.getOffsetAt(position);
 	}
 
-	public String lineText(int lineNumber) throws BadLocationException {
+	public synchronized String lineText(int lineNumber) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		Line line = lineTracker.getLineInformation(lineNumber);
-		String text = super.getText();
-		return text.substring(line.offset, line.offset + line.length);
+		return getSnapshot().subSequence(line.offset, line.offset + line.length).toString();
 	}
 
-	public String lineDelimiter(int lineNumber) throws BadLocationException {
+	public synchronized String lineDelimiter(int lineNumber) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		String lineDelimiter = lineTracker.getLineDelimiter(lineNumber);
 		if (lineDelimiter == null) {
@@ -89,13 +195,12 @@ public class TextDocument extends TextDocumentItem {
 		return lineDelimiter;
 	}
 
-	public Range getWordRangeAt(int textOffset, Pattern wordDefinition) {
+	public synchronized Range getWordRangeAt(int textOffset, Pattern wordDefinition) {
 		try {
 			Position pos = positionAt(textOffset);
 			ListLineTracker lineTracker = getLineTracker();
 			Line line = lineTracker.getLineInformation(pos.getLine());
-			String text = super.getText();
-			String lineText = text.substring(line.offset, textOffset);
+			String lineText = getSnapshot().subSequence(line.offset, textOffset).toString();
 			int position = lineText.length();
 			Matcher m = wordDefinition.matcher(lineText);
 			int currentPosition = 0;
@@ -116,10 +221,28 @@ public class TextDocument extends TextDocumentItem {
 		}
 	}
 
+	/**
+	 * Sets the offsets of the line starts of the given snapshot, computed by the
+	 * XML scanner, so that the lines are not computed by scanning the text again.
+	 * The offsets are ignored if the lines are already computed or if the text of
+	 * the document is not the given snapshot anymore.
+	 * 
+	 * @param snapshot    the snapshot of the text.
+	 * @param lineOffsets the sorted offsets of the line starts, the first one is 0.
+	 * @param count       the number of line starts.
+	 */
+	public synchronized void setLineOffsets(CharSequence snapshot, int[] lineOffsets, int count) {
+		if (lineTracker == null && getSnapshot() == snapshot) {
+			ListLineTracker lineTracker = new ListLineTracker();
+			lineTracker.set(snapshot, lineOffsets, count);
+			this.lineTracker = lineTracker;
+		}
+	}
+
 	private ListLineTracker getLineTracker() {
 		if (lineTracker == null) {
 			lineTracker = new ListLineTracker();
-			lineTracker.set(super.getText());
+			lineTracker.set(getSnapshot());
 		}
 		return lineTracker;
 	}
@@ -130,34 +253,37 @@ public class TextDocument extends TextDocumentItem {
 	 * 
 	 * @param changes the text document changes.
 	 */
-	public void update(List<TextDocumentContentChangeEvent> changes) {
+	public synchronized void update(List<TextDocumentContentChangeEvent> changes) {
 		if (changes.size() < 1) {
 			// no changes, ignore it.
 			return;
 		}
 		if (isIncremental()) {
 			try {
-				synchronized (buffer) {
-					for (TextDocumentContentChangeEvent changeEvent : changes) {
-
-						Range range = changeEvent.getRange();
-						int length = 0;
-
-						if (range != null) {
-							length = changeEvent.getRangeLength().intValue();
-						} else {
-							// range is optional and if not given, the whole file content is replaced
-							length = getText().length();
-							range = new Range(positionAt(0), positionAt(length));
-						}
-						String text = changeEvent.getText();
-						int startOffset = offsetAt(range.getStart());
-						buffer.replace(startOffset, startOffset + length, text);
+				for (TextDocumentContentChangeEvent changeEvent : changes) {
+
+					Range range = changeEvent.getRange();
+					int length = 0;
+
+					if (range != null) {
+						length = changeEvent.getRangeLength().intValue();
+					} else {
+						// range is optional and if not given, the whole file content is replaced
+						length = buffer.length();
+						range = new Range(positionAt(0), positionAt(length));
 					}
-					setText(buffer.toString());
+					String text = changeEvent.getText();
+					int startOffset = offsetAt(range.getStart());
+					buffer = buffer.replace(startOffset, startOffset + length, text);
+					flattenText = null;
+					// update the lines touched by the change, the positions of the next change
+					// are relative to the updated text.
+					getLineTracker().replace(startOffset, length, text.length(), buffer);
+					addChange(new TextChange(getVersion(), startOffset, length, text.length()));
 				}
 			} catch (BadLocationException e) {
 				// Should never occurs.
+				lineTracker = null;
 			}
 		} else {
 			// like vscode does, get the last changes
@@ -174,4 +300,18 @@ public class TextDocument extends TextDocumentItem {
 		return buffer != null;
 	}
 
+	/**
+	 * Flatten text of a buffer.
+	 */
+	private static class FlattenText {
+
+		private final Rope buffer;
+		private final String text;
+
+		FlattenText(Rope buffer, String text) {
+			this.buffer = buffer;
+			this.text = text;
+		}
+	}
+
 }
@@ -82,8 +82,12 @@ public class TextDocuments implements ITextDocumentFactory {
 		List<TextDocumentContentChangeEvent> changes = params.getContentChanges();
 		TextDocument document = get(params.getTextDocument().getUri());
 		if (document != null) {
-			document.setVersion(params.getTextDocument().getVersion());
-			document.update(changes);
+			// the version and the text must be updated together for the incremental
+			// parser which reads them with the lock of the document.
+			synchronized (document) {
+				document.setVersion(params.getTextDocument().getVersion());
+				document.update(changes);
+			}
 		}
 	}
 
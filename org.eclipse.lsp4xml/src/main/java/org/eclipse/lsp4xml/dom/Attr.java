@@ -182,6 +182,32 @@ public class Attr extends Node implements org.w3c.dom.Attr {
 		this.nodeAttrValue = nodeAttrValue;
 	}
 
+	/**
+	 * Returns a copy of this attribute for the given copy of its owner element.
+	 * 
+	 * @param ownerElement the copy of the owner element.
+	 * @return a copy of this attribute for the given copy of its owner element.
+	 */
+	Attr copy(Node ownerElement) {
+		Attr attr = nodeAttrName != null ? new Attr(name, nodeAttrName.start, nodeAttrName.end, ownerElement)
+				: new Attr(name, ownerElement);
+		attr.value = value;
+		if (nodeAttrValue != null) {
+			attr.nodeAttrValue = attr.new AttrNameOrValue(nodeAttrValue.start, nodeAttrValue.end, attr);
+		}
+		return attr;
+	}
+
+	@Override
+	void shift(int delta) {
+		if (nodeAttrName != null) {
+			nodeAttrName.shift(delta);
+		}
+		if (nodeAttrValue != null) {
+			nodeAttrValue.shift(delta);
+		}
+	}
+
 	public boolean isIncluded(int offset) {
 		return Node.isIncluded(getStart(), getEnd(), offset);
 	}
@@ -23,6 +23,25 @@ public class CDataSection extends Text implements org.w3c.dom.CDATASection {
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		// content offsets are not set when the node has no content
+		if (startContent != 0) {
+			startContent += delta;
+			endContent += delta;
+		}
+	}
+
+	@Override
+	CDataSection copy(XMLDocument ownerDocument) {
+		CDataSection cdata = new CDataSection(start, end, ownerDocument);
+		copyTo(cdata);
+		cdata.startContent = startContent;
+		cdata.endContent = endContent;
+		return cdata;
+	}
+
 	@Override
 	public int getStartContent() {
 		return startContent;
@@ -88,7 +88,7 @@ public abstract class CharacterData extends Node implements org.w3c.dom.Characte
 	@Override
 	public String getData() {
 		if (data == null) {
-			data = getOwnerDocument().getText().substring(getStartContent(), getEndContent());
+			data = getOwnerDocument().getSnapshot().subSequence(getStartContent(), getEndContent()).toString();
 		}
 		return data;
 	}
@@ -30,6 +30,26 @@ public class Comment extends CharacterData implements org.w3c.dom.Comment {
 		return commentSameLineEndTag;
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		// content offsets are not set when the node has no content
+		if (startContent != 0) {
+			startContent += delta;
+			endContent += delta;
+		}
+	}
+
+	@Override
+	Comment copy(XMLDocument ownerDocument) {
+		Comment comment = new Comment(start, end, ownerDocument);
+		copyTo(comment);
+		comment.commentSameLineEndTag = commentSameLineEndTag;
+		comment.startContent = startContent;
+		comment.endContent = endContent;
+		return comment;
+	}
+
 	@Override
 	public int getStartContent() {
 		return startContent;
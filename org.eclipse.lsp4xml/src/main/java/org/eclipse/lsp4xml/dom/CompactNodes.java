@@ -0,0 +1,572 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact storage of the nodes of an XML document.
+ *
+ * <p>
+ * The nodes are stored in <code>int</code> columns (kind, start, end, parent,
+ * first child, next sibling, etc) indexed by the position of the node in
+ * document order, the document itself being the node 0. Tag names, attribute
+ * names and processing instruction targets are interned in a name table. The
+ * columns are filled by the parser with a {@link Builder}, so the graph of
+ * objects of the whole document is never built.
+ * </p>
+ *
+ * <p>
+ * A {@link Node} is created on demand as a view of a row when it is reached
+ * with the DOM API (see {@link Node#getChildren()}), so the retained size of a
+ * parsed document is a few integers per node instead of a graph of objects.
+ * There is at most one view of a row at a time: the views are weakly referenced
+ * by their row, so a node which is reached twice is the same object as long as
+ * it is used.
+ * </p>
+ *
+ */
+final class CompactNodes {
+
+	private static final int NULL = -1;
+
+	// bits of the kind column
+	private static final int TYPE_MASK = 0xF;
+	private static final int CLOSED = 1 << 4;
+	private static final int SELF_CLOSED = 1 << 5;
+	private static final int HAS_START_TAG = 1 << 6;
+	private static final int START_TAG_CLOSE = 1 << 7;
+	private static final int PROLOG = 1 << 8;
+	private static final int PROCESSING_INSTRUCTION = 1 << 9;
+	private static final int COMMENT_SAME_LINE_END_TAG = 1 << 10;
+
+	private final XMLDocument document;
+	private final CharSequence text;
+	private final String[] names;
+	private final int size;
+
+	// node columns
+	private final int[] kinds;
+	private final int[] starts;
+	private final int[] ends;
+	private final int[] parents;
+	private final int[] firstChildren;
+	private final int[] nextSiblings;
+	private final int[] childIndexes;
+	private final int[] nameIndexes;
+	// start tag close / end tag open offsets for elements, content offsets for
+	// comments, CDATA, doctype and processing instructions.
+	private final int[] data1;
+	private final int[] data2;
+	private final int[] data3;
+	// the attributes of the node i are [firstAttributes[i], firstAttributes[i] +
+	// attributeCounts[i][
+	private final int[] firstAttributes;
+	private final int[] attributeCounts;
+
+	// attribute columns
+	private final int[] attributeNames;
+	private final int[] attributeStarts;
+	private final int[] attributeValueStarts;
+	private final int[] attributeValueEnds;
+
+	// the views of the rows which are used
+	private final AtomicReferenceArray<WeakReference<Node>> views;
+
+	private CompactNodes(Builder builder) {
+		this.document = builder.document;
+		this.text = builder.text;
+		this.size = builder.size;
+		this.kinds = Arrays.copyOf(builder.kinds, size);
+		this.starts = Arrays.copyOf(builder.starts, size);
+		this.ends = Arrays.copyOf(builder.ends, size);
+		this.parents = Arrays.copyOf(builder.parents, size);
+		this.firstChildren = Arrays.copyOf(builder.firstChildren, size);
+		this.nextSiblings = Arrays.copyOf(builder.nextSiblings, size);
+		this.childIndexes = Arrays.copyOf(builder.childIndexes, size);
+		this.nameIndexes = Arrays.copyOf(builder.nameIndexes, size);
+		this.data1 = Arrays.copyOf(builder.data1, size);
+		this.data2 = Arrays.copyOf(builder.data2, size);
+		this.data3 = Arrays.copyOf(builder.data3, size);
+		this.firstAttributes = Arrays.copyOf(builder.firstAttributes, size);
+		this.attributeCounts = Arrays.copyOf(builder.attributeCounts, size);
+		int attributeSize = builder.attributeSize;
+		this.attributeNames = Arrays.copyOf(builder.attributeNames, attributeSize);
+		this.attributeStarts = Arrays.copyOf(builder.attributeStarts, attributeSize);
+		this.attributeValueStarts = Arrays.copyOf(builder.attributeValueStarts, attributeSize);
+		this.attributeValueEnds = Arrays.copyOf(builder.attributeValueEnds, attributeSize);
+		this.names = new String[builder.nameTable.size()];
+		for (Map.Entry<String, Integer> entry : builder.nameTable.entrySet()) {
+			names[entry.getValue()] = entry.getKey();
+		}
+		this.views = new AtomicReferenceArray<>(size);
+	}
+
+	/**
+	 * Stores the nodes in the columns while the document is parsed.
+	 *
+	 * <p>
+	 * The parser adds the nodes with {@link #addChild(Node, Node)} instead of
+	 * {@link Node#addChild(Node)}. A row is reserved in document order for each
+	 * node when it is added, and the node is stored in its row and released once
+	 * the parser can no longer modify it: when a next sibling is added to its
+	 * parent or when the parse ends. Only the nodes of the current path and their
+	 * last children exist as objects.
+	 * </p>
+	 */
+	static final class Builder {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		private final XMLDocument document;
+		private final CharSequence text;
+		private final Map<String, Integer> nameTable = new HashMap<>();
+		// rows of the nodes which are not stored yet
+		private final Map<Node, Integer> rows = new IdentityHashMap<>();
+		// last children of the nodes which are not stored yet
+		private final Map<Node, Node> lastChildren = new IdentityHashMap<>();
+
+		private int size;
+		private int[] kinds = new int[INITIAL_CAPACITY];
+		private int[] starts = new int[INITIAL_CAPACITY];
+		private int[] ends = new int[INITIAL_CAPACITY];
+		private int[] parents = new int[INITIAL_CAPACITY];
+		private int[] firstChildren = new int[INITIAL_CAPACITY];
+		private int[] nextSiblings = new int[INITIAL_CAPACITY];
+		private int[] childIndexes = new int[INITIAL_CAPACITY];
+		private int[] nameIndexes = new int[INITIAL_CAPACITY];
+		private int[] data1 = new int[INITIAL_CAPACITY];
+		private int[] data2 = new int[INITIAL_CAPACITY];
+		private int[] data3 = new int[INITIAL_CAPACITY];
+		private int[] firstAttributes = new int[INITIAL_CAPACITY];
+		private int[] attributeCounts = new int[INITIAL_CAPACITY];
+
+		private int attributeSize;
+		private int[] attributeNames = new int[INITIAL_CAPACITY];
+		private int[] attributeStarts = new int[INITIAL_CAPACITY];
+		private int[] attributeValueStarts = new int[INITIAL_CAPACITY];
+		private int[] attributeValueEnds = new int[INITIAL_CAPACITY];
+
+		/**
+		 * Creates a builder for the given XML document parsed from the given text.
+		 *
+		 * @param document the XML document.
+		 * @param text     the parsed text.
+		 */
+		Builder(XMLDocument document, CharSequence text) {
+			this.document = document;
+			this.text = text;
+			int row = newRow();
+			parents[row] = NULL;
+			childIndexes[row] = NULL;
+			rows.put(document, row);
+		}
+
+		/**
+		 * Adds the given child to the given parent, which is not stored yet.
+		 *
+		 * @param parent the parent node.
+		 * @param child  the created child node.
+		 */
+		void addChild(Node parent, Node child) {
+			child.parent = parent;
+			int row = newRow();
+			int parentRow = rows.get(parent);
+			parents[row] = parentRow;
+			Node previousSibling = lastChildren.put(parent, child);
+			if (previousSibling == null) {
+				firstChildren[parentRow] = row;
+				childIndexes[row] = 0;
+			} else {
+				int previousRow = rows.get(previousSibling);
+				nextSiblings[previousRow] = row;
+				childIndexes[row] = childIndexes[previousRow] + 1;
+				store(previousSibling);
+			}
+			rows.put(child, row);
+		}
+
+		/**
+		 * Stores the nodes which are not stored yet and returns the compact nodes.
+		 *
+		 * @return the compact nodes.
+		 */
+		CompactNodes build() {
+			store(document);
+			return new CompactNodes(this);
+		}
+
+		private int newRow() {
+			if (size == kinds.length) {
+				int capacity = size * 2;
+				kinds = Arrays.copyOf(kinds, capacity);
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				firstChildren = Arrays.copyOf(firstChildren, capacity);
+				nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+				childIndexes = Arrays.copyOf(childIndexes, capacity);
+				nameIndexes = Arrays.copyOf(nameIndexes, capacity);
+				data1 = Arrays.copyOf(data1, capacity);
+				data2 = Arrays.copyOf(data2, capacity);
+				data3 = Arrays.copyOf(data3, capacity);
+				firstAttributes = Arrays.copyOf(firstAttributes, capacity);
+				attributeCounts = Arrays.copyOf(attributeCounts, capacity);
+			}
+			int row = size++;
+			firstChildren[row] = NULL;
+			nextSiblings[row] = NULL;
+			return row;
+		}
+
+		private int newAttribute() {
+			if (attributeSize == attributeNames.length) {
+				int capacity = attributeSize * 2;
+				attributeNames = Arrays.copyOf(attributeNames, capacity);
+				attributeStarts = Arrays.copyOf(attributeStarts, capacity);
+				attributeValueStarts = Arrays.copyOf(attributeValueStarts, capacity);
+				attributeValueEnds = Arrays.copyOf(attributeValueEnds, capacity);
+			}
+			return attributeSize++;
+		}
+
+		/**
+		 * Stores the given node and its last descendants which are not stored yet,
+		 * the parser doesn't modify them anymore.
+		 */
+		private void store(Node node) {
+			while (node != null) {
+				store(rows.remove(node), node);
+				node = lastChildren.remove(node);
+			}
+		}
+
+		private void store(int row, Node node) {
+			int kind = node.getNodeType();
+			if (node.closed) {
+				kind |= CLOSED;
+			}
+			starts[row] = node.start;
+			ends[row] = node.end;
+			nameIndexes[row] = NULL;
+			data1[row] = NULL;
+			data2[row] = NULL;
+			data3[row] = NULL;
+			switch (node.getNodeType()) {
+			case Node.ELEMENT_NODE: {
+				Element element = (Element) node;
+				if (element.selfClosed) {
+					kind |= SELF_CLOSED;
+				}
+				if (element.startTagOpenOffset != null) {
+					kind |= HAS_START_TAG;
+				}
+				nameIndexes[row] = intern(element.tag);
+				data1[row] = toInt(element.startTagCloseOffset);
+				data2[row] = toInt(element.endTagOpenOffset);
+				break;
+			}
+			case Node.COMMENT_NODE: {
+				Comment comment = (Comment) node;
+				if (comment.commentSameLineEndTag) {
+					kind |= COMMENT_SAME_LINE_END_TAG;
+				}
+				data1[row] = comment.startContent;
+				data2[row] = comment.endContent;
+				break;
+			}
+			case Node.CDATA_SECTION_NODE: {
+				CDataSection cdata = (CDataSection) node;
+				data1[row] = cdata.startContent;
+				data2[row] = cdata.endContent;
+				break;
+			}
+			case Node.PROCESSING_INSTRUCTION_NODE: {
+				ProcessingInstruction processingInstruction = (ProcessingInstruction) node;
+				if (processingInstruction.startTagClose) {
+					kind |= START_TAG_CLOSE;
+				}
+				if (processingInstruction.prolog) {
+					kind |= PROLOG;
+				}
+				if (processingInstruction.processingInstruction) {
+					kind |= PROCESSING_INSTRUCTION;
+				}
+				nameIndexes[row] = intern(processingInstruction.target);
+				data1[row] = processingInstruction.startContent;
+				data2[row] = processingInstruction.endContent;
+				data3[row] = toInt(processingInstruction.endTagOpenOffset);
+				break;
+			}
+			case Node.DOCUMENT_TYPE_NODE: {
+				DocumentType documentType = (DocumentType) node;
+				nameIndexes[row] = intern(documentType.name);
+				data1[row] = documentType.startContent;
+				data2[row] = documentType.endContent;
+				break;
+			}
+			default:
+			}
+			kinds[row] = kind;
+
+			firstAttributes[row] = attributeSize;
+			attributeCounts[row] = 0;
+			if (node.hasAttributes()) {
+				for (Attr attr : node.getAttributeNodes()) {
+					int attribute = newAttribute();
+					attributeNames[attribute] = intern(attr.getName());
+					Node attrName = attr.getNodeAttrName();
+					attributeStarts[attribute] = attrName != null ? attrName.start : NULL;
+					Node attrValue = attr.getNodeAttrValue();
+					attributeValueStarts[attribute] = attrValue != null ? attrValue.start : NULL;
+					attributeValueEnds[attribute] = attrValue != null ? attrValue.end : NULL;
+					attributeCounts[row]++;
+				}
+			}
+		}
+
+		private int intern(String name) {
+			if (name == null) {
+				return NULL;
+			}
+			Integer index = nameTable.get(name);
+			if (index == null) {
+				index = nameTable.size();
+				nameTable.put(name, index);
+			}
+			return index;
+		}
+	}
+
+	private static int toInt(Integer offset) {
+		return offset != null ? offset : NULL;
+	}
+
+	private static Integer toInteger(int offset) {
+		return offset != NULL ? offset : null;
+	}
+
+	private String getName(int nameIndex) {
+		return nameIndex != NULL ? names[nameIndex] : null;
+	}
+
+	/**
+	 * Returns the number of stored nodes, the document included.
+	 *
+	 * @return the number of stored nodes, the document included.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds to the given list the views of the children of the given node.
+	 *
+	 * @param index    the index of the node.
+	 * @param children the list to fill.
+	 */
+	void addChildren(int index, List<Node> children) {
+		for (int child = firstChildren[index]; child != NULL; child = nextSiblings[child]) {
+			children.add(getNode(child));
+		}
+	}
+
+	/**
+	 * Adds to the given list the views of the attributes of the given node.
+	 *
+	 * @param index      the index of the node.
+	 * @param node       the view of the node.
+	 * @param attributes the list to fill.
+	 */
+	void addAttributes(int index, Node node, List<Attr> attributes) {
+		int end = firstAttributes[index] + attributeCounts[index];
+		for (int i = firstAttributes[index]; i < end; i++) {
+			String name = names[attributeNames[i]];
+			int start = attributeStarts[i];
+			Attr attr = start != NULL ? new Attr(name, start, start + name.length(), node) : new Attr(name, node);
+			int valueStart = attributeValueStarts[i];
+			if (valueStart != NULL) {
+				int valueEnd = attributeValueEnds[i];
+				attr.setValue(text.subSequence(valueStart, valueEnd).toString(), valueStart, valueEnd);
+			}
+			attributes.add(attr);
+		}
+	}
+
+	/**
+	 * Returns the view of the next sibling of the given node and null if the node
+	 * is the last child of its parent.
+	 *
+	 * @param index the index of the node.
+	 * @return the view of the next sibling of the given node.
+	 */
+	Node getNextSibling(int index) {
+		int nextSibling = nextSiblings[index];
+		return nextSibling != NULL ? getNode(nextSibling) : null;
+	}
+
+	/**
+	 * Returns the view of the previous sibling of the given node and null if the
+	 * node is the first child of its parent.
+	 *
+	 * @param index the index of the node.
+	 * @return the view of the previous sibling of the given node.
+	 */
+	Node getPreviousSibling(int index) {
+		int parentIndex = parents[index];
+		if (parentIndex == NULL || firstChildren[parentIndex] == index) {
+			return null;
+		}
+		// in document order, the node which precedes this node is the previous
+		// sibling or one of its descendants
+		int previousSibling = index - 1;
+		while (parents[previousSibling] != parentIndex) {
+			previousSibling = parents[previousSibling];
+		}
+		return getNode(previousSibling);
+	}
+
+	/**
+	 * Returns the index of the node spans, which uses the columns of this
+	 * storage, so only the found nodes are created.
+	 *
+	 * @return the index of the node spans.
+	 */
+	NodeIndex createNodeIndex() {
+		return new NodeIndex(size, starts, ends, parents, this::getNode);
+	}
+
+	/**
+	 * Returns the view of the given node, which is created with the missing views
+	 * of its ancestors if it is not used.
+	 *
+	 * @param index the index of the node.
+	 * @return the view of the given node.
+	 */
+	Node getNode(int index) {
+		Node node = getView(index);
+		if (node != null) {
+			return node;
+		}
+		// create the views from the highest ancestor which has no view, the parent
+		// of a view is set before the view is published.
+		int[] missing = new int[8];
+		int count = 0;
+		int current = index;
+		Node parent;
+		while ((parent = getView(parents[current])) == null) {
+			if (count == missing.length) {
+				missing = Arrays.copyOf(missing, count * 2);
+			}
+			missing[count++] = current;
+			current = parents[current];
+		}
+		node = publish(current, createNode(current, parent));
+		while (count > 0) {
+			current = missing[--count];
+			node = publish(current, createNode(current, node));
+		}
+		return node;
+	}
+
+	private Node getView(int index) {
+		if (index == 0) {
+			return document;
+		}
+		WeakReference<Node> view = views.get(index);
+		return view != null ? view.get() : null;
+	}
+
+	/**
+	 * Publishes the given view of the given node, or returns the view published
+	 * by another thread.
+	 */
+	private Node publish(int index, Node node) {
+		WeakReference<Node> reference = new WeakReference<>(node);
+		while (true) {
+			WeakReference<Node> view = views.get(index);
+			Node published = view != null ? view.get() : null;
+			if (published != null) {
+				return published;
+			}
+			if (views.compareAndSet(index, view, reference)) {
+				return node;
+			}
+		}
+	}
+
+	private Node createNode(int index, Node parent) {
+		int kind = kinds[index];
+		int start = starts[index];
+		int end = ends[index];
+		Node node;
+		switch (kind & TYPE_MASK) {
+		case Node.ELEMENT_NODE: {
+			Element element = new Element(start, end, document);
+			element.tag = getName(nameIndexes[index]);
+			element.selfClosed = (kind & SELF_CLOSED) != 0;
+			element.startTagOpenOffset = (kind & HAS_START_TAG) != 0 ? start : null;
+			element.startTagCloseOffset = toInteger(data1[index]);
+			element.endTagOpenOffset = toInteger(data2[index]);
+			node = element;
+			break;
+		}
+		case Node.COMMENT_NODE: {
+			Comment comment = new Comment(start, end, document);
+			comment.commentSameLineEndTag = (kind & COMMENT_SAME_LINE_END_TAG) != 0;
+			comment.startContent = data1[index];
+			comment.endContent = data2[index];
+			node = comment;
+			break;
+		}
+		case Node.CDATA_SECTION_NODE: {
+			CDataSection cdata = new CDataSection(start, end, document);
+			cdata.startContent = data1[index];
+			cdata.endContent = data2[index];
+			node = cdata;
+			break;
+		}
+		case Node.PROCESSING_INSTRUCTION_NODE: {
+			ProcessingInstruction processingInstruction = new ProcessingInstruction(start, end, document);
+			processingInstruction.startTagClose = (kind & START_TAG_CLOSE) != 0;
+			processingInstruction.prolog = (kind & PROLOG) != 0;
+			processingInstruction.processingInstruction = (kind & PROCESSING_INSTRUCTION) != 0;
+			processingInstruction.target = getName(nameIndexes[index]);
+			processingInstruction.startContent = data1[index];
+			processingInstruction.endContent = data2[index];
+			processingInstruction.endTagOpenOffset = toInteger(data3[index]);
+			node = processingInstruction;
+			break;
+		}
+		case Node.DOCUMENT_TYPE_NODE: {
+			DocumentType documentType = new DocumentType(start, end, document);
+			documentType.name = getName(nameIndexes[index]);
+			documentType.startContent = data1[index];
+			documentType.endContent = data2[index];
+			node = documentType;
+			break;
+		}
+		default:
+			node = new Text(start, end, document);
+		}
+		node.closed = (kind & CLOSED) != 0;
+		node.parent = parent;
+		node.childIndex = childIndexes[index];
+		node.compactIndex = index + 1;
+		return node;
+	}
+}
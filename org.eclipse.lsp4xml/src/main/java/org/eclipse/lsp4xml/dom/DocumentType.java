@@ -31,11 +31,31 @@ public class DocumentType extends Node implements org.w3c.dom.DocumentType {
 
 	public String getContent() {
 		if (content == null) {
-			content = getOwnerDocument().getText().substring(getStartContent(), getEndContent());
+			content = getOwnerDocument().getSnapshot().subSequence(getStartContent(), getEndContent()).toString();
 		}
 		return content;
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		// content offsets are not set when the node has no content
+		if (startContent != 0) {
+			startContent += delta;
+			endContent += delta;
+		}
+	}
+
+	@Override
+	DocumentType copy(XMLDocument ownerDocument) {
+		DocumentType documentType = new DocumentType(start, end, ownerDocument);
+		copyTo(documentType);
+		documentType.name = name;
+		documentType.startContent = startContent;
+		documentType.endContent = endContent;
+		return documentType;
+	}
+
 	public int getStartContent() {
 		return startContent;
 	}
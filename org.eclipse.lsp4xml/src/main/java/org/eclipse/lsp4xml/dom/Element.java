@@ -10,10 +10,13 @@
  */
 package org.eclipse.lsp4xml.dom;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 
+import org.eclipse.lsp4xml.dom.parser.SymbolTable;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.TypeInfo;
@@ -37,6 +40,8 @@ public class Element extends Node implements org.w3c.dom.Element {
 	Integer endTagCloseOffset;
 	Integer endTagOffset;
 
+	NamespaceScope namespaceScope;
+
 	public Element(int start, int end, XMLDocument ownerDocument) {
 		super(start, end, ownerDocument);
 	}
@@ -103,7 +108,7 @@ public class Element extends Node implements org.w3c.dom.Element {
 		String prefix = null;
 		int index = name.indexOf(":"); //$NON-NLS-1$
 		if (index != -1) {
-			prefix = name.substring(0, index);
+			prefix = SymbolTable.getInstance().intern(name, 0, index);
 		}
 		return prefix;
 	}
@@ -116,30 +121,43 @@ public class Element extends Node implements org.w3c.dom.Element {
 	@Override
 	public String getNamespaceURI() {
 		String prefix = getPrefix();
-		boolean hasPrefix = prefix != null && prefix.length() > 0;
-		// Try to get xmlns attribute in the element
-		String rootElementNamespaceDeclarationName = (hasPrefix) ? XMLNS_NO_DEFAULT_ATTR + prefix // $NON-NLS-1$
-				: XMLNS_ATTR; // $NON-NLS-1$
-		String rootElementNamespace = rootElementNamespaceDeclarationName != null
-				? this.getAttribute(rootElementNamespaceDeclarationName)
-				: null;
-		if (rootElementNamespace != null) {
-			return rootElementNamespace;
-		}
-		// try to get the namespace in the parent element
-		Node parent = getParentNode();
-		while (parent != null) {
-			if (parent.getNodeType() == Node.ELEMENT_NODE) {
-				Element parentElement = ((Element) parent);
-				String namespaceURI = hasPrefix ? parentElement.getAttribute(XMLNS_NO_DEFAULT_ATTR + prefix)
-						: parentElement.getNamespaceURI();
-				if (namespaceURI != null) {
-					return namespaceURI;
+		return getNamespaceScope().getNamespaceURI(prefix != null ? prefix : "");
+	}
+
+	/**
+	 * Returns the namespace scope of the element.
+	 * 
+	 * <p>
+	 * The scope is computed by the parser when the start tag is parsed, or on
+	 * the first call for the elements which don't have one (ex: views of a
+	 * compact document).
+	 * </p>
+	 * 
+	 * @return the namespace scope of the element.
+	 */
+	public NamespaceScope getNamespaceScope() {
+		if (namespaceScope == null) {
+			// compute the scopes from the nearest ancestor which has one, without
+			// recursion for the deep documents
+			Deque<Element> elements = new ArrayDeque<>();
+			NamespaceScope scope = NamespaceScope.EMPTY;
+			Element element = this;
+			while (element != null) {
+				if (element.namespaceScope != null) {
+					scope = element.namespaceScope;
+					break;
 				}
+				elements.push(element);
+				Node parent = element.getParentNode();
+				element = parent != null && parent.isElement() ? (Element) parent : null;
+			}
+			while (!elements.isEmpty()) {
+				element = elements.pop();
+				scope = NamespaceScope.create(scope, element);
+				element.namespaceScope = scope;
 			}
-			parent = parent.getParentNode();
 		}
-		return null;
+		return namespaceScope;
 	}
 
 	public Collection<String> getAllPrefixes() {
@@ -173,45 +191,7 @@ public class Element extends Node implements org.w3c.dom.Element {
 		if (namespaceURI == null) {
 			return null;
 		}
-		if (hasAttributes()) {
-			for (Attr attr : getAttributeNodes()) {
-				String attributeName = attr.getName();
-				if (isXmlns(attributeName)) {
-					String namespace = attr.getValue();
-					if (namespace != null && namespace.equals(namespaceURI)) {
-						if (isDefaultXmlns(attributeName)) {
-							// xmlns="http://"
-							return "";
-						}
-						// xmlns:xxx="http://"
-						return extractPrefixFromXmlns(attributeName);
-					}
-				}
-			}
-		}
-		// try to get the prefix in the parent element
-		Node parent = getParentNode();
-		while (parent != null) {
-			if (parent.getNodeType() == Node.ELEMENT_NODE) {
-				Element parentElement = ((Element) parent);
-				String prefix = parentElement.getPrefix(namespaceURI);
-				if (prefix != null) {
-					return prefix;
-				}
-			}
-			parent = parent.getParentNode();
-		}
-		return null;
-	}
-
-	/**
-	 * Returns true if attribute name is a xmlns attribute and false otherwise.
-	 * 
-	 * @param attributeName
-	 * @return true if attribute name is a xmlns attribute and false otherwise.
-	 */
-	private static boolean isXmlns(String attributeName) {
-		return attributeName.startsWith(XMLNS_ATTR);
+		return getNamespaceScope().getPrefix(namespaceURI);
 	}
 
 	/**
@@ -242,7 +222,33 @@ public class Element extends Node implements org.w3c.dom.Element {
 		if (prefix == null || prefix.isEmpty()) {
 			return getNamespaceURI();
 		}
-		return getAttribute(XMLNS_NO_DEFAULT_ATTR + prefix);
+		return getNamespaceScope().getNamespaceURI(prefix);
+	}
+
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		startTagOpenOffset = shift(startTagOpenOffset, delta);
+		startTagCloseOffset = shift(startTagCloseOffset, delta);
+		endTagOpenOffset = shift(endTagOpenOffset, delta);
+		endTagCloseOffset = shift(endTagCloseOffset, delta);
+		endTagOffset = shift(endTagOffset, delta);
+	}
+
+	@Override
+	Element copy(XMLDocument ownerDocument) {
+		Element element = new Element(start, end, ownerDocument);
+		copyTo(element);
+		element.tag = tag;
+		element.selfClosed = selfClosed;
+		element.startTagOpenOffset = startTagOpenOffset;
+		element.startTagCloseOffset = startTagCloseOffset;
+		element.endTagOpenOffset = endTagOpenOffset;
+		element.endTagCloseOffset = endTagCloseOffset;
+		element.endTagOffset = endTagOffset;
+		// the namespace scopes are immutable
+		element.namespaceScope = namespaceScope;
+		return element;
 	}
 
 	public boolean isDocumentElement() {
@@ -340,15 +346,13 @@ public class Element extends Node implements org.w3c.dom.Element {
 	}
 
 	@Override
-	public NodeList getElementsByTagName(String arg0) {
-		// TODO Auto-generated method stub
-		return null;
+	public NodeList getElementsByTagName(String name) {
+		return getOwnerDocument().getElementIndex().getElementsByTagName(this, name);
 	}
 
 	@Override
-	public NodeList getElementsByTagNameNS(String arg0, String arg1) throws DOMException {
-		// TODO Auto-generated method stub
-		return null;
+	public NodeList getElementsByTagNameNS(String namespaceURI, String localName) throws DOMException {
+		return getOwnerDocument().getElementIndex().getElementsByTagNameNS(this, namespaceURI, localName);
 	}
 
 	@Override
@@ -0,0 +1,159 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.lsp4xml.dom.Node.XMLNodeList;
+import org.w3c.dom.NodeList;
+
+/**
+ * Index of the elements of an XML document by local name and by
+ * <code>id</code> attribute, used to implement
+ * {@link org.w3c.dom.Document#getElementsByTagName(String)},
+ * {@link org.w3c.dom.Document#getElementsByTagNameNS(String, String)} and
+ * {@link org.w3c.dom.Document#getElementById(String)}.
+ *
+ */
+final class ElementIndex {
+
+	private static final String WILDCARD = "*";
+	private static final String ID_ATTR = "id";
+
+	// all the elements in document order
+	private final List<Element> elements;
+	private final Map<String, List<Element>> elementsByLocalName;
+	private final Map<String, Element> elementsById;
+
+	ElementIndex(XMLDocument document) {
+		this.elements = new ArrayList<>();
+		this.elementsByLocalName = new HashMap<>();
+		this.elementsById = new HashMap<>();
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(document);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			if (node.isElement()) {
+				Element element = (Element) node;
+				elements.add(element);
+				String localName = element.getLocalName();
+				if (localName != null) {
+					elementsByLocalName.computeIfAbsent(localName, name -> new ArrayList<>()).add(element);
+				}
+				String id = element.getAttribute(ID_ATTR);
+				if (id != null) {
+					// the first element wins
+					elementsById.putIfAbsent(id, element);
+				}
+			}
+			List<Node> children = node.getChildren();
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.push(children.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the element which has the given <code>id</code> attribute and null
+	 * otherwise.
+	 *
+	 * @param id the id.
+	 * @return the element which has the given <code>id</code> attribute and null
+	 *         otherwise.
+	 */
+	Element getElementById(String id) {
+		return elementsById.get(id);
+	}
+
+	/**
+	 * Returns the elements, descendants of the given root node, which have the
+	 * given tag name ("*" for all the elements) in document order.
+	 *
+	 * @param root    the document or an element.
+	 * @param tagName the tag name.
+	 * @return the elements, descendants of the given root node, which have the
+	 *         given tag name.
+	 */
+	NodeList getElementsByTagName(Node root, String tagName) {
+		XMLNodeList<Element> result = new XMLNodeList<>();
+		if (WILDCARD.equals(tagName)) {
+			addDescendants(elements, root, null, result);
+		} else if (tagName != null) {
+			int index = tagName.indexOf(':');
+			String localName = index != -1 ? tagName.substring(index + 1) : tagName;
+			addDescendants(getElementsByLocalName(localName), root, tagName, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the elements, descendants of the given root node, which have the
+	 * given namespace URI and local name ("*" matches any value) in document
+	 * order.
+	 *
+	 * @param root         the document or an element.
+	 * @param namespaceURI the namespace URI, null or "" for the elements without
+	 *                     namespace.
+	 * @param localName    the local name.
+	 * @return the elements, descendants of the given root node, which have the
+	 *         given namespace URI and local name.
+	 */
+	NodeList getElementsByTagNameNS(Node root, String namespaceURI, String localName) {
+		XMLNodeList<Element> result = new XMLNodeList<>();
+		List<Element> candidates = WILDCARD.equals(localName) ? elements : getElementsByLocalName(localName);
+		boolean anyNamespace = WILDCARD.equals(namespaceURI);
+		String namespace = emptyToNull(namespaceURI);
+		for (Element element : candidates) {
+			if ((anyNamespace || Objects.equals(namespace, emptyToNull(element.getNamespaceURI())))
+					&& isDescendant(element, root)) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+
+	private List<Element> getElementsByLocalName(String localName) {
+		List<Element> elements = elementsByLocalName.get(localName);
+		return elements != null ? elements : Collections.emptyList();
+	}
+
+	private static void addDescendants(List<Element> candidates, Node root, String tagName,
+			List<Element> result) {
+		for (Element element : candidates) {
+			if ((tagName == null || tagName.equals(element.getTagName())) && isDescendant(element, root)) {
+				result.add(element);
+			}
+		}
+	}
+
+	private static boolean isDescendant(Node node, Node root) {
+		if (root.getNodeType() == Node.DOCUMENT_NODE) {
+			return true;
+		}
+		for (Node parent = node.getParentNode(); parent != null; parent = parent.getParentNode()) {
+			if (parent.equals(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String emptyToNull(String value) {
+		return value == null || value.isEmpty() ? null : value;
+	}
+}
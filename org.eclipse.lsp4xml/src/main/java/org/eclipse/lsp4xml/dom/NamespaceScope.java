@@ -0,0 +1,142 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable namespace scope of an element: the prefix to namespace URI
+ * bindings declared with <code>xmlns</code> and <code>xmlns:prefix</code>
+ * attributes by the element and its ancestors.
+ *
+ * <p>
+ * An element which doesn't declare a namespace shares the scope of its
+ * parent, so a scope is created only for the elements which declare
+ * namespaces.
+ * </p>
+ *
+ */
+public final class NamespaceScope {
+
+	/**
+	 * The scope without namespace declarations.
+	 */
+	public static final NamespaceScope EMPTY = new NamespaceScope(null, new String[0],
+			Collections.<String, String>emptyMap());
+
+	private static final String XMLNS_ATTR = "xmlns";
+	private static final String XMLNS_NO_DEFAULT_ATTR = "xmlns:";
+
+	private final NamespaceScope parent;
+
+	// prefix and namespace URI pairs declared by the element, in the order of the
+	// attributes
+	private final String[] declarations;
+
+	// all the bindings of the scope
+	private final Map<String, String> namespaces;
+
+	private NamespaceScope(NamespaceScope parent, String[] declarations, Map<String, String> namespaces) {
+		this.parent = parent;
+		this.declarations = declarations;
+		this.namespaces = namespaces;
+	}
+
+	/**
+	 * Returns the scope of the given element which is nested in the given parent
+	 * scope.
+	 *
+	 * @param parent  the scope of the parent element.
+	 * @param element the element.
+	 * @return the scope of the given element.
+	 */
+	static NamespaceScope create(NamespaceScope parent, Element element) {
+		if (!element.hasAttributes()) {
+			return parent;
+		}
+		int count = 0;
+		for (Attr attr : element.getAttributeNodes()) {
+			if (getDeclaredPrefix(attr.getName()) != null) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return parent;
+		}
+		String[] declarations = new String[count * 2];
+		int i = 0;
+		for (Attr attr : element.getAttributeNodes()) {
+			String prefix = getDeclaredPrefix(attr.getName());
+			if (prefix != null) {
+				declarations[i++] = prefix;
+				declarations[i++] = element.getAttribute(attr.getName());
+			}
+		}
+		Map<String, String> namespaces = new HashMap<>(parent.namespaces);
+		// in reverse order, so the first declaration of a prefix wins
+		for (i = declarations.length - 2; i >= 0; i -= 2) {
+			if (declarations[i + 1] != null) {
+				namespaces.put(declarations[i], declarations[i + 1]);
+			}
+		}
+		return new NamespaceScope(parent, declarations, namespaces);
+	}
+
+	/**
+	 * Returns the prefix declared by the given attribute name ("" for the default
+	 * namespace) and null if the attribute is not a namespace declaration.
+	 */
+	private static String getDeclaredPrefix(String attributeName) {
+		if (attributeName == null || !attributeName.startsWith(XMLNS_ATTR)) {
+			return null;
+		}
+		if (attributeName.length() == XMLNS_ATTR.length()) {
+			return "";
+		}
+		if (attributeName.startsWith(XMLNS_NO_DEFAULT_ATTR)) {
+			return attributeName.substring(XMLNS_NO_DEFAULT_ATTR.length());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the namespace URI bound to the given prefix ("" for the default
+	 * namespace) and null otherwise.
+	 *
+	 * @param prefix the prefix, "" for the default namespace.
+	 * @return the namespace URI bound to the given prefix and null otherwise.
+	 */
+	public String getNamespaceURI(String prefix) {
+		return namespaces.get(prefix);
+	}
+
+	/**
+	 * Returns the prefix ("" for the default namespace) of the innermost
+	 * declaration of the given namespace URI and null otherwise.
+	 *
+	 * @param namespaceURI the namespace URI.
+	 * @return the prefix of the innermost declaration of the given namespace URI
+	 *         and null otherwise.
+	 */
+	public String getPrefix(String namespaceURI) {
+		for (NamespaceScope scope = this; scope != null; scope = scope.parent) {
+			String[] declarations = scope.declarations;
+			for (int i = 0; i < declarations.length; i += 2) {
+				if (namespaceURI.equals(declarations[i + 1])) {
+					return declarations[i];
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -10,8 +10,10 @@
  */
 package org.eclipse.lsp4xml.dom;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.function.Function;
 
@@ -31,13 +33,19 @@ public abstract class Node implements org.w3c.dom.Node {
 	private XMLNamedNodeMap<Attr> attributeNodes;
 	private XMLNodeList<Node> children;
 
-	final int start;
+	int start;
 	int end;
 
 	Node parent;
+	// index of the node in the children of its parent, see getChildIndex()
+	int childIndex;
 	private final XMLDocument ownerDocument;
 
-	class XMLNodeList<T extends Node> extends ArrayList<T> implements NodeList {
+	// index + 1 of the node in the compact nodes of the owner document when this
+	// node is a view created by CompactNodes, 0 otherwise.
+	int compactIndex;
+
+	static class XMLNodeList<T extends Node> extends ArrayList<T> implements NodeList {
 
 		private static final long serialVersionUID = 1L;
 
@@ -137,7 +145,8 @@ public abstract class Node implements org.w3c.dom.Node {
 		result.append(getNodeName());
 		result.append(", closed: ");
 		result.append(closed);
-		if (children != null && children.size() > 0) {
+		List<Node> children = getChildren();
+		if (children.size() > 0) {
 			result.append(", \n");
 			for (int i = 0; i < indent + 1; i++) {
 				result.append("\t");
@@ -223,7 +232,19 @@ public abstract class Node implements org.w3c.dom.Node {
 
 	public Attr findAttrAt(Node node, int offset) {
 		if (node != null && node.hasAttributes()) {
-			for (Attr attr : node.getAttributeNodes()) {
+			// the attributes are sorted by offset
+			List<Attr> attributes = node.getAttributeNodes();
+			int low = 0, high = attributes.size();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (offset <= attributes.get(mid).getStart()) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			if (low > 0) {
+				Attr attr = attributes.get(low - 1);
 				if (attr.isIncluded(offset)) {
 					return attr;
 				}
@@ -260,7 +281,7 @@ public abstract class Node implements org.w3c.dom.Node {
 		if (!hasAttributes()) {
 			return null;
 		}
-		for (Attr attr : attributeNodes) {
+		for (Attr attr : getAttributeNodes()) {
 			if (name.equals(attr.getName())) {
 				return attr;
 			}
@@ -298,6 +319,7 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public boolean hasAttributes() {
+		List<Attr> attributeNodes = attributes();
 		return attributeNodes != null && attributeNodes.size() != 0;
 	}
 
@@ -318,7 +340,7 @@ public abstract class Node implements org.w3c.dom.Node {
 	}
 
 	public List<Attr> getAttributeNodes() {
-		return attributeNodes;
+		return attributes();
 	}
 
 	/**
@@ -327,12 +349,52 @@ public abstract class Node implements org.w3c.dom.Node {
 	 * @return the node children.
 	 */
 	public List<Node> getChildren() {
+		List<Node> children = children();
 		if (children == null) {
 			return Collections.emptyList();
 		}
 		return children;
 	}
 
+	private XMLNodeList<Node> children() {
+		return compactIndex != 0 ? compactChildren() : children;
+	}
+
+	private synchronized XMLNodeList<Node> compactChildren() {
+		// a view is shared between threads, its lists are created under its lock
+		if (children == null) {
+			// create the views of the children from the compact nodes
+			XMLNodeList<Node> children = new XMLNodeList<Node>();
+			getCompactNodes().addChildren(compactIndex - 1, children);
+			if (ownerDocument == null) {
+				// the children of the document are not cached, so the views are retained
+				// only by their callers.
+				return children;
+			}
+			this.children = children;
+		}
+		return children;
+	}
+
+	private XMLNamedNodeMap<Attr> attributes() {
+		return compactIndex != 0 ? compactAttributes() : attributeNodes;
+	}
+
+	private synchronized XMLNamedNodeMap<Attr> compactAttributes() {
+		if (attributeNodes == null) {
+			// create the views of the attributes from the compact nodes
+			XMLNamedNodeMap<Attr> attributeNodes = new XMLNamedNodeMap<Attr>();
+			getCompactNodes().addAttributes(compactIndex - 1, this, attributeNodes);
+			this.attributeNodes = attributeNodes;
+		}
+		return attributeNodes;
+	}
+
+	private CompactNodes getCompactNodes() {
+		XMLDocument document = ownerDocument != null ? ownerDocument : (XMLDocument) this;
+		return document.compactNodes;
+	}
+
 	/**
 	 * Add node child
 	 * 
@@ -343,7 +405,142 @@ public abstract class Node implements org.w3c.dom.Node {
 		if (children == null) {
 			children = new XMLNodeList<Node>();
 		}
-		getChildren().add(child);
+		child.childIndex = children.size();
+		children.add(child);
+	}
+
+	/**
+	 * Remove the node children.
+	 */
+	void clearChildren() {
+		children = null;
+	}
+
+	/**
+	 * Replace the node child at the given index.
+	 * 
+	 * @param index the index of the child to replace.
+	 * @param child the new child.
+	 */
+	void setChild(int index, Node child) {
+		child.parent = this;
+		child.childIndex = index;
+		children.set(index, child);
+	}
+
+	/**
+	 * Returns the index of this node in the children of its parent and -1 if it
+	 * has no parent.
+	 * 
+	 * @return the index of this node in the children of its parent and -1 if it
+	 *         has no parent.
+	 */
+	int getChildIndex() {
+		Node parentNode = getParentNode();
+		if (parentNode == null) {
+			return -1;
+		}
+		List<Node> siblings = parentNode.getChildren();
+		if (childIndex < siblings.size() && siblings.get(childIndex) == this) {
+			return childIndex;
+		}
+		// the children list has been updated without addChild
+		childIndex = siblings.indexOf(this);
+		return childIndex;
+	}
+
+	/**
+	 * Shift the offsets of this node, its attributes and its children with the
+	 * given delta. Used by the incremental parser to update the nodes which follow
+	 * a reparsed node.
+	 * 
+	 * @param delta the delta to add to the offsets.
+	 */
+	void shift(int delta) {
+		start += delta;
+		end += delta;
+		if (attributeNodes != null) {
+			for (Attr attr : attributeNodes) {
+				attr.shift(delta);
+			}
+		}
+		if (children != null) {
+			for (Node child : children) {
+				child.shift(delta);
+			}
+		}
+	}
+
+	/**
+	 * Returns the given offset shifted with the given delta, or the offset itself
+	 * if it is not set.
+	 * 
+	 * @param offset the offset.
+	 * @param delta  the delta to add to the offset.
+	 * @return the given offset shifted with the given delta, or the offset itself
+	 *         if it is not set.
+	 */
+	static Integer shift(Integer offset, int delta) {
+		return offset != null ? offset + delta : null;
+	}
+
+	/**
+	 * Returns a copy of this node and of its attributes, without its children,
+	 * which is owned by the given XML document. Used by the incremental parser
+	 * which updates a copy of the XML document because the previous one can
+	 * still be read by other threads.
+	 * 
+	 * @param ownerDocument the owner XML document of the copy.
+	 * @return a copy of this node without its children.
+	 */
+	Node copy(XMLDocument ownerDocument) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Copy the state of this node and its attributes to the given copy.
+	 * 
+	 * @param node the copy of this node.
+	 */
+	void copyTo(Node node) {
+		node.closed = closed;
+		if (attributeNodes != null) {
+			// the map is an inner class, it must not retain this node
+			node.attributeNodes = node.new XMLNamedNodeMap<Attr>();
+			for (Attr attr : attributeNodes) {
+				node.attributeNodes.add(attr.copy(node));
+			}
+		}
+	}
+
+	/**
+	 * Add to the given node a copy of the children of this node and of their
+	 * descendants.
+	 * 
+	 * @param node          the copy of this node.
+	 * @param ownerDocument the owner XML document of the copy.
+	 */
+	void copyChildrenTo(Node node, XMLDocument ownerDocument) {
+		// without recursion for the deep documents
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<Node> copies = new ArrayDeque<>();
+		nodes.push(this);
+		copies.push(node);
+		while (!nodes.isEmpty()) {
+			Node current = nodes.pop();
+			Node currentCopy = copies.pop();
+			if (current.children == null) {
+				continue;
+			}
+			currentCopy.children = new XMLNodeList<Node>();
+			currentCopy.children.ensureCapacity(current.children.size());
+			for (Node child : current.children) {
+				Node childCopy = child.copy(ownerDocument);
+				currentCopy.addChild(childCopy);
+				nodes.push(child);
+				copies.push(childCopy);
+			}
+		}
 	}
 
 	/**
@@ -442,7 +639,8 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public Node getFirstChild() {
-		return this.children != null && children.size() > 0 ? this.children.get(0) : null;
+		List<Node> children = children();
+		return children != null && children.size() > 0 ? children.get(0) : null;
 	}
 
 	/*
@@ -452,7 +650,8 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public Node getLastChild() {
-		return this.children != null && this.children.size() > 0 ? this.children.get(this.children.size() - 1) : null;
+		List<Node> children = children();
+		return children != null && children.size() > 0 ? children.get(children.size() - 1) : null;
 	}
 
 	/*
@@ -462,7 +661,7 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public NamedNodeMap getAttributes() {
-		return attributeNodes;
+		return attributes();
 	}
 
 	/*
@@ -472,7 +671,7 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public NodeList getChildNodes() {
-		return children;
+		return children();
 	}
 
 	/*
@@ -541,8 +740,11 @@ public abstract class Node implements org.w3c.dom.Node {
 		if (parentNode == null) {
 			return null;
 		}
+		if (compactIndex != 0) {
+			return getCompactNodes().getNextSibling(compactIndex - 1);
+		}
 		List<Node> children = parentNode.getChildren();
-		int nextIndex = children.indexOf(this) + 1;
+		int nextIndex = getChildIndex() + 1;
 		return nextIndex < children.size() ? children.get(nextIndex) : null;
 	}
 
@@ -567,8 +769,11 @@ public abstract class Node implements org.w3c.dom.Node {
 		if (parentNode == null) {
 			return null;
 		}
+		if (compactIndex != 0) {
+			return getCompactNodes().getPreviousSibling(compactIndex - 1);
+		}
 		List<Node> children = parentNode.getChildren();
-		int previousIndex = children.indexOf(this) - 1;
+		int previousIndex = getChildIndex() - 1;
 		return previousIndex >= 0 ? children.get(previousIndex) : null;
 	}
 
@@ -595,6 +800,7 @@ public abstract class Node implements org.w3c.dom.Node {
 	 */
 	@Override
 	public boolean hasChildNodes() {
+		List<Node> children = children();
 		return children != null && !children.isEmpty();
 	}
 
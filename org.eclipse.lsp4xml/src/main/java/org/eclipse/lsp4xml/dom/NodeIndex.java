@@ -0,0 +1,172 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Index of the node spans of an XML document.
+ *
+ * <p>
+ * The nodes are stored in document order (pre-order), the document itself
+ * being the node 0, so the start offsets are sorted and the last node which
+ * starts before an offset is found with a binary search. The node at an offset
+ * is then found by walking up the parents of this node instead of descending
+ * the tree child by child.
+ * </p>
+ *
+ */
+final class NodeIndex {
+
+	private static final int NULL = -1;
+
+	private final int size;
+	private final int[] starts;
+	private final int[] ends;
+	private final int[] parents;
+	// true if the last child of the node ends with the node (ex: unclosed element)
+	private final boolean[] lastChildEnds;
+	private final IntFunction<Node> nodes;
+	private final boolean sorted;
+
+	NodeIndex(int size, int[] starts, int[] ends, int[] parents, IntFunction<Node> nodes) {
+		this.size = size;
+		this.starts = starts;
+		this.ends = ends;
+		this.parents = parents;
+		this.nodes = nodes;
+		this.lastChildEnds = new boolean[size];
+		int[] lastChildren = new int[size];
+		for (int i = 1; i < size; i++) {
+			lastChildren[parents[i]] = i;
+		}
+		for (int i = 0; i < size; i++) {
+			int lastChild = lastChildren[i];
+			lastChildEnds[i] = lastChild != 0 && ends[lastChild] == ends[i];
+		}
+		boolean sorted = true;
+		for (int i = 2; i < size && sorted; i++) {
+			sorted = starts[i] >= starts[i - 1];
+		}
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Returns the index of the nodes of the given XML document.
+	 *
+	 * @param document the XML document.
+	 * @return the index of the nodes of the given XML document.
+	 */
+	static NodeIndex create(XMLDocument document) {
+		if (document.isCompact()) {
+			return document.compactNodes.createNodeIndex();
+		}
+		int size = 0;
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(document);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			size++;
+			for (Node child : node.getChildren()) {
+				stack.push(child);
+			}
+		}
+
+		Node[] nodes = new Node[size];
+		int[] starts = new int[size];
+		int[] ends = new int[size];
+		int[] parents = new int[size];
+		// parent indexes of the nodes of the stack
+		int[] parentStack = new int[size];
+		int top = 0;
+		stack.push(document);
+		parentStack[top++] = NULL;
+		int index = 0;
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			nodes[index] = node;
+			starts[index] = node.start;
+			ends[index] = node.end;
+			parents[index] = parentStack[--top];
+			List<Node> children = node.getChildren();
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.push(children.get(i));
+				parentStack[top++] = index;
+			}
+			index++;
+		}
+		return new NodeIndex(size, starts, ends, parents, i -> nodes[i]);
+	}
+
+	/**
+	 * Returns true if the nodes are sorted by start offset and false otherwise (in
+	 * this case the index can't be used and the tree must be descended).
+	 *
+	 * @return true if the nodes are sorted by start offset and false otherwise.
+	 */
+	boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Returns the index of the last node (the document excluded) which starts
+	 * before the given offset and 0 if there is none.
+	 */
+	private int findLastNodeBefore(int offset) {
+		int low = 1, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (offset <= starts[mid]) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low - 1;
+	}
+
+	/**
+	 * Same result as {@link Node#findNodeAt(int)} called on the document.
+	 *
+	 * @param offset the offset.
+	 * @return the deepest node which includes the given offset.
+	 */
+	Node findNodeAt(int offset) {
+		int found = findLastNodeBefore(offset);
+		// the descent stops at the first node which doesn't include the offset
+		for (int i = found; i != 0; i = parents[i]) {
+			if (!Node.isIncluded(starts[i], ends[i], offset)) {
+				found = parents[i];
+			}
+		}
+		return nodes.apply(found);
+	}
+
+	/**
+	 * Same result as {@link Node#findNodeBefore(int)} called on the document.
+	 *
+	 * @param offset the offset.
+	 * @return the deepest node which starts before the given offset.
+	 */
+	Node findNodeBefore(int offset) {
+		int found = findLastNodeBefore(offset);
+		// the descent stops at the first node which ends before the offset
+		for (int i = found; i != 0; i = parents[i]) {
+			if (offset >= ends[i] && !lastChildEnds[i]) {
+				found = i;
+			}
+		}
+		return nodes.apply(found);
+	}
+}
@@ -30,6 +30,31 @@ public class ProcessingInstruction extends CharacterData implements org.w3c.dom.
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		// content offsets are not set when the node has no content
+		if (startContent != 0) {
+			startContent += delta;
+			endContent += delta;
+		}
+		endTagOpenOffset = shift(endTagOpenOffset, delta);
+	}
+
+	@Override
+	ProcessingInstruction copy(XMLDocument ownerDocument) {
+		ProcessingInstruction processingInstruction = new ProcessingInstruction(start, end, ownerDocument);
+		copyTo(processingInstruction);
+		processingInstruction.startTagClose = startTagClose;
+		processingInstruction.target = target;
+		processingInstruction.prolog = prolog;
+		processingInstruction.processingInstruction = this.processingInstruction;
+		processingInstruction.startContent = startContent;
+		processingInstruction.endContent = endContent;
+		processingInstruction.endTagOpenOffset = endTagOpenOffset;
+		return processingInstruction;
+	}
+
 	public boolean isProlog() {
 		return prolog;
 	}
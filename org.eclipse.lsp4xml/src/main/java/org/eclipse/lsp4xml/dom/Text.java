@@ -22,6 +22,13 @@ public class Text extends CharacterData implements org.w3c.dom.Text {
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	Text copy(XMLDocument ownerDocument) {
+		Text text = new Text(start, end, ownerDocument);
+		copyTo(text);
+		return text;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
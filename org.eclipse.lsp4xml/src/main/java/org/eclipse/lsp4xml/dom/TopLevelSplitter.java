@@ -0,0 +1,150 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Arrays;
+
+/**
+ * Fast pre-scan of an XML text which finds the offsets where the text can be
+ * split to be parsed in parallel: the end of a child of the document element
+ * (after <code>&lt;/child&gt;</code> or <code>/&gt;</code>).
+ *
+ * <p>
+ * The pre-scan only counts the depth of the tags and skips comments, CDATA
+ * sections, processing instructions, the DOCTYPE and the attribute values, so
+ * it is much faster than the scanner. It can be wrong with malformed texts:
+ * the parser checks that each chunk starts and ends at the depth of the
+ * document element children.
+ * </p>
+ *
+ */
+final class TopLevelSplitter {
+
+	private TopLevelSplitter() {
+	}
+
+	/**
+	 * Returns the split offsets of the given text, separated by at least the given
+	 * chunk size.
+	 *
+	 * @param text      the text.
+	 * @param chunkSize the minimum number of characters between two split
+	 *                  offsets.
+	 * @return the split offsets of the given text.
+	 */
+	static int[] findSplitOffsets(CharSequence text, int chunkSize) {
+		int length = text.length();
+		int[] offsets = new int[16];
+		int count = 0;
+		int nextSplit = chunkSize;
+		int depth = 0;
+		int i = 0;
+		while (i < length) {
+			if (text.charAt(i) != '<') {
+				i++;
+				continue;
+			}
+			if (startsWith(text, i, "<!--")) {
+				i = indexOf(text, i + 4, "-->") + 3;
+			} else if (startsWith(text, i, "<![CDATA[")) {
+				i = indexOf(text, i + 9, "]]>") + 3;
+			} else if (startsWith(text, i, "<?")) {
+				i = indexOf(text, i + 2, "?>") + 2;
+			} else if (startsWith(text, i, "<!")) {
+				i = skipDoctype(text, i + 2);
+			} else if (startsWith(text, i, "</")) {
+				i = indexOf(text, i + 2, ">") + 1;
+				depth--;
+				if (depth == 1 && i >= nextSplit) {
+					offsets = add(offsets, count++, i);
+					nextSplit = i + chunkSize;
+				}
+			} else {
+				// start tag
+				i++;
+				boolean selfClosed = false;
+				while (i < length) {
+					char c = text.charAt(i);
+					if (c == '"' || c == '\'') {
+						i = indexOf(text, i + 1, c == '"' ? "\"" : "'") + 1;
+					} else if (c == '>') {
+						selfClosed = text.charAt(i - 1) == '/';
+						i++;
+						break;
+					} else if (c == '<') {
+						// unclosed start tag
+						break;
+					} else {
+						i++;
+					}
+				}
+				if (!selfClosed) {
+					depth++;
+				} else if (depth == 1 && i >= nextSplit) {
+					offsets = add(offsets, count++, i);
+					nextSplit = i + chunkSize;
+				}
+			}
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+
+	private static int[] add(int[] offsets, int index, int offset) {
+		if (index == offsets.length) {
+			offsets = Arrays.copyOf(offsets, index * 2);
+		}
+		offsets[index] = offset;
+		return offsets;
+	}
+
+	private static int skipDoctype(CharSequence text, int i) {
+		int length = text.length();
+		int brackets = 0;
+		while (i < length) {
+			char c = text.charAt(i++);
+			if (c == '[') {
+				brackets++;
+			} else if (c == ']') {
+				brackets--;
+			} else if (c == '>' && brackets <= 0) {
+				break;
+			}
+		}
+		return i;
+	}
+
+	private static boolean startsWith(CharSequence text, int offset, String prefix) {
+		if (offset + prefix.length() > text.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (text.charAt(offset + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the offset of the given string in the text from the given offset
+	 * and the length of the text if it is not found.
+	 */
+	private static int indexOf(CharSequence text, int offset, String s) {
+		int last = text.length() - s.length();
+		char first = s.charAt(0);
+		for (int i = offset; i <= last; i++) {
+			if (text.charAt(i) == first && startsWith(text, i, s)) {
+				return i;
+			}
+		}
+		return text.length();
+	}
+}
@@ -12,6 +12,8 @@ package org.eclipse.lsp4xml.dom;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +22,10 @@ import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.parser.Constants;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.ScannerState;
+import org.eclipse.lsp4xml.dom.parser.TokenStream;
+import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
 import org.eclipse.lsp4xml.utils.StringUtils;
 import org.w3c.dom.CDATASection;
@@ -48,9 +54,14 @@ public class XMLDocument extends Node implements Document {
 	private Map<String, String> externalSchemaLocation;
 	private String schemaInstancePrefix;
 	private boolean hasExternalGrammar;
+	int textVersion;
+	TokenStream tokens;
+	CompactNodes compactNodes;
+	private volatile NodeIndex nodeIndex;
+	private volatile ElementIndex elementIndex;
 
 	public XMLDocument(TextDocument textDocument, URIResolverExtensionManager resolverExtensionManager) {
-		super(0, textDocument.getText().length(), null);
+		super(0, textDocument.getSnapshot().length(), null);
 		this.textDocument = textDocument;
 		this.resolverExtensionManager = resolverExtensionManager;
 		resetGrammar();
@@ -110,10 +121,179 @@ public class XMLDocument extends Node implements Document {
 		return textDocument.getText();
 	}
 
+	/**
+	 * Returns an immutable snapshot of the text content of the XML document. In
+	 * incremental mode, the snapshot shares its content with the text document and
+	 * taking it doesn't copy the text.
+	 * 
+	 * @return an immutable snapshot of the text content of the XML document.
+	 * @see TextDocument#getSnapshot()
+	 */
+	public CharSequence getSnapshot() {
+		return textDocument.getSnapshot();
+	}
+
 	public TextDocument getTextDocument() {
 		return textDocument;
 	}
 
+	/**
+	 * Returns the version of the text document which has been parsed to build this
+	 * XML document.
+	 * 
+	 * @return the version of the text document which has been parsed to build this
+	 *         XML document.
+	 */
+	public int getTextVersion() {
+		return textVersion;
+	}
+
+	/**
+	 * Sets the compact columns where the parser has stored the nodes of this XML
+	 * document. The nodes are then created on demand when they are reached with
+	 * the DOM API.
+	 * 
+	 * @param compactNodes the compact nodes.
+	 */
+	void compact(CompactNodes compactNodes) {
+		this.compactNodes = compactNodes;
+		compactIndex = 1;
+		resetIndexes();
+	}
+
+	/**
+	 * Copy the nodes and the tokens of this XML document to the given new XML
+	 * document of the same text document, which is updated by the incremental
+	 * parser while this XML document can still be read by other threads. The
+	 * indexes and the grammar information are computed again on demand for the
+	 * copy.
+	 * 
+	 * @param document the new XML document.
+	 */
+	void copyNodesTo(XMLDocument document) {
+		document.end = end;
+		copyTo(document);
+		copyChildrenTo(document, document);
+		document.tokens = tokens;
+	}
+
+	/**
+	 * Drops the indexes of the nodes, which are built again on the next lookup.
+	 * Called when the nodes are updated by the parser.
+	 */
+	void resetIndexes() {
+		nodeIndex = null;
+		elementIndex = null;
+	}
+
+	@Override
+	public Node findNodeAt(int offset) {
+		NodeIndex index = getNodeIndex();
+		return index.isSorted() ? index.findNodeAt(offset) : super.findNodeAt(offset);
+	}
+
+	@Override
+	public Node findNodeBefore(int offset) {
+		NodeIndex index = getNodeIndex();
+		return index.isSorted() ? index.findNodeBefore(offset) : super.findNodeBefore(offset);
+	}
+
+	/**
+	 * Returns the index of the node spans, built on the first call after each
+	 * parse.
+	 * 
+	 * @return the index of the node spans.
+	 */
+	private NodeIndex getNodeIndex() {
+		NodeIndex index = nodeIndex;
+		if (index == null) {
+			index = NodeIndex.create(this);
+			nodeIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns true if the nodes of this XML document are stored in compact columns
+	 * and false otherwise.
+	 * 
+	 * @return true if the nodes of this XML document are stored in compact columns
+	 *         and false otherwise.
+	 */
+	public boolean isCompact() {
+		return compactNodes != null;
+	}
+
+	/**
+	 * Returns the number of nodes of this XML document, the document included.
+	 * The nodes of a compact XML document are counted by its columns, the other
+	 * nodes are counted by walking the tree.
+	 * 
+	 * @return the number of nodes of this XML document, the document included.
+	 */
+	public int getNodeCount() {
+		if (isCompact()) {
+			return compactNodes.size();
+		}
+		int count = 0;
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			count++;
+			for (Node child : node.getChildren()) {
+				stack.push(child);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the tokens scanned by the parser to build this XML document and null
+	 * otherwise.
+	 * 
+	 * @return the tokens scanned by the parser to build this XML document and null
+	 *         otherwise.
+	 */
+	public TokenStream getTokenStream() {
+		return tokens;
+	}
+
+	/**
+	 * Returns a scanner for the text content of the XML document which starts at
+	 * the given offset.
+	 * 
+	 * @param startOffset the start offset.
+	 * @return a scanner for the text content of the XML document which starts at
+	 *         the given offset.
+	 * @see #createScanner(int, ScannerState)
+	 */
+	public Scanner createScanner(int startOffset) {
+		return createScanner(startOffset, ScannerState.WithinContent);
+	}
+
+	/**
+	 * Returns a scanner for the text content of the XML document which starts at
+	 * the given offset with the given state. When the text document has not been
+	 * changed since the parse and a token starts at the given offset, the scanner
+	 * replays the tokens recorded by the parser instead of scanning the text again.
+	 * 
+	 * @param startOffset  the start offset.
+	 * @param initialState the initial scanner state.
+	 * @return a scanner for the text content of the XML document which starts at
+	 *         the given offset with the given state.
+	 */
+	public Scanner createScanner(int startOffset, ScannerState initialState) {
+		TokenStream tokens = this.tokens;
+		if (tokens != null && tokens.getText() == textDocument.getSnapshot()) {
+			Scanner scanner = tokens.createScanner(startOffset, initialState);
+			if (scanner != null) {
+				return scanner;
+			}
+		}
+		return XMLScanner.createScanner(getSnapshot(), startOffset, initialState);
+	}
+
 	/**
 	 * Returns true if the document is bound to a grammar and false otherwise.
 	 * 
@@ -575,7 +755,7 @@ public class XMLDocument extends Node implements Document {
 	 */
 	@Override
 	public Element getElementById(String elementId) {
-		throw new UnsupportedOperationException();
+		return getElementIndex().getElementById(elementId);
 	}
 
 	/*
@@ -585,7 +765,7 @@ public class XMLDocument extends Node implements Document {
 	 */
 	@Override
 	public NodeList getElementsByTagName(String tagname) {
-		throw new UnsupportedOperationException();
+		return getElementIndex().getElementsByTagName(this, tagname);
 	}
 
 	/*
@@ -596,7 +776,26 @@ public class XMLDocument extends Node implements Document {
 	 */
 	@Override
 	public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
-		throw new UnsupportedOperationException();
+		return getElementIndex().getElementsByTagNameNS(this, namespaceURI, localName);
+	}
+
+	/**
+	 * Returns the index of the elements, built on the first call after each parse.
+	 * The index of a compact document is not kept, since it would retain a view
+	 * of each element.
+	 * 
+	 * @return the index of the elements.
+	 */
+	ElementIndex getElementIndex() {
+		if (isCompact()) {
+			return new ElementIndex(this);
+		}
+		ElementIndex index = elementIndex;
+		if (index == null) {
+			index = new ElementIndex(this);
+			elementIndex = index;
+		}
+		return index;
 	}
 
 	/*
@@ -636,7 +835,14 @@ public class XMLDocument extends Node implements Document {
 	 */
 	@Override
 	public String getXmlEncoding() {
-		throw new UnsupportedOperationException();
+		List<Node> roots = getRoots();
+		if (roots != null && !roots.isEmpty()) {
+			Node node = roots.get(0);
+			if (node.isProlog()) {
+				return node.getAttribute("encoding");
+			}
+		}
+		return null;
 	}
 
 	/*
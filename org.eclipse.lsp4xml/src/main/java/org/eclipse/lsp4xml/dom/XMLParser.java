@@ -10,12 +10,21 @@
  */
 package org.eclipse.lsp4xml.dom;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import org.eclipse.lsp4xml.commons.BadLocationException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4xml.commons.TextChange;
 import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.parser.LineOffsets;
 import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.SymbolTable;
+import org.eclipse.lsp4xml.dom.parser.TokenStream;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
 import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
@@ -26,10 +35,25 @@ import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
  */
 public class XMLParser {
 
-	private static final Logger LOGGER = Logger.getLogger(XMLParser.class.getName());
-
 	private static final XMLParser INSTANCE = new XMLParser();
 
+	/**
+	 * Minimum length of a text which is parsed in parallel.
+	 */
+	private static final int PARALLEL_PARSE_THRESHOLD = Integer.getInteger("lsp4xml.parallelParse.threshold",
+			4 * 1024 * 1024);
+
+	/**
+	 * Minimum length of a chunk of a text parsed in parallel.
+	 */
+	private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+	/**
+	 * The cancel checker is checked each time this number of tokens (a power of 2)
+	 * has been parsed.
+	 */
+	private static final int CANCEL_CHECK_INTERVAL = 1024;
+
 	public static XMLParser getInstance() {
 		return INSTANCE;
 	}
@@ -39,17 +63,550 @@ public class XMLParser {
 	}
 
 	public XMLDocument parse(String text, String uri, URIResolverExtensionManager resolverExtensionManager) {
-		return parse(new TextDocument(text, uri), resolverExtensionManager);
+		return parse(text, uri, resolverExtensionManager, null);
+	}
+
+	/**
+	 * Parse the given text and stop the parse with a
+	 * {@link java.util.concurrent.CancellationException} when the given cancel
+	 * checker is cancelled.
+	 * 
+	 * @param text                     the text.
+	 * @param uri                      the document URI.
+	 * @param resolverExtensionManager the resolver extension manager.
+	 * @param monitor                  the cancel checker or null.
+	 * @return the XML document.
+	 */
+	public XMLDocument parse(String text, String uri, URIResolverExtensionManager resolverExtensionManager,
+			CancelChecker monitor) {
+		return parse(new TextDocument(text, uri), resolverExtensionManager, monitor);
 	}
 
 	public XMLDocument parse(TextDocument document, URIResolverExtensionManager resolverExtensionManager) {
+		return parse(document, resolverExtensionManager, (CancelChecker) null);
+	}
+
+	/**
+	 * Parse the given text document and stop the parse with a
+	 * {@link java.util.concurrent.CancellationException} when the given cancel
+	 * checker is cancelled.
+	 * 
+	 * @param document                 the text document.
+	 * @param resolverExtensionManager the resolver extension manager.
+	 * @param monitor                  the cancel checker or null.
+	 * @return the XML document.
+	 */
+	public XMLDocument parse(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			CancelChecker monitor) {
+		CharSequence text;
+		int version;
+		synchronized (document) {
+			text = document.getSnapshot();
+			version = document.getVersion();
+		}
+		return parse(text, version, document, resolverExtensionManager, false, monitor);
+	}
+
+	/**
+	 * Parse the given text document and store the nodes of the XML document in
+	 * compact columns instead of a graph of objects. The nodes are created on
+	 * demand when they are reached with the DOM API, which reduces a lot the
+	 * retained size of a very large document. The tokens of a compact XML document
+	 * are not recorded: the services scan the text again.
+	 * 
+	 * @param document                 the text document.
+	 * @param resolverExtensionManager the resolver extension manager.
+	 * @return the compact XML document.
+	 */
+	public XMLDocument parseCompact(TextDocument document, URIResolverExtensionManager resolverExtensionManager) {
+		CharSequence text;
+		int version;
+		synchronized (document) {
+			text = document.getSnapshot();
+			version = document.getVersion();
+		}
+		return parse(text, version, document, resolverExtensionManager, true, null);
+	}
 
-		String text = document.getText();
-		Scanner scanner = XMLScanner.createScanner(text);
+	private XMLDocument parse(CharSequence text, int version, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, boolean compact, CancelChecker monitor) {
+		XMLDocument xmlDocument = null;
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		// the nodes of a compact document are stored in the columns in document
+		// order while they are parsed, so it is parsed sequentially.
+		if (!compact && text.length() >= PARALLEL_PARSE_THRESHOLD && parallelism > 1) {
+			int chunkSize = Math.max(MIN_CHUNK_SIZE, text.length() / (parallelism * 4));
+			xmlDocument = parseParallel(text, document, resolverExtensionManager, true, chunkSize, monitor);
+		}
+		if (xmlDocument == null) {
+			xmlDocument = parseSequential(text, document, resolverExtensionManager, compact, monitor);
+		}
+		xmlDocument.textVersion = version;
+		return xmlDocument;
+	}
+
+	private static XMLDocument parseSequential(CharSequence text, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, boolean compact, CancelChecker monitor) {
+		XMLDocument xmlDocument = new XMLDocument(document, resolverExtensionManager);
+		xmlDocument.end = text.length();
+		// the token stream is as large as the compact nodes, it is not kept for a
+		// compact document.
+		TokenStream tokens = !compact ? new TokenStream(text) : null;
+		CompactNodes.Builder compactNodes = compact ? new CompactNodes.Builder(xmlDocument, text) : null;
+		LineOffsets lineOffsets = new LineOffsets(text, 0);
+		parse(createScanner(text, 0, tokens, lineOffsets), text, lineOffsets, xmlDocument, xmlDocument, xmlDocument,
+				text.length(), Integer.MAX_VALUE, false, compactNodes, monitor);
+		xmlDocument.tokens = tokens;
+		if (compactNodes != null) {
+			xmlDocument.compact(compactNodes.build());
+		}
+		setLineOffsets(document, lineOffsets);
+		return xmlDocument;
+	}
+
+	/**
+	 * Gives the line offsets recorded by the scanner to the text document, which
+	 * builds its lines from them instead of scanning the text again.
+	 */
+	private static void setLineOffsets(TextDocument document, LineOffsets lineOffsets) {
+		if (document != null && lineOffsets.isComplete()) {
+			document.setLineOffsets(lineOffsets.getText(), lineOffsets.getOffsets(), lineOffsets.size());
+		}
+	}
+
+	/**
+	 * Parse the given text in parallel and returns the XML document, or null if
+	 * the text cannot be parsed in parallel.
+	 * 
+	 * <p>
+	 * The text is split between the children of the document element with
+	 * {@link TopLevelSplitter}. The text before the first split offset (prolog
+	 * and start tag of the document element) and the text after the last split
+	 * offset are parsed on the current thread, the chunks between the split
+	 * offsets are parsed on the common fork/join pool under temporary roots whose
+	 * children are moved to the document element once all the chunks are parsed.
+	 * The XML document is the same as the XML document created by a sequential
+	 * parse: when a chunk doesn't start and end at the depth of the children of
+	 * the document element (malformed text, wrong split offset), null is returned
+	 * and the caller must parse the text sequentially.
+	 * </p>
+	 * 
+	 * @param text                     the text.
+	 * @param document                 the text document.
+	 * @param resolverExtensionManager the resolver extension manager.
+	 * @param recordTokens             true if the tokens must be recorded.
+	 * @param chunkSize                the minimum size of a chunk.
+	 * @param monitor                  the cancel checker or null.
+	 * @return the XML document, or null if the text cannot be parsed in parallel.
+	 */
+	static XMLDocument parseParallel(CharSequence text, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, boolean recordTokens, int chunkSize,
+			CancelChecker monitor) {
+		int[] splitOffsets = TopLevelSplitter.findSplitOffsets(text, chunkSize);
+		if (splitOffsets.length < 2) {
+			return null;
+		}
 		XMLDocument xmlDocument = new XMLDocument(document, resolverExtensionManager);
+		xmlDocument.end = text.length();
+
+		// Parse the start of the text until the first split offset.
+		TokenStream headTokens = recordTokens ? new TokenStream(text) : null;
+		LineOffsets lineOffsets = new LineOffsets(text, 0);
+		Node curr = parse(createScanner(text, 0, headTokens, lineOffsets), text, lineOffsets, xmlDocument,
+				xmlDocument, xmlDocument, text.length(), splitOffsets[0], false, null, monitor);
+		if (curr == null || !curr.isElement() || curr.parent != xmlDocument) {
+			return null;
+		}
+		Element documentElement = (Element) curr;
+		NamespaceScope namespaceScope = documentElement.getNamespaceScope();
+
+		// Parse the chunks in parallel.
+		List<ForkJoinTask<Element>> chunks = new ArrayList<>(splitOffsets.length - 1);
+		List<TokenStream> tokens = new ArrayList<>(splitOffsets.length + 1);
+		List<LineOffsets> chunkLineOffsets = new ArrayList<>(splitOffsets.length);
+		tokens.add(headTokens);
+		for (int i = 0; i < splitOffsets.length - 1; i++) {
+			int start = splitOffsets[i];
+			int end = splitOffsets[i + 1];
+			TokenStream chunkTokens = recordTokens ? new TokenStream(text) : null;
+			LineOffsets chunkLines = new LineOffsets(text, start);
+			tokens.add(chunkTokens);
+			chunkLineOffsets.add(chunkLines);
+			chunks.add(ForkJoinPool.commonPool().submit(
+					() -> parseChunk(text, chunkLines, xmlDocument, namespaceScope, start, end, chunkTokens,
+							monitor)));
+		}
+
+		// Parse the end of the text while the chunks are parsed, the children of the
+		// document element are reordered after.
+		int headChildren = documentElement.getChildren().size();
+		int lastSplitOffset = splitOffsets[splitOffsets.length - 1];
+		TokenStream tailTokens = recordTokens ? new TokenStream(text) : null;
+		LineOffsets tailLines = new LineOffsets(text, lastSplitOffset);
+		tokens.add(tailTokens);
+		chunkLineOffsets.add(tailLines);
+		parse(createScanner(text, lastSplitOffset, tailTokens, tailLines), text, tailLines, xmlDocument, xmlDocument,
+				documentElement, lastSplitOffset, Integer.MAX_VALUE, false, null, monitor);
+
+		List<Element> chunkRoots = new ArrayList<>(chunks.size());
+		boolean parsed = true;
+		for (ForkJoinTask<Element> chunk : chunks) {
+			Element chunkRoot = chunk.join();
+			parsed &= chunkRoot != null;
+			chunkRoots.add(chunkRoot);
+		}
+		if (!parsed) {
+			return null;
+		}
+
+		// Stitch the children of the chunks under the document element.
+		List<Node> children = new ArrayList<>(documentElement.getChildren());
+		documentElement.clearChildren();
+		for (int i = 0; i < headChildren; i++) {
+			documentElement.addChild(children.get(i));
+		}
+		for (Element chunkRoot : chunkRoots) {
+			for (Node child : chunkRoot.getChildren()) {
+				documentElement.addChild(child);
+			}
+		}
+		for (int i = headChildren; i < children.size(); i++) {
+			documentElement.addChild(children.get(i));
+		}
+		if (recordTokens) {
+			xmlDocument.tokens = TokenStream.concat(text, tokens);
+		}
+		for (LineOffsets chunkLines : chunkLineOffsets) {
+			lineOffsets.append(chunkLines);
+		}
+		setLineOffsets(document, lineOffsets);
+		return xmlDocument;
+	}
+
+	/**
+	 * Parse the chunk of the given text between the given split offsets and
+	 * returns the temporary root of the parsed nodes, or null if the chunk doesn't
+	 * start and end at the depth of the children of the document element.
+	 */
+	private static Element parseChunk(CharSequence text, LineOffsets lineOffsets, XMLDocument xmlDocument,
+			NamespaceScope namespaceScope, int start, int end, TokenStream tokens, CancelChecker monitor) {
+		Element root = new Element(start, end, xmlDocument);
+		root.namespaceScope = namespaceScope;
+		// the last node closed before the chunk ends at its start offset
+		Node curr = parse(createScanner(text, start, tokens, lineOffsets), text, lineOffsets, xmlDocument, root, root,
+				start, end, true, null, monitor);
+		return curr == root ? root : null;
+	}
+
+	private static Scanner createScanner(CharSequence text, int offset, TokenStream tokens,
+			LineOffsets lineOffsets) {
+		Scanner scanner = XMLScanner.createScanner(text, offset, lineOffsets);
+		return tokens != null ? tokens.record(scanner) : scanner;
+	}
+
+	/**
+	 * Parse the given text document by reusing the given XML document which was
+	 * parsed from a previous version of the same text document.
+	 * 
+	 * <p>
+	 * The text changes applied since the previous version are merged into one
+	 * damaged region. Only the smallest element which encloses this region and
+	 * whose start and end tags are not affected is rescanned. The new element
+	 * replaces the old one and the offsets of the nodes which follow it are
+	 * shifted, and the tokens of the element are replaced in the token stream of
+	 * the XML document. When the changes cannot be handled this way (changes not available,
+	 * tags of the enclosing element modified, end tag which closes an ancestor,
+	 * etc.), a full parse is done.
+	 * </p>
+	 * 
+	 * <p>
+	 * The previous XML document is not modified because it can still be read by
+	 * other threads: its nodes are copied into a new XML document which is
+	 * updated. A compact previous XML document is not reused, the text document
+	 * is fully parsed into a new compact XML document.
+	 * </p>
+	 * 
+	 * @param document                 the text document.
+	 * @param previousDocument         the XML document parsed from a previous
+	 *                                 version of the text document and null
+	 *                                 otherwise.
+	 * @param resolverExtensionManager the resolver extension manager.
+	 * @return the XML document of the current version of the text document.
+	 */
+	public XMLDocument parse(TextDocument document, XMLDocument previousDocument,
+			URIResolverExtensionManager resolverExtensionManager) {
+		CharSequence text;
+		int version;
+		List<TextChange> changes = null;
+		synchronized (document) {
+			text = document.getSnapshot();
+			version = document.getVersion();
+			if (previousDocument != null && previousDocument.getTextDocument() == document) {
+				changes = document.getChangesSince(previousDocument.textVersion);
+			}
+		}
+		if (previousDocument != null && previousDocument.isCompact()) {
+			return parse(text, version, document, resolverExtensionManager, true, null);
+		}
+		if (changes != null) {
+			XMLDocument xmlDocument = reparse(previousDocument, text, changes);
+			if (xmlDocument != null) {
+				xmlDocument.textVersion = version;
+				return xmlDocument;
+			}
+		}
+		return parse(text, version, document, resolverExtensionManager, false, null);
+	}
+
+	/**
+	 * Reparse the smallest element which encloses the given changes and returns a
+	 * copy of the given XML document updated with the result. The given XML
+	 * document is not modified.
+	 * 
+	 * @param previousDocument the XML document parsed from the previous text.
+	 * @param text             the new text.
+	 * @param changes          the changes applied to the text of the XML
+	 *                         document.
+	 * @return the updated copy of the given XML document and null if a full parse
+	 *         is required.
+	 */
+	static XMLDocument reparse(XMLDocument previousDocument, CharSequence text, List<TextChange> changes) {
+		XMLDocument xmlDocument = new XMLDocument(previousDocument.getTextDocument(),
+				previousDocument.getResolverExtensionManager());
+		if (changes.isEmpty()) {
+			previousDocument.copyNodesTo(xmlDocument);
+			return xmlDocument;
+		}
+		// Merge the changes into one damaged region [damageStart, damageEnd[ expressed
+		// with offsets of the previous text.
+		int damageStart = -1;
+		int damageEnd = -1;
+		int delta = 0;
+		for (TextChange change : changes) {
+			int changeStart = change.getOffset();
+			int changeEnd = changeStart + change.getLength();
+			if (damageStart == -1) {
+				damageStart = changeStart;
+				damageEnd = changeEnd;
+			} else {
+				int previousChangeEnd;
+				if (changeEnd <= damageStart) {
+					previousChangeEnd = changeEnd;
+				} else if (changeEnd >= damageEnd + delta) {
+					previousChangeEnd = changeEnd - delta;
+				} else {
+					previousChangeEnd = damageEnd;
+				}
+				damageStart = Math.min(damageStart, changeStart);
+				damageEnd = Math.max(damageEnd, previousChangeEnd);
+			}
+			delta += change.getNewLength() - change.getLength();
+		}
+		if (previousDocument.end + delta != text.length()) {
+			return null;
+		}
+
+		// Search the smallest element which contains the damaged region in its content.
+		Element damagedElement = findDamagedElement(previousDocument, damageStart, damageEnd);
+		if (damagedElement == null) {
+			return null;
+		}
+		Node parent = damagedElement.parent;
+		int index = damagedElement.getChildIndex();
+		for (Node ancestor = parent; ancestor != previousDocument; ancestor = ancestor.parent) {
+			if (!ancestor.isElement()) {
+				return null;
+			}
+		}
+		Integer lastClosedEnd = getLastClosedEnd(damagedElement, index, text.length());
+		if (lastClosedEnd == null) {
+			return null;
+		}
+
+		// Rescan the damaged element in the new XML document
+		Element root = new Element(damagedElement.start, damagedElement.end + delta, xmlDocument);
+		root.namespaceScope = parent.isElement() ? ((Element) parent).getNamespaceScope() : NamespaceScope.EMPTY;
+		TokenStream tokens = new TokenStream(text);
+		// the last closed node can be before the damaged element
+		LineOffsets lineOffsets = new LineOffsets(text, Math.min(lastClosedEnd, damagedElement.start));
+		if (parse(createScanner(text, damagedElement.start, tokens, lineOffsets), text, lineOffsets, xmlDocument,
+				root, root, lastClosedEnd, damagedElement.end + delta, true, null, null) != root) {
+			return null;
+		}
+		if (root.getChildren().size() != 1 || !root.getChild(0).isElement()) {
+			return null;
+		}
+		Element element = (Element) root.getChild(0);
+		if (!element.isClosed() || element.isSelfClosed() || element.end != damagedElement.end + delta
+				|| !Objects.equals(element.tag, damagedElement.tag)
+				|| !Objects.equals(element.startTagCloseOffset, damagedElement.startTagCloseOffset)
+				|| !Objects.equals(element.endTagOpenOffset, damagedElement.endTagOpenOffset + delta)) {
+			return null;
+		}
 
-		Node curr = xmlDocument;
-		Node lastClosed = xmlDocument;
+		// Copy the previous nodes, replace the copy of the damaged element and shift
+		// the offsets of the nodes which follow it.
+		previousDocument.copyNodesTo(xmlDocument);
+		if (xmlDocument.tokens != null) {
+			xmlDocument.tokens = xmlDocument.tokens.replace(damagedElement.start, damagedElement.end, tokens);
+		}
+		int damagedEnd = damagedElement.end;
+		parent = getCopy(damagedElement.parent, xmlDocument);
+		parent.setChild(index, element);
+		shiftFollowingSiblings(parent, index, delta);
+		Node child = parent;
+		for (Node ancestor = parent.parent; ancestor != null; ancestor = ancestor.parent) {
+			Element ancestorElement = (Element) child;
+			ancestorElement.end += delta;
+			// the end tag of the element created for an orphan end tag (ex: </x) is
+			// before its children
+			Integer endTagOpenOffset = ancestorElement.endTagOpenOffset;
+			if (endTagOpenOffset != null && endTagOpenOffset >= damagedEnd) {
+				ancestorElement.endTagOpenOffset = endTagOpenOffset + delta;
+			}
+			shiftFollowingSiblings(ancestor, child.getChildIndex(), delta);
+			child = ancestor;
+		}
+		xmlDocument.end = text.length();
+		return xmlDocument;
+	}
+
+	/**
+	 * Returns the node of the given copy of an XML document which is the copy of
+	 * the given node.
+	 * 
+	 * @param node        the node of the copied XML document.
+	 * @param xmlDocument the copy of the owner document of the node.
+	 * @return the copy of the given node.
+	 */
+	private static Node getCopy(Node node, XMLDocument xmlDocument) {
+		Deque<Integer> indexes = new ArrayDeque<>();
+		for (Node current = node; current.parent != null; current = current.parent) {
+			indexes.push(current.getChildIndex());
+		}
+		Node copy = xmlDocument;
+		while (!indexes.isEmpty()) {
+			copy = copy.getChild(indexes.pop());
+		}
+		return copy;
+	}
+
+	private static void shiftFollowingSiblings(Node parent, int index, int delta) {
+		List<Node> children = parent.getChildren();
+		for (int i = index + 1; i < children.size(); i++) {
+			children.get(i).shift(delta);
+		}
+	}
+
+	/**
+	 * Returns the smallest element which contains the given region in its content
+	 * and which has well-formed start and end tags, and null otherwise.
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param start       the start offset of the region.
+	 * @param end         the end offset of the region.
+	 * @return the smallest element which contains the given region in its content.
+	 */
+	private static Element findDamagedElement(XMLDocument xmlDocument, int start, int end) {
+		Element damagedElement = null;
+		Node node = xmlDocument;
+		while (node != null) {
+			Node container = null;
+			List<Node> children = node.getChildren();
+			// binary search of the last child which starts before the region
+			int low = 0, high = children.size();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (children.get(mid).start < start) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			if (low > 0) {
+				Node child = children.get(low - 1);
+				if (child.isElement() && end <= child.end) {
+					container = child;
+					Element element = (Element) child;
+					if (isWellFormed(element) && element.startTagCloseOffset < start
+							&& end <= element.endTagOpenOffset) {
+						damagedElement = element;
+					}
+				}
+			}
+			node = container;
+		}
+		return damagedElement;
+	}
+
+	private static boolean isWellFormed(Element element) {
+		return element.isClosed() && !element.isSelfClosed() && element.tag != null && element.hasStartTag()
+				&& element.hasStartTagClose() && element.hasEndTag();
+	}
+
+	/**
+	 * Returns the end offset of the last node which has been closed with an end tag
+	 * or a self-closed tag before the given element, or null if it cannot be
+	 * computed.
+	 * 
+	 * @param element    the element.
+	 * @param index      the index of the element in its parent.
+	 * @param textLength the length of the text.
+	 * @return the end offset of the last closed node before the given element.
+	 */
+	private static Integer getLastClosedEnd(Node element, int index, int textLength) {
+		Node node = element;
+		int nodeIndex = index;
+		while (node.parent != null) {
+			List<Node> siblings = node.parent.getChildren();
+			for (int i = nodeIndex - 1; i >= 0; i--) {
+				Node sibling = siblings.get(i);
+				if (sibling.isElement()) {
+					Element siblingElement = (Element) sibling;
+					if (siblingElement.isSelfClosed() || (siblingElement.hasEndTag() && siblingElement.isClosed())) {
+						return sibling.end;
+					}
+					return null;
+				}
+				if (sibling.hasChildNodes()) {
+					return null;
+				}
+			}
+			node = node.parent;
+			if (node.parent != null) {
+				nodeIndex = node.getChildIndex();
+			}
+		}
+		// no closed node, the document itself is the last closed node.
+		return textLength;
+	}
+
+	/**
+	 * Parse the tokens of the given scanner until the given limit offset and add
+	 * the created nodes to the given start node.
+	 * 
+	 * @param scanner       the scanner.
+	 * @param text          the text.
+	 * @param lineOffsets   the line offsets recorded by the scanner.
+	 * @param xmlDocument   the owner XML document.
+	 * @param root          the root node, the start node or one of its ancestors.
+	 * @param startNode     the node where the created nodes are added.
+	 * @param lastClosedEnd the end offset of the last closed node.
+	 * @param limit         the offset where the parse stops, it must be the end of
+	 *                      an end tag or of a self-closed tag.
+	 * @param fragment      true if the parsed nodes must not close the root node.
+	 * @param compactNodes  the builder which stores the created nodes in compact
+	 *                      columns, or null to add them to their parent.
+	 * @param monitor       the cancel checker or null.
+	 * @return the current node when the parse stops, or null if the limit is not
+	 *         the end of an end tag or of a self-closed tag or if the parsed
+	 *         fragment closes the root node.
+	 */
+	private static Node parse(Scanner scanner, CharSequence text, LineOffsets lineOffsets, XMLDocument xmlDocument,
+			Node root, Node startNode, int lastClosedEnd, int limit, boolean fragment,
+			CompactNodes.Builder compactNodes, CancelChecker monitor) {
+		Node curr = startNode;
+		int tokenCount = 0;
 		Attr attr = null;
 		int endTagOpenOffset = -1;
 		String pendingAttribute = null;
@@ -59,7 +616,7 @@ public class XMLParser {
 			case StartTagOpen: {
 				Element child = xmlDocument.createElement(scanner.getTokenOffset(), text.length());
 				child.startTagOpenOffset = scanner.getTokenOffset();
-				curr.addChild(child);
+				addChild(curr, child, compactNodes);
 				curr = child;
 				break;
 			}
@@ -75,6 +632,8 @@ public class XMLParser {
 					Element element = (Element) curr;
 					curr.end = scanner.getTokenEnd(); // might be later set to end tag position
 					element.startTagCloseOffset = scanner.getTokenOffset();
+					// the attributes are parsed, compute the namespace scope
+					element.getNamespaceScope();
 					if (element.getTagName() != null && isEmptyElement(element.getTagName()) && curr.parent != null) {
 						curr.closed = true;
 						curr = curr.parent;
@@ -96,14 +655,14 @@ public class XMLParser {
 
 			case EndTag:
 				// end tag (ex: </root>)
-				String closeTag = scanner.getTokenText().toLowerCase();
 				Node current = curr;
-				while (!(curr.isElement() && ((Element) curr).isSameTag(closeTag)) && curr.parent != null) {
+				while (!(curr.isElement() && scanner.isTokenTextEqualsIgnoreCase(((Element) curr).tag))
+						&& curr.parent != null) {
 					curr.end = endTagOpenOffset;
 					curr.closed = false;
 					curr = curr.parent;
 				}
-				if (curr != xmlDocument) {
+				if (curr != root) {
 					curr.closed = true;
 					if (curr.isElement()) {
 						((Element) curr).endTagOpenOffset = endTagOpenOffset;
@@ -111,12 +670,16 @@ public class XMLParser {
 						((ProcessingInstruction) curr).endTagOpenOffset = endTagOpenOffset;
 					}
 				} else {
+					if (fragment) {
+						// the end tag closes an ancestor of the parsed fragment
+						return null;
+					}
 					// element open tag not found (ex: <root>) add a fake elementg which have just
 					// end tag (no start tag).
 					Element element = xmlDocument.createElement(scanner.getTokenOffset() - 2, text.length());
 					element.endTagOpenOffset = endTagOpenOffset;
-					element.tag = closeTag;
-					current.addChild(element);
+					element.tag = SymbolTable.getInstance().intern(scanner.getTokenText().toLowerCase());
+					addChild(current, element, compactNodes);
 					curr = element;
 				}
 				break;
@@ -125,8 +688,9 @@ public class XMLParser {
 				if (curr.parent != null) {
 					curr.closed = true;
 					((Element) curr).selfClosed = true;
+					((Element) curr).getNamespaceScope();
 					curr.end = scanner.getTokenEnd();
-					lastClosed = curr;
+					lastClosedEnd = curr.end;
 					curr = curr.parent;
 				}
 				break;
@@ -134,7 +698,7 @@ public class XMLParser {
 			case EndTagClose:
 				if (curr.parent != null) {
 					curr.end = scanner.getTokenEnd();
-					lastClosed = curr;
+					lastClosedEnd = curr.end;
 					curr = curr.parent;
 				}
 				break;
@@ -148,9 +712,8 @@ public class XMLParser {
 			}
 
 			case AttributeValue: {
-				String value = scanner.getTokenText();
 				if (curr.hasAttributes()) {
-					attr.setValue(value, scanner.getTokenOffset(), scanner.getTokenOffset() + value.length());
+					attr.setValue(scanner.getTokenText(), scanner.getTokenOffset(), scanner.getTokenEnd());
 				}
 				pendingAttribute = null;
 				attr = null;
@@ -159,7 +722,7 @@ public class XMLParser {
 
 			case CDATATagOpen: {
 				CDataSection cdataNode = xmlDocument.createCDataSection(scanner.getTokenOffset(), text.length());
-				curr.addChild(cdataNode);
+				addChild(curr, cdataNode, compactNodes);
 				curr = cdataNode;
 				break;
 			}
@@ -181,7 +744,7 @@ public class XMLParser {
 			case StartPrologOrPI: {
 				ProcessingInstruction prologOrPINode = xmlDocument.createProcessingInstruction(scanner.getTokenOffset(),
 						text.length());
-				curr.addChild(prologOrPINode);
+				addChild(curr, prologOrPINode, compactNodes);
 				curr = prologOrPINode;
 				break;
 			}
@@ -217,18 +780,11 @@ public class XMLParser {
 
 			case StartCommentTag: {
 				Comment comment = xmlDocument.createComment(scanner.getTokenOffset(), text.length());
-				curr.addChild(comment);
+				addChild(curr, comment, compactNodes);
 				curr = comment;
-				try {
-					int endLine = document.positionAt(lastClosed.end).getLine();
-					int startLine = document.positionAt(curr.start).getLine();
-					if (endLine == startLine && lastClosed.end <= curr.start) {
-						comment.commentSameLineEndTag = true;
-					}
-				} catch (BadLocationException e) {
-					LOGGER.log(Level.SEVERE, "XMLParser StartCommentTag bad offset in document", e);
+				if (lineOffsets.isSameLine(lastClosedEnd, curr.start)) {
+					comment.commentSameLineEndTag = true;
 				}
-				// }
 				break;
 			}
 
@@ -241,7 +797,7 @@ public class XMLParser {
 
 			case StartDoctypeTag: {
 				DocumentType doctype = xmlDocument.createDocumentType(scanner.getTokenOffset(), text.length());
-				curr.addChild(doctype);
+				addChild(curr, doctype, compactNodes);
 				curr = doctype;
 				break;
 			}
@@ -268,30 +824,45 @@ public class XMLParser {
 			}
 
 			case Content: {
-				// FIXME: don't use getTokenText (substring) to know if the content is only
-				// spaces or line feed (scanner should know that).
-				String content = scanner.getTokenText();
-				if (content.trim().length() == 0) {
+				if (scanner.isTokenWhitespaceOnly()) {
 					break;
 				}
 				int start = scanner.getTokenOffset();
 				int end = scanner.getTokenEnd();
 				Text textNode = xmlDocument.createText(start, end);
 				textNode.closed = true;
-				curr.addChild(textNode);
+				addChild(curr, textNode, compactNodes);
 				break;
 			}
 
 			default:
 			}
+			if (scanner.getTokenEnd() >= limit) {
+				return scanner.getTokenEnd() == limit
+						&& (token == TokenType.EndTagClose || token == TokenType.StartTagSelfClose) ? curr : null;
+			}
+			if (monitor != null && (++tokenCount & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+				monitor.checkCanceled();
+			}
 			token = scanner.scan();
 		}
+		if (fragment) {
+			return null;
+		}
 		while (curr.parent != null) {
 			curr.end = text.length();
 			curr.closed = false;
 			curr = curr.parent;
 		}
-		return xmlDocument;
+		return curr;
+	}
+
+	private static void addChild(Node parent, Node child, CompactNodes.Builder compactNodes) {
+		if (compactNodes != null) {
+			compactNodes.addChild(parent, child);
+		} else {
+			parent.addChild(child);
+		}
 	}
 
 	private static boolean isEmptyElement(String tag) {
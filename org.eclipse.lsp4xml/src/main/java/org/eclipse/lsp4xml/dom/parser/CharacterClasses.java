@@ -0,0 +1,115 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Character classes used by the XML scanner. ASCII characters are tested with a
+ * lookup table, so scanning doesn't require a regex engine nor boxing.
+ *
+ */
+public final class CharacterClasses {
+
+	/**
+	 * Whitespace : ' ', '\t', '\n', '\f', '\r'.
+	 */
+	public static final IntPredicate WHITESPACE = new CharacterClass(" \t\n\f\r", false);
+
+	/**
+	 * Any character which is not a {@link #WHITESPACE}.
+	 */
+	public static final IntPredicate NOT_WHITESPACE = WHITESPACE.negate();
+
+	/**
+	 * First character of an element name, same as
+	 * {@link Constants#ELEMENT_NAME_REGEX} : <code>[_:\w]</code>.
+	 */
+	public static final IntPredicate ELEMENT_NAME_START = new CharacterClass(
+			"_:" + range('a', 'z') + range('A', 'Z') + range('0', '9'), false);
+
+	/**
+	 * Character of an element name, same as {@link Constants#ELEMENT_NAME_REGEX} :
+	 * <code>[_:\w-.\d]</code>.
+	 */
+	public static final IntPredicate ELEMENT_NAME_CHAR = new CharacterClass(
+			"_:-." + range('a', 'z') + range('A', 'Z') + range('0', '9'), false);
+
+	/**
+	 * Character of an attribute name, same as
+	 * {@link Constants#ATTRIBUTE_NAME_REGEX} :
+	 * <code>[^\s"'&lt;&gt;/=\x00-\x0F\x7F\x80-\x9F]</code>.
+	 */
+	public static final IntPredicate ATTRIBUTE_NAME_CHAR = new CharacterClass(
+			" \t\n\u000B\f\r\"'<>/=" + range('\u0000', '\u000F') + '\u007F', true) {
+		@Override
+		public boolean test(int ch) {
+			return super.test(ch) && (ch < 0x80 || ch > 0x9F);
+		}
+	};
+
+	/**
+	 * Character of an unquoted attribute value, same as
+	 * {@link Constants#ATTRIBUTE_VALUE_REGEX} : <code>[^\s"'`=&lt;&gt;\/]</code>.
+	 */
+	public static final IntPredicate ATTRIBUTE_VALUE_CHAR = new CharacterClass(" \t\n\u000B\f\r\"'`=<>/", true);
+
+	/**
+	 * Character of a processing instruction name, same as
+	 * {@link Constants#PI_TAG_NAME} : <code>[a-zA-Z0-9]</code>.
+	 */
+	public static final IntPredicate PI_NAME_CHAR = new CharacterClass(
+			range('a', 'z') + range('A', 'Z') + range('0', '9'), false);
+
+	private CharacterClasses() {
+	}
+
+	private static String range(char from, char to) {
+		StringBuilder chars = new StringBuilder();
+		for (char ch = from; ch <= to; ch++) {
+			chars.append(ch);
+		}
+		return chars.toString();
+	}
+
+	/**
+	 * Character class backed by a lookup table for ASCII characters.
+	 */
+	private static class CharacterClass implements IntPredicate {
+
+		private final boolean[] ascii;
+		private final boolean nonAscii;
+
+		/**
+		 * Creates a character class.
+		 *
+		 * @param chars   the ASCII characters of the class (or excluded from the class
+		 *                if negated).
+		 * @param negated true if the class contains all characters except the given
+		 *                characters.
+		 */
+		CharacterClass(String chars, boolean negated) {
+			this.ascii = new boolean[128];
+			for (int i = 0; i < ascii.length; i++) {
+				ascii[i] = negated;
+			}
+			for (int i = 0; i < chars.length(); i++) {
+				ascii[chars.charAt(i)] = !negated;
+			}
+			this.nonAscii = negated;
+		}
+
+		@Override
+		public boolean test(int ch) {
+			return ch >= 0 && ch < 128 ? ascii[ch] : (ch >= 0 && nonAscii);
+		}
+	}
+}
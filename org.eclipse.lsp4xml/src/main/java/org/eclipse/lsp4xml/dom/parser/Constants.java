@@ -17,6 +17,7 @@ public class Constants {
 	public final static int _BNG = "!".codePointAt(0);
 	public final static int _MIN = "-".codePointAt(0);
 	public final static int _LAN = "<".codePointAt(0);
+	public final static int _AMP = "&".codePointAt(0);
 	public final static int _RAN = ">".codePointAt(0);
 	public final static int _FSL = "/".codePointAt(0);
 	public final static int _EQS = "=".codePointAt(0);
@@ -0,0 +1,201 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.Arrays;
+
+/**
+ * Offsets of the start of the lines of a text, recorded by a {@link XMLScanner}
+ * as it scans the text ("\r\n", "\r" and "\n" line delimiters).
+ *
+ * <p>
+ * The characters read by the loops of the scanner (content, whitespaces,
+ * comments, attribute values, etc) are recorded when they are read with
+ * {@link #read(int, int)}. The few characters which are skipped without being
+ * read (delimiters of the tokens) are read again with {@link #scanTo(int)}
+ * after each token.
+ * </p>
+ *
+ * <p>
+ * The text is scanned from a start offset which is considered as the start of
+ * a line, so the line start returned for an offset is the real line start or
+ * the start offset.
+ * </p>
+ *
+ */
+public final class LineOffsets {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final CharSequence text;
+	private final int start;
+
+	// sorted offsets of the line starts, the first one is the start offset.
+	private int[] offsets;
+	private int size;
+
+	// offset until which the text has been scanned
+	private int scanned;
+
+	/**
+	 * Creates the line offsets of the given text from the given start offset.
+	 *
+	 * @param text  the text.
+	 * @param start the offset from which the text is scanned.
+	 */
+	public LineOffsets(CharSequence text, int start) {
+		this.text = text;
+		this.start = start;
+		this.offsets = new int[INITIAL_CAPACITY];
+		this.offsets[0] = start;
+		this.size = 1;
+		this.scanned = start;
+	}
+
+	/**
+	 * Scans the text which has not been read by the scanner until the given
+	 * offset.
+	 *
+	 * @param end the end offset.
+	 */
+	void scanTo(int end) {
+		for (int i = scanned; i < end; i++) {
+			record(i, text.charAt(i));
+		}
+		if (end > scanned) {
+			scanned = end;
+		}
+	}
+
+	/**
+	 * Records the given character read by the scanner at the given offset. A
+	 * character which has already been recorded (the scanner has gone back) is
+	 * ignored, and the characters which have been skipped before the given offset
+	 * are scanned.
+	 *
+	 * @param offset the offset of the character.
+	 * @param c      the character.
+	 */
+	void read(int offset, int c) {
+		if (offset != scanned) {
+			if (offset < scanned) {
+				return;
+			}
+			scanTo(offset);
+		}
+		record(offset, c);
+		scanned = offset + 1;
+	}
+
+	private void record(int offset, int c) {
+		if (c == '\n' || (c == '\r' && (offset + 1 == text.length() || text.charAt(offset + 1) != '\n'))) {
+			add(offset + 1);
+		}
+	}
+
+	private void add(int offset) {
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, size + (size >> 1));
+		}
+		offsets[size++] = offset;
+	}
+
+	/**
+	 * Returns the offset of the start of the line of the given offset, or the
+	 * start offset if there is no line delimiter between the start offset and the
+	 * given offset. The text must have been scanned until the given offset.
+	 *
+	 * @param offset the offset.
+	 * @return the offset of the start of the line of the given offset.
+	 */
+	public int getLineStart(int offset) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (offsets[mid] <= offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low > 0 ? offsets[low - 1] : start;
+	}
+
+	/**
+	 * Returns true if the given offsets are on the same line, the first offset
+	 * must be lower than or equal to the second one and greater than or equal to
+	 * the start offset.
+	 *
+	 * @param from the first offset.
+	 * @param to   the second offset.
+	 * @return true if the given offsets are on the same line and false otherwise.
+	 */
+	public boolean isSameLine(int from, int to) {
+		return from <= to && getLineStart(to) <= from;
+	}
+
+	/**
+	 * Appends the line offsets recorded from the end of the text scanned by this
+	 * object.
+	 *
+	 * @param next the line offsets scanned from the end of this object.
+	 */
+	public void append(LineOffsets next) {
+		if (next.start != scanned) {
+			throw new IllegalArgumentException("Line offsets start at " + next.start + " instead of " + scanned);
+		}
+		// the first offset of the next line offsets is its start offset and not a
+		// line start.
+		for (int i = 1; i < next.size; i++) {
+			add(next.offsets[i]);
+		}
+		scanned = next.scanned;
+	}
+
+	/**
+	 * Returns true if the whole text has been scanned from its beginning and false
+	 * otherwise.
+	 *
+	 * @return true if the whole text has been scanned from its beginning and false
+	 *         otherwise.
+	 */
+	public boolean isComplete() {
+		return start == 0 && scanned == text.length();
+	}
+
+	/**
+	 * Returns the scanned text.
+	 *
+	 * @return the scanned text.
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the sorted offsets of the line starts. Only the first
+	 * {@link #size()} values are used.
+	 *
+	 * @return the sorted offsets of the line starts.
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * Returns the number of line starts.
+	 *
+	 * @return the number of line starts.
+	 */
+	public int size() {
+		return size;
+	}
+}
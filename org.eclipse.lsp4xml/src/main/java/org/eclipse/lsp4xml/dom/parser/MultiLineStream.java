@@ -10,18 +10,11 @@
  */
 package org.eclipse.lsp4xml.dom.parser;
 
-import static org.eclipse.lsp4xml.dom.parser.Constants._CAR;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.NOT_WHITESPACE;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.WHITESPACE;
 import static org.eclipse.lsp4xml.dom.parser.Constants._LAN;
-import static org.eclipse.lsp4xml.dom.parser.Constants._LFD;
-import static org.eclipse.lsp4xml.dom.parser.Constants._NWL;
-import static org.eclipse.lsp4xml.dom.parser.Constants._TAB;
-import static org.eclipse.lsp4xml.dom.parser.Constants._WSP;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.IntPredicate;
 
 /**
  * Multi line stream.
@@ -29,34 +22,49 @@ import java.util.regex.Pattern;
  */
 class MultiLineStream {
 
-	private static final Predicate<Integer> WHITESPACE_PREDICATE = ch -> {
-		return ch == _WSP || ch == _TAB || ch == _NWL || ch == _LFD || ch == _CAR;
-	};
-
-	private static final Predicate<Integer> CHARACTER_PREDICATE = ch -> {
-		return ch != _WSP && ch != _TAB && ch != _NWL && ch != _LFD && ch != _CAR;
-	};
-
-	private final String source;
+	private final CharSequence source;
 	private final int len;
 	private int position;
-	private final Map<Pattern, Matcher> regexpCache;
+	// line offsets which record the line delimiters read by the loops of the
+	// stream, or null.
+	private final LineOffsets lineOffsets;
+
+	public MultiLineStream(CharSequence source, int position) {
+		this(source, position, null);
+	}
 
-	public MultiLineStream(String source, int position) {
+	public MultiLineStream(CharSequence source, int position, LineOffsets lineOffsets) {
 		this.source = source;
 		this.len = source.length();
 		this.position = position;
-		this.regexpCache = new HashMap<>();
+		this.lineOffsets = lineOffsets;
+	}
+
+	private void read(int c) {
+		if (lineOffsets != null) {
+			lineOffsets.read(this.position, c);
+		}
 	}
 
 	public boolean eos() {
 		return this.len <= this.position;
 	}
 
-	public String getSource() {
+	public CharSequence getSource() {
 		return this.source;
 	}
 
+	/**
+	 * Returns the text of the source between the given offsets.
+	 * 
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @return the text of the source between the given offsets.
+	 */
+	public String substring(int start, int end) {
+		return this.source.subSequence(start, end).toString();
+	}
+
 	public int pos() {
 		return this.position;
 	}
@@ -92,7 +100,7 @@ class MultiLineStream {
 		if (pos >= len) {
 			return -1;
 		}
-		return this.source.codePointAt(pos);
+		return Character.codePointAt(this.source, pos);
 	}
 
 	public boolean advanceIfChar(int ch) {
@@ -117,24 +125,42 @@ class MultiLineStream {
 		return true;
 	}
 
-	public String advanceIfRegExp(Pattern regex) {
-		Matcher match = getCachedMatcher(regex);
-		// Initialize start region where search must be started.
-		match.region(this.position, this.len);
-		if (match.find()) {
-			this.position = match.end();
-			return match.group(0);
+	/**
+	 * Advances the stream after the name which starts at the current position.
+	 * 
+	 * @param start the class of the first character of the name.
+	 * @param part  the class of the other characters of the name.
+	 * @return the length of the name, 0 if there is no name at the current
+	 *         position.
+	 */
+	public int advanceIfName(IntPredicate start, IntPredicate part) {
+		if (this.position < this.len && start.test(this.source.charAt(this.position))) {
+			this.position++;
+			return 1 + advanceWhileChar(part);
 		}
-		return "";
+		return 0;
 	}
 
-	public String advanceUntilRegExp(Pattern regex) {
-		String str = this.source.substring(this.position);
-		/*
-		 * TODO let match = str.match(regex); if (match) { this.position = this.position
-		 * + match.index!; return match[0]; } else { this.goToEnd(); }
-		 */
-		return "";
+	/**
+	 * Returns true if the text between the given offsets is equal to the given
+	 * text.
+	 * 
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @param text  the text to compare.
+	 * @return true if the text between the given offsets is equal to the given
+	 *         text.
+	 */
+	public boolean regionMatches(int start, int end, String text) {
+		if (end - start != text.length()) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (this.source.charAt(i) != text.charAt(i - start)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -144,7 +170,9 @@ class MultiLineStream {
 	 */
 	public boolean advanceUntilChar(int ch) {
 		while (this.position < this.len) {
-			if (peekChar() == ch) {
+			int c = peekChar();
+			read(c);
+			if (c == ch) {
 				return true;
 			}
 			this.advance(1);
@@ -157,8 +185,10 @@ class MultiLineStream {
 	 */
 	public boolean advanceUntilAnyOfChars(int... ch) {
 		while (this.position < this.len) {
+			int c = peekChar();
+			read(c);
 			for (int i = 0; i < ch.length; i++) {
-				if (peekChar() == ch[i]) {
+				if (c == ch[i]) {
 					return true;
 				}
 			}
@@ -173,7 +203,9 @@ class MultiLineStream {
 	 */
 	public boolean advanceUntilCharOrNewTag(int ch) {
 		while (this.position < this.len) {
-			if (peekChar() == ch || peekChar() == _LAN) {
+			int c = peekChar();
+			read(c);
+			if (c == ch || c == _LAN) {
 				return true;
 			}
 			this.advance(1);
@@ -183,10 +215,9 @@ class MultiLineStream {
 
 	public boolean advanceUntilChars(int... ch) {
 		while (this.position + ch.length <= this.len) {
-			int i = 0;
-			for (; i < ch.length && peekChar(i) == ch[i]; i++) {
-			}
-			if (i == ch.length) {
+			int c = peekChar();
+			read(c);
+			if (matchesFrom(c, ch)) {
 				return true;
 			}
 			this.advance(1);
@@ -201,13 +232,12 @@ class MultiLineStream {
 	 */
 	public boolean advanceUntilCharsOrNewTag(int... ch) {
 		while (this.position + ch.length <= this.len) {
-			int i = 0;
-			if (peekChar(0) == _LAN) { // <
+			int c = peekChar();
+			read(c);
+			if (c == _LAN) { // <
 				return true;
 			}
-			for (; i < ch.length && peekChar(i) == ch[i]; i++) {
-			}
-			if (i == ch.length) {
+			if (matchesFrom(c, ch)) {
 				return true;
 			}
 			this.advance(1);
@@ -216,8 +246,22 @@ class MultiLineStream {
 		return false;
 	}
 
+	/**
+	 * Returns true if the given chars are at the current position, the given
+	 * current char being the first one.
+	 */
+	private boolean matchesFrom(int c, int... ch) {
+		if (c != ch[0]) {
+			return false;
+		}
+		int i = 1;
+		for (; i < ch.length && peekChar(i) == ch[i]; i++) {
+		}
+		return i == ch.length;
+	}
+
 	public boolean skipWhitespace() {
-		int n = this.advanceWhileChar(WHITESPACE_PREDICATE);
+		int n = this.advanceWhileChar(WHITESPACE);
 		return n > 0;
 	}
 
@@ -225,30 +269,20 @@ class MultiLineStream {
 	 * Advances until it reaches a whitespace character
 	 */
 	public boolean advanceUntilWhitespace() {
-		int n = this.advanceWhileChar(CHARACTER_PREDICATE);
+		int n = this.advanceWhileChar(NOT_WHITESPACE);
 		return n > 0;
 	}
 
-	public int advanceWhileChar(Predicate<Integer> condition) {
+	public int advanceWhileChar(IntPredicate condition) {
 		int posNow = this.position;
-		while (this.position < this.len && condition.test(peekChar())) {
+		while (this.position < this.len) {
+			char c = this.source.charAt(this.position);
+			read(c);
+			if (!condition.test(c)) {
+				break;
+			}
 			this.position++;
 		}
 		return this.position - posNow;
 	}
-
-	/**
-	 * Returns the cached matcher from the given regex.
-	 * 
-	 * @param regex the regex pattern.
-	 * @return the cached matcher from the given regex.
-	 */
-	private Matcher getCachedMatcher(Pattern regex) {
-		Matcher matcher = regexpCache.get(regex);
-		if (matcher == null) {
-			matcher = regex.matcher(source);
-			regexpCache.put(regex, matcher);
-		}
-		return matcher;
-	}
 }
\ No newline at end of file
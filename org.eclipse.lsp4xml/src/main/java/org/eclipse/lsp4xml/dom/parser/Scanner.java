@@ -34,8 +34,46 @@ public interface Scanner {
 	 */
 	int getTokenEnd();
 
+	/**
+	 * Returns the text of the current token. The names (tag, attribute and
+	 * processing instruction names) are interned in the {@link SymbolTable}, for
+	 * the other tokens a new string is created for each call: prefer
+	 * {@link #getTokenOffset()} and {@link #getTokenLength()} when the text is not
+	 * required.
+	 * 
+	 * @return the text of the current token.
+	 */
 	String getTokenText();
 
+	/**
+	 * Returns true if the current {@link TokenType#Content} token contains only
+	 * whitespaces and false otherwise.
+	 * 
+	 * @return true if the current {@link TokenType#Content} token contains only
+	 *         whitespaces and false otherwise.
+	 */
+	boolean isTokenWhitespaceOnly();
+
+	/**
+	 * Returns true if the current {@link TokenType#Content} or
+	 * {@link TokenType#AttributeValue} token contains an entity reference (ex :
+	 * &amp;amp;) and false otherwise.
+	 * 
+	 * @return true if the current token contains an entity reference and false
+	 *         otherwise.
+	 */
+	boolean hasTokenEntityReference();
+
+	/**
+	 * Returns true if the text of the current token is equal to the given text,
+	 * ignoring case, without creating the token text.
+	 * 
+	 * @param text the text to compare.
+	 * @return true if the text of the current token is equal to the given text,
+	 *         ignoring case.
+	 */
+	boolean isTokenTextEqualsIgnoreCase(String text);
+
 	String getTokenError();
 
 	ScannerState getScannerState();
@@ -0,0 +1,178 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of symbols (tag names, attribute names, etc) shared by all the
+ * documents.
+ *
+ * <p>
+ * A symbol is looked up directly from a range of characters, so no temporary
+ * string is created when the symbol already exists, and the same name is
+ * stored once for all the documents. Two symbols returned by the table can be
+ * compared with <code>==</code>.
+ * </p>
+ *
+ * <p>
+ * The table is thread-safe: lookups don't lock, only the insertion of a new
+ * symbol is synchronized. The number of symbols is bounded, when the table is
+ * full the names are not interned anymore.
+ * </p>
+ *
+ */
+public class SymbolTable {
+
+	/**
+	 * Default maximum number of symbols, can be changed with the
+	 * <code>lsp4xml.symbolTable.maxSymbols</code> system property.
+	 */
+	public static final int DEFAULT_MAX_SYMBOLS = 65536;
+
+	private static final SymbolTable INSTANCE = new SymbolTable(
+			Integer.getInteger("lsp4xml.symbolTable.maxSymbols", DEFAULT_MAX_SYMBOLS));
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	public static SymbolTable getInstance() {
+		return INSTANCE;
+	}
+
+	private final int maxSymbols;
+
+	private volatile AtomicReferenceArray<Entry> buckets;
+	private int size;
+
+	/**
+	 * Creates a symbol table.
+	 *
+	 * @param maxSymbols the maximum number of symbols.
+	 */
+	public SymbolTable(int maxSymbols) {
+		this.maxSymbols = maxSymbols;
+		this.buckets = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the symbol for the given string.
+	 *
+	 * @param name the name.
+	 * @return the symbol for the given string.
+	 */
+	public String intern(String name) {
+		return name != null ? intern(name, 0, name.length()) : null;
+	}
+
+	/**
+	 * Returns the symbol for the characters of the given text between the given
+	 * offsets. A string is created only if the symbol doesn't exist.
+	 *
+	 * @param text  the text.
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @return the symbol for the characters of the given text between the given
+	 *         offsets.
+	 */
+	public String intern(CharSequence text, int start, int end) {
+		int hash = hash(text, start, end);
+		String symbol = find(buckets, hash, text, start, end);
+		if (symbol != null) {
+			return symbol;
+		}
+		synchronized (this) {
+			AtomicReferenceArray<Entry> buckets = this.buckets;
+			symbol = find(buckets, hash, text, start, end);
+			if (symbol != null) {
+				return symbol;
+			}
+			symbol = text.subSequence(start, end).toString();
+			if (size >= maxSymbols) {
+				// the table is full
+				return symbol;
+			}
+			if (size >= buckets.length() * 3 / 4) {
+				buckets = rehash(buckets);
+				this.buckets = buckets;
+			}
+			int index = hash & (buckets.length() - 1);
+			buckets.set(index, new Entry(symbol, hash, buckets.get(index)));
+			size++;
+			return symbol;
+		}
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 *
+	 * @return the number of symbols.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private static String find(AtomicReferenceArray<Entry> buckets, int hash, CharSequence text, int start,
+			int end) {
+		for (Entry entry = buckets.get(hash & (buckets.length() - 1)); entry != null; entry = entry.next) {
+			if (entry.hash == hash && regionMatches(entry.symbol, text, start, end)) {
+				return entry.symbol;
+			}
+		}
+		return null;
+	}
+
+	private static AtomicReferenceArray<Entry> rehash(AtomicReferenceArray<Entry> buckets) {
+		AtomicReferenceArray<Entry> newBuckets = new AtomicReferenceArray<>(buckets.length() * 2);
+		for (int i = 0; i < buckets.length(); i++) {
+			for (Entry entry = buckets.get(i); entry != null; entry = entry.next) {
+				int index = entry.hash & (newBuckets.length() - 1);
+				newBuckets.set(index, new Entry(entry.symbol, entry.hash, newBuckets.get(index)));
+			}
+		}
+		return newBuckets;
+	}
+
+	/**
+	 * Same hash as {@link String#hashCode()}.
+	 */
+	private static int hash(CharSequence text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return hash;
+	}
+
+	private static boolean regionMatches(String symbol, CharSequence text, int start, int end) {
+		if (symbol.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < symbol.length(); i++) {
+			if (symbol.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class Entry {
+
+		final String symbol;
+		final int hash;
+		final Entry next;
+
+		Entry(String symbol, int hash, Entry next) {
+			this.symbol = symbol;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+}
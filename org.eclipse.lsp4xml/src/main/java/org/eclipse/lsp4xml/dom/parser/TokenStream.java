@@ -0,0 +1,396 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokens of a text recorded by a {@link Scanner}.
+ *
+ * <p>
+ * The tokens are stored in parallel <code>int</code> arrays (type, offset and
+ * end), so a token stream can be kept with the XML document which has been
+ * parsed from the same text and replayed by the services (folding,
+ * highlighting, completion, etc) instead of scanning the text again.
+ * </p>
+ *
+ * <p>
+ * A token stream must not be modified once it has been recorded:
+ * {@link #replace(int, int, TokenStream)} creates a new token stream.
+ * </p>
+ *
+ */
+public class TokenStream {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// bits of the type array
+	private static final int TYPE_MASK = 0xFF;
+	private static final int STATE_SHIFT = 8;
+	private static final int STATE_MASK = 0xFF << STATE_SHIFT;
+	private static final int WHITESPACE_ONLY = 1 << 16;
+	private static final int ENTITY_REFERENCE = 1 << 17;
+
+	private static final TokenType[] TOKEN_TYPES = TokenType.values();
+	private static final ScannerState[] SCANNER_STATES = ScannerState.values();
+
+	private final CharSequence text;
+
+	// token type, scanner state after the token and flags.
+	private int[] types;
+	private int[] offsets;
+	private int[] ends;
+	private int size;
+
+	/**
+	 * Creates an empty token stream for the given text.
+	 *
+	 * @param text the scanned text.
+	 */
+	public TokenStream(CharSequence text) {
+		this(text, new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0);
+	}
+
+	private TokenStream(CharSequence text, int[] types, int[] offsets, int[] ends, int size) {
+		this.text = text;
+		this.types = types;
+		this.offsets = offsets;
+		this.ends = ends;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a scanner which delegates to the given scanner and records in this
+	 * stream each token scanned. The given scanner must scan the text of this
+	 * stream.
+	 *
+	 * @param scanner the scanner to record.
+	 * @return a scanner which records the tokens of the given scanner.
+	 */
+	public Scanner record(Scanner scanner) {
+		return new RecordingScanner(scanner);
+	}
+
+	/**
+	 * Returns the scanned text.
+	 *
+	 * @return the scanned text.
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the number of tokens.
+	 *
+	 * @return the number of tokens.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public TokenType getTokenType(int index) {
+		return TOKEN_TYPES[types[index] & TYPE_MASK];
+	}
+
+	public int getTokenOffset(int index) {
+		return offsets[index];
+	}
+
+	public int getTokenEnd(int index) {
+		return ends[index];
+	}
+
+	/**
+	 * Returns a scanner which replays the tokens of this stream from the given
+	 * offset, or null if no token starts at the given offset with the given
+	 * scanner state. The tokens are the same as the tokens returned by
+	 * <code>XMLScanner.createScanner(getText(), startOffset, initialState)</code>.
+	 *
+	 * @param startOffset  the start offset.
+	 * @param initialState the scanner state at the start offset.
+	 * @return a scanner which replays the tokens of this stream from the given
+	 *         offset, or null.
+	 */
+	public Scanner createScanner(int startOffset, ScannerState initialState) {
+		int index = indexOf(startOffset);
+		if (index < size ? offsets[index] != startOffset : startOffset != text.length()) {
+			return null;
+		}
+		if (getScannerStateBefore(index) != initialState) {
+			return null;
+		}
+		return new ReplayScanner(index, initialState);
+	}
+
+	/**
+	 * Returns the index of the first token which starts at or after the given
+	 * offset.
+	 */
+	private int indexOf(int offset) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (offsets[mid] < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private ScannerState getScannerStateBefore(int index) {
+		return index == 0 ? ScannerState.WithinContent : getScannerStateAfter(index - 1);
+	}
+
+	private ScannerState getScannerStateAfter(int index) {
+		return SCANNER_STATES[(types[index] & STATE_MASK) >>> STATE_SHIFT];
+	}
+
+	/**
+	 * Returns a new token stream where the tokens between the given offsets are
+	 * replaced with the given tokens, and where the offsets of the tokens which
+	 * follow are shifted. This stream is not modified.
+	 *
+	 * @param start  the start offset of the replaced tokens.
+	 * @param end    the end offset of the replaced tokens.
+	 * @param tokens the new tokens, scanned from the new text.
+	 * @return a new token stream for the text of the given tokens.
+	 */
+	public TokenStream replace(int start, int end, TokenStream tokens) {
+		int delta = tokens.text.length() - text.length();
+		int startIndex = indexOf(start);
+		int endIndex = indexOf(end);
+		int newSize = startIndex + tokens.size + size - endIndex;
+		int[] newTypes = Arrays.copyOf(types, newSize);
+		int[] newOffsets = Arrays.copyOf(offsets, newSize);
+		int[] newEnds = Arrays.copyOf(ends, newSize);
+		System.arraycopy(tokens.types, 0, newTypes, startIndex, tokens.size);
+		System.arraycopy(tokens.offsets, 0, newOffsets, startIndex, tokens.size);
+		System.arraycopy(tokens.ends, 0, newEnds, startIndex, tokens.size);
+		int shift = startIndex + tokens.size - endIndex;
+		System.arraycopy(types, endIndex, newTypes, endIndex + shift, size - endIndex);
+		for (int i = endIndex; i < size; i++) {
+			newOffsets[i + shift] = offsets[i] + delta;
+			newEnds[i + shift] = ends[i] + delta;
+		}
+		return new TokenStream(tokens.text, newTypes, newOffsets, newEnds, newSize);
+	}
+
+	/**
+	 * Returns a new token stream with the tokens of the given streams, which must
+	 * be recorded from consecutive regions of the given text.
+	 *
+	 * @param text    the scanned text.
+	 * @param streams the token streams in text order.
+	 * @return a new token stream with the tokens of the given streams.
+	 */
+	public static TokenStream concat(CharSequence text, List<TokenStream> streams) {
+		int newSize = 0;
+		for (TokenStream stream : streams) {
+			newSize += stream.size;
+		}
+		int[] newTypes = new int[newSize];
+		int[] newOffsets = new int[newSize];
+		int[] newEnds = new int[newSize];
+		int index = 0;
+		for (TokenStream stream : streams) {
+			System.arraycopy(stream.types, 0, newTypes, index, stream.size);
+			System.arraycopy(stream.offsets, 0, newOffsets, index, stream.size);
+			System.arraycopy(stream.ends, 0, newEnds, index, stream.size);
+			index += stream.size;
+		}
+		return new TokenStream(text, newTypes, newOffsets, newEnds, newSize);
+	}
+
+	private void add(Scanner scanner) {
+		if (size == types.length) {
+			int capacity = size + (size >> 1);
+			types = Arrays.copyOf(types, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		int type = scanner.getTokenType().ordinal() | (scanner.getScannerState().ordinal() << STATE_SHIFT);
+		if (scanner.isTokenWhitespaceOnly()) {
+			type |= WHITESPACE_ONLY;
+		}
+		if (scanner.hasTokenEntityReference()) {
+			type |= ENTITY_REFERENCE;
+		}
+		types[size] = type;
+		offsets[size] = scanner.getTokenOffset();
+		ends[size] = scanner.getTokenEnd();
+		size++;
+	}
+
+	/**
+	 * Scanner which records the tokens of another scanner.
+	 */
+	private class RecordingScanner implements Scanner {
+
+		private final Scanner scanner;
+
+		RecordingScanner(Scanner scanner) {
+			this.scanner = scanner;
+		}
+
+		@Override
+		public TokenType scan() {
+			TokenType token = scanner.scan();
+			if (token != TokenType.EOS) {
+				add(scanner);
+			}
+			return token;
+		}
+
+		@Override
+		public TokenType getTokenType() {
+			return scanner.getTokenType();
+		}
+
+		@Override
+		public int getTokenOffset() {
+			return scanner.getTokenOffset();
+		}
+
+		@Override
+		public int getTokenLength() {
+			return scanner.getTokenLength();
+		}
+
+		@Override
+		public int getTokenEnd() {
+			return scanner.getTokenEnd();
+		}
+
+		@Override
+		public String getTokenText() {
+			return scanner.getTokenText();
+		}
+
+		@Override
+		public boolean isTokenWhitespaceOnly() {
+			return scanner.isTokenWhitespaceOnly();
+		}
+
+		@Override
+		public boolean hasTokenEntityReference() {
+			return scanner.hasTokenEntityReference();
+		}
+
+		@Override
+		public boolean isTokenTextEqualsIgnoreCase(String text) {
+			return scanner.isTokenTextEqualsIgnoreCase(text);
+		}
+
+		@Override
+		public String getTokenError() {
+			return scanner.getTokenError();
+		}
+
+		@Override
+		public ScannerState getScannerState() {
+			return scanner.getScannerState();
+		}
+	}
+
+	/**
+	 * Scanner which replays the recorded tokens. Token errors are not recorded.
+	 */
+	private class ReplayScanner implements Scanner {
+
+		private int index;
+		private ScannerState state;
+
+		ReplayScanner(int index, ScannerState initialState) {
+			this.index = index - 1;
+			this.state = initialState;
+		}
+
+		@Override
+		public TokenType scan() {
+			if (index < size) {
+				index++;
+			}
+			if (index < size) {
+				state = getScannerStateAfter(index);
+			}
+			return getTokenType();
+		}
+
+		@Override
+		public TokenType getTokenType() {
+			return index < size ? TokenStream.this.getTokenType(index) : TokenType.EOS;
+		}
+
+		@Override
+		public int getTokenOffset() {
+			return index < size ? offsets[index] : text.length();
+		}
+
+		@Override
+		public int getTokenLength() {
+			return getTokenEnd() - getTokenOffset();
+		}
+
+		@Override
+		public int getTokenEnd() {
+			return index < size ? ends[index] : text.length();
+		}
+
+		@Override
+		public String getTokenText() {
+			if (XMLScanner.isNameToken(getTokenType())) {
+				return SymbolTable.getInstance().intern(text, getTokenOffset(), getTokenEnd());
+			}
+			return text.subSequence(getTokenOffset(), getTokenEnd()).toString();
+		}
+
+		@Override
+		public boolean isTokenWhitespaceOnly() {
+			return index < size && (types[index] & WHITESPACE_ONLY) != 0;
+		}
+
+		@Override
+		public boolean hasTokenEntityReference() {
+			return index < size && (types[index] & ENTITY_REFERENCE) != 0;
+		}
+
+		@Override
+		public boolean isTokenTextEqualsIgnoreCase(String tokenText) {
+			int offset = getTokenOffset();
+			int length = getTokenLength();
+			if (tokenText == null || tokenText.length() != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				char c1 = text.charAt(offset + i);
+				char c2 = tokenText.charAt(i);
+				if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String getTokenError() {
+			return null;
+		}
+
+		@Override
+		public ScannerState getScannerState() {
+			return state;
+		}
+	}
+}
@@ -10,11 +10,13 @@
  */
 package org.eclipse.lsp4xml.dom.parser;
 
-import static org.eclipse.lsp4xml.dom.parser.Constants.ATTRIBUTE_NAME_REGEX;
-import static org.eclipse.lsp4xml.dom.parser.Constants.ATTRIBUTE_VALUE_REGEX;
-import static org.eclipse.lsp4xml.dom.parser.Constants.ELEMENT_NAME_REGEX;
-import static org.eclipse.lsp4xml.dom.parser.Constants.PI_TAG_NAME;
-import static org.eclipse.lsp4xml.dom.parser.Constants.PROLOG_NAME_OPTIONS;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.ATTRIBUTE_NAME_CHAR;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.ATTRIBUTE_VALUE_CHAR;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.ELEMENT_NAME_CHAR;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.ELEMENT_NAME_START;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.PI_NAME_CHAR;
+import static org.eclipse.lsp4xml.dom.parser.CharacterClasses.WHITESPACE;
+import static org.eclipse.lsp4xml.dom.parser.Constants._AMP;
 import static org.eclipse.lsp4xml.dom.parser.Constants._AVL;
 import static org.eclipse.lsp4xml.dom.parser.Constants._BNG;
 import static org.eclipse.lsp4xml.dom.parser.Constants._CSB;
@@ -37,7 +39,7 @@ import static org.eclipse.lsp4xml.dom.parser.Constants._TVL;
 import static org.eclipse.lsp4xml.dom.parser.Constants._WSP;
 import static org.eclipse.lsp4xml.dom.parser.Constants._YVL;
 import static org.eclipse.lsp4xml.dom.parser.Constants._CAR;
-import static org.eclipse.lsp4xml.dom.parser.Constants._NWL;;
+import static org.eclipse.lsp4xml.dom.parser.Constants._NWL;
 
 /**
  * XML scanner implementation.
@@ -50,25 +52,32 @@ public class XMLScanner implements Scanner {
 	int tokenOffset;
 	TokenType tokenType;
 	String tokenError;
+	boolean tokenWhitespaceOnly;
+	boolean tokenEntityReference;
 
 	boolean hasSpaceAfterTag;
-	String lastTag;
-	String lastAttributeName;
-	String lastTypeValue;
 
-	public XMLScanner(String input, int initialOffset, ScannerState initialState) {
-		stream = new MultiLineStream(input, initialOffset);
+	// line offsets recorded as the text is scanned
+	private final LineOffsets lineOffsets;
+
+	public XMLScanner(CharSequence input, int initialOffset, ScannerState initialState) {
+		this(input, initialOffset, initialState, null);
+	}
+
+	public XMLScanner(CharSequence input, int initialOffset, ScannerState initialState, LineOffsets lineOffsets) {
+		stream = new MultiLineStream(input, initialOffset, lineOffsets);
 		state = initialState;
 		tokenOffset = 0;
 		tokenType = TokenType.Unknown;
+		this.lineOffsets = lineOffsets;
 	}
 
-	String nextElementName() {
-		return stream.advanceIfRegExp(ELEMENT_NAME_REGEX).toLowerCase();
+	int nextElementName() {
+		return stream.advanceIfName(ELEMENT_NAME_START, ELEMENT_NAME_CHAR);
 	}
 
-	String nextAttributeName() {
-		return stream.advanceIfRegExp(ATTRIBUTE_NAME_REGEX).toLowerCase();
+	int nextAttributeName() {
+		return stream.advanceWhileChar(ATTRIBUTE_NAME_CHAR);
 	}
 
 	TokenType finishToken(int offset, TokenType type) {
@@ -79,6 +88,10 @@ public class XMLScanner implements Scanner {
 		tokenType = type;
 		tokenOffset = offset;
 		tokenError = errorMessage;
+		if (type != TokenType.Content && type != TokenType.AttributeValue) {
+			tokenWhitespaceOnly = false;
+			tokenEntityReference = false;
+		}
 		return type;
 	}
 
@@ -91,7 +104,11 @@ public class XMLScanner implements Scanner {
 			log("Scanner.scan has not advanced at offset " + offset + ", state before: " + oldState + " after: "
 					+ state);
 			stream.advance(1);
-			return finishToken(offset, TokenType.Unknown);
+			token = finishToken(offset, TokenType.Unknown);
+		}
+		if (lineOffsets != null) {
+			// the characters which have not been read by the loops of the stream
+			lineOffsets.scanTo(stream.pos());
 		}
 		return token;
 	}
@@ -138,12 +155,12 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.PIEnd);
 			}
 			if (stream.advanceUntilAnyOfChars(_NWL,_CAR,_WSP, _QMA,_RAN) || stream.eos()) { // \n or \r or ' ' or '?'
-				String name = getTokenTextFromOffset(offset);
-				if (PROLOG_NAME_OPTIONS.matcher(name).matches()) { // name eg: xml
+				int end = stream.pos();
+				if (stream.regionMatches(offset, end, "xml") || stream.regionMatches(offset, end, "xml-stylesheet")) { // name eg: xml
 					state = ScannerState.WithinTag;
 					return finishToken(offset, TokenType.PrologName);
 				}
-				if (PI_TAG_NAME.matcher(name).matches()) { // {name} eg: m2e
+				if (isPIName(offset, end)) { // {name} eg: m2e
 					state = ScannerState.WithinPI;
 					return finishToken(offset, TokenType.PIName);
 				}
@@ -167,7 +184,7 @@ public class XMLScanner implements Scanner {
 				if (stream.peekChar() == _LAN) {
 					state = ScannerState.WithinContent;
 				}
-				if (getTokenTextFromOffset(offset).length() == 0) {
+				if (stream.pos() == offset) {
 					return finishToken(offset, TokenType.PIEnd);
 				}
 			}
@@ -200,7 +217,7 @@ public class XMLScanner implements Scanner {
 				state = ScannerState.AfterOpeningStartTag;
 				return finishToken(offset, TokenType.StartTagOpen);
 			}
-			stream.advanceUntilChar(_LAN); // <
+			scanContent(); // until <
 			return finishToken(offset, TokenType.Content);
 		case WithinCDATA:
 			if (stream.advanceIfChars(_CSB, _CSB, _RAN)) { // ]]>
@@ -211,8 +228,7 @@ public class XMLScanner implements Scanner {
 			return finishToken(offset, TokenType.CDATAContent);
 
 		case AfterOpeningEndTag:
-			String tagName = nextElementName();
-			if (tagName.length() > 0) {
+			if (nextElementName() > 0) {
 				state = ScannerState.WithinEndTag;
 				return finishToken(offset, TokenType.EndTag);
 			}
@@ -243,10 +259,7 @@ public class XMLScanner implements Scanner {
 			return finishToken(offset, TokenType.Whitespace);
 
 		case AfterOpeningStartTag:
-			lastTag = nextElementName();
-			lastTypeValue = null;
-			lastAttributeName = null;
-			if (lastTag.length() > 0) {
+			if (nextElementName() > 0) {
 				hasSpaceAfterTag = false;
 				state = ScannerState.WithinTag;
 				return finishToken(offset, TokenType.StartTag);
@@ -274,8 +287,7 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.PrologEnd);
 			}
 			if (hasSpaceAfterTag) {
-				lastAttributeName = nextAttributeName();
-				if (lastAttributeName.length() > 0) {
+				if (nextAttributeName() > 0) {
 					state = ScannerState.AfterAttributeName;
 					hasSpaceAfterTag = false;
 					return finishToken(offset, TokenType.AttributeName);
@@ -312,11 +324,9 @@ public class XMLScanner implements Scanner {
 			if (stream.skipWhitespace()) {
 				return finishToken(offset, TokenType.Whitespace);
 			}
-			String attributeValue = stream.advanceIfRegExp(ATTRIBUTE_VALUE_REGEX);
-			if (attributeValue.length() > 0) {
-				if ("type".equals(lastAttributeName)) {
-					lastTypeValue = attributeValue;
-				}
+			if (stream.advanceWhileChar(ATTRIBUTE_VALUE_CHAR) > 0) {
+				tokenEntityReference = hasEntityReference(offset, stream.pos());
+				tokenWhitespaceOnly = false;
 				state = ScannerState.WithinTag;
 				hasSpaceAfterTag = false;
 				return finishToken(offset, TokenType.AttributeValue);
@@ -327,9 +337,8 @@ public class XMLScanner implements Scanner {
 				if (stream.advanceUntilChar(ch)) {
 					stream.advance(1); // consume quote
 				}
-				if ("type".equals(lastAttributeName)) {
-					lastTypeValue = stream.getSource().substring(offset + 1, stream.pos() - 1);
-				}
+				tokenEntityReference = hasEntityReference(offset, stream.pos());
+				tokenWhitespaceOnly = false;
 				state = ScannerState.WithinTag;
 				hasSpaceAfterTag = false;
 				return finishToken(offset, TokenType.AttributeValue);
@@ -344,6 +353,53 @@ public class XMLScanner implements Scanner {
 		return finishToken(offset, TokenType.Unknown, errorMessage);
 	}
 
+	/**
+	 * Advances the stream until the next '<' and computes the flags of the content
+	 * token.
+	 */
+	private void scanContent() {
+		boolean whitespaceOnly = true;
+		boolean entityReference = false;
+		while (!stream.eos()) {
+			int ch = stream.peekChar();
+			if (ch == _LAN) {
+				break;
+			}
+			if (ch == _AMP) {
+				entityReference = true;
+				whitespaceOnly = false;
+			} else if (whitespaceOnly && !WHITESPACE.test(ch)) {
+				whitespaceOnly = false;
+			}
+			stream.advance(1);
+		}
+		tokenWhitespaceOnly = whitespaceOnly;
+		tokenEntityReference = entityReference;
+	}
+
+	private boolean hasEntityReference(int start, int end) {
+		CharSequence source = stream.getSource();
+		for (int i = start; i < end; i++) {
+			if (source.charAt(i) == _AMP) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isPIName(int start, int end) {
+		if (start == end) {
+			return false;
+		}
+		CharSequence source = stream.getSource();
+		for (int i = start; i < end; i++) {
+			if (!PI_NAME_CHAR.test(source.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private String localize(String string, String string2) {
 		// TODO Auto-generated method stub
 		return string;
@@ -381,7 +437,57 @@ public class XMLScanner implements Scanner {
 
 	@Override
 	public String getTokenText() {
-		return stream.getSource().substring(tokenOffset, stream.pos());
+		if (isNameToken(tokenType)) {
+			return SymbolTable.getInstance().intern(stream.getSource(), tokenOffset, stream.pos());
+		}
+		return stream.substring(tokenOffset, stream.pos());
+	}
+
+	/**
+	 * Returns true if the given token is a name which must be interned in the
+	 * symbol table and false otherwise.
+	 * 
+	 * @param token the token type.
+	 * @return true if the given token is a name and false otherwise.
+	 */
+	static boolean isNameToken(TokenType token) {
+		switch (token) {
+		case StartTag:
+		case EndTag:
+		case AttributeName:
+		case PIName:
+		case PrologName:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	public boolean isTokenWhitespaceOnly() {
+		return tokenWhitespaceOnly;
+	}
+
+	@Override
+	public boolean hasTokenEntityReference() {
+		return tokenEntityReference;
+	}
+
+	@Override
+	public boolean isTokenTextEqualsIgnoreCase(String text) {
+		int length = getTokenLength();
+		if (text == null || text.length() != length) {
+			return false;
+		}
+		CharSequence source = stream.getSource();
+		for (int i = 0; i < length; i++) {
+			char c1 = source.charAt(tokenOffset + i);
+			char c2 = text.charAt(i);
+			if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -395,18 +501,32 @@ public class XMLScanner implements Scanner {
 	}
 
 	public String getTokenTextFromOffset(int offset) {
-		return stream.getSource().substring(offset, stream.pos());
+		return stream.substring(offset, stream.pos());
 	}
 
-	public static Scanner createScanner(String input) {
+	public static Scanner createScanner(CharSequence input) {
 		return createScanner(input, 0);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset) {
+	public static Scanner createScanner(CharSequence input, int initialOffset) {
 		return createScanner(input, initialOffset, ScannerState.WithinContent);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset, ScannerState initialState) {
+	public static Scanner createScanner(CharSequence input, int initialOffset, ScannerState initialState) {
 		return new XMLScanner(input, initialOffset, initialState);
 	}
+
+	/**
+	 * Returns a scanner which records the offsets of the line starts in the given
+	 * line offsets as it scans the text.
+	 * 
+	 * @param input         the text.
+	 * @param initialOffset the initial offset.
+	 * @param lineOffsets   the line offsets to update, they must start at or
+	 *                      before the initial offset.
+	 * @return a scanner which records the offsets of the line starts.
+	 */
+	public static Scanner createScanner(CharSequence input, int initialOffset, LineOffsets lineOffsets) {
+		return new XMLScanner(input, initialOffset, ScannerState.WithinContent, lineOffsets);
+	}
 }
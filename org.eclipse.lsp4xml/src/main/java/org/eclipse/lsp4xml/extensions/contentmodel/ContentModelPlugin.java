@@ -8,6 +8,8 @@ import org.eclipse.lsp4xml.extensions.contentmodel.participants.ContentModelComp
 import org.eclipse.lsp4xml.extensions.contentmodel.participants.ContentModelDocumentLinkParticipant;
 import org.eclipse.lsp4xml.extensions.contentmodel.participants.ContentModelHoverParticipant;
 import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.ContentModelDiagnosticsParticipant;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLGrammarCache;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLValidationCache;
 import org.eclipse.lsp4xml.extensions.contentmodel.settings.ContentModelSettings;
 import org.eclipse.lsp4xml.services.extensions.ICompletionParticipant;
 import org.eclipse.lsp4xml.services.extensions.IHoverParticipant;
@@ -41,13 +43,19 @@ public class ContentModelPlugin implements IXMLExtension {
 	private ContentModelManager contentModelManager;
 
 	private ContentModelSettings cmSettings;
-	
+
+	private final XMLGrammarCache grammarCache;
+
+	private final XMLValidationCache validationCache;
+
 	public ContentModelPlugin() {
 		completionParticipant = new ContentModelCompletionParticipant();
 		hoverParticipant = new ContentModelHoverParticipant();
 		diagnosticsParticipant = new ContentModelDiagnosticsParticipant(this);
 		codeActionParticipant = new ContentModelCodeActionParticipant();
 		documentLinkParticipant = new ContentModelDocumentLinkParticipant();
+		grammarCache = new XMLGrammarCache();
+		validationCache = new XMLValidationCache();
 	}
 
 	@Override
@@ -56,10 +64,15 @@ public class ContentModelPlugin implements IXMLExtension {
 			// The save is done for a given XML file
 			String documentURI = context.getUri();
 			XMLDocument document = context.getDocument(documentURI);
+			// the saved document can be an XML Schema or a DTD
+			grammarCache.invalidate(documentURI);
 			if (DOMUtils.isCatalog(document)) {
 				// the XML document which has changed is a XML catalog.
 				// 1) refresh catalogs
 				contentModelManager.refreshCatalogs();
+				grammarCache.clear();
+				contentModelManager.clearLocalCache();
+				validationCache.clear();
 				// 2) Validate all opened XML files except the catalog which have changed
 				context.collectDocumentToValidate(d -> {
 					XMLDocument xml = context.getDocument(d.getDocumentURI());
@@ -76,6 +89,9 @@ public class ContentModelPlugin implements IXMLExtension {
 	private void updateSettings(ISaveContext saveContext) {
 		Object initializationOptionsSettings = saveContext.getSettings();
 		cmSettings = ContentModelSettings.getSettings(initializationOptionsSettings);
+		// the diagnostics depend on the settings (catalogs, file associations,
+		// problems severity, etc)
+		validationCache.clear();
 		if (cmSettings != null) {
 			updateSettings(cmSettings, saveContext);
 		}
@@ -86,6 +102,8 @@ public class ContentModelPlugin implements IXMLExtension {
 			// Update XML catalog settings
 			boolean catalogPathsChanged = contentModelManager.setCatalogs(settings.getCatalogs());
 			if (catalogPathsChanged) {
+				grammarCache.clear();
+				contentModelManager.clearLocalCache();
 				// Validate all opened XML files
 				context.collectDocumentToValidate(d -> {
 					XMLDocument xml = context.getDocument(d.getDocumentURI());
@@ -99,6 +117,8 @@ public class ContentModelPlugin implements IXMLExtension {
 			boolean fileAssociationsChanged = contentModelManager
 					.setFileAssociations(settings.getFileAssociations());
 			if (fileAssociationsChanged) {
+				grammarCache.clear();
+				contentModelManager.clearLocalCache();
 				// Validate all opened XML files
 				context.collectDocumentToValidate(d -> {
 					XMLDocument xml = context.getDocument(d.getDocumentURI());
@@ -141,4 +161,28 @@ public class ContentModelPlugin implements IXMLExtension {
 	public ContentModelSettings getContentModelSettings() {
 		return cmSettings;
 	}
+
+	public ContentModelManager getContentModelManager() {
+		return contentModelManager;
+	}
+
+	/**
+	 * Returns the cache of the XML Schema and DTD grammars shared by the
+	 * validation of the XML documents.
+	 * 
+	 * @return the grammar cache.
+	 */
+	public XMLGrammarCache getGrammarCache() {
+		return grammarCache;
+	}
+
+	/**
+	 * Returns the cache of the diagnostics reported by the validation of the XML
+	 * documents.
+	 * 
+	 * @return the validation cache.
+	 */
+	public XMLValidationCache getValidationCache() {
+		return validationCache;
+	}
 }
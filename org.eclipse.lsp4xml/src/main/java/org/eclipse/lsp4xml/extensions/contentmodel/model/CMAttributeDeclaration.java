@@ -24,10 +24,33 @@ public interface CMAttributeDeclaration {
 	 * @return the declared element name.
 	 */
 	String getName();
+
+	/**
+	 * Returns the namespace of the attribute and null if the attribute has no
+	 * namespace (ex : an unqualified local attribute of an XML Schema).
+	 * 
+	 * @return the namespace of the attribute and null if the attribute has no
+	 *         namespace.
+	 */
+	default String getNamespace() {
+		return null;
+	}
 	
 	String getDefaultValue();
 
 	Collection<String> getEnumerationValues(); 
+
+	/**
+	 * Returns true if the value of the attribute must be one of
+	 * {@link #getEnumerationValues()} and false otherwise (ex : the values of a
+	 * boolean are proposed but 0 and 1 are valid too).
+	 * 
+	 * @return true if the value of the attribute must be one of the enumeration
+	 *         values and false otherwise.
+	 */
+	default boolean isRestrictedToEnumeration() {
+		return false;
+	}
 	
 	String getDocumentation();
 
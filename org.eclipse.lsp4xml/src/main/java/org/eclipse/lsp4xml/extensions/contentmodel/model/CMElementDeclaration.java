@@ -88,6 +88,41 @@ public interface CMElementDeclaration {
 	 */
 	boolean isEmpty();
 
+	/**
+	 * Returns true if the element can contain elements which are not declared by
+	 * {@link #getElements()} (ex : xs:any) and false otherwise.
+	 * 
+	 * @return true if the element can contain undeclared elements and false
+	 *         otherwise.
+	 */
+	default boolean isAnyElementAllowed() {
+		return true;
+	}
+
+	/**
+	 * Returns true if the element can have attributes without namespace which are
+	 * not declared by {@link #getAttributes()} (ex : xs:anyAttribute) and false
+	 * otherwise.
+	 * 
+	 * @return true if the element can have undeclared attributes without
+	 *         namespace and false otherwise.
+	 */
+	default boolean isAnyAttributeAllowed() {
+		return true;
+	}
+
 	Collection<String> getEnumerationValues();
 
+	/**
+	 * Returns true if the text of the element must be one of
+	 * {@link #getEnumerationValues()} and false otherwise (ex : the values of a
+	 * boolean are proposed but 0 and 1 are valid too).
+	 * 
+	 * @return true if the text of the element must be one of the enumeration
+	 *         values and false otherwise.
+	 */
+	default boolean isRestrictedToEnumeration() {
+		return false;
+	}
+
 }
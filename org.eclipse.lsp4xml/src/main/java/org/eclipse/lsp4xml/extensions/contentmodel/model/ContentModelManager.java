@@ -10,13 +10,18 @@
  */
 package org.eclipse.lsp4xml.extensions.contentmodel.model;
 
+import java.io.File;
+import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.xerces.impl.Constants;
 import org.apache.xerces.impl.xs.XSLoaderImpl;
+import org.apache.xerces.xs.StringList;
 import org.apache.xerces.xs.XSModel;
+import org.apache.xerces.xs.XSNamespaceItemList;
 import org.eclipse.lsp4xml.dom.Element;
 import org.eclipse.lsp4xml.dom.NoNamespaceSchemaLocation;
 import org.eclipse.lsp4xml.dom.SchemaLocation;
@@ -44,10 +49,35 @@ public class ContentModelManager {
 //		return INSTANCE;
 //	}
 
+	/**
+	 * Maximum number of cached documents which have been loaded from local files.
+	 */
+	public static final int MAX_LOCAL_CM_DOCUMENTS = 20;
+
+	private static class LocalCMDocument {
+
+		public final CMDocument cmDocument;
+
+		// last modified time of the local files of the document
+		private final Map<File, Long> files;
+
+		public LocalCMDocument(CMDocument cmDocument, Map<File, Long> files) {
+			this.cmDocument = cmDocument;
+			this.files = files;
+		}
+
+		public boolean isModified() {
+			return ContentModelManager.isModified(files);
+		}
+	}
+
 	private final XSLoaderImpl loader;
 
 	private final Map<String, CMDocument> cmDocumentCache;
 
+	// documents loaded from local files, the least recently used are evicted
+	private final Map<String, LocalCMDocument> localCMDocumentCache;
+
 	private final XMLCacheResolverExtension cacheResolverExtension;
 	private final XMLCatalogResolverExtension catalogResolverExtension;
 	private final XMLFileAssociationResolverExtension fileAssociationResolver;
@@ -56,6 +86,15 @@ public class ContentModelManager {
 	public ContentModelManager(URIResolverExtensionManager resolverManager) {
 		this.resolverManager = resolverManager;
 		cmDocumentCache = Collections.synchronizedMap(new HashMap<>());
+		localCMDocumentCache = new LinkedHashMap<String, LocalCMDocument>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, LocalCMDocument> eldest) {
+				return size() > MAX_LOCAL_CM_DOCUMENTS;
+			}
+		};
 		loader = new XSLoaderImpl();
 		loader.setParameter("http://apache.org/xml/properties/internal/entity-resolver", resolverManager);
 		loader.setParameter(Constants.DOM_ERROR_HANDLER, new DOMErrorHandler() {
@@ -133,17 +172,24 @@ public class ContentModelManager {
 		if (key == null) {
 			return null;
 		}
-		CMDocument cmDocument = null;
-		boolean isCacheable = isCacheable(key);
-		if (isCacheable) {
-			cmDocument = cmDocumentCache.get(key);
-		}
+		boolean isLocal = URIUtils.isFileResource(key);
+		CMDocument cmDocument = isLocal ? getLocalCMDocument(key) : cmDocumentCache.get(key);
 		if (cmDocument == null) {
-			XSModel model = loader.loadURI(key);
+			XSModel model;
+			// the loader is shared by the validation and the requests threads
+			synchronized (loader) {
+				model = loader.loadURI(key);
+			}
 			if (model != null) {
 				// XML Schema can be loaded
 				cmDocument = new XSDDocument(model);
-				if (isCacheable) {
+				if (isLocal) {
+					// the document is loaded again when one of its files is modified
+					LocalCMDocument localCMDocument = new LocalCMDocument(cmDocument, getFiles(key, model));
+					synchronized (localCMDocumentCache) {
+						localCMDocumentCache.put(key, localCMDocument);
+					}
+				} else {
 					cmDocumentCache.put(key, cmDocument);
 				}
 			}
@@ -151,8 +197,65 @@ public class ContentModelManager {
 		return cmDocument;
 	}
 
-	private boolean isCacheable(String uri) {
-		return !URIUtils.isFileResource(uri);
+	/**
+	 * Returns the cached document loaded from the given local file and null if
+	 * it is not cached or if one of its files has been modified since it has been
+	 * loaded.
+	 */
+	private CMDocument getLocalCMDocument(String key) {
+		synchronized (localCMDocumentCache) {
+			LocalCMDocument localCMDocument = localCMDocumentCache.get(key);
+			if (localCMDocument == null) {
+				return null;
+			}
+			if (localCMDocument.isModified()) {
+				// a local XML Schema has been modified since it has been loaded
+				localCMDocumentCache.remove(key);
+				return null;
+			}
+			return localCMDocument.cmDocument;
+		}
+	}
+
+	/**
+	 * Returns the last modified time of the local files of the given XML Schema
+	 * model (the loaded file, the included and imported XML Schemas).
+	 */
+	private static Map<File, Long> getFiles(String uri, XSModel model) {
+		Map<File, Long> files = new HashMap<>();
+		addFile(uri, files);
+		XSNamespaceItemList namespaceItems = model.getNamespaceItems();
+		for (int i = 0; i < namespaceItems.getLength(); i++) {
+			StringList locations = namespaceItems.item(i).getDocumentLocations();
+			for (int j = 0; j < locations.getLength(); j++) {
+				addFile(locations.item(j), files);
+			}
+		}
+		return files;
+	}
+
+	private static void addFile(String location, Map<File, Long> files) {
+		if (location == null || !location.startsWith("file:")) {
+			return;
+		}
+		try {
+			File file = new File(new URI(location));
+			files.putIfAbsent(file, file.lastModified());
+		} catch (Exception e) {
+			// ignore invalid file URI
+		}
+	}
+
+	private static boolean isModified(Map<File, Long> files) {
+		if (files == null) {
+			return false;
+		}
+		for (Map.Entry<File, Long> file : files.entrySet()) {
+			if (file.getKey().lastModified() != file.getValue()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -192,4 +295,14 @@ public class ContentModelManager {
 		cacheResolverExtension.setUseCache(useCache);
 	}
 
+	/**
+	 * Removes the cached documents which have been loaded from local files (ex :
+	 * the XML catalogs or the file associations have changed).
+	 */
+	public void clearLocalCache() {
+		synchronized (localCMDocumentCache) {
+			localCMDocumentCache.clear();
+		}
+	}
+
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import org.eclipse.lsp4xml.extensions.contentmodel.participants.codeactions.Elem
 import org.eclipse.lsp4xml.extensions.contentmodel.participants.codeactions.EqRequiredInAttributeCodeAction;
 import org.eclipse.lsp4xml.services.extensions.ICodeActionParticipant;
 import org.eclipse.lsp4xml.services.extensions.diagnostics.IXMLErrorCode;
+import org.eclipse.lsp4xml.utils.StringUtils;
 import org.eclipse.lsp4xml.utils.XMLPositionUtility;
 
 /**
@@ -41,6 +42,7 @@ public enum XMLSyntaxErrorCode implements IXMLErrorCode {
 	ElementPrefixUnbound, // https://wiki.xmldation.com/Support/Validator/ElementPrefixUnbound
 	EmptyPrefixedAttName, // https://wiki.xmldation.com/Support/Validator/EmptyPrefixedAttName
 	EncodingDeclRequired, // https://wiki.xmldation.com/Support/Validator/EncodingDeclRequired
+	EncodingDeclInvalid, // https://wiki.xmldation.com/Support/Validator/EncodingDeclInvalid
 	ETagRequired, // https://wiki.xmldation.com/Support/Validator/ETagRequired
 	ETagUnterminated, // https://wiki.xmldation.com/Support/Validator/ETagUnterminated
 	EqRequiredInAttribute, the_element_type_lmsg("the-element-type-lmsg"), EqRequiredInXMLDecl, IllegalQName,
@@ -121,6 +123,7 @@ public enum XMLSyntaxErrorCode implements IXMLErrorCode {
 			QName qName = (QName) arguments[0];
 			return XMLPositionUtility.selectAttributeValueAt(qName.rawname, offset, document);
 		}
+		case EncodingDeclInvalid:
 		case SDDeclInvalid:
 		case VersionNotSupported: {
 			String attrValue = (String) arguments[0];
@@ -135,7 +138,7 @@ public enum XMLSyntaxErrorCode implements IXMLErrorCode {
 			return XMLPositionUtility.selectChildEndTag(tag, offset, document);
 		}
 		case ContentIllegalInProlog: {
-			int endOffset = document.getText().indexOf("<");
+			int endOffset = StringUtils.indexOf(document.getSnapshot(), '<');
 			int startOffset = offset + 1;
 			return XMLPositionUtility.createRange(startOffset, endOffset, document);
 		}
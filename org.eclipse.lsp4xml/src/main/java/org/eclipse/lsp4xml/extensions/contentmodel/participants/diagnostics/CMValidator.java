@@ -0,0 +1,372 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.xerces.impl.xs.XSMessageFormatter;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4xml.dom.Attr;
+import org.eclipse.lsp4xml.dom.Element;
+import org.eclipse.lsp4xml.dom.Node;
+import org.eclipse.lsp4xml.dom.Text;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.CMAttributeDeclaration;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.CMDocument;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.CMElementDeclaration;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.ContentModelManager;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.XMLSchemaErrorCode;
+import org.eclipse.lsp4xml.extensions.contentmodel.settings.ContentModelSettings;
+import org.eclipse.lsp4xml.uriresolver.CacheResourceDownloadingException;
+import org.eclipse.lsp4xml.utils.StringUtils;
+import org.eclipse.lsp4xml.utils.XMLPositionUtility;
+
+/**
+ * Validator which checks the DOM of an XML document against its content model
+ * (XML Schema) without parsing the text again, used for the validation while
+ * typing. The validation with Xerces ({@link XMLValidator}) is done later.
+ *
+ * <p>
+ * Only a subset of the XML Schema constraints is checked: the undeclared
+ * document element, the undeclared child elements, the undeclared and the
+ * missing required attributes and the enumeration values of the attributes and
+ * of the text. The diagnostics have the code, the message and the range of the
+ * Xerces diagnostics. When a constraint cannot be checked with the content
+ * model (wildcards, xsi:type, order of the elements, etc), nothing is reported
+ * and Xerces reports the error.
+ * </p>
+ *
+ */
+public class CMValidator {
+
+	private static final Logger LOGGER = Logger.getLogger(CMValidator.class.getName());
+
+	private static final String XML_DIAGNOSTIC_SOURCE = "xml";
+
+	private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance"; //$NON-NLS-1$
+
+	// the codes of the Xerces errors which are reported by this validator
+	private static final Set<String> CODES = new HashSet<>(Arrays.asList(XMLSchemaErrorCode.cvc_elt_1_a.getCode(),
+			XMLSchemaErrorCode.cvc_complex_type_2_4_a.getCode(), XMLSchemaErrorCode.cvc_complex_type_3_2_2.getCode(),
+			XMLSchemaErrorCode.cvc_complex_type_4.getCode(), XMLSchemaErrorCode.cvc_enumeration_valid.getCode(),
+			XMLSchemaErrorCode.cvc_type_3_1_3.getCode()));
+
+	private final XMLDocument document;
+	private final ContentModelManager contentModelManager;
+	private final List<Diagnostic> diagnostics;
+	private final CancelChecker monitor;
+	private final XSMessageFormatter messageFormatter;
+
+	// the content model documents of the namespaces of the document (null if the
+	// namespace has no XML Schema)
+	private final Map<String, CMDocument> cmDocuments;
+
+	private CMValidator(XMLDocument document, ContentModelManager contentModelManager,
+			List<Diagnostic> diagnostics, CancelChecker monitor) {
+		this.document = document;
+		this.contentModelManager = contentModelManager;
+		this.diagnostics = diagnostics;
+		this.monitor = monitor;
+		this.messageFormatter = new XSMessageFormatter();
+		this.cmDocuments = new HashMap<>();
+	}
+
+	/**
+	 * Validate the DOM of the given XML document with the content model of the
+	 * given manager.
+	 *
+	 * @param document             the XML document.
+	 * @param contentModelManager  the content model manager.
+	 * @param diagnostics          the diagnostics list to populate.
+	 * @param contentModelSettings the content model settings.
+	 * @param monitor              the cancel checker.
+	 */
+	public static void doDiagnostics(XMLDocument document, ContentModelManager contentModelManager,
+			List<Diagnostic> diagnostics, ContentModelSettings contentModelSettings, CancelChecker monitor) {
+		// warn if XML document is not bound to a grammar according the settings
+		XMLValidator.warnNoGrammar(document, diagnostics, contentModelSettings);
+		Element documentElement = document.getDocumentElement();
+		if (documentElement == null || !document.hasGrammar()) {
+			return;
+		}
+		try {
+			new CMValidator(document, contentModelManager, diagnostics, monitor).validate(documentElement, null);
+		} catch (CancellationException e) {
+			throw e;
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Unexpected CMValidator error", e);
+		}
+	}
+
+	/**
+	 * Returns true if the given diagnostic of the validation with Xerces is
+	 * reported by this validator when the error is still in the DOM.
+	 *
+	 * @param diagnostic the diagnostic of the validation with Xerces.
+	 * @return true if the given diagnostic is reported by this validator.
+	 */
+	public static boolean isReported(Diagnostic diagnostic) {
+		String code = diagnostic.getCode();
+		if (CODES.contains(code)) {
+			return true;
+		}
+		// see XMLValidator#warnNoGrammar
+		return "XML".equals(code) && XMLValidator.NO_GRAMMAR_MESSAGE.equals(diagnostic.getMessage());
+	}
+
+	private void validate(Element element, CMElementDeclaration parentDeclaration) {
+		monitor.checkCanceled();
+		CMElementDeclaration declaration = findDeclaration(element, parentDeclaration);
+		if (declaration != null) {
+			if (hasXsiType(element)) {
+				// the element is validated with another type than the declared type
+				declaration = null;
+			} else {
+				validateAttributes(element, declaration);
+				validateText(element, declaration);
+			}
+		}
+		for (Node child : element.getChildren()) {
+			if (child.isElement()) {
+				validate((Element) child, declaration);
+			}
+		}
+	}
+
+	/**
+	 * Returns the declaration of the given element and null if the element is not
+	 * declared or cannot be validated.
+	 */
+	private CMElementDeclaration findDeclaration(Element element, CMElementDeclaration parentDeclaration) {
+		String name = element.getLocalName();
+		if (name == null || !(element.hasStartTagClose() || element.isSelfClosed())) {
+			// the start tag is being typed
+			return null;
+		}
+		String namespaceURI = element.getNamespaceURI();
+		CMDocument cmDocument = getCMDocument(namespaceURI);
+		if (cmDocument == null) {
+			return null;
+		}
+		Node parent = element.getParentNode();
+		if (parent == null || !parent.isElement()
+				|| !Objects.equals(namespaceURI, ((Element) parent).getNamespaceURI())) {
+			// first element of the namespace
+			CMElementDeclaration declaration = findGlobalDeclaration(name, cmDocument);
+			if (declaration == null && element.isDocumentElement()) {
+				report(XMLSchemaErrorCode.cvc_elt_1_a, XMLPositionUtility.selectStartTag(element),
+						element.getTagName());
+			}
+			return declaration;
+		}
+		if (parentDeclaration == null) {
+			return null;
+		}
+		CMElementDeclaration declaration = parentDeclaration.findCMElement(name, namespaceURI);
+		if (declaration != null) {
+			return declaration;
+		}
+		// the element can be a member of a substitution group or be allowed by a
+		// wildcard
+		declaration = findGlobalDeclaration(name, cmDocument);
+		if (declaration == null && !parentDeclaration.isAnyElementAllowed()
+				&& !parentDeclaration.getElements().isEmpty()) {
+			report(XMLSchemaErrorCode.cvc_complex_type_2_4_a, XMLPositionUtility.selectStartTag(element),
+					element.getTagName(), getExpectedElements(parentDeclaration));
+		}
+		return declaration;
+	}
+
+	private void validateAttributes(Element element, CMElementDeclaration declaration) {
+		if (element.hasAttributes()) {
+			boolean validateNames = !declaration.isAnyAttributeAllowed() && hasComplexType(declaration);
+			for (Attr attr : element.getAttributeNodes()) {
+				String name = attr.getName();
+				if (name == null || name.indexOf(':') != -1 || name.equals("xmlns")) {
+					// namespace declarations and qualified attributes (xsi:schemaLocation, etc)
+					continue;
+				}
+				CMAttributeDeclaration attributeDeclaration = declaration.findCMAttribute(name);
+				if (attributeDeclaration == null) {
+					if (validateNames) {
+						report(XMLSchemaErrorCode.cvc_complex_type_3_2_2,
+								XMLPositionUtility.createRange(attr.getNodeAttrName().getStart(),
+										attr.getNodeAttrName().getEnd(), document),
+								element.getTagName(), name);
+					}
+				} else if (attributeDeclaration.isRestrictedToEnumeration() && attr.getNodeAttrValue() != null) {
+					String value = element.getAttribute(name);
+					if (value != null && value.indexOf('&') == -1) {
+						// attribute value normalization
+						value = value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+						Collection<String> values = attributeDeclaration.getEnumerationValues();
+						if (!isEnumerationValue(value, values)) {
+							report(XMLSchemaErrorCode.cvc_enumeration_valid,
+									XMLPositionUtility.createRange(attr.getNodeAttrValue().getStart(),
+											attr.getNodeAttrValue().getEnd(), document),
+									value, values.toString());
+						}
+					}
+				}
+			}
+		}
+		for (CMAttributeDeclaration attributeDeclaration : declaration.getAttributes()) {
+			if (attributeDeclaration.isRequired() && !hasAttribute(element, attributeDeclaration)) {
+				report(XMLSchemaErrorCode.cvc_complex_type_4, XMLPositionUtility.selectStartTag(element),
+						element.getTagName(), attributeDeclaration.getName());
+			}
+		}
+	}
+
+	private void validateText(Element element, CMElementDeclaration declaration) {
+		if (!declaration.isRestrictedToEnumeration()) {
+			return;
+		}
+		StringBuilder text = new StringBuilder();
+		for (Node child : element.getChildren()) {
+			if (child.isText() || child.isCDATA()) {
+				text.append(((Text) child).getData());
+			} else if (!child.isComment() && !child.isProcessingInstruction()) {
+				// the element has children, Xerces reports another error
+				return;
+			}
+		}
+		if (text.indexOf("&") != -1) {
+			// entity references are not expanded in the DOM
+			return;
+		}
+		String value = text.toString();
+		Collection<String> values = declaration.getEnumerationValues();
+		if (!isEnumerationValue(value, values)) {
+			Range range = XMLPositionUtility.selectText(element);
+			report(XMLSchemaErrorCode.cvc_enumeration_valid, range, value, values.toString());
+			report(XMLSchemaErrorCode.cvc_type_3_1_3, range, element.getTagName(), value);
+		}
+	}
+
+	private CMDocument getCMDocument(String namespaceURI) {
+		if (cmDocuments.containsKey(namespaceURI)) {
+			return cmDocuments.get(namespaceURI);
+		}
+		CMDocument cmDocument = null;
+		try {
+			cmDocument = contentModelManager.findCMDocument(document, namespaceURI);
+		} catch (CacheResourceDownloadingException e) {
+			// the XML Schema is being downloaded, the Xerces validation reports it
+		}
+		cmDocuments.put(namespaceURI, cmDocument);
+		return cmDocument;
+	}
+
+	private static CMElementDeclaration findGlobalDeclaration(String name, CMDocument cmDocument) {
+		for (CMElementDeclaration declaration : cmDocument.getElements()) {
+			if (name.equals(declaration.getName())) {
+				return declaration;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if the type of the given declaration is a complex type and
+	 * false if it is a simple type (Xerces reports cvc-type.3.1.1 for the
+	 * attributes of a simple type) or if it cannot be known.
+	 */
+	private static boolean hasComplexType(CMElementDeclaration declaration) {
+		return !declaration.getAttributes().isEmpty() || !declaration.getElements().isEmpty()
+				|| declaration.isEmpty();
+	}
+
+	private static boolean hasXsiType(Element element) {
+		if (element.hasAttributes()) {
+			for (Attr attr : element.getAttributeNodes()) {
+				String name = attr.getName();
+				if (name != null && name.endsWith(":type")
+						&& XSI_NAMESPACE.equals(element.getNamespaceURI(name.substring(0, name.length() - 5)))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given element has an attribute with the local name and
+	 * the namespace of the given declaration (an attribute without prefix has no
+	 * namespace) and false otherwise.
+	 */
+	private static boolean hasAttribute(Element element, CMAttributeDeclaration attributeDeclaration) {
+		if (!element.hasAttributes()) {
+			return false;
+		}
+		String localName = attributeDeclaration.getName();
+		String namespaceURI = attributeDeclaration.getNamespace();
+		for (Attr attr : element.getAttributeNodes()) {
+			String name = attr.getName();
+			if (name == null || !name.endsWith(localName)) {
+				continue;
+			}
+			if (name.length() == localName.length()) {
+				if (namespaceURI == null) {
+					return true;
+				}
+			} else if (name.charAt(name.length() - localName.length() - 1) == ':') {
+				String prefix = name.substring(0, name.length() - localName.length() - 1);
+				if (namespaceURI != null && namespaceURI.equals(element.getNamespaceURI(prefix))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEnumerationValue(String value, Collection<String> values) {
+		// the whitespaces are collapsed by the most of enumerated types (token,
+		// NMTOKEN, etc)
+		return values.contains(value) || values.contains(StringUtils.normalizeSpace(value).trim());
+	}
+
+	/**
+	 * Returns the expected elements like Xerces (ex : {"ns":a, "ns":b}).
+	 */
+	private static String getExpectedElements(CMElementDeclaration declaration) {
+		StringBuilder expected = new StringBuilder("{");
+		for (CMElementDeclaration element : declaration.getElements()) {
+			if (expected.length() > 1) {
+				expected.append(", ");
+			}
+			if (element.getNamespace() != null) {
+				expected.append('"').append(element.getNamespace()).append("\":");
+			}
+			expected.append(element.getName());
+		}
+		return expected.append('}').toString();
+	}
+
+	private void report(XMLSchemaErrorCode code, Range range, Object... arguments) {
+		String message = messageFormatter.formatMessage(null, code.getCode(), arguments);
+		diagnostics.add(new Diagnostic(range, message, DiagnosticSeverity.Error, XML_DIAGNOSTIC_SOURCE,
+				code.getCode()));
+	}
+}
@@ -38,7 +38,20 @@ public class ContentModelDiagnosticsParticipant implements IDiagnosticsParticipa
 		XMLEntityResolver entityResolver = xmlDocument.getResolverExtensionManager();
 		// Process validation
 		XMLValidator.doDiagnostics(xmlDocument, entityResolver, diagnostics,
+				contentModelPlugin.getContentModelSettings(), contentModelPlugin.getGrammarCache(),
+				contentModelPlugin.getValidationCache(), monitor);
+	}
+
+	@Override
+	public void doFastDiagnostics(XMLDocument xmlDocument, List<Diagnostic> diagnostics, CancelChecker monitor) {
+		// Validate the DOM with the XML Schema model, without parsing the text again
+		CMValidator.doDiagnostics(xmlDocument, contentModelPlugin.getContentModelManager(), diagnostics,
 				contentModelPlugin.getContentModelSettings(), monitor);
 	}
 
+	@Override
+	public boolean isFastDiagnostic(Diagnostic diagnostic) {
+		return CMValidator.isReported(diagnostic);
+	}
+
 }
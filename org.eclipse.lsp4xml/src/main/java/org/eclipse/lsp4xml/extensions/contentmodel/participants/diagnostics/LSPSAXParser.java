@@ -0,0 +1,91 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
+
+import org.apache.xerces.parsers.SAXParser;
+import org.apache.xerces.parsers.XIncludeAwareParserConfiguration;
+import org.eclipse.lsp4xml.uriresolver.IExternalSchemaLocationProvider;
+import org.xml.sax.SAXException;
+
+/**
+ * Xerces SAX parser used by {@link XMLValidator}, which is configured once and
+ * reused by the next validations of the same thread.
+ *
+ * <p>
+ * Creating the parser configuration (scanners, DTD and XML Schema validators,
+ * symbol table) costs more than parsing a small XML document. Xerces resets the
+ * components of the configuration before each parse, so only the error
+ * reporter, the content handler, the entity resolver, the grammar pool and the
+ * validation features of the validated document must be bound for each
+ * validation.
+ * </p>
+ *
+ */
+class LSPSAXParser extends SAXParser {
+
+	static final String ERROR_REPORTER = "http://apache.org/xml/properties/internal/error-reporter"; //$NON-NLS-1$
+
+	static final String ENTITY_RESOLVER = "http://apache.org/xml/properties/internal/entity-resolver"; //$NON-NLS-1$
+
+	static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool"; //$NON-NLS-1$
+
+	private static final ThreadLocal<LSPSAXParser> PARSERS = new ThreadLocal<>();
+
+	private final Object defaultErrorReporter;
+
+	private LSPSAXParser() throws SAXException {
+		// The XML Schemas and DTD are not cached with XMLGrammarCachingConfiguration
+		// because the cache is done with target namespaces and there are conflicts
+		// when 2 XML Schemas don't define target namespaces. The grammar cache uses the
+		// system IDs of the grammars.
+		super(new XIncludeAwareParserConfiguration());
+		this.defaultErrorReporter = getProperty(ERROR_REPORTER);
+		setFeature("http://apache.org/xml/features/continue-after-fatal-error", false); //$NON-NLS-1$
+		setFeature("http://xml.org/sax/features/namespace-prefixes", true /* document.hasNamespaces() */); //$NON-NLS-1$
+		setFeature("http://xml.org/sax/features/namespaces", true /* document.hasNamespaces() */); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the parser of the current thread, or a new parser if the current
+	 * thread has no parser or if its parser is used. The parser must be given back
+	 * with {@link #release()} when the validation is done.
+	 *
+	 * @return the parser of the current thread or a new parser.
+	 * @throws SAXException if the parser cannot be configured.
+	 */
+	static LSPSAXParser acquire() throws SAXException {
+		LSPSAXParser parser = PARSERS.get();
+		if (parser == null) {
+			return new LSPSAXParser();
+		}
+		PARSERS.remove();
+		return parser;
+	}
+
+	/**
+	 * Unbinds the validated document from this parser and keeps it for the next
+	 * validation of the current thread. A parser which has failed with an
+	 * unexpected error must not be released.
+	 */
+	void release() {
+		try {
+			// don't retain the XML document and its diagnostics until the next validation
+			setProperty(ERROR_REPORTER, defaultErrorReporter);
+			setProperty(ENTITY_RESOLVER, null);
+			setProperty(GRAMMAR_POOL, null);
+			setProperty(IExternalSchemaLocationProvider.NO_NAMESPACE_SCHEMA_LOCATION, null);
+			setContentHandler(null);
+		} catch (SAXException e) {
+			return;
+		}
+		PARSERS.set(this);
+	}
+}
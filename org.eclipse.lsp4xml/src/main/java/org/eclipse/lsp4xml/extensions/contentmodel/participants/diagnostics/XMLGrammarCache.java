@@ -0,0 +1,439 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.xerces.impl.xs.SchemaGrammar;
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xs.StringList;
+
+/**
+ * Cache of the grammars (XML Schema, DTD) compiled by Xerces, shared by the
+ * validation of all the XML documents.
+ *
+ * <p>
+ * The Xerces <code>XMLGrammarPoolImpl</code> (used by
+ * <code>XMLGrammarCachingConfiguration</code>) retrieves an XML Schema grammar
+ * with its target namespace, so 2 XML Schemas without target namespace are in
+ * conflict. This cache uses as key the target namespace and the expanded
+ * system ID of the XML Schema document (a schema document has one target
+ * namespace), and the expanded system ID of the DTD.
+ * </p>
+ *
+ * <p>
+ * A cached grammar is removed when one of the local files it was loaded from
+ * has been modified since the grammar has been cached. When the cache is full,
+ * the least recently used grammar is evicted.
+ * </p>
+ *
+ */
+public class XMLGrammarCache {
+
+	private static final Logger LOGGER = Logger.getLogger(XMLGrammarCache.class.getName());
+
+	/**
+	 * Default maximum number of cached grammars.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	private static final Grammar[] NO_GRAMMARS = new Grammar[0];
+
+	private static class CachedGrammar {
+
+		public final Grammar grammar;
+
+		// last modified time of the local files of the grammar
+		private final Map<File, Long> files;
+
+		public CachedGrammar(Grammar grammar, Map<File, Long> files) {
+			this.grammar = grammar;
+			this.files = files;
+		}
+
+		public boolean isModified() {
+			return XMLGrammarCache.isModified(files);
+		}
+
+		public boolean isLoadedFrom(File file) {
+			return files.containsKey(file);
+		}
+	}
+
+	/**
+	 * Grammar pool given to Xerces for the validation of one XML document. The
+	 * grammars compiled by the validation are added to the cache by
+	 * {@link #commit()}.
+	 */
+	class GrammarPool implements XMLGrammarPool {
+
+		private final boolean cacheDTD;
+		private final List<Grammar> compiledGrammars;
+		private final Set<XMLResourceIdentifier> schemaDescriptions;
+		private final Map<File, Long> dependencies;
+		private boolean grammarErrors;
+
+		GrammarPool(boolean cacheDTD) {
+			this.cacheDTD = cacheDTD;
+			this.compiledGrammars = new ArrayList<>();
+			this.schemaDescriptions = Collections.newSetFromMap(new IdentityHashMap<>());
+			this.dependencies = new HashMap<>();
+		}
+
+		@Override
+		public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+			// the grammars are retrieved one by one with their description, the initial
+			// set would put in conflict the XML Schemas without target namespace.
+			return NO_GRAMMARS;
+		}
+
+		@Override
+		public void cacheGrammars(String grammarType, Grammar[] grammars) {
+			for (Grammar grammar : grammars) {
+				getFiles(grammar).forEach(dependencies::putIfAbsent);
+			}
+			if (XMLGrammarDescription.XML_DTD.equals(grammarType) && !cacheDTD) {
+				return;
+			}
+			Collections.addAll(compiledGrammars, grammars);
+		}
+
+		@Override
+		public Grammar retrieveGrammar(XMLGrammarDescription desc) {
+			if (XMLGrammarDescription.XML_DTD.equals(desc.getGrammarType()) && !cacheDTD) {
+				return null;
+			}
+			if (XMLGrammarDescription.XML_SCHEMA.equals(desc.getGrammarType())
+					&& desc instanceof XMLResourceIdentifier) {
+				schemaDescriptions.add((XMLResourceIdentifier) desc);
+			}
+			CachedGrammar cachedGrammar = getGrammar(desc);
+			if (cachedGrammar == null) {
+				return null;
+			}
+			cachedGrammar.files.forEach(dependencies::putIfAbsent);
+			return cachedGrammar.grammar;
+		}
+
+		/**
+		 * Adds the given location (ex : the system ID of an entity resolved by the
+		 * validation) to the local files which the validation depends on.
+		 * 
+		 * @param location the location.
+		 */
+		void addDependency(String location) {
+			addFile(location, dependencies);
+		}
+
+		/**
+		 * Returns the last modified time of the local files which the validation
+		 * depends on (the files of the compiled and retrieved grammars, the added
+		 * locations).
+		 * 
+		 * @return the last modified time of the local files which the validation
+		 *         depends on.
+		 */
+		Map<File, Long> getDependencies() {
+			return dependencies;
+		}
+
+		/**
+		 * Marks the grammars compiled by the validation as invalid because an error
+		 * has been reported in a grammar file.
+		 */
+		void setGrammarErrors() {
+			this.grammarErrors = true;
+		}
+
+		/**
+		 * Adds the grammars compiled by the validation to the cache, if no error has
+		 * been reported in a grammar file.
+		 */
+		void commit() {
+			if (!grammarErrors) {
+				compiledGrammars.forEach(XMLGrammarCache.this::putGrammar);
+			}
+			compiledGrammars.clear();
+			// The XML Schema validator reuses its description and first retrieves a
+			// grammar by setting only the namespace of the description, with the
+			// location of the previous retrieval. When the parser is reused, this location
+			// comes from the previous validated document and must be forgotten.
+			schemaDescriptions.forEach(desc -> desc.setExpandedSystemId(null));
+			schemaDescriptions.clear();
+		}
+
+		@Override
+		public void lockPool() {
+		}
+
+		@Override
+		public void unlockPool() {
+		}
+
+		@Override
+		public void clear() {
+		}
+	}
+
+	private final Map<String, CachedGrammar> grammars;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong evictions;
+
+	public XMLGrammarCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public XMLGrammarCache(int maxEntries) {
+		this.grammars = new LinkedHashMap<String, CachedGrammar>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedGrammar> eldest) {
+				if (size() > maxEntries) {
+					evictions.incrementAndGet();
+					logStatistics("Evicted least recently used grammar " + eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+		this.evictions = new AtomicLong();
+	}
+
+	/**
+	 * Returns a grammar pool for the validation of one XML document.
+	 *
+	 * @param cacheDTD true if the DTD grammars can be cached and false otherwise
+	 *                 (ex : the XML document has an internal subset which is
+	 *                 merged with the DTD grammar by Xerces).
+	 * @return a grammar pool for the validation of one XML document.
+	 */
+	GrammarPool createGrammarPool(boolean cacheDTD) {
+		return new GrammarPool(cacheDTD);
+	}
+
+	private CachedGrammar getGrammar(XMLGrammarDescription desc) {
+		String key = getKey(desc);
+		if (key == null) {
+			return null;
+		}
+		CachedGrammar cachedGrammar;
+		synchronized (grammars) {
+			cachedGrammar = grammars.get(key);
+		}
+		if (cachedGrammar != null && cachedGrammar.isModified()) {
+			synchronized (grammars) {
+				if (grammars.remove(key, cachedGrammar)) {
+					evictions.incrementAndGet();
+					logStatistics("Evicted modified grammar " + key);
+				}
+			}
+			cachedGrammar = null;
+		}
+		if (cachedGrammar == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return cachedGrammar;
+	}
+
+	private void putGrammar(Grammar grammar) {
+		String key = getKey(grammar.getGrammarDescription());
+		if (key != null) {
+			CachedGrammar cachedGrammar = new CachedGrammar(grammar, getFiles(grammar));
+			synchronized (grammars) {
+				grammars.put(key, cachedGrammar);
+			}
+		}
+	}
+
+	/**
+	 * Returns the key of the grammar of the given description, or null if the
+	 * grammar cannot be cached.
+	 */
+	private static String getKey(XMLGrammarDescription desc) {
+		String expandedSystemId = desc != null ? desc.getExpandedSystemId() : null;
+		if (expandedSystemId == null) {
+			return null;
+		}
+		if (XMLGrammarDescription.XML_SCHEMA.equals(desc.getGrammarType())) {
+			return "xsd|" + desc.getNamespace() + "|" + expandedSystemId;
+		}
+		if (XMLGrammarDescription.XML_DTD.equals(desc.getGrammarType())) {
+			return "dtd|" + expandedSystemId;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the last modified time of the local files of the given grammar (the
+	 * documents of an XML Schema and of the XML Schemas it imports, the DTD file).
+	 */
+	private static Map<File, Long> getFiles(Grammar grammar) {
+		Map<File, Long> files = new HashMap<>();
+		addFiles(grammar, files, Collections.newSetFromMap(new IdentityHashMap<>()));
+		return files;
+	}
+
+	private static void addFiles(Grammar grammar, Map<File, Long> files, Set<Grammar> visited) {
+		if (!visited.add(grammar)) {
+			return;
+		}
+		if (grammar instanceof SchemaGrammar) {
+			SchemaGrammar schemaGrammar = (SchemaGrammar) grammar;
+			StringList locations = schemaGrammar.getDocumentLocations();
+			for (int i = 0; i < locations.getLength(); i++) {
+				addFile(locations.item(i), files);
+			}
+			// the imported grammars are given to the validator with the grammar
+			Vector<?> importedGrammars = schemaGrammar.getImportedGrammars();
+			if (importedGrammars != null) {
+				for (Object importedGrammar : importedGrammars) {
+					addFiles((Grammar) importedGrammar, files, visited);
+				}
+			}
+		}
+		addFile(grammar.getGrammarDescription().getExpandedSystemId(), files);
+	}
+
+	private static void addFile(String location, Map<File, Long> files) {
+		File file = toFile(location);
+		if (file != null) {
+			files.putIfAbsent(file, file.lastModified());
+		}
+	}
+
+	/**
+	 * Returns true if one of the given files has been modified since its last
+	 * modified time has been taken and false otherwise.
+	 * 
+	 * @param files the last modified time of files.
+	 * @return true if one of the given files has been modified and false
+	 *         otherwise.
+	 */
+	static boolean isModified(Map<File, Long> files) {
+		for (Map.Entry<File, Long> file : files.entrySet()) {
+			if (file.getKey().lastModified() != file.getValue()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static File toFile(String location) {
+		if (location == null || !location.startsWith("file:")) {
+			return null;
+		}
+		try {
+			return new File(new URI(location));
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the grammars loaded from the given URI (ex : an XML Schema which has
+	 * been saved).
+	 *
+	 * @param uri the URI of a grammar file.
+	 */
+	public void invalidate(String uri) {
+		File file = toFile(uri);
+		if (file == null) {
+			return;
+		}
+		synchronized (grammars) {
+			if (grammars.values().removeIf(cachedGrammar -> cachedGrammar.isLoadedFrom(file))) {
+				evictions.incrementAndGet();
+				logStatistics("Evicted grammars loaded from " + uri);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the grammars (ex : the XML catalogs or the file associations
+	 * have changed).
+	 */
+	public void clear() {
+		synchronized (grammars) {
+			grammars.clear();
+		}
+		logStatistics("Cleared grammars");
+	}
+
+	/**
+	 * Returns the number of cached grammars.
+	 *
+	 * @return the number of cached grammars.
+	 */
+	public int size() {
+		synchronized (grammars) {
+			return grammars.size();
+		}
+	}
+
+	/**
+	 * Returns the number of grammars which have been retrieved from the cache.
+	 *
+	 * @return the number of grammars which have been retrieved from the cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of grammars which have not been found in the cache and
+	 * which have been compiled.
+	 *
+	 * @return the number of grammars which have not been found in the cache.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of grammars which have been removed from the cache
+	 * because a grammar file has been modified or because the cache was full.
+	 *
+	 * @return the number of grammars which have been removed from the cache.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	private void logStatistics(String message) {
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine(message + " (hits: " + hits.get() + ", misses: " + misses.get() + ", evictions: "
+					+ evictions.get() + ")");
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4xml.commons.CharSequenceReader;
+
+/**
+ * Cache of the diagnostics reported by the validation of XML documents, used
+ * when a text which has already been validated is validated again (ex : undo,
+ * file reopened, branch switched).
+ *
+ * <p>
+ * The diagnostics are cached with the URI and a hash of the text of the
+ * document. They are used only if the local files which the validation has
+ * read (XML Schemas, DTD, entities) have the same last modified time. The
+ * cache is bounded by a number of entries, the least recently used entries are
+ * evicted.
+ * </p>
+ *
+ */
+public class XMLValidationCache {
+
+	/**
+	 * Default maximum number of cached validations.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static class CachedValidation {
+
+		public final List<Diagnostic> diagnostics;
+
+		// last modified time of the local files read by the validation
+		public final Map<File, Long> dependencies;
+
+		public CachedValidation(List<Diagnostic> diagnostics, Map<File, Long> dependencies) {
+			this.diagnostics = diagnostics;
+			this.dependencies = dependencies;
+		}
+	}
+
+	private final Map<String, CachedValidation> validations;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	public XMLValidationCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public XMLValidationCache(int maxEntries) {
+		this.validations = new LinkedHashMap<String, CachedValidation>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedValidation> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	/**
+	 * Returns the key of the validation of the given text.
+	 *
+	 * @param uri  the URI of the document.
+	 * @param text the text of the document.
+	 * @return the key of the validation of the given text.
+	 */
+	public static String getKey(String uri, CharSequence text) {
+		return uri + "#" + hash(text);
+	}
+
+	/**
+	 * Returns the cached diagnostics of the given validation key and null if the
+	 * validation is not cached or if a file read by the validation has been
+	 * modified.
+	 *
+	 * @param key the validation key.
+	 * @return the cached diagnostics of the given validation key and null
+	 *         otherwise.
+	 */
+	public List<Diagnostic> getDiagnostics(String key) {
+		CachedValidation validation;
+		synchronized (validations) {
+			validation = validations.get(key);
+			if (validation != null && XMLGrammarCache.isModified(validation.dependencies)) {
+				validations.remove(key);
+				validation = null;
+			}
+		}
+		if (validation == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return new ArrayList<>(validation.diagnostics);
+	}
+
+	/**
+	 * Caches the diagnostics of the given validation key.
+	 *
+	 * @param key          the validation key.
+	 * @param diagnostics  the diagnostics reported by the validation.
+	 * @param dependencies the last modified time of the local files read by the
+	 *                     validation.
+	 */
+	public void putDiagnostics(String key, List<Diagnostic> diagnostics, Map<File, Long> dependencies) {
+		CachedValidation validation = new CachedValidation(new ArrayList<>(diagnostics),
+				new HashMap<>(dependencies));
+		synchronized (validations) {
+			validations.put(key, validation);
+		}
+	}
+
+	/**
+	 * Removes all the cached validations (ex : the settings have changed).
+	 */
+	public void clear() {
+		synchronized (validations) {
+			validations.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cached validations.
+	 *
+	 * @return the number of cached validations.
+	 */
+	public int size() {
+		synchronized (validations) {
+			return validations.size();
+		}
+	}
+
+	/**
+	 * Returns the number of validations whose diagnostics have been retrieved from
+	 * the cache.
+	 *
+	 * @return the number of validations retrieved from the cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of validations which have not been found in the cache.
+	 *
+	 * @return the number of validations which have not been found in the cache.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	private static String hash(CharSequence text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			// the text is hashed by chunks to avoid copying it
+			char[] chars = new char[8192];
+			ByteBuffer bytes = ByteBuffer.allocate(chars.length * 2);
+			try (Reader reader = new CharSequenceReader(text)) {
+				int count;
+				while ((count = reader.read(chars, 0, chars.length)) != -1) {
+					bytes.clear();
+					bytes.asCharBuffer().put(CharBuffer.wrap(chars, 0, count));
+					digest.update(bytes.array(), 0, count * 2);
+				}
+			}
+			byte[] hash = digest.digest();
+			StringBuilder result = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				result.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException | IOException e) {
+			// SHA-256 is supported by all Java platforms and the reader doesn't throw
+			// I/O errors
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -10,31 +10,36 @@
  */
 package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.xerces.impl.XMLEntityManager;
 import org.apache.xerces.parsers.SAXParser;
-import org.apache.xerces.parsers.XIncludeAwareParserConfiguration;
+import org.apache.xerces.xni.XMLLocator;
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.XNIException;
 import org.apache.xerces.xni.parser.XMLEntityResolver;
-import org.apache.xerces.xni.parser.XMLParserConfiguration;
+import org.apache.xerces.xni.parser.XMLInputSource;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4xml.dom.DocumentType;
 import org.eclipse.lsp4xml.dom.Element;
 import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLGrammarCache.GrammarPool;
 import org.eclipse.lsp4xml.extensions.contentmodel.settings.ContentModelSettings;
 import org.eclipse.lsp4xml.extensions.contentmodel.settings.XMLProblems;
 import org.eclipse.lsp4xml.services.extensions.diagnostics.LSPContentHandler;
 import org.eclipse.lsp4xml.uriresolver.CacheResourceDownloadingException;
 import org.eclipse.lsp4xml.uriresolver.IExternalSchemaLocationProvider;
+import org.eclipse.lsp4xml.utils.XMLInputUtils;
 import org.eclipse.lsp4xml.utils.XMLPositionUtility;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -49,30 +54,88 @@ public class XMLValidator {
 
 	private static final Logger LOGGER = Logger.getLogger(XMLValidator.class.getName());
 
+	static final String NO_GRAMMAR_MESSAGE = "No grammar constraints (DTD or XML Schema).";
+
 	public static void doDiagnostics(XMLDocument document, XMLEntityResolver entityResolver,
 			List<Diagnostic> diagnostics, ContentModelSettings contentModelSettings, CancelChecker monitor) {
+		doDiagnostics(document, entityResolver, diagnostics, contentModelSettings, null, monitor);
+	}
+
+	/**
+	 * Validate the given XML document and reuse the XML Schema and DTD grammars
+	 * of the given grammar cache.
+	 * 
+	 * @param document             the XML document.
+	 * @param entityResolver       the entity resolver.
+	 * @param diagnostics          the diagnostics list to populate.
+	 * @param contentModelSettings the content model settings.
+	 * @param grammarCache         the grammar cache or null.
+	 * @param monitor              the cancel checker.
+	 */
+	public static void doDiagnostics(XMLDocument document, XMLEntityResolver entityResolver,
+			List<Diagnostic> diagnostics, ContentModelSettings contentModelSettings, XMLGrammarCache grammarCache,
+			CancelChecker monitor) {
+		doDiagnostics(document, entityResolver, diagnostics, contentModelSettings, grammarCache, null, monitor);
+	}
+
+	/**
+	 * Validate the given XML document, reuse the XML Schema and DTD grammars of
+	 * the given grammar cache and reuse the diagnostics of the given validation
+	 * cache if the same text has already been validated.
+	 * 
+	 * @param document             the XML document.
+	 * @param entityResolver       the entity resolver.
+	 * @param diagnostics          the diagnostics list to populate.
+	 * @param contentModelSettings the content model settings.
+	 * @param grammarCache         the grammar cache or null.
+	 * @param validationCache      the validation cache or null. The validation
+	 *                             cache is used only with a grammar cache, which
+	 *                             collects the files read by the validation.
+	 * @param monitor              the cancel checker.
+	 */
+	public static void doDiagnostics(XMLDocument document, XMLEntityResolver entityResolver,
+			List<Diagnostic> diagnostics, ContentModelSettings contentModelSettings, XMLGrammarCache grammarCache,
+			XMLValidationCache validationCache, CancelChecker monitor) {
+
+		String validationKey = null;
+		if (validationCache != null && grammarCache != null) {
+			validationKey = XMLValidationCache.getKey(document.getDocumentURI(),
+					document.getTextDocument().getSnapshot());
+			List<Diagnostic> cachedDiagnostics = validationCache.getDiagnostics(validationKey);
+			if (cachedDiagnostics != null) {
+				diagnostics.addAll(cachedDiagnostics);
+				return;
+			}
+		}
+		int firstDiagnostic = diagnostics.size();
 
+		GrammarPool grammarPool = null;
+		LSPSAXParser reader = null;
+		boolean reusable = false;
+		boolean completed = false;
 		try {
-			XMLParserConfiguration configuration = new XIncludeAwareParserConfiguration(); // new
-																							// XMLGrammarCachingConfiguration();
-			// it should be better to cache XML Schema with XMLGrammarCachingConfiguration,
-			// but we cannot use
-			// XMLGrammarCachingConfiguration because cache is done with target namespaces.
-			// There are conflicts when
-			// 2 XML Schemas don't define target namespaces.
-			SAXParser reader = new SAXParser(configuration);
+			// reuse the parser (and its configuration) of the previous validation of the
+			// thread
+			reader = LSPSAXParser.acquire();
 			// Add LSP error reporter to fill LSP diagnostics from Xerces errors
-			reader.setProperty("http://apache.org/xml/properties/internal/error-reporter",
-					new LSPErrorReporterForXML(document, diagnostics));
-			reader.setFeature("http://apache.org/xml/features/continue-after-fatal-error", false); //$NON-NLS-1$
-			reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true /* document.hasNamespaces() */); //$NON-NLS-1$
-			reader.setFeature("http://xml.org/sax/features/namespaces", true /* document.hasNamespaces() */); //$NON-NLS-1$
+			LSPErrorReporterForXML errorReporter;
+			if (grammarCache != null) {
+				// the DTD grammar is merged with the internal subset of the document
+				grammarPool = grammarCache.createGrammarPool(!hasInternalSubset(document));
+				reader.setProperty(LSPSAXParser.GRAMMAR_POOL, grammarPool);
+				errorReporter = new GrammarErrorReporter(document, diagnostics, grammarPool);
+				// collect the entities (XML Schemas, DTD, etc) read by the validation
+				entityResolver = new DependencyEntityResolver(entityResolver, grammarPool);
+			} else {
+				errorReporter = new LSPErrorReporterForXML(document, diagnostics);
+			}
+			reader.setProperty(LSPSAXParser.ERROR_REPORTER, errorReporter);
 
 			// Add LSP content handler to stop XML parsing if monitor is canceled.
 			reader.setContentHandler(new LSPContentHandler(monitor));
 
 			if (entityResolver != null) {
-				reader.setProperty("http://apache.org/xml/properties/internal/entity-resolver", entityResolver); //$NON-NLS-1$
+				reader.setProperty(LSPSAXParser.ENTITY_RESOLVER, entityResolver);
 			}
 
 			boolean hasGrammar = document.hasGrammar();
@@ -85,20 +148,114 @@ public class XMLValidator {
 			warnNoGrammar(document, diagnostics, contentModelSettings);
 
 			// Parse XML
-			String content = document.getText();
 			String uri = document.getDocumentURI();
 			InputSource inputSource = new InputSource();
-			inputSource.setByteStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+			if (XMLInputUtils.canReadAsCharacters(document)) {
+				inputSource.setCharacterStream(XMLInputUtils.createCharacterStream(document));
+			} else {
+				inputSource.setByteStream(XMLInputUtils.createByteStream(document));
+			}
 			inputSource.setSystemId(uri);
-			reader.parse(inputSource);
-
-		} catch (IOException | SAXException | CancellationException exception) {
+			try {
+				reader.parse(inputSource);
+			} finally {
+				if (grammarPool != null) {
+					grammarPool.commit();
+				}
+			}
+			reusable = true;
+			completed = true;
+		} catch (SAXException exception) {
+			// ignore error (the fatal error has been reported)
+			reusable = true;
+			completed = true;
+		} catch (IOException | CancellationException exception) {
 			// ignore error
+			reusable = true;
 		} catch (CacheResourceDownloadingException e) {
 			throw e;
 		} catch (Exception e) {
 			LOGGER.log(Level.SEVERE, "Unexpected XMLValidator error", e);
+		} finally {
+			// a parser which has failed with an unexpected error is not reused. Without
+			// grammar pool, the locations of the XML Schema validator cannot be forgotten
+			// (see GrammarPool#commit()) and the parser is not reused.
+			if (reader != null && reusable && grammarPool != null) {
+				reader.release();
+			}
 		}
+		if (completed && validationKey != null) {
+			validationCache.putDiagnostics(validationKey, diagnostics.subList(firstDiagnostic, diagnostics.size()),
+					grammarPool.getDependencies());
+		}
+	}
+
+	/**
+	 * Entity resolver which adds the system IDs of the resolved entities to the
+	 * files which the validation depends on, including the files which don't
+	 * exist yet.
+	 */
+	private static class DependencyEntityResolver implements XMLEntityResolver {
+
+		private final XMLEntityResolver entityResolver;
+		private final GrammarPool grammarPool;
+
+		public DependencyEntityResolver(XMLEntityResolver entityResolver, GrammarPool grammarPool) {
+			this.entityResolver = entityResolver;
+			this.grammarPool = grammarPool;
+		}
+
+		@Override
+		public XMLInputSource resolveEntity(XMLResourceIdentifier resourceIdentifier)
+				throws XNIException, IOException {
+			grammarPool.addDependency(resourceIdentifier.getExpandedSystemId());
+			XMLInputSource inputSource = entityResolver != null ? entityResolver.resolveEntity(resourceIdentifier)
+					: null;
+			if (inputSource != null) {
+				grammarPool.addDependency(inputSource.getSystemId());
+			}
+			return inputSource;
+		}
+	}
+
+	/**
+	 * Error reporter which marks the grammars compiled by the validation as invalid
+	 * when an error is reported in another file than the validated document (XML
+	 * Schema, DTD), so that a grammar with errors is not cached and its errors are
+	 * reported by the next validation.
+	 */
+	private static class GrammarErrorReporter extends LSPErrorReporterForXML {
+
+		private final GrammarPool grammarPool;
+		private final String documentSystemId;
+
+		public GrammarErrorReporter(XMLDocument document, List<Diagnostic> diagnostics, GrammarPool grammarPool) {
+			super(document, diagnostics);
+			this.grammarPool = grammarPool;
+			this.documentSystemId = expandSystemId(document.getDocumentURI());
+		}
+
+		@Override
+		public String reportError(XMLLocator location, String domain, String key, Object[] arguments,
+				short severity, Exception exception) throws XNIException {
+			if (location == null || !Objects.equals(documentSystemId, location.getExpandedSystemId())) {
+				grammarPool.setGrammarErrors();
+			}
+			return super.reportError(location, domain, key, arguments, severity, exception);
+		}
+
+		private static String expandSystemId(String uri) {
+			try {
+				return XMLEntityManager.expandSystemId(uri, null, false);
+			} catch (IOException e) {
+				return uri;
+			}
+		}
+	}
+
+	private static boolean hasInternalSubset(XMLDocument document) {
+		DocumentType doctype = document.getDoctype();
+		return doctype != null && doctype.getContent().indexOf('[') != -1;
 	}
 
 	/**
@@ -108,7 +265,7 @@ public class XMLValidator {
 	 * @param diagnostics the diagnostics list to populate
 	 * @param settings    the settings to use to know the severity of warn.
 	 */
-	private static void warnNoGrammar(XMLDocument document, List<Diagnostic> diagnostics,
+	static void warnNoGrammar(XMLDocument document, List<Diagnostic> diagnostics,
 			ContentModelSettings settings) {
 		boolean hasGrammar = document.hasGrammar();
 		if (hasGrammar) {
@@ -130,7 +287,7 @@ public class XMLValidator {
 			if (range == null) {
 				range = new Range(new Position(0, 0), new Position(0, 0));
 			}
-			diagnostics.add(new Diagnostic(range, "No grammar constraints (DTD or XML Schema).", severity,
+			diagnostics.add(new Diagnostic(range, NO_GRAMMAR_MESSAGE, severity,
 					document.getDocumentURI(), "XML"));
 		}
 	}
@@ -41,6 +41,11 @@ public class XSDAttributeDeclaration implements CMAttributeDeclaration {
 		return getAttrDeclaration().getName();
 	}
 
+	@Override
+	public String getNamespace() {
+		return getAttrDeclaration().getNamespace();
+	}
+
 	@Override
 	public String getDefaultValue() {
 		XSValue xsValue = attributeUse.getValueConstraintValue();
@@ -109,4 +114,11 @@ public class XSDAttributeDeclaration implements CMAttributeDeclaration {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public boolean isRestrictedToEnumeration() {
+		XSAttributeDeclaration attributeDeclaration = getAttrDeclaration();
+		return attributeDeclaration != null
+				&& XSDDocument.isRestrictedToEnumeration(attributeDeclaration.getTypeDefinition());
+	}
+
 }
@@ -13,9 +13,9 @@ package org.eclipse.lsp4xml.extensions.contentmodel.xsd;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.xerces.impl.dv.XSSimpleType;
 import org.apache.xerces.xs.StringList;
@@ -40,22 +40,26 @@ public class XSDDocument implements CMDocument {
 
 	private final Map<XSElementDeclaration, XSDElementDeclaration> elementMappings;
 
-	private Collection<CMElementDeclaration> elements;
+	private volatile Collection<CMElementDeclaration> elements;
 
 	public XSDDocument(XSModel model) {
 		this.model = model;
-		this.elementMappings = new HashMap<>();
+		// the document is shared by the validation and the requests threads
+		this.elementMappings = new ConcurrentHashMap<>();
 	}
 
 	@Override
 	public Collection<CMElementDeclaration> getElements() {
+		Collection<CMElementDeclaration> elements = this.elements;
 		if (elements == null) {
+			// the list is published once it is filled
 			elements = new ArrayList<>();
 			XSNamedMap map = model.getComponents(XSConstants.ELEMENT_DECLARATION);
 			for (int j = 0; j < map.getLength(); j++) {
 				XSElementDeclaration elementDeclaration = (XSElementDeclaration) map.item(j);
 				collectElement(elementDeclaration, elements);
 			}
+			this.elements = elements;
 		}
 		return elements;
 	}
@@ -124,12 +128,7 @@ public class XSDDocument implements CMDocument {
 	}
 
 	CMElementDeclaration getXSDElement(XSElementDeclaration elementDeclaration) {
-		XSDElementDeclaration element = elementMappings.get(elementDeclaration);
-		if (element == null) {
-			element = new XSDElementDeclaration(this, elementDeclaration);
-			elementMappings.put(elementDeclaration, element);
-		}
-		return element;
+		return elementMappings.computeIfAbsent(elementDeclaration, e -> new XSDElementDeclaration(this, e));
 	}
 
 	static Collection<String> getEnumerationValues(XSSimpleTypeDefinition typeDefinition) {
@@ -148,6 +147,22 @@ public class XSDDocument implements CMDocument {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Returns true if the values of the given type must be one of its enumeration
+	 * facet and false otherwise.
+	 * 
+	 * @param typeDefinition the simple type.
+	 * @return true if the values of the given type must be one of its enumeration
+	 *         facet and false otherwise.
+	 */
+	static boolean isRestrictedToEnumeration(XSSimpleTypeDefinition typeDefinition) {
+		if (typeDefinition == null || isBooleanType(typeDefinition)) {
+			return false;
+		}
+		StringList enumerations = typeDefinition.getLexicalEnumeration();
+		return enumerations != null && enumerations.getLength() > 0;
+	}
+
 	static boolean isBooleanType(XSSimpleTypeDefinition typeDefinition) {
 		if (typeDefinition instanceof XSSimpleType) {
 			return ((XSSimpleType) typeDefinition).getPrimitiveKind() == XSSimpleType.PRIMITIVE_BOOLEAN;
@@ -16,6 +16,7 @@ import java.util.Collections;
 
 import org.apache.xerces.impl.dv.xs.XSSimpleTypeDecl;
 import org.apache.xerces.impl.xs.XSComplexTypeDecl;
+import org.apache.xerces.impl.xs.XSWildcardDecl;
 import org.apache.xerces.xs.XSAttributeUse;
 import org.apache.xerces.xs.XSComplexTypeDefinition;
 import org.apache.xerces.xs.XSConstants;
@@ -27,6 +28,7 @@ import org.apache.xerces.xs.XSParticle;
 import org.apache.xerces.xs.XSSimpleTypeDefinition;
 import org.apache.xerces.xs.XSTerm;
 import org.apache.xerces.xs.XSTypeDefinition;
+import org.apache.xerces.xs.XSWildcard;
 import org.eclipse.lsp4xml.extensions.contentmodel.model.CMAttributeDeclaration;
 import org.eclipse.lsp4xml.extensions.contentmodel.model.CMElementDeclaration;
 
@@ -40,9 +42,11 @@ public class XSDElementDeclaration implements CMElementDeclaration {
 
 	private final XSElementDeclaration elementDeclaration;
 
-	private Collection<CMAttributeDeclaration> attributes;
+	private volatile Collection<CMAttributeDeclaration> attributes;
 
-	private Collection<CMElementDeclaration> elements;
+	private volatile Collection<CMElementDeclaration> elements;
+
+	private volatile Boolean anyElementAllowed;
 
 	private String documentation;
 
@@ -72,9 +76,11 @@ public class XSDElementDeclaration implements CMElementDeclaration {
 
 	@Override
 	public Collection<CMAttributeDeclaration> getAttributes() {
+		Collection<CMAttributeDeclaration> attributes = this.attributes;
 		if (attributes == null) {
 			attributes = new ArrayList<>();
 			collectAttributesDeclaration(elementDeclaration, attributes);
+			this.attributes = attributes;
 		}
 		return attributes;
 	}
@@ -109,9 +115,11 @@ public class XSDElementDeclaration implements CMElementDeclaration {
 
 	@Override
 	public Collection<CMElementDeclaration> getElements() {
+		Collection<CMElementDeclaration> elements = this.elements;
 		if (elements == null) {
 			elements = new ArrayList<>();
 			collectElementsDeclaration(elementDeclaration, elements);
+			this.elements = elements;
 		}
 		return elements;
 	}
@@ -235,6 +243,53 @@ public class XSDElementDeclaration implements CMElementDeclaration {
 		return false;
 	}
 
+	@Override
+	public boolean isAnyElementAllowed() {
+		Boolean anyElementAllowed = this.anyElementAllowed;
+		if (anyElementAllowed == null) {
+			XSTypeDefinition typeDefinition = elementDeclaration.getTypeDefinition();
+			XSParticle particle = typeDefinition != null
+					&& typeDefinition.getTypeCategory() == XSTypeDefinition.COMPLEX_TYPE
+							? ((XSComplexTypeDefinition) typeDefinition).getParticle()
+							: null;
+			anyElementAllowed = particle != null && hasWildcard(particle.getTerm());
+			this.anyElementAllowed = anyElementAllowed;
+		}
+		return anyElementAllowed;
+	}
+
+	private static boolean hasWildcard(XSTerm term) {
+		if (term == null) {
+			return false;
+		}
+		switch (term.getType()) {
+		case XSConstants.WILDCARD:
+			return true;
+		case XSConstants.MODEL_GROUP:
+			XSObjectList particles = ((XSModelGroup) term).getParticles();
+			for (int i = 0; i < particles.getLength(); i++) {
+				if (hasWildcard(((XSParticle) particles.item(i)).getTerm())) {
+					return true;
+				}
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	public boolean isAnyAttributeAllowed() {
+		XSTypeDefinition typeDefinition = elementDeclaration.getTypeDefinition();
+		if (typeDefinition != null && typeDefinition.getTypeCategory() == XSTypeDefinition.COMPLEX_TYPE) {
+			XSWildcard wildcard = ((XSComplexTypeDefinition) typeDefinition).getAttributeWildcard();
+			// ex : <xs:anyAttribute namespace="##other" /> doesn't allow attributes without
+			// namespace
+			return wildcard instanceof XSWildcardDecl && ((XSWildcardDecl) wildcard).allowNamespace(null);
+		}
+		return false;
+	}
+
 	@Override
 	public Collection<String> getEnumerationValues() {
 		XSTypeDefinition typeDefinition = elementDeclaration.getTypeDefinition();
@@ -244,4 +299,13 @@ public class XSDElementDeclaration implements CMElementDeclaration {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public boolean isRestrictedToEnumeration() {
+		XSTypeDefinition typeDefinition = elementDeclaration.getTypeDefinition();
+		if (typeDefinition != null && typeDefinition.getTypeCategory() == XSTypeDefinition.SIMPLE_TYPE) {
+			return XSDDocument.isRestrictedToEnumeration((XSSimpleTypeDefinition) typeDefinition);
+		}
+		return false;
+	}
+
 }
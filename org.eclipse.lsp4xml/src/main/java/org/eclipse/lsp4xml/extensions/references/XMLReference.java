@@ -13,6 +13,8 @@ package org.eclipse.lsp4xml.extensions.references;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -20,7 +22,10 @@ import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
+import org.eclipse.lsp4xml.dom.Attr;
+import org.eclipse.lsp4xml.dom.Element;
 import org.eclipse.lsp4xml.dom.Node;
+import org.eclipse.lsp4xml.dom.XMLDocument;
 import org.eclipse.lsp4xml.xpath.matcher.XPathMatcher;
 import org.w3c.dom.NodeList;
 
@@ -30,21 +35,35 @@ import org.w3c.dom.NodeList;
  */
 public class XMLReference {
 
+	/**
+	 * The "//name" and "//name/@attr" expressions which are resolved with the
+	 * element index of the document instead of an XPath evaluation. As in XPath,
+	 * a name without prefix matches the elements without namespace.
+	 */
+	private static final Pattern INDEXED_EXPRESSION = Pattern.compile("//([\\w.-]+)(?:/@([\\w.-]+))?");
+
 	private final String from;
 
 	private final List<XPathExpression> tos;
 
+	// local name and attribute name (or null) of the "to" expressions which are
+	// resolved with the element index, null for the other expressions
+	private final List<String[]> indexedTos;
+
 	private XPathMatcher matcher;
 
 	public XMLReference(String from) {
 		this.from = from;
 		this.matcher = new XPathMatcher(from);
 		this.tos = new ArrayList<>();
+		this.indexedTos = new ArrayList<>();
 	}
 
 	public XMLReference to(String to) throws XPathExpressionException {
 		XPath xPath = XPathFactory.newInstance().newXPath();
 		this.tos.add(xPath.compile(to));
+		Matcher matcher = INDEXED_EXPRESSION.matcher(to);
+		this.indexedTos.add(matcher.matches() ? new String[] { matcher.group(1), matcher.group(2) } : null);
 		return this;
 	}
 
@@ -53,13 +72,36 @@ public class XMLReference {
 	}
 
 	void collect(Node node, Consumer<Node> collector) throws XPathExpressionException {
-		for (XPathExpression expression : tos) {
-			NodeList result = (NodeList) expression.evaluate(node, XPathConstants.NODESET);
-			for (int i = 0; i < result.getLength(); i++) {
-				collector.accept((Node) result.item(i));
+		XMLDocument document = node.getNodeType() == Node.DOCUMENT_NODE ? (XMLDocument) node
+				: node.getOwnerDocument();
+		for (int i = 0; i < tos.size(); i++) {
+			String[] indexedTo = indexedTos.get(i);
+			if (indexedTo != null && document != null) {
+				collectIndexed(document, indexedTo[0], indexedTo[1], collector);
+				continue;
+			}
+			NodeList result = (NodeList) tos.get(i).evaluate(node, XPathConstants.NODESET);
+			for (int j = 0; j < result.getLength(); j++) {
+				collector.accept((Node) result.item(j));
 			}
 		}
 
 	}
 
+	private static void collectIndexed(XMLDocument document, String localName, String attrName,
+			Consumer<Node> collector) {
+		NodeList elements = document.getElementsByTagNameNS(null, localName);
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			if (attrName == null) {
+				collector.accept(element);
+			} else {
+				Attr attr = element.getAttributeNode(attrName);
+				if (attr != null) {
+					collector.accept(attr);
+				}
+			}
+		}
+	}
+
 }
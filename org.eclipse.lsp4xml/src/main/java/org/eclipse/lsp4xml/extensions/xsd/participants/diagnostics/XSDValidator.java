@@ -10,9 +10,6 @@
  */
 package org.eclipse.lsp4xml.extensions.xsd.participants.diagnostics;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -25,6 +22,7 @@ import org.apache.xerces.xni.parser.XMLInputSource;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.utils.XMLInputUtils;
 
 /**
  * XSD validator utilities class.
@@ -85,10 +83,10 @@ public class XSDValidator {
 			}
 
 			try {
-				String content = document.getText();
 				String uri = document.getDocumentURI();
-				InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
-				XMLInputSource is = new XMLInputSource(null, uri, uri, inputStream, null);
+				XMLInputSource is = XMLInputUtils.canReadAsCharacters(document)
+						? new XMLInputSource(null, uri, uri, XMLInputUtils.createCharacterStream(document), null)
+						: new XMLInputSource(null, uri, uri, XMLInputUtils.createByteStream(document), null);
 				grammarPreparser.getLoader(XMLGrammarDescription.XML_SCHEMA);
 				grammarPreparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA, is);
 			} catch (Exception e) {
@@ -27,6 +27,7 @@ import org.eclipse.lsp4j.InsertTextFormat;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.Element;
@@ -60,6 +61,11 @@ class XMLCompletions {
 
 	public CompletionList doComplete(XMLDocument xmlDocument, Position position, CompletionSettings completionSettings,
 			XMLFormattingOptions formattingSettings) {
+		return doComplete(xmlDocument, position, completionSettings, formattingSettings, null);
+	}
+
+	public CompletionList doComplete(XMLDocument xmlDocument, Position position, CompletionSettings completionSettings,
+			XMLFormattingOptions formattingSettings, CancelChecker monitor) {
 		CompletionResponse completionResponse = new CompletionResponse();
 		CompletionRequest completionRequest = null;
 		try {
@@ -72,15 +78,15 @@ class XMLCompletions {
 		int offset = completionRequest.getOffset();
 		Node node = completionRequest.getNode();
 
-		String text = xmlDocument.getText();
-		if (text.isEmpty()) {
+		CharSequence text = xmlDocument.getSnapshot();
+		if (text.length() == 0) {
 			// When XML document is empty, try to collect root element (from file
 			// association)
 			collectInsideContent(completionRequest, completionResponse);
 			return completionResponse;
 		}
 
-		Scanner scanner = XMLScanner.createScanner(text, node.getStart());
+		Scanner scanner = xmlDocument.createScanner(node.getStart());
 		String currentTag = "";
 		completionRequest.setCurrentAttributeName(null);
 		TokenType token = scanner.scan();
@@ -252,6 +258,11 @@ class XMLCompletions {
 				}
 				break;
 			}
+			if (monitor != null) {
+				// the text is scanned from the start of the node of the offset, which can be
+				// the document element.
+				monitor.checkCanceled();
+			}
 			token = scanner.scan();
 		}
 
@@ -269,13 +280,13 @@ class XMLCompletions {
 		if (offset <= 0) {
 			return null;
 		}
-		char c = xmlDocument.getText().charAt(offset - 1);
+		char c = xmlDocument.getSnapshot().charAt(offset - 1);
 		if (c == '>') {
 			Node node = xmlDocument.findNodeBefore(offset);
 			if (node != null && node.isElement() && ((Element) node).getTagName() != null
 					&& !isEmptyElement(((Element) node).getTagName()) && node.getStart() < offset
 					&& (!((Element) node).hasEndTag() || ((Element) node).getEndTagOpenOffset() > offset)) {
-				Scanner scanner = XMLScanner.createScanner(xmlDocument.getText(), node.getStart());
+				Scanner scanner = xmlDocument.createScanner(node.getStart());
 				TokenType token = scanner.scan();
 				while (token != TokenType.EOS && scanner.getTokenEnd() <= offset) {
 					if (token == TokenType.StartTagClose && scanner.getTokenEnd() == offset) {
@@ -290,7 +301,7 @@ class XMLCompletions {
 				node = node.getParentNode();
 			}
 			if (node != null && node.isElement() && ((Element) node).getTagName() != null) {
-				Scanner scanner = XMLScanner.createScanner(xmlDocument.getText(), node.getStart());
+				Scanner scanner = xmlDocument.createScanner(node.getStart());
 				TokenType token = scanner.scan();
 				while (token != TokenType.EOS && scanner.getTokenEnd() <= offset) {
 					if (token == TokenType.EndTagOpen && scanner.getTokenEnd() == offset) {
@@ -327,7 +338,7 @@ class XMLCompletions {
 			CompletionRequest completionRequest, CompletionResponse completionResponse) {
 		try {
 			XMLDocument document = completionRequest.getXMLDocument();
-			String text = document.getText();
+			CharSequence text = document.getSnapshot();
 			int tagNameEnd = document.offsetAt(replaceRange.getEnd());
 			int newOffset = getOffsetFollowedBy(text, tagNameEnd, ScannerState.WithinEndTag, TokenType.EndTagClose);
 			if (newOffset != -1) {
@@ -412,10 +423,10 @@ class XMLCompletions {
 		item.setInsertTextFormat(InsertTextFormat.Snippet);
 		int closingBracketOffset;
 		if (inPIState) {
-			closingBracketOffset = getOffsetFollowedBy(document.getText(), tokenEndOffset, ScannerState.WithinPI,
+			closingBracketOffset = getOffsetFollowedBy(document.getSnapshot(), tokenEndOffset, ScannerState.WithinPI,
 					TokenType.PIEnd);
 		} else {// prolog state
-			closingBracketOffset = getOffsetFollowedBy(document.getText(), tokenEndOffset, ScannerState.WithinTag,
+			closingBracketOffset = getOffsetFollowedBy(document.getSnapshot(), tokenEndOffset, ScannerState.WithinTag,
 					TokenType.PrologEnd);
 		}
 
@@ -423,7 +434,7 @@ class XMLCompletions {
 			// Include '?>'
 			closingBracketOffset += 2;
 		} else {
-			closingBracketOffset = getOffsetFollowedBy(document.getText(), tokenEndOffset, ScannerState.WithinTag,
+			closingBracketOffset = getOffsetFollowedBy(document.getSnapshot(), tokenEndOffset, ScannerState.WithinTag,
 					TokenType.StartTagClose);
 			if (closingBracketOffset == -1) {
 				closingBracketOffset = tokenEndOffset;
@@ -445,7 +456,7 @@ class XMLCompletions {
 			CompletionRequest completionRequest, CompletionResponse completionResponse) {
 		try {
 			Range range = getReplaceRange(afterOpenBracket, tagNameEnd, completionRequest);
-			String text = completionRequest.getXMLDocument().getText();
+			CharSequence text = completionRequest.getXMLDocument().getSnapshot();
 			boolean hasCloseTag = isFollowedBy(text, tagNameEnd, ScannerState.WithinEndTag, TokenType.EndTagClose);
 			collectCloseTagSuggestions(range, false, !hasCloseTag, inOpenTag, completionRequest, completionResponse);
 		} catch (BadLocationException e) {
@@ -456,7 +467,7 @@ class XMLCompletions {
 	private void collectCloseTagSuggestions(Range range, boolean openEndTag, boolean closeEndTag, boolean inOpenTag,
 			CompletionRequest completionRequest, CompletionResponse completionResponse) {
 		try {
-			String text = completionRequest.getXMLDocument().getText();
+			CharSequence text = completionRequest.getXMLDocument().getSnapshot();
 			Node curr = completionRequest.getNode();
 			if (inOpenTag) {
 				curr = curr.getParentNode(); // don't suggest the own tag, it's not yet open
@@ -584,7 +595,7 @@ class XMLCompletions {
 	private void collectAttributeNameSuggestions(int nameStart, int nameEnd, CompletionRequest completionRequest,
 			CompletionResponse completionResponse) {
 		int replaceEnd = completionRequest.getOffset();
-		String text = completionRequest.getXMLDocument().getText();
+		CharSequence text = completionRequest.getXMLDocument().getSnapshot();
 		while (replaceEnd < nameEnd && text.charAt(replaceEnd) != '<') { // < is a valid attribute name character, but
 																			// we rather assume the attribute name ends.
 																			// See #23236.
@@ -611,7 +622,7 @@ class XMLCompletions {
 		boolean addQuotes = false;
 		String valuePrefix;
 		int offset = completionRequest.getOffset();
-		String text = completionRequest.getXMLDocument().getText();
+		CharSequence text = completionRequest.getXMLDocument().getSnapshot();
 		if (offset > valueStart && offset <= valueEnd && isQuote(text.charAt(valueStart))) {
 			// inside quoted attribute
 			int valueContentStart = valueStart + 1;
@@ -629,7 +640,7 @@ class XMLCompletions {
 						"While performing Completions, getReplaceRange() was given a bad Offset location", e);
 			}
 			valuePrefix = offset >= valueContentStart && offset <= valueContentEnd
-					? text.substring(valueContentStart, offset)
+					? text.subSequence(valueContentStart, offset).toString()
 					: "";
 			addQuotes = false;
 		} else {
@@ -639,7 +650,7 @@ class XMLCompletions {
 				LOGGER.log(Level.SEVERE,
 						"While performing Completions, getReplaceRange() was given a bad Offset location", e);
 			}
-			valuePrefix = text.substring(valueStart, offset);
+			valuePrefix = text.subSequence(valueStart, offset).toString();
 			addQuotes = true;
 		}
 
@@ -684,7 +695,7 @@ class XMLCompletions {
 		return c == '\'' || c == '"';
 	}
 
-	private static boolean isFollowedBy(String s, int offset, ScannerState intialState, TokenType expectedToken) {
+	private static boolean isFollowedBy(CharSequence s, int offset, ScannerState intialState, TokenType expectedToken) {
 		return getOffsetFollowedBy(s, offset, intialState, expectedToken) != -1;
 	}
 
@@ -698,7 +709,7 @@ class XMLCompletions {
 	 * @param expectedToken
 	 * @return
 	 */
-	private static int getOffsetFollowedBy(String s, int offset, ScannerState intialState, TokenType expectedToken) {
+	private static int getOffsetFollowedBy(CharSequence s, int offset, ScannerState intialState, TokenType expectedToken) {
 		Scanner scanner = XMLScanner.createScanner(s, offset, intialState);
 		TokenType token = scanner.scan();
 		while (token == TokenType.Whitespace) {
@@ -707,14 +718,14 @@ class XMLCompletions {
 		return (token == expectedToken) ? scanner.getTokenOffset() : -1;
 	}
 
-	private static int getWordStart(String s, int offset, int limit) {
+	private static int getWordStart(CharSequence s, int offset, int limit) {
 		while (offset > limit && !isWhitespace(s.charAt(offset - 1))) {
 			offset--;
 		}
 		return offset;
 	}
 
-	private static int getWordEnd(String s, int offset, int limit) {
+	private static int getWordEnd(CharSequence s, int offset, int limit) {
 		while (offset < limit && !isWhitespace(s.charAt(offset))) {
 			offset++;
 		}
@@ -731,19 +742,19 @@ class XMLCompletions {
 		return new Range(document.positionAt(replaceStart), document.positionAt(replaceEnd));
 	}
 
-	private static String getLineIndent(int offset, String text) {
+	private static String getLineIndent(int offset, CharSequence text) {
 		int start = offset;
 		while (start > 0) {
 			char ch = text.charAt(start - 1);
 			if ("\n\r".indexOf(ch) >= 0) {
-				return text.substring(start, offset);
+				return text.subSequence(start, offset).toString();
 			}
 			if (!isWhitespace(ch)) {
 				return null;
 			}
 			start--;
 		}
-		return text.substring(0, offset);
+		return text.subSequence(0, offset).toString();
 	}
 
 	private boolean isEmptyElement(String tag) {
@@ -11,9 +11,13 @@
 package org.eclipse.lsp4xml.services;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.dom.XMLDocument;
@@ -43,6 +47,93 @@ class XMLDiagnostics {
 		return diagnostics;
 	}
 
+	/**
+	 * Returns the diagnostics of the validation while typing, which are computed
+	 * from the DOM of the given XML document, and the diagnostics of the previous
+	 * full validation which are not computed again from the DOM.
+	 * 
+	 * @param xmlDocument
+	 * @param previousDiagnostics the diagnostics of the previous full validation.
+	 * @param monitor
+	 * @return the diagnostics of the validation while typing.
+	 */
+	public List<Diagnostic> doFastDiagnostics(XMLDocument xmlDocument, List<Diagnostic> previousDiagnostics,
+			CancelChecker monitor) {
+		List<Diagnostic> diagnostics = new ArrayList<Diagnostic>();
+		Collection<IDiagnosticsParticipant> diagnosticsParticipants = extensionsRegistry.getDiagnosticsParticipants();
+		for (Diagnostic diagnostic : previousDiagnostics) {
+			// the error is kept until the next full validation
+			if (diagnosticsParticipants.stream().noneMatch(p -> p.isFastDiagnostic(diagnostic))) {
+				diagnostics.add(diagnostic);
+			}
+		}
+		for (IDiagnosticsParticipant diagnosticsParticipant : diagnosticsParticipants) {
+			monitor.checkCanceled();
+			diagnosticsParticipant.doFastDiagnostics(xmlDocument, diagnostics, monitor);
+		}
+		return diagnostics;
+	}
+
+	/**
+	 * Returns the given diagnostics of a previous full validation updated with the
+	 * given changes of the document: the diagnostics of the changed lines are
+	 * removed (the error may have been fixed) and the diagnostics of the next
+	 * lines are moved with the inserted or removed lines.
+	 * 
+	 * @param previousDiagnostics the diagnostics of the previous full validation.
+	 * @param changes             the changes of the document.
+	 * @return the diagnostics at the position of the changed document.
+	 */
+	public static List<Diagnostic> updateDiagnostics(List<Diagnostic> previousDiagnostics,
+			List<TextDocumentContentChangeEvent> changes) {
+		List<Diagnostic> diagnostics = previousDiagnostics;
+		for (TextDocumentContentChangeEvent change : changes) {
+			Range range = change.getRange();
+			if (range == null) {
+				// the whole text has been replaced
+				return new ArrayList<>();
+			}
+			int startLine = range.getStart().getLine();
+			int endLine = range.getEnd().getLine();
+			int lineDelta = getLineCount(change.getText()) - (endLine - startLine);
+			List<Diagnostic> updatedDiagnostics = new ArrayList<>(diagnostics.size());
+			for (Diagnostic diagnostic : diagnostics) {
+				Range diagnosticRange = diagnostic.getRange();
+				if (diagnosticRange.getEnd().getLine() < startLine) {
+					updatedDiagnostics.add(diagnostic);
+				} else if (diagnosticRange.getStart().getLine() > endLine) {
+					updatedDiagnostics.add(lineDelta == 0 ? diagnostic : moveDiagnostic(diagnostic, lineDelta));
+				}
+			}
+			diagnostics = updatedDiagnostics;
+		}
+		return diagnostics;
+	}
+
+	private static Diagnostic moveDiagnostic(Diagnostic diagnostic, int lineDelta) {
+		Range range = diagnostic.getRange();
+		Diagnostic movedDiagnostic = new Diagnostic(
+				new Range(new Position(range.getStart().getLine() + lineDelta, range.getStart().getCharacter()),
+						new Position(range.getEnd().getLine() + lineDelta, range.getEnd().getCharacter())),
+				diagnostic.getMessage(), diagnostic.getSeverity(), diagnostic.getSource(), diagnostic.getCode());
+		movedDiagnostic.setRelatedInformation(diagnostic.getRelatedInformation());
+		return movedDiagnostic;
+	}
+
+	/**
+	 * Returns the number of line delimiters of the given text.
+	 */
+	private static int getLineCount(String text) {
+		int lines = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
 	/**
 	 * Do basic validation to check the no XML valid.
 	 * 
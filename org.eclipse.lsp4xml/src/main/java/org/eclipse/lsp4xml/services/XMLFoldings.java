@@ -25,8 +25,10 @@ import java.util.regex.Pattern;
 import org.eclipse.lsp4j.FoldingRange;
 import org.eclipse.lsp4j.FoldingRangeCapabilities;
 import org.eclipse.lsp4j.FoldingRangeKind;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.XMLDocument;
 import org.eclipse.lsp4xml.dom.parser.Scanner;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
 import org.eclipse.lsp4xml.dom.parser.XMLScanner;
@@ -40,6 +42,12 @@ class XMLFoldings {
 	private static Logger LOGGER = Logger.getLogger(XMLFoldings.class.getName());
 	private final XMLExtensionsRegistry extensionsRegistry;
 
+	/**
+	 * The cancel checker is checked each time this number of tokens (a power of 2)
+	 * has been scanned.
+	 */
+	private static final int CANCEL_CHECK_INTERVAL = 1024;
+
 	private static final Pattern REGION_PATTERN = Pattern.compile("\\s*#(region\\b)|(endregion\\b)");
 
 	public XMLFoldings(XMLExtensionsRegistry extensionsRegistry) {
@@ -59,8 +67,59 @@ class XMLFoldings {
 	}
 
 	public List<FoldingRange> getFoldingRanges(TextDocument document, FoldingRangeCapabilities context) {
-		Scanner scanner = XMLScanner.createScanner(document.getText());
+		return getFoldingRanges(document, XMLScanner.createScanner(document.getSnapshot()), context, Integer.MAX_VALUE,
+				null);
+	}
+
+	/**
+	 * Returns the folding ranges of the given XML document computed with the
+	 * tokens recorded by the parser.
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param context     the folding range capabilities.
+	 * @return the folding ranges of the given XML document.
+	 */
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context) {
+		return getFoldingRanges(xmlDocument, context, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the folding ranges of the elements and comments of the given XML
+	 * document whose depth is lower than or equal to the given max depth (1 for the
+	 * document element). The lines of the deeper elements are not computed.
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param context     the folding range capabilities.
+	 * @param maxDepth    the max depth.
+	 * @return the folding ranges of the given XML document.
+	 */
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context,
+			int maxDepth) {
+		return getFoldingRanges(xmlDocument, context, maxDepth, null);
+	}
+
+	/**
+	 * Returns the folding ranges of the elements and comments of the given XML
+	 * document whose depth is lower than or equal to the given max depth and stop
+	 * with a {@link java.util.concurrent.CancellationException} when the given
+	 * cancel checker is cancelled.
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param context     the folding range capabilities.
+	 * @param maxDepth    the max depth.
+	 * @param monitor     the cancel checker or null.
+	 * @return the folding ranges of the given XML document.
+	 */
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context,
+			int maxDepth, CancelChecker monitor) {
+		return getFoldingRanges(xmlDocument.getTextDocument(), xmlDocument.createScanner(0), context, maxDepth,
+				monitor);
+	}
+
+	private List<FoldingRange> getFoldingRanges(TextDocument document, Scanner scanner,
+			FoldingRangeCapabilities context, int maxDepth, CancelChecker monitor) {
 		TokenType token = scanner.scan();
+		int tokenCount = 0;
 		List<FoldingRange> ranges = new ArrayList<>();
 
 		List<TagInfo> stack = new ArrayList<>();
@@ -72,7 +131,8 @@ class XMLFoldings {
 				switch (token) {
 				case StartTag: {
 					String tagName = scanner.getTokenText();
-					int startLine = document.positionAt(scanner.getTokenOffset()).getLine();
+					int startLine = stack.size() < maxDepth ? document.positionAt(scanner.getTokenOffset()).getLine()
+							: -1;
 					stack.add(new TagInfo(startLine, tagName));
 					lastTagName = tagName;
 					break;
@@ -95,6 +155,9 @@ class XMLFoldings {
 					if (i >= 0) {
 						TagInfo stackElement = stack.get(i);
 						stack = stack.subList(0, i); // stack.length = i;
+						if (i >= maxDepth) {
+							break;
+						}
 						int line = document.positionAt(scanner.getTokenOffset()).getLine();
 						int startLine = stackElement.startLine;
 						int endLine = line - 1;
@@ -105,6 +168,9 @@ class XMLFoldings {
 					break;
 				}
 				case Comment: {
+					if (stack.size() >= maxDepth) {
+						break;
+					}
 					int startLine = document.positionAt(scanner.getTokenOffset()).getLine();
 					String text = scanner.getTokenText();
 					Matcher m = REGION_PATTERN.matcher(text);
@@ -141,6 +207,9 @@ class XMLFoldings {
 				}
 				default:
 				}
+				if (monitor != null && (++tokenCount & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+					monitor.checkCanceled();
+				}
 				token = scanner.scan();
 			}
 
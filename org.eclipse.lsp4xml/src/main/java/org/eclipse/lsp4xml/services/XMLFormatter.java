@@ -18,6 +18,7 @@ import java.util.logging.Logger;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.Attr;
@@ -49,6 +50,23 @@ class XMLFormatter {
 	}
 
 	public List<? extends TextEdit> format(TextDocument document, Range range, XMLFormattingOptions formattingOptions) {
+		return format(document, range, formattingOptions, null);
+	}
+
+	/**
+	 * Format the given range of the given text document and stop with a
+	 * {@link java.util.concurrent.CancellationException} when the given cancel
+	 * checker is cancelled.
+	 * 
+	 * @param document          the text document.
+	 * @param range             the range to format or null to format the whole
+	 *                          document.
+	 * @param formattingOptions the formatting options.
+	 * @param monitor           the cancel checker or null.
+	 * @return the text edits.
+	 */
+	public List<? extends TextEdit> format(TextDocument document, Range range, XMLFormattingOptions formattingOptions,
+			CancelChecker monitor) {
 		try {
 			// Compute start/end offset range
 			int start = -1;
@@ -66,11 +84,11 @@ class XMLFormatter {
 			// Parse the content to format to create an XML document with full data (CData,
 			// comments, etc)
 			String text = document.getText().substring(start, end);
-			XMLDocument doc = XMLParser.getInstance().parse(text, null, null);
+			XMLDocument doc = XMLParser.getInstance().parse(text, null, null, monitor);
 
 			// Format the content
 			XMLBuilder xml = new XMLBuilder(formattingOptions, "", document.lineDelimiter(startPosition.getLine()));
-			format(doc, 0, end, xml);
+			format(doc, 0, end, xml, monitor);
 
 			// Returns LSP list of TextEdits
 			Range r = new Range(startPosition, endPosition);
@@ -84,7 +102,10 @@ class XMLFormatter {
 		return null;
 	}
 
-	private void format(Node node, int level, int end, XMLBuilder xml) {
+	private void format(Node node, int level, int end, XMLBuilder xml, CancelChecker monitor) {
+		if (monitor != null) {
+			monitor.checkCanceled();
+		}
 		if (node.getNodeType() != Node.DOCUMENT_NODE) {
 			boolean doLineFeed = !(node.isComment() && ((Comment) node).isCommentSameLineEndTag())
 					&& (!isPreviousNodeType(node, Node.TEXT_NODE) || xml.isJoinContentLines())
@@ -190,7 +211,7 @@ class XMLFormatter {
 
 							hasElements = hasElements | textElement;
 
-							format(child, level, end, xml);
+							format(child, level, end, xml, monitor);
 						}
 						level--;
 					}
@@ -220,7 +241,7 @@ class XMLFormatter {
 		} else if (node.hasChildNodes()) {
 			// Other nodes kind like root
 			for (Node child : node.getChildren()) {
-				format(child, level, end, xml);
+				format(child, level, end, xml, monitor);
 			}
 		}
 	}
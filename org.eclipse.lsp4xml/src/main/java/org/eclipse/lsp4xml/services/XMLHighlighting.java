@@ -26,7 +26,6 @@ import org.eclipse.lsp4xml.dom.Node;
 import org.eclipse.lsp4xml.dom.XMLDocument;
 import org.eclipse.lsp4xml.dom.parser.Scanner;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
-import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.services.extensions.XMLExtensionsRegistry;
 
 /**
@@ -119,7 +118,7 @@ class XMLHighlighting {
 
 	private static Range getTagNameRange(TokenType tokenType, int startOffset, XMLDocument xmlDocument) {
 
-		Scanner scanner = XMLScanner.createScanner(xmlDocument.getText(), startOffset);
+		Scanner scanner = xmlDocument.createScanner(startOffset);
 
 		TokenType token = scanner.scan();
 		while (token != TokenType.EOS && token != tokenType) {
@@ -12,6 +12,7 @@ package org.eclipse.lsp4xml.services;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,7 @@ import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.ReferenceContext;
 import org.eclipse.lsp4j.SymbolInformation;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
@@ -85,6 +87,11 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 		return formatter.format(document, range, options);
 	}
 
+	public List<? extends TextEdit> format(TextDocument document, Range range, XMLFormattingOptions options,
+			CancelChecker monitor) {
+		return formatter.format(document, range, options, monitor);
+	}
+
 	public List<DocumentHighlight> findDocumentHighlights(XMLDocument xmlDocument, Position position) {
 		return highlighting.findDocumentHighlights(xmlDocument, position);
 	}
@@ -93,11 +100,25 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 		return symbolsProvider.findDocumentSymbols(xmlDocument);
 	}
 
+	public List<SymbolInformation> findDocumentSymbols(XMLDocument xmlDocument, int maxDepth) {
+		return symbolsProvider.findDocumentSymbols(xmlDocument, maxDepth);
+	}
+
+	public List<SymbolInformation> findDocumentSymbols(XMLDocument xmlDocument, int maxDepth,
+			CancelChecker monitor) {
+		return symbolsProvider.findDocumentSymbols(xmlDocument, maxDepth, monitor);
+	}
+
 	public CompletionList doComplete(XMLDocument xmlDocument, Position position, CompletionSettings completionSettings,
 			XMLFormattingOptions formattingSettings) {
 		return completions.doComplete(xmlDocument, position, completionSettings, formattingSettings);
 	}
 
+	public CompletionList doComplete(XMLDocument xmlDocument, Position position, CompletionSettings completionSettings,
+			XMLFormattingOptions formattingSettings, CancelChecker monitor) {
+		return completions.doComplete(xmlDocument, position, completionSettings, formattingSettings, monitor);
+	}
+
 	public Hover doHover(XMLDocument xmlDocument, Position position) {
 		return hover.doHover(xmlDocument, position);
 	}
@@ -106,6 +127,52 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 		return diagnostics.doDiagnostics(xmlDocument, monitor);
 	}
 
+	/**
+	 * Returns the diagnostics of the validation while typing, which are computed
+	 * from the DOM without parsing the text again (the diagnostics which require
+	 * a full validation are returned by
+	 * {@link #doDiagnostics(XMLDocument, CancelChecker)}).
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param monitor     the cancel checker.
+	 * @return the diagnostics of the validation while typing.
+	 */
+	public List<Diagnostic> doFastDiagnostics(XMLDocument xmlDocument, CancelChecker monitor) {
+		return doFastDiagnostics(xmlDocument, Collections.emptyList(), monitor);
+	}
+
+	/**
+	 * Returns the diagnostics of the validation while typing merged with the
+	 * diagnostics of the previous full validation which are not computed again
+	 * from the DOM (ex : the order of the elements, the data types), so that they
+	 * are still published until the next full validation.
+	 * 
+	 * @param xmlDocument         the XML document.
+	 * @param previousDiagnostics the diagnostics of the previous full validation.
+	 * @param monitor             the cancel checker.
+	 * @return the diagnostics of the validation while typing.
+	 */
+	public List<Diagnostic> doFastDiagnostics(XMLDocument xmlDocument, List<Diagnostic> previousDiagnostics,
+			CancelChecker monitor) {
+		return diagnostics.doFastDiagnostics(xmlDocument, previousDiagnostics, monitor);
+	}
+
+	/**
+	 * Returns the diagnostics of a previous full validation updated with the given
+	 * changes of the document, which can be given to
+	 * {@link #doFastDiagnostics(XMLDocument, List, CancelChecker)}: the
+	 * diagnostics of the changed lines are removed and the diagnostics of the next
+	 * lines are moved.
+	 * 
+	 * @param previousDiagnostics the diagnostics of the previous full validation.
+	 * @param changes             the changes of the document.
+	 * @return the diagnostics at the position of the changed document.
+	 */
+	public List<Diagnostic> updateDiagnostics(List<Diagnostic> previousDiagnostics,
+			List<TextDocumentContentChangeEvent> changes) {
+		return XMLDiagnostics.updateDiagnostics(previousDiagnostics, changes);
+	}
+
 	public CompletableFuture<Path> publishDiagnostics(XMLDocument xmlDocument,
 			Consumer<PublishDiagnosticsParams> publishDiagnostics, BiConsumer<String, Integer> triggerValidation,
 			CancelChecker monitor) {
@@ -155,6 +222,20 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 		return foldings.getFoldingRanges(document, context);
 	}
 
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context) {
+		return foldings.getFoldingRanges(xmlDocument, context);
+	}
+
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context,
+			int maxDepth) {
+		return foldings.getFoldingRanges(xmlDocument, context, maxDepth);
+	}
+
+	public List<FoldingRange> getFoldingRanges(XMLDocument xmlDocument, FoldingRangeCapabilities context,
+			int maxDepth, CancelChecker monitor) {
+		return foldings.getFoldingRanges(xmlDocument, context, maxDepth, monitor);
+	}
+
 	public WorkspaceEdit doRename(XMLDocument xmlDocument, Position position, String newText) {
 		List<TextEdit> textEdits = findDocumentHighlights(xmlDocument, position).stream()
 				.map(h -> new TextEdit(h.getRange(), newText)).collect(Collectors.toList());
@@ -188,7 +269,7 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 	public String doAutoClose(XMLDocument xmlDocument, Position position) {
 		try {
 			int offset = xmlDocument.offsetAt(position);
-			String text = xmlDocument.getText();
+			CharSequence text = xmlDocument.getSnapshot();
 			if (offset > 0) {
 				char c = text.charAt(offset - 1);
 				if (c == '>' || c == '/') {
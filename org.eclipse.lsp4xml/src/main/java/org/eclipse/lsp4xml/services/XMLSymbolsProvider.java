@@ -20,6 +20,7 @@ import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.dom.Element;
 import org.eclipse.lsp4xml.dom.Node;
@@ -40,10 +41,37 @@ class XMLSymbolsProvider {
 	}
 
 	public List<SymbolInformation> findDocumentSymbols(XMLDocument xmlDocument) {
+		return findDocumentSymbols(xmlDocument, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the symbols of the nodes of the given XML document whose depth is
+	 * lower than or equal to the given max depth (1 for the document element).
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param maxDepth    the max depth.
+	 * @return the symbols of the nodes of the given XML document.
+	 */
+	public List<SymbolInformation> findDocumentSymbols(XMLDocument xmlDocument, int maxDepth) {
+		return findDocumentSymbols(xmlDocument, maxDepth, null);
+	}
+
+	/**
+	 * Returns the symbols of the nodes of the given XML document whose depth is
+	 * lower than or equal to the given max depth and stop with a
+	 * {@link java.util.concurrent.CancellationException} when the given cancel
+	 * checker is cancelled.
+	 * 
+	 * @param xmlDocument the XML document.
+	 * @param maxDepth    the max depth.
+	 * @param monitor     the cancel checker or null.
+	 * @return the symbols of the nodes of the given XML document.
+	 */
+	public List<SymbolInformation> findDocumentSymbols(XMLDocument xmlDocument, int maxDepth, CancelChecker monitor) {
 		List<SymbolInformation> symbols = new ArrayList<>();
 		xmlDocument.getRoots().forEach(node -> {
 			try {
-				provideFileSymbolsInternal(node, "", symbols);
+				provideFileSymbolsInternal(node, "", 1, maxDepth, symbols, monitor);
 			} catch (BadLocationException e) {
 				LOGGER.log(Level.SEVERE, "XMLSymbolsProvider was given a BadLocation by a 'node' variable", e);
 			}
@@ -51,11 +79,14 @@ class XMLSymbolsProvider {
 		return symbols;
 	}
 
-	private void provideFileSymbolsInternal(Node node, String container, List<SymbolInformation> symbols)
-			throws BadLocationException {
-		if (!isNodeSymbol(node)) {
+	private void provideFileSymbolsInternal(Node node, String container, int depth, int maxDepth,
+			List<SymbolInformation> symbols, CancelChecker monitor) throws BadLocationException {
+		if (depth > maxDepth || !isNodeSymbol(node)) {
 			return;
 		}
+		if (monitor != null) {
+			monitor.checkCanceled();
+		}
 		String name = nodeToName(node);
 		XMLDocument xmlDocument = node.getOwnerDocument();
 		Position start = xmlDocument.positionAt(node.getStart());
@@ -68,7 +99,7 @@ class XMLSymbolsProvider {
 
 		node.getChildren().forEach(child -> {
 			try {
-				provideFileSymbolsInternal(child, name, symbols);
+				provideFileSymbolsInternal(child, name, depth + 1, maxDepth, symbols, monitor);
 			} catch (BadLocationException e) {
 				LOGGER.log(Level.SEVERE, "XMLSymbolsProvider was given a BadLocation by the provided 'node' variable",
 						e);
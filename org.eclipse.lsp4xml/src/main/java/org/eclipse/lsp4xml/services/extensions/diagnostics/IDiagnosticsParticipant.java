@@ -31,4 +31,31 @@ public interface IDiagnosticsParticipant {
 	 */
 	void doDiagnostics(XMLDocument xmlDocument, List<Diagnostic> diagnostics, CancelChecker monitor);
 
+	/**
+	 * Validate the given XML document while it is typed, without the costly
+	 * checks which are done by {@link #doDiagnostics(XMLDocument, List, CancelChecker)}
+	 * when the document is saved or not changed anymore.
+	 * 
+	 * @param xmlDocument XML document to validate.
+	 * @param diagnostics list to populate with errors, warnings, etc
+	 * @param monitor     used to stop the validation when XML document changed.
+	 */
+	default void doFastDiagnostics(XMLDocument xmlDocument, List<Diagnostic> diagnostics, CancelChecker monitor) {
+		// by default, the document is validated only by doDiagnostics
+	}
+
+	/**
+	 * Returns true if the given diagnostic, reported by
+	 * {@link #doDiagnostics(XMLDocument, List, CancelChecker)}, is reported again
+	 * by {@link #doFastDiagnostics(XMLDocument, List, CancelChecker)} when the
+	 * error is still in the document.
+	 * 
+	 * @param diagnostic the diagnostic of the full validation.
+	 * @return true if the given diagnostic is computed again by the fast
+	 *         validation.
+	 */
+	default boolean isFastDiagnostic(Diagnostic diagnostic) {
+		return false;
+	}
+
 }
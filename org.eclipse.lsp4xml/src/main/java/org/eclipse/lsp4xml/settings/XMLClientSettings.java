@@ -27,6 +27,12 @@ public class XMLClientSettings {
 
 	private CompletionSettings completion;
 
+	private XMLLargeFileSettings largeFile;
+
+	private XMLValidationSettings validation;
+
+	private XMLSchedulerSettings scheduler;
+
 	public void setLogs(LogsSettings logs) {
 		this.logs = logs;
 	}
@@ -64,6 +70,45 @@ public class XMLClientSettings {
 	}
 
 
+	public void setLargeFile(XMLLargeFileSettings largeFile) {
+		this.largeFile = largeFile;
+	}
+
+	/**
+	 * Get large file settings
+	 * 
+	 * @return the large file settings
+	 */
+	public XMLLargeFileSettings getLargeFile() {
+		return largeFile;
+	}
+
+	public void setValidation(XMLValidationSettings validation) {
+		this.validation = validation;
+	}
+
+	/**
+	 * Get validation settings
+	 * 
+	 * @return the validation settings
+	 */
+	public XMLValidationSettings getValidation() {
+		return validation;
+	}
+
+	public void setScheduler(XMLSchedulerSettings scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Get request scheduler settings
+	 * 
+	 * @return the request scheduler settings
+	 */
+	public XMLSchedulerSettings getScheduler() {
+		return scheduler;
+	}
+
 	public static XMLClientSettings getSettings(Object initializationOptionsSettings) {
 		return JSONUtility.toModel(initializationOptionsSettings, XMLClientSettings.class);
 	}
@@ -0,0 +1,96 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * Large file settings. A document which has more characters or more lines than
+ * the configured thresholds is opened in degraded mode: it is parsed into a
+ * compact XML document, it is not validated (unless validation is enabled),
+ * the symbols and folding ranges are limited to the top-level nodes and the
+ * document links are not detected.
+ *
+ */
+public class XMLLargeFileSettings {
+
+	private static final int DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+	private static final int DEFAULT_MAX_LINES = 250_000;
+
+	private static final int DEFAULT_MAX_DEPTH = 2;
+
+	private Integer maxSize;
+
+	private Integer maxLines;
+
+	private Integer maxDepth;
+
+	private Boolean validation;
+
+	/**
+	 * Returns the number of characters above which a document is opened in
+	 * degraded mode.
+	 *
+	 * @return the number of characters above which a document is opened in
+	 *         degraded mode.
+	 */
+	public int getMaxSize() {
+		return maxSize != null ? maxSize : DEFAULT_MAX_SIZE;
+	}
+
+	public void setMaxSize(Integer maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the number of lines above which a document is opened in degraded
+	 * mode.
+	 *
+	 * @return the number of lines above which a document is opened in degraded
+	 *         mode.
+	 */
+	public int getMaxLines() {
+		return maxLines != null ? maxLines : DEFAULT_MAX_LINES;
+	}
+
+	public void setMaxLines(Integer maxLines) {
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * Returns the depth of the nodes (1 for the document element) which have
+	 * symbols and folding ranges in degraded mode.
+	 *
+	 * @return the depth of the nodes which have symbols and folding ranges in
+	 *         degraded mode.
+	 */
+	public int getMaxDepth() {
+		return maxDepth != null ? maxDepth : DEFAULT_MAX_DEPTH;
+	}
+
+	public void setMaxDepth(Integer maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Returns true if the documents opened in degraded mode are validated and
+	 * false otherwise.
+	 *
+	 * @return true if the documents opened in degraded mode are validated and
+	 *         false otherwise.
+	 */
+	public boolean isValidation() {
+		return validation != null && validation;
+	}
+
+	public void setValidation(Boolean validation) {
+		this.validation = validation;
+	}
+}
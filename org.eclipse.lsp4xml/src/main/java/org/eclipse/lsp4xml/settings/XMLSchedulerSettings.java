@@ -0,0 +1,52 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * Request scheduler settings: the number of threads which run the interactive
+ * requests (completion, hover, etc), the background requests (symbols,
+ * folding ranges, document links) and the bulk requests (formatting,
+ * revalidation after a save). A missing value keeps the default number of
+ * threads.
+ *
+ */
+public class XMLSchedulerSettings {
+
+	private Integer interactiveThreads;
+
+	private Integer backgroundThreads;
+
+	private Integer bulkThreads;
+
+	public Integer getInteractiveThreads() {
+		return interactiveThreads;
+	}
+
+	public void setInteractiveThreads(Integer interactiveThreads) {
+		this.interactiveThreads = interactiveThreads;
+	}
+
+	public Integer getBackgroundThreads() {
+		return backgroundThreads;
+	}
+
+	public void setBackgroundThreads(Integer backgroundThreads) {
+		this.backgroundThreads = backgroundThreads;
+	}
+
+	public Integer getBulkThreads() {
+		return bulkThreads;
+	}
+
+	public void setBulkThreads(Integer bulkThreads) {
+		this.bulkThreads = bulkThreads;
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * Validation settings. A document is validated when it has not been changed
+ * during the configured delay.
+ *
+ * <p>
+ * With the fast validation, a changed document is first validated with its DOM
+ * (XML Schema elements, attributes and enumerations) and the full validation
+ * (syntax, XML Schema, DTD) is done when the document is saved or has not been
+ * changed during the idle delay.
+ * </p>
+ *
+ */
+public class XMLValidationSettings {
+
+	public static final int DEFAULT_DELAY = 500;
+
+	public static final int DEFAULT_IDLE_DELAY = 2000;
+
+	private Integer delay;
+
+	private Boolean fast;
+
+	private Integer idleDelay;
+
+	/**
+	 * Returns the delay in milliseconds between the last change of a document and
+	 * its validation.
+	 *
+	 * @return the delay in milliseconds between the last change of a document and
+	 *         its validation.
+	 */
+	public int getDelay() {
+		return delay != null && delay >= 0 ? delay : DEFAULT_DELAY;
+	}
+
+	public void setDelay(Integer delay) {
+		this.delay = delay;
+	}
+
+	/**
+	 * Returns true if a changed document is first validated with its DOM and
+	 * false otherwise.
+	 *
+	 * @return true if a changed document is first validated with its DOM and
+	 *         false otherwise.
+	 */
+	public boolean isFast() {
+		return fast != null && fast;
+	}
+
+	public void setFast(Boolean fast) {
+		this.fast = fast;
+	}
+
+	/**
+	 * Returns the delay in milliseconds between the fast validation of a document
+	 * and its full validation.
+	 *
+	 * @return the delay in milliseconds between the fast validation of a document
+	 *         and its full validation.
+	 */
+	public int getIdleDelay() {
+		return idleDelay != null && idleDelay >= 0 ? idleDelay : DEFAULT_IDLE_DELAY;
+	}
+
+	public void setIdleDelay(Integer idleDelay) {
+		this.idleDelay = idleDelay;
+	}
+}
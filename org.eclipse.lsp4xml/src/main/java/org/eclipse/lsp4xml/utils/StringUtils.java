@@ -22,6 +22,24 @@ public class StringUtils {
 		return value == null || value.isEmpty();
 	}
 
+	/**
+	 * Returns the index of the first occurrence of the given character in the
+	 * given text and -1 otherwise.
+	 * 
+	 * @param text the text.
+	 * @param c    the character to search.
+	 * @return the index of the first occurrence of the given character in the
+	 *         given text and -1 otherwise.
+	 */
+	public static int indexOf(CharSequence text, char c) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Returns the result of normalize space of the given string.
 	 * 
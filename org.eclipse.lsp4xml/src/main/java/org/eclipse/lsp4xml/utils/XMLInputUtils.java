@@ -0,0 +1,80 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.lsp4xml.commons.CharSequenceReader;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+
+/**
+ * Utilities to give the text of an XML document to Xerces.
+ *
+ */
+public class XMLInputUtils {
+
+	private XMLInputUtils() {
+	}
+
+	/**
+	 * Returns true if the text of the given XML document can be given to Xerces as
+	 * a character stream and false otherwise.
+	 *
+	 * <p>
+	 * The text of the document has already been decoded by the client, so the
+	 * encoding of the XML declaration must not be used to decode it again, which
+	 * is what Xerces does with a character stream. When the declared encoding is
+	 * not supported, the text must be given as bytes to keep the "Invalid encoding
+	 * name" error of Xerces.
+	 * </p>
+	 *
+	 * @param document the XML document.
+	 * @return true if the text of the given XML document can be given to Xerces
+	 *         as a character stream and false otherwise.
+	 */
+	public static boolean canReadAsCharacters(XMLDocument document) {
+		String encoding = document.getXmlEncoding();
+		if (encoding == null) {
+			return true;
+		}
+		try {
+			return Charset.isSupported(encoding);
+		} catch (IllegalCharsetNameException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a reader over the text of the given XML document which doesn't copy
+	 * the text.
+	 *
+	 * @param document the XML document.
+	 * @return a reader over the text of the given XML document.
+	 */
+	public static Reader createCharacterStream(XMLDocument document) {
+		return new CharSequenceReader(document.getTextDocument().getSnapshot());
+	}
+
+	/**
+	 * Returns the text of the given XML document encoded in UTF-8.
+	 *
+	 * @param document the XML document.
+	 * @return the text of the given XML document encoded in UTF-8.
+	 */
+	public static InputStream createByteStream(XMLDocument document) {
+		return new ByteArrayInputStream(document.getText().getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -129,7 +129,7 @@ public class XMLPositionUtility {
 		// -> <a b="" b="" |>
 		// -> <a b="" b=""|>
 		// Remove spaces
-		String text = document.getText();
+		CharSequence text = document.getSnapshot();
 		char c = text.charAt(offset);
 		if (c == '>') {
 			offset--;
@@ -291,7 +291,8 @@ public class XMLPositionUtility {
 	public static Range selectPreviousEndTag(int offset, XMLDocument document) {
 		// boolean firstBracket = false;
 		int i = offset;
-		char c = document.getText().charAt(i);
+		CharSequence text = document.getSnapshot();
+		char c = text.charAt(i);
 		while (i >= 0) {
 			if (c == '>') {
 				// if(firstBracket) {
@@ -302,7 +303,7 @@ public class XMLPositionUtility {
 				// }
 			}
 			i--;
-			c = document.getText().charAt(i);
+			c = text.charAt(i);
 		}
 		return null;
 	}
@@ -318,17 +319,22 @@ public class XMLPositionUtility {
 	public static Range selectText(int offset, XMLDocument document) {
 		Node node = document.findNodeAt(offset);
 		if (node != null) {
-			if (node.hasChildNodes()) {
-				// <root>BAD TEXT</root>
-				for (Node child : node.getChildren()) {
-					if (child.isText()) {
-						return createRange(child.getStart(), child.getEnd(), document);
-					}
+			return selectText(node);
+		}
+		return null;
+	}
+
+	public static Range selectText(Node node) {
+		if (node.hasChildNodes()) {
+			// <root>BAD TEXT</root>
+			for (Node child : node.getChildren()) {
+				if (child.isText()) {
+					return createRange(child.getStart(), child.getEnd(), node.getOwnerDocument());
 				}
-			} else if (node.isElement()) {
-				// node has NONE text (ex: <root></root>, select the start tag
-				return selectStartTag(node);
 			}
+		} else if (node.isElement()) {
+			// node has NONE text (ex: <root></root>, select the start tag
+			return selectStartTag(node);
 		}
 		return null;
 	}
@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -226,6 +227,20 @@ public class XMLAssert {
 
 	public static void testDiagnosticsFor(String xml, String catalogPath, Consumer<XMLLanguageService> configuration,
 			String fileURI, Diagnostic... expected) {
+		testDiagnosticsFor(xml, catalogPath, configuration, fileURI, null, expected);
+	}
+
+	public static void testFastDiagnosticsFor(String xml, String catalogPath, Diagnostic... expected) {
+		testFastDiagnosticsFor(xml, catalogPath, Collections.emptyList(), expected);
+	}
+
+	public static void testFastDiagnosticsFor(String xml, String catalogPath, List<Diagnostic> previousDiagnostics,
+			Diagnostic... expected) {
+		testDiagnosticsFor(xml, catalogPath, null, null, previousDiagnostics, expected);
+	}
+
+	private static void testDiagnosticsFor(String xml, String catalogPath, Consumer<XMLLanguageService> configuration,
+			String fileURI, List<Diagnostic> previousDiagnostics, Diagnostic... expected) {
 		TextDocument document = new TextDocument(xml, fileURI != null ? fileURI : "test.xml");
 
 		XMLLanguageService xmlLanguageService = new XMLLanguageService();
@@ -248,8 +263,11 @@ public class XMLAssert {
 			configuration.accept(xmlLanguageService);
 		}
 
-		List<Diagnostic> actual = xmlLanguageService.doDiagnostics(xmlDocument, () -> {
-		});
+		List<Diagnostic> actual = previousDiagnostics != null
+				? xmlLanguageService.doFastDiagnostics(xmlDocument, previousDiagnostics, () -> {
+				})
+				: xmlLanguageService.doDiagnostics(xmlDocument, () -> {
+				});
 		assertDiagnostics(actual, expected);
 
 	}
@@ -0,0 +1,68 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+
+/**
+ * Compares the retained heap size of an XML document stored as a graph of
+ * nodes (token stream of the parser included) with the retained heap size of a
+ * compact XML document.
+ * 
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.DOMMemoryBenchmark [elements]</code>.
+ * </p>
+ *
+ */
+public class DOMMemoryBenchmark {
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		TextDocument document = new TextDocument(createText(elements), "benchmark.xml");
+		System.out.println("Elements: " + elements + ", characters: " + document.getText().length());
+
+		long baseline = usedMemory();
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+		long objects = usedMemory() - baseline;
+		System.out.println("Nodes:   " + objects / 1024 / 1024 + " MB retained (" + xmlDocument.getChildren().size()
+				+ " roots)");
+		xmlDocument = null;
+
+		baseline = usedMemory();
+		xmlDocument = XMLParser.getInstance().parseCompact(document, null);
+		long compact = usedMemory() - baseline;
+		System.out.println("Compact: " + compact / 1024 / 1024 + " MB retained (" + xmlDocument.getChildren().size()
+				+ " roots)");
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static String createText(int elements) {
+		StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\"?>\n");
+		text.append("<root xmlns=\"http://example.org\">\n");
+		for (int i = 0; i < elements; i++) {
+			text.append("  <item id=\"").append(i).append("\" type=\"t").append(i % 10).append("\">");
+			text.append("<name>Item ").append(i).append("</name><value>").append(i * 7).append("</value>");
+			text.append("</item>\n");
+		}
+		text.append("</root>");
+		return text.toString();
+	}
+}
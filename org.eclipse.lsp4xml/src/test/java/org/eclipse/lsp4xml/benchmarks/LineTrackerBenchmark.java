@@ -0,0 +1,91 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import java.util.Arrays;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.TextDocument;
+
+/**
+ * Compares the cost of a line tracker rebuild (full text update) with the cost
+ * of an incremental line tracker update, on a file with 1M lines.
+ * 
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.LineTrackerBenchmark [lines]</code>.
+ * </p>
+ *
+ */
+public class LineTrackerBenchmark {
+
+	private static final int ITERATIONS = 50;
+
+	public static void main(String[] args) throws BadLocationException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		String text = createText(lines);
+		System.out.println("Lines: " + lines + ", characters: " + text.length());
+
+		for (int i = 0; i < 3; i++) {
+			System.out.println("Rebuild:     " + rebuild(text, lines) + " ms/change");
+			System.out.println("Incremental: " + incremental(text, lines) + " ms/change");
+		}
+	}
+
+	/**
+	 * Full text changes: the line tracker is rebuilt before each position
+	 * computation.
+	 */
+	private static double rebuild(String text, int lines) throws BadLocationException {
+		TextDocument document = new TextDocument(text, "benchmark.xml");
+		document.positionAt(0);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			document.setVersion(i + 1);
+			document.update(Arrays.asList(new TextDocumentContentChangeEvent(text)));
+			document.positionAt(text.length() / 2);
+		}
+		return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+	}
+
+	/**
+	 * Ranged changes: only the lines touched by the changes are updated.
+	 */
+	private static double incremental(String text, int lines) throws BadLocationException {
+		TextDocument document = new TextDocument(text, "benchmark.xml");
+		document.setIncremental(true);
+		document.positionAt(0);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			// type a character and a new line in the middle of the document
+			Position position = new Position(lines / 2 + i, 5);
+			String insert = i % 2 == 0 ? "a" : "\n";
+			TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+					new Range(position, position), 0, insert);
+			document.setVersion(i + 1);
+			document.update(Arrays.asList(change));
+			document.positionAt(text.length() / 2);
+		}
+		return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+	}
+
+	private static String createText(int lines) {
+		StringBuilder text = new StringBuilder();
+		text.append("<root>\n");
+		for (int i = 0; i < lines - 2; i++) {
+			text.append("  <item id=\"").append(i).append("\" />\n");
+		}
+		text.append("</root>");
+		return text.toString();
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+
+/**
+ * Measures the parse of a large XML document. Run it twice to compare the
+ * parallel parse with the sequential parse:
+ *
+ * <ul>
+ * <li><code>java -cp ... org.eclipse.lsp4xml.benchmarks.ParallelParseBenchmark [size in MB]</code></li>
+ * <li><code>java -Dlsp4xml.parallelParse.threshold=2147483647 -cp ... org.eclipse.lsp4xml.benchmarks.ParallelParseBenchmark [size in MB]</code></li>
+ * </ul>
+ *
+ */
+public class ParallelParseBenchmark {
+
+	public static void main(String[] args) {
+		int size = (args.length > 0 ? Integer.parseInt(args[0]) : 50) * 1024 * 1024;
+		StringBuilder text = new StringBuilder("<?xml version=\"1.0\"?>\n<root xmlns=\"http://root\">\n");
+		for (int i = 0; text.length() < size; i++) {
+			text.append("  <item id=\"").append(i).append("\">\n");
+			text.append("    <!-- item ").append(i).append(" -->\n");
+			text.append("    <name>Item ").append(i).append("</name>\n");
+			text.append("    <value type='int'>").append(i * 31).append("</value>\n");
+			text.append("  </item>\n");
+		}
+		text.append("</root>");
+		TextDocument document = new TextDocument(text.toString(), "file:///large.xml");
+		System.out.println("Size: " + text.length() / 1024 / 1024 + " MB");
+
+		for (int i = 0; i < 5; i++) {
+			long start = System.nanoTime();
+			XMLParser.getInstance().parse(document, null);
+			System.out.println("Parse: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		}
+	}
+}
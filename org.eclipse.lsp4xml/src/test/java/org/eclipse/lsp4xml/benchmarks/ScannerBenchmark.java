@@ -0,0 +1,127 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.lsp4xml.dom.parser.CharacterClasses;
+import org.eclipse.lsp4xml.dom.parser.Constants;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.TokenType;
+import org.eclipse.lsp4xml.dom.parser.XMLScanner;
+
+/**
+ * Measures the throughput of {@link XMLScanner} on a large document, and
+ * compares the regex matching of names (used by the scanner before
+ * {@link CharacterClasses}) with the character classes.
+ * 
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.ScannerBenchmark [elements]</code>.
+ * </p>
+ *
+ */
+public class ScannerBenchmark {
+
+	private static final int ITERATIONS = 10;
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		String text = createText(elements);
+		double megaBytes = text.length() / (1024.0 * 1024.0);
+		System.out.println("Characters: " + text.length());
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			scan(text);
+		}
+		long tokens = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			tokens += scan(text);
+		}
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		System.out.println("Tokens: " + tokens / ITERATIONS);
+		System.out.println("Throughput: " + (megaBytes * ITERATIONS / seconds) + " MB/s");
+
+		for (int i = 0; i < 3; i++) {
+			System.out.println("Element names with regex:             " + regexNames(text) + " ms");
+			System.out.println("Element names with character classes: " + characterClassNames(text) + " ms");
+		}
+	}
+
+	private static long regexNames(String text) {
+		Pattern regex = Constants.ELEMENT_NAME_REGEX;
+		Matcher matcher = regex.matcher(text);
+		long start = System.nanoTime();
+		int length = 0;
+		for (int offset = text.indexOf('<'); offset != -1; offset = text.indexOf('<', offset + 1)) {
+			matcher.region(offset + 1, text.length());
+			if (matcher.find()) {
+				length += matcher.end() - offset - 1;
+			}
+		}
+		check(length);
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private static long characterClassNames(String text) {
+		IntPredicate nameStart = CharacterClasses.ELEMENT_NAME_START;
+		IntPredicate nameChar = CharacterClasses.ELEMENT_NAME_CHAR;
+		long start = System.nanoTime();
+		int length = 0;
+		for (int offset = text.indexOf('<'); offset != -1; offset = text.indexOf('<', offset + 1)) {
+			int i = offset + 1;
+			if (i < text.length() && nameStart.test(text.charAt(i))) {
+				i++;
+				while (i < text.length() && nameChar.test(text.charAt(i))) {
+					i++;
+				}
+			}
+			length += i - offset - 1;
+		}
+		check(length);
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private static void check(int length) {
+		if (length == 0) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private static int scan(String text) {
+		Scanner scanner = XMLScanner.createScanner(text);
+		int tokens = 0;
+		while (scanner.scan() != TokenType.EOS) {
+			tokens++;
+		}
+		return tokens;
+	}
+
+	private static String createText(int elements) {
+		StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<catalog xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n");
+		for (int i = 0; i < elements; i++) {
+			text.append("  <book id=\"bk").append(i).append("\" lang=en available='true'>\n");
+			text.append("    <author>Author ").append(i).append("</author>\n");
+			text.append("    <title>Title &amp; subtitle</title>\n");
+			text.append("    <!-- comment -->\n");
+			text.append("    <price currency=\"EUR\">").append(i % 100).append(".95</price>\n");
+			text.append("    <empty/>\n");
+			text.append("  </book>\n");
+		}
+		text.append("</catalog>");
+		return text.toString();
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.Node;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.services.XMLLanguageService;
+import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
+
+/**
+ * Measures the walk of the children of an element with a large number of
+ * children with {@link Node#getNextSibling()} and
+ * {@link Node#getPreviousSibling()}, and the formatting of this element which
+ * gets the previous sibling of each node.
+ *
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.SiblingNavigationBenchmark [children]</code>.
+ * </p>
+ *
+ */
+public class SiblingNavigationBenchmark {
+
+	public static void main(String[] args) {
+		int children = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		StringBuilder text = new StringBuilder("<root>\n");
+		for (int i = 0; i < children; i++) {
+			text.append("  <item id=\"").append(i).append("\" />\n");
+		}
+		text.append("</root>");
+		TextDocument document = new TextDocument(text.toString(), "file:///siblings.xml");
+		System.out.println("Children: " + children);
+
+		for (int i = 0; i < 3; i++) {
+			XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+			System.out.println("Sibling walk:         " + walk(xmlDocument) + " ms");
+			XMLDocument compactDocument = XMLParser.getInstance().parseCompact(document, null);
+			System.out.println("Compact sibling walk: " + walk(compactDocument) + " ms");
+			System.out.println("Formatting:           " + format(document) + " ms");
+		}
+	}
+
+	private static long walk(XMLDocument xmlDocument) {
+		long start = System.nanoTime();
+		Node root = xmlDocument.getDocumentElement();
+		int count = 0;
+		Node last = null;
+		for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+			last = node;
+			count++;
+		}
+		for (Node node = last; node != null; node = node.getPreviousSibling()) {
+			count--;
+		}
+		if (count != 0) {
+			throw new IllegalStateException();
+		}
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private static long format(TextDocument document) {
+		long start = System.nanoTime();
+		new XMLLanguageService().format(document, null, new XMLFormattingOptions(2, true));
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+}
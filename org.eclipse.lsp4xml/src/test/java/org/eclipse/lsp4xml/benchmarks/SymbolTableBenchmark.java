@@ -0,0 +1,81 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.dom.parser.SymbolTable;
+
+/**
+ * Measures the retained heap size of a workspace of open Spring-like bean
+ * files.
+ * 
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.SymbolTableBenchmark [files]</code>,
+ * and with <code>-Dlsp4xml.symbolTable.maxSymbols=0</code> to measure the
+ * retained size without interned names.
+ * </p>
+ *
+ */
+public class SymbolTableBenchmark {
+
+	public static void main(String[] args) {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		List<TextDocument> documents = new ArrayList<>();
+		long textLength = 0;
+		for (int i = 0; i < files; i++) {
+			TextDocument document = new TextDocument(createText(i), "file:///beans" + i + ".xml");
+			textLength += document.getText().length();
+			documents.add(document);
+		}
+		System.out.println("Files: " + files + ", characters: " + textLength);
+
+		long baseline = usedMemory();
+		List<XMLDocument> xmlDocuments = new ArrayList<>();
+		for (TextDocument document : documents) {
+			xmlDocuments.add(XMLParser.getInstance().parse(document, null));
+		}
+		long retained = usedMemory() - baseline;
+		System.out.println("XML documents: " + retained / 1024 / 1024 + " MB retained, "
+				+ SymbolTable.getInstance().size() + " symbols (" + xmlDocuments.size() + " documents)");
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static String createText(int file) {
+		StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n");
+		text.append("       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+		text.append("       xsi:schemaLocation=\"http://www.springframework.org/schema/beans ");
+		text.append("http://www.springframework.org/schema/beans/spring-beans.xsd\">\n");
+		for (int i = 0; i < 200; i++) {
+			text.append("  <bean id=\"bean").append(file).append('_').append(i).append("\" class=\"org.example.Bean")
+					.append(i % 20).append("\">\n");
+			text.append("    <property name=\"name\" value=\"value").append(i).append("\" />\n");
+			text.append("    <property name=\"ref\" ref=\"bean").append(file).append('_').append((i + 1) % 200)
+					.append("\" />\n");
+			text.append("  </bean>\n");
+		}
+		text.append("</beans>");
+		return text.toString();
+	}
+}
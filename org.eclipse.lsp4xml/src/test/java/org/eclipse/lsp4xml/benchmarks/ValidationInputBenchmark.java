@@ -0,0 +1,93 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.xerces.parsers.SAXParser;
+import org.eclipse.lsp4xml.commons.CharSequenceReader;
+import org.eclipse.lsp4xml.commons.Rope;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares the time and the allocated bytes of a Xerces parse (as done by the
+ * XML validator) when the text of the document is given as UTF-8 bytes and when
+ * it is given as a character stream over the rope snapshot of the document.
+ *
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.ValidationInputBenchmark [elements]</code>.
+ * </p>
+ *
+ */
+public class ValidationInputBenchmark {
+
+	private static final int ITERATIONS = 5;
+
+	public static void main(String[] args) throws Exception {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		// a rope with several chunks, like the snapshot of an incrementally updated
+		// document
+		String text = createText(elements);
+		int middle = text.indexOf("<item", text.length() / 2);
+		Rope snapshot = Rope.of(text).replace(middle, middle, "<!-- edit -->");
+		System.out.println("Elements: " + elements + ", characters: " + snapshot.length());
+
+		for (int i = 0; i < 3; i++) {
+			run("Bytes:    ", () -> {
+				InputSource inputSource = new InputSource();
+				inputSource.setByteStream(
+						new ByteArrayInputStream(snapshot.toString().getBytes(StandardCharsets.UTF_8)));
+				return inputSource;
+			});
+			run("Reader:   ", () -> {
+				InputSource inputSource = new InputSource();
+				inputSource.setCharacterStream(new CharSequenceReader(snapshot));
+				return inputSource;
+			});
+		}
+	}
+
+	private interface InputSourceFactory {
+		InputSource create();
+	}
+
+	private static void run(String name, InputSourceFactory factory) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long allocated = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			SAXParser reader = new SAXParser();
+			reader.setFeature("http://xml.org/sax/features/namespaces", true); //$NON-NLS-1$
+			reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true); //$NON-NLS-1$
+			reader.parse(factory.create());
+		}
+		double time = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+		allocated = (threads.getThreadAllocatedBytes(threadId) - allocated) / ITERATIONS;
+		System.out.println(name + time + " ms/validation, " + allocated / 1024 / 1024 + " MB allocated/validation");
+	}
+
+	private static String createText(int elements) {
+		StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<root xmlns=\"http://example.org\">\n");
+		for (int i = 0; i < elements; i++) {
+			text.append("  <item id=\"").append(i).append("\" type=\"t").append(i % 10).append("\">");
+			text.append("<name>Item \u00e9").append(i).append("</name><value>").append(i * 7).append("</value>");
+			text.append("</item>\n");
+		}
+		text.append("</root>");
+		return text.toString();
+	}
+}
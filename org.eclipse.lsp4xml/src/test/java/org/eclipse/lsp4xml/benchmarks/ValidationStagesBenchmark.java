@@ -0,0 +1,143 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.benchmarks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.services.XMLLanguageService;
+
+/**
+ * Compares the latency of the two validation stages of a document bound to an
+ * XML Schema: the fast validation of the DOM while typing and the full
+ * validation with Xerces when the document is saved or idle. The parse of the
+ * DOM is measured separately because the DOM is shared with the requests.
+ *
+ * <p>
+ * Run it with <code>java -cp ... org.eclipse.lsp4xml.benchmarks.ValidationStagesBenchmark [elements]</code>.
+ * </p>
+ *
+ */
+public class ValidationStagesBenchmark {
+
+	private static final int ITERATIONS = 20;
+
+	private interface Stage {
+		List<Diagnostic> run(XMLDocument document);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		File xsd = File.createTempFile("items", ".xsd");
+		xsd.deleteOnExit();
+		Files.write(xsd.toPath(), createSchema().getBytes(StandardCharsets.UTF_8));
+		String text = createText(elements, xsd);
+		String uri = "file:///items.xml";
+		System.out.println("Elements: " + elements + ", characters: " + text.length());
+
+		XMLLanguageService languageService = new XMLLanguageService();
+		for (int i = 0; i < 3; i++) {
+			run("DOM parse:  ", ITERATIONS, () -> XMLParser.getInstance().parse(text, uri,
+					languageService.getResolverExtensionManager()));
+			// one document per validation with its own URI, so that the full stage doesn't
+			// return the diagnostics cached for the text
+			Map<String, XMLDocument> documents = new HashMap<>();
+			for (int j = 0; j < ITERATIONS; j++) {
+				String documentURI = "file:///items" + i + "_" + j + ".xml";
+				documents.put(documentURI, XMLParser.getInstance().parse(text, documentURI,
+						languageService.getResolverExtensionManager()));
+			}
+			languageService.setDocumentProvider(documents::get);
+			run("Fast stage: ", documents.values(), d -> languageService.doFastDiagnostics(d, () -> {
+			}));
+			run("Full stage: ", documents.values(), d -> languageService.doDiagnostics(d, () -> {
+			}));
+		}
+	}
+
+	private static void run(String name, Collection<XMLDocument> documents, Stage stage) {
+		Iterator<XMLDocument> iterator = documents.iterator();
+		int[] diagnostics = new int[1];
+		run(name, documents.size(), () -> diagnostics[0] = stage.run(iterator.next()).size());
+		System.out.println("            " + diagnostics[0] + " diagnostics");
+	}
+
+	private static void run(String name, int iterations, Runnable runnable) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			runnable.run();
+		}
+		double time = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+		System.out.println(name + time + " ms");
+	}
+
+	private static String createSchema() {
+		return "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\n" + //
+				"  <xs:element name=\"root\">\n" + //
+				"    <xs:complexType>\n" + //
+				"      <xs:sequence>\n" + //
+				"        <xs:element name=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\">\n" + //
+				"          <xs:complexType>\n" + //
+				"            <xs:sequence>\n" + //
+				"              <xs:element name=\"name\" type=\"xs:string\" />\n" + //
+				"              <xs:element name=\"state\">\n" + //
+				"                <xs:simpleType>\n" + //
+				"                  <xs:restriction base=\"xs:token\">\n" + //
+				"                    <xs:enumeration value=\"open\" />\n" + //
+				"                    <xs:enumeration value=\"closed\" />\n" + //
+				"                  </xs:restriction>\n" + //
+				"                </xs:simpleType>\n" + //
+				"              </xs:element>\n" + //
+				"            </xs:sequence>\n" + //
+				"            <xs:attribute name=\"id\" type=\"xs:string\" use=\"required\" />\n" + //
+				"            <xs:attribute name=\"type\">\n" + //
+				"              <xs:simpleType>\n" + //
+				"                <xs:restriction base=\"xs:token\">\n" + //
+				"                  <xs:enumeration value=\"t0\" />\n" + //
+				"                  <xs:enumeration value=\"t1\" />\n" + //
+				"                  <xs:enumeration value=\"t2\" />\n" + //
+				"                </xs:restriction>\n" + //
+				"              </xs:simpleType>\n" + //
+				"            </xs:attribute>\n" + //
+				"          </xs:complexType>\n" + //
+				"        </xs:element>\n" + //
+				"      </xs:sequence>\n" + //
+				"    </xs:complexType>\n" + //
+				"  </xs:element>\n" + //
+				"</xs:schema>";
+	}
+
+	private static String createText(int elements, File xsd) {
+		StringBuilder text = new StringBuilder();
+		text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		text.append("<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\"")
+				.append(xsd.toURI()).append("\">\n");
+		for (int i = 0; i < elements; i++) {
+			// 1 item of 100 has an invalid type
+			text.append("  <item id=\"").append(i).append("\" type=\"t").append(i % 100 == 0 ? 9 : i % 3)
+					.append("\">");
+			text.append("<name>Item ").append(i).append("</name><state>").append(i % 2 == 0 ? "open" : "closed")
+					.append("</state>");
+			text.append("</item>\n");
+		}
+		text.append("</root>");
+		return text.toString();
+	}
+}
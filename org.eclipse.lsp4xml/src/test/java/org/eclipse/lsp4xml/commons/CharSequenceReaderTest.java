@@ -0,0 +1,68 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * CharSequenceReader tests
+ *
+ */
+public class CharSequenceReaderTest {
+
+	@Test
+	public void testReadRope() throws IOException {
+		StringBuilder text = new StringBuilder();
+		Rope rope = Rope.of("");
+		for (int i = 0; i < 1000; i++) {
+			String item = "<item id=\"" + i + "\" />\n";
+			text.append(item);
+			rope = rope.replace(rope.length(), rope.length(), item);
+		}
+		Assert.assertEquals(text.toString(), readAll(new CharSequenceReader(rope), 100));
+		Assert.assertEquals(text.toString(), readAll(new CharSequenceReader(text), 7));
+		Assert.assertEquals(text.toString(), readAll(new CharSequenceReader(text.toString()), 4096));
+	}
+
+	@Test
+	public void testMarkAndSkip() throws IOException {
+		Reader reader = new CharSequenceReader("abcdef");
+		Assert.assertEquals('a', reader.read());
+		reader.mark(0);
+		Assert.assertEquals(2, reader.skip(2));
+		Assert.assertEquals('d', reader.read());
+		reader.reset();
+		Assert.assertEquals("bcdef", readAll(reader, 3));
+		Assert.assertEquals(-1, reader.read());
+		Assert.assertEquals(0, reader.skip(10));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadClosed() throws IOException {
+		Reader reader = new CharSequenceReader("abc");
+		reader.close();
+		reader.read();
+	}
+
+	private static String readAll(Reader reader, int bufferSize) throws IOException {
+		StringBuilder result = new StringBuilder();
+		char[] buffer = new char[bufferSize];
+		int count;
+		while ((count = reader.read(buffer, 0, buffer.length)) != -1) {
+			result.append(buffer, 0, count);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test with {@link DebounceScheduler}.
+ *
+ */
+public class DebounceSchedulerTest {
+
+	private final DebounceScheduler scheduler = new DebounceScheduler("test", 50, 2);
+
+	@After
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testSameKeyIsDebounced() throws InterruptedException {
+		List<String> runs = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(1);
+		scheduler.schedule("a.xml", monitor -> runs.add("1"));
+		scheduler.schedule("a.xml", monitor -> runs.add("2"));
+		scheduler.schedule("a.xml", monitor -> {
+			runs.add("3");
+			done.countDown();
+		});
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		Assert.assertEquals("[3]", runs.toString());
+	}
+
+	@Test
+	public void testOtherKeysAreNotCancelled() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(3);
+		scheduler.schedule("a.xml", monitor -> done.countDown());
+		scheduler.schedule("b.xml", monitor -> done.countDown());
+		scheduler.schedule("c.xml", monitor -> done.countDown());
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRunningTaskIsCancelled() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		scheduler.schedule("a.xml", monitor -> {
+			started.countDown();
+			try {
+				while (true) {
+					monitor.checkCanceled();
+					Thread.sleep(5);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				cancelled.countDown();
+			}
+		});
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		scheduler.schedule("a.xml", monitor -> done.countDown());
+		Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		List<String> runs = new CopyOnWriteArrayList<>();
+		scheduler.schedule("a.xml", monitor -> runs.add("a"));
+		Assert.assertTrue(scheduler.isScheduled("a.xml"));
+		scheduler.cancel("a.xml");
+		Assert.assertFalse(scheduler.isScheduled("a.xml"));
+		Thread.sleep(150);
+		Assert.assertTrue(runs.isEmpty());
+	}
+}
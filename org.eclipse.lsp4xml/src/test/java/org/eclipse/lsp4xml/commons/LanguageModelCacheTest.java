@@ -0,0 +1,255 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * LanguageModelCache tests
+ *
+ */
+public class LanguageModelCacheTest {
+
+	@Test
+	public void testHitAndMiss() {
+		AtomicInteger parseCount = new AtomicInteger();
+		LanguageModelCache<String> cache = createCache(10, Long.MAX_VALUE, parseCount);
+		TextDocument document = createDocument("file:///a.xml", "<a/>", 1);
+
+		Assert.assertEquals("<a/>", cache.get(document));
+		Assert.assertEquals("<a/>", cache.get(document));
+		Assert.assertEquals(1, parseCount.get());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+
+		// new version requires a new parse
+		document.setVersion(2);
+		cache.get(document);
+		Assert.assertEquals(2, parseCount.get());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(1, cache.size());
+		cache.dispose();
+	}
+
+	@Test
+	public void testEvictByMaxEntries() throws InterruptedException {
+		AtomicInteger parseCount = new AtomicInteger();
+		LanguageModelCache<String> cache = createCache(2, Long.MAX_VALUE, parseCount);
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		TextDocument b = createDocument("file:///b.xml", "<b/>", 1);
+		TextDocument c = createDocument("file:///c.xml", "<c/>", 1);
+
+		cache.get(a);
+		Thread.sleep(2);
+		cache.get(b);
+		Thread.sleep(2);
+		// a is now the most recently used
+		cache.get(a);
+		Thread.sleep(2);
+		cache.get(c);
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+
+		// b has been evicted
+		cache.get(a);
+		Assert.assertEquals(3, parseCount.get());
+		cache.get(b);
+		Assert.assertEquals(4, parseCount.get());
+		cache.dispose();
+	}
+
+	@Test
+	public void testEvictByEstimatedSize() throws InterruptedException {
+		AtomicInteger parseCount = new AtomicInteger();
+		LanguageModelCache<String> cache = createCache(10, 10, parseCount);
+		TextDocument a = createDocument("file:///a.xml", "<aaaa/>", 1);
+		TextDocument b = createDocument("file:///b.xml", "<bbbb/>", 1);
+		TextDocument c = createDocument("file:///c.xml", "<cccc/>", 1);
+
+		cache.get(a);
+		Assert.assertEquals(7, cache.getEstimatedSize());
+		Thread.sleep(2);
+		cache.get(b);
+		// a is the most recently used model besides b, it is not evicted because of
+		// the estimated size
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(14, cache.getEstimatedSize());
+		Assert.assertEquals(0, cache.getEvictionCount());
+		Thread.sleep(2);
+		cache.get(c);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(14, cache.getEstimatedSize());
+		Assert.assertEquals(1, cache.getEvictionCount());
+
+		// a has been evicted
+		cache.get(b);
+		cache.get(c);
+		Assert.assertEquals(3, parseCount.get());
+		cache.get(a);
+		Assert.assertEquals(4, parseCount.get());
+
+		// the last parsed model is always kept, even if it exceeds the limit
+		TextDocument big = createDocument("file:///big.xml", "<bigbigbig/>", 1);
+		Assert.assertEquals("<bigbigbig/>", cache.get(big));
+		Assert.assertEquals(2, cache.size());
+		cache.dispose();
+	}
+
+	@Test
+	public void testSizeEstimator() throws InterruptedException {
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 100, 0, TextDocument::new,
+				(document, previousModel) -> document.getText(), model -> model.length() * 10);
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		TextDocument b = createDocument("file:///b.xml", "<b/>", 1);
+		TextDocument c = createDocument("file:///c.xml", "<c/>", 1);
+
+		cache.get(a);
+		Assert.assertEquals(40, cache.getEstimatedSize());
+		Thread.sleep(2);
+		cache.get(b);
+		Thread.sleep(2);
+		cache.get(c);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(80, cache.getEstimatedSize());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		cache.dispose();
+	}
+
+	@Test
+	public void testCleanup() {
+		AtomicInteger parseCount = new AtomicInteger();
+		LanguageModelCache<String> cache = createCache(10, Long.MAX_VALUE, parseCount);
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		cache.get(a);
+		Assert.assertEquals(1, cache.size());
+
+		cache.cleanup(System.currentTimeMillis() + 1);
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getEstimatedSize());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		cache.dispose();
+	}
+
+	@Test
+	public void testDocumentRemoved() {
+		AtomicInteger parseCount = new AtomicInteger();
+		LanguageModelCache<String> cache = createCache(10, Long.MAX_VALUE, parseCount);
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		cache.get(a);
+		cache.onDocumentRemoved(a.getUri());
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getEstimatedSize());
+		Assert.assertEquals(0, cache.getEvictionCount());
+		cache.dispose();
+	}
+
+	@Test
+	public void testSameDocumentIsParsedOnce() throws Exception {
+		AtomicInteger parseCount = new AtomicInteger();
+		CountDownLatch parseStarted = new CountDownLatch(1);
+		CountDownLatch releaseParse = new CountDownLatch(1);
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 0, TextDocument::new, document -> {
+			parseCount.incrementAndGet();
+			parseStarted.countDown();
+			await(releaseParse);
+			return document.getText();
+		});
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(a));
+		await(parseStarted);
+		CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get(a));
+		// let the second request join the in-flight parse
+		Thread.sleep(50);
+		releaseParse.countDown();
+
+		Assert.assertEquals("<a/>", first.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("<a/>", second.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, parseCount.get());
+		cache.dispose();
+	}
+
+	@Test
+	public void testDifferentDocumentsAreParsedInParallel() throws Exception {
+		CountDownLatch bParsed = new CountDownLatch(1);
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 0, TextDocument::new, document -> {
+			if (document.getUri().endsWith("a.xml")) {
+				// parse of a.xml waits for the parse of b.xml which is done in another thread.
+				await(bParsed);
+			} else {
+				bParsed.countDown();
+			}
+			return document.getText();
+		});
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		TextDocument b = createDocument("file:///b.xml", "<b/>", 1);
+
+		CompletableFuture<String> parseA = CompletableFuture.supplyAsync(() -> cache.get(a));
+		CompletableFuture<String> parseB = CompletableFuture.supplyAsync(() -> cache.get(b));
+
+		Assert.assertEquals("<b/>", parseB.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("<a/>", parseA.get(5, TimeUnit.SECONDS));
+		cache.dispose();
+	}
+
+	@Test
+	public void testPreviousModelIsGiven() {
+		List<String> previousModels = new ArrayList<>();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, Long.MAX_VALUE, 0, TextDocument::new,
+				(document, previousModel) -> {
+					previousModels.add(previousModel);
+					return document.getText() + document.getVersion();
+				});
+		TextDocument a = createDocument("file:///a.xml", "<a/>", 1);
+		cache.get(a);
+		a.setVersion(2);
+		cache.get(a);
+
+		Assert.assertEquals(Arrays.asList(null, "<a/>1"), previousModels);
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(4, cache.getEstimatedSize());
+		cache.dispose();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timeout");
+			}
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static LanguageModelCache<String> createCache(int maxEntries, long maxEstimatedSize,
+			AtomicInteger parseCount) {
+		return new LanguageModelCache<>(maxEntries, maxEstimatedSize, 0, TextDocument::new, document -> {
+			parseCount.incrementAndGet();
+			return document.getText();
+		});
+	}
+
+	private static TextDocument createDocument(String uri, String text, int version) {
+		TextDocument document = new TextDocument(text, uri);
+		document.setVersion(version);
+		return document;
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.Random;
+
+import org.eclipse.lsp4xml.dom.parser.LineOffsets;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.TokenType;
+import org.eclipse.lsp4xml.dom.parser.XMLScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ListLineTracker tests
+ *
+ */
+public class ListLineTrackerTest {
+
+	@Test
+	public void testReplaceInLine() throws BadLocationException {
+		ListLineTracker tracker = createTracker("abc\ndef\nghi");
+		assertReplace(tracker, "abc\ndef\nghi", 5, 1, "XYZ");
+	}
+
+	@Test
+	public void testInsertLines() throws BadLocationException {
+		ListLineTracker tracker = createTracker("abc\ndef\nghi");
+		assertReplace(tracker, "abc\ndef\nghi", 5, 0, "1\n2\r\n3\r");
+	}
+
+	@Test
+	public void testRemoveLines() throws BadLocationException {
+		ListLineTracker tracker = createTracker("abc\ndef\nghi\njkl");
+		assertReplace(tracker, "abc\ndef\nghi\njkl", 2, 7, "");
+	}
+
+	@Test
+	public void testJoinDelimiter() throws BadLocationException {
+		// "\r" and "\n" become a "\r\n" delimiter
+		ListLineTracker tracker = createTracker("abc\rX\ndef");
+		assertReplace(tracker, "abc\rX\ndef", 4, 1, "");
+	}
+
+	@Test
+	public void testSplitDelimiter() throws BadLocationException {
+		ListLineTracker tracker = createTracker("abc\r\ndef");
+		assertReplace(tracker, "abc\r\ndef", 4, 0, "X");
+	}
+
+	@Test
+	public void testEndOfText() throws BadLocationException {
+		ListLineTracker tracker = createTracker("abc\n");
+		String text = assertReplace(tracker, "abc\n", 4, 0, "def");
+		text = assertReplace(tracker, text, 7, 0, "\n");
+		assertReplace(tracker, text, 0, text.length(), "");
+	}
+
+	@Test
+	public void testRandomEdits() throws BadLocationException {
+		String[] inserts = { "", "a", "\n", "\r", "\r\n", "ab\ncd", "\n\n" };
+		Random random = new Random(0);
+		String text = "line1\nline2\r\nline3\rline4\n";
+		ListLineTracker tracker = createTracker(text);
+		for (int i = 0; i < 2000; i++) {
+			int offset = random.nextInt(text.length() + 1);
+			int length = random.nextInt(Math.min(5, text.length() - offset) + 1);
+			String insert = inserts[random.nextInt(inserts.length)];
+			text = assertReplace(tracker, text, offset, length, insert);
+		}
+	}
+
+	@Test
+	public void testSetLineOffsets() throws BadLocationException {
+		String[] texts = { "", "abc", "abc\n", "\n\n", "\r", "a\nb\r\nc\rd", "abc\r\n",
+				"<a>\r\n<!-- c\r\n -->\r<b attr='\n'/></a>\n", "<a>\n  text\r\n\r\n</a",
+				"<?xml version='1.0'\r\n?>\r\n<!DOCTYPE a [\n<!ELEMENT a ANY>\r]>\n<a\r\n  b=\"1\"\n\r/>",
+				"<a><![CDATA[\r\n\n]]>\r<?pi \n data\r?>\n</a\r\n>\r\n<!-- \r", "<a\r" };
+		for (String text : texts) {
+			// the line offsets are recorded by the scanner
+			LineOffsets lineOffsets = new LineOffsets(text, 0);
+			Scanner scanner = XMLScanner.createScanner(text, 0, lineOffsets);
+			while (scanner.scan() != TokenType.EOS) {
+			}
+			Assert.assertTrue(lineOffsets.isComplete());
+			ListLineTracker tracker = new ListLineTracker();
+			tracker.set(text, lineOffsets.getOffsets(), lineOffsets.size());
+			assertLines(createTracker(text), tracker, text);
+		}
+	}
+
+	private static String assertReplace(ListLineTracker tracker, String text, int offset, int length,
+			String insert) throws BadLocationException {
+		String newText = text.substring(0, offset) + insert + text.substring(offset + length);
+		tracker.replace(offset, length, insert.length(), newText);
+		assertLines(createTracker(newText), tracker, newText);
+		return newText;
+	}
+
+	private static void assertLines(ListLineTracker expected, ListLineTracker actual, String text)
+			throws BadLocationException {
+		Assert.assertEquals(text, expected.getNumberOfLines(), actual.getNumberOfLines());
+		for (int line = 0; line < expected.getNumberOfLines(); line++) {
+			Line expectedLine = expected.getLineInformation(line);
+			Line actualLine = actual.getLineInformation(line);
+			Assert.assertEquals(text, expectedLine.offset, actualLine.offset);
+			Assert.assertEquals(text, expectedLine.length, actualLine.length);
+			Assert.assertEquals(text, expected.getLineDelimiter(line), actual.getLineDelimiter(line));
+		}
+		for (int offset = 0; offset <= text.length(); offset++) {
+			Assert.assertEquals(text, expected.getPositionAt(offset), actual.getPositionAt(offset));
+		}
+	}
+
+	private static ListLineTracker createTracker(String text) {
+		ListLineTracker tracker = new ListLineTracker();
+		tracker.set(text);
+		return tracker;
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test with {@link RequestScheduler}.
+ *
+ */
+public class RequestSchedulerTest {
+
+	private final RequestScheduler scheduler = new RequestScheduler();
+
+	@After
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testInteractiveNotQueuedBehindBulk() throws Exception {
+		scheduler.setThreads(RequestPriority.BULK, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> bulk1 = scheduler.computeAsync(RequestPriority.BULK, monitor -> {
+			await(release);
+			return "bulk1";
+		});
+		CompletableFuture<String> bulk2 = scheduler.computeAsync(RequestPriority.BULK, monitor -> "bulk2");
+		// the first bulk request occupies the bulk thread, the second one is queued
+		Assert.assertEquals(1, scheduler.getQueueLength(RequestPriority.BULK));
+		String statistics = scheduler.getStatistics(RequestPriority.BULK);
+		Assert.assertTrue(statistics, statistics.startsWith("bulk (1 threads, "));
+		Assert.assertTrue(statistics, statistics.contains(", 1 queued, "));
+
+		CompletableFuture<String> interactive = scheduler.computeAsync(RequestPriority.INTERACTIVE,
+				monitor -> "interactive");
+		Assert.assertEquals("interactive", interactive.get(5, TimeUnit.SECONDS));
+		Assert.assertFalse(bulk1.isDone());
+
+		release.countDown();
+		Assert.assertEquals("bulk1", bulk1.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("bulk2", bulk2.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(0, scheduler.getQueueLength(RequestPriority.BULK));
+	}
+
+	@Test
+	public void testSetThreads() {
+		scheduler.setThreads(RequestPriority.BACKGROUND, 3);
+		Assert.assertEquals(3, scheduler.getThreads(RequestPriority.BACKGROUND));
+		scheduler.setThreads(RequestPriority.BACKGROUND, 1);
+		Assert.assertEquals(1, scheduler.getThreads(RequestPriority.BACKGROUND));
+		scheduler.setThreads(RequestPriority.BACKGROUND, 0);
+		Assert.assertEquals(1, scheduler.getThreads(RequestPriority.BACKGROUND));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Rope tests
+ *
+ */
+public class RopeTest {
+
+	@Test
+	public void testReplace() {
+		Rope rope = Rope.of("abcdef");
+		Rope newRope = rope.replace(1, 3, "XYZ");
+		Assert.assertEquals("aXYZdef", newRope.toString());
+		Assert.assertEquals(7, newRope.length());
+		Assert.assertEquals('Z', newRope.charAt(3));
+		// the original rope is not modified
+		Assert.assertEquals("abcdef", rope.toString());
+	}
+
+	@Test
+	public void testLargeText() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			text.append("<item id=\"").append(i).append("\" />\n");
+		}
+		Rope rope = Rope.of(text);
+		Assert.assertEquals(text.length(), rope.length());
+		Assert.assertEquals(text.toString(), rope.toString());
+		Assert.assertEquals(text.substring(5000, 20000), rope.subSequence(5000, 20000).toString());
+		for (int i = 0; i < text.length(); i++) {
+			Assert.assertEquals(text.charAt(i), rope.charAt(i));
+		}
+		char[] chars = new char[3000];
+		rope.getChars(1000, 4000, chars, 0);
+		Assert.assertEquals(text.substring(1000, 4000), new String(chars));
+	}
+
+	@Test
+	public void testRandomEdits() {
+		Random random = new Random(0);
+		StringBuilder expected = new StringBuilder("<root></root>");
+		Rope rope = Rope.of(expected);
+		for (int i = 0; i < 5000; i++) {
+			int start = random.nextInt(expected.length() + 1);
+			int end = start + random.nextInt(Math.min(10, expected.length() - start) + 1);
+			String text = i % 3 == 0 ? "" : "<a" + i + "/>";
+			expected.replace(start, end, text);
+			rope = rope.replace(start, end, text);
+			Assert.assertEquals(expected.length(), rope.length());
+		}
+		Assert.assertEquals(expected.toString(), rope.toString());
+		// the tree stays balanced
+		Assert.assertTrue("height " + rope.height(), rope.height() < 20);
+	}
+
+	@Test
+	public void testTyping() {
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			expected.append("<item id=\"").append(i).append("\" />\n");
+		}
+		Rope rope = Rope.of(expected);
+		int height = rope.height();
+		// type one character at a time in the middle and at the end of the text
+		int offset = expected.length() / 2;
+		for (int i = 0; i < 3000; i++) {
+			String text = String.valueOf((char) ('a' + i % 26));
+			expected.insert(offset, text);
+			rope = rope.replace(offset, offset, text);
+			offset++;
+			expected.append(text);
+			rope = rope.replace(rope.length(), rope.length(), text);
+		}
+		Assert.assertEquals(expected.toString(), rope.toString());
+		// the typed characters are merged into the existing chunks
+		Assert.assertTrue("height " + rope.height(), rope.height() <= height + 2);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testBadRange() {
+		Rope.of("abc").replace(2, 4, "");
+	}
+}
@@ -10,7 +10,11 @@
  */
 package org.eclipse.lsp4xml.commons;
 
+import java.util.Arrays;
+
 import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -132,4 +136,39 @@ public class TextDocumentTest {
 		Assert.assertNotNull(ex);
 	}
 
+	@Test
+	public void testIncrementalUpdate() throws BadLocationException {
+		TextDocument document = new TextDocument("abcd\nefgh", null);
+		document.setIncremental(true);
+
+		// the range of the second change is relative to the text updated with the
+		// first change.
+		document.update(Arrays.asList(change(0, 0, 0, 0, "12\n"), change(2, 0, 2, 2, "EF")));
+		Assert.assertEquals("12\nabcd\nEFgh", document.getText());
+		Assert.assertEquals("EFgh", document.lineText(2));
+		Assert.assertEquals(2, document.positionAt(document.getText().length()).getLine());
+	}
+
+	@Test
+	public void testSnapshot() {
+		TextDocument document = new TextDocument("abcd", null);
+		document.setIncremental(true);
+
+		CharSequence snapshot = document.getSnapshot();
+		document.update(Arrays.asList(change(0, 1, 0, 3, "XY")));
+		Assert.assertEquals("abcd", snapshot.toString());
+		Assert.assertEquals("aXYd", document.getSnapshot().toString());
+		Assert.assertEquals("aXYd", document.getText());
+
+		document.setIncremental(false);
+		Assert.assertEquals("aXYd", document.getText());
+		Assert.assertSame(document.getText(), document.getSnapshot());
+	}
+
+	private static TextDocumentContentChangeEvent change(int startLine, int startCharacter, int endLine,
+			int endCharacter, String text) {
+		Range range = new Range(new Position(startLine, startCharacter), new Position(endLine, endCharacter));
+		return new TextDocumentContentChangeEvent(range, endCharacter - startCharacter, text);
+	}
+
 }
@@ -0,0 +1,167 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.SymbolInformation;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.services.XMLLanguageService;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compact XML document tests.
+ *
+ */
+public class CompactNodesTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + //
+			"<!DOCTYPE root [<!ELEMENT root ANY>]>\n" + //
+			"<!-- comment -->\n" + //
+			"<root xmlns=\"http://root\" xmlns:a=\"http://a\" a:attr='single' empty=>\n" + //
+			"  <item id=\"1\">text &amp; more</item>\n" + //
+			"  <item id=\"2\"><![CDATA[data]]></item>\n" + //
+			"  <a:list>\n" + //
+			"    <entry/> <!-- same line -->\n" + //
+			"    <?pi content?>\n" + //
+			"  </a:list>\n" + //
+			"  </orphan>\n" + //
+			"  <unclosed>\n" + //
+			"</root>\n" + //
+			"<!-- end -->";
+
+	@Test
+	public void testSameNodes() {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		XMLDocument expected = XMLParser.getInstance().parse(document, null);
+		XMLDocument actual = XMLParser.getInstance().parseCompact(document, null);
+
+		Assert.assertFalse(expected.isCompact());
+		Assert.assertTrue(actual.isCompact());
+		Assert.assertEquals(XMLParserIncrementalTest.toString(expected), XMLParserIncrementalTest.toString(actual));
+		Assert.assertEquals(expected.getNodeCount(), actual.getNodeCount());
+	}
+
+	@Test
+	public void testNavigation() {
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(new TextDocument(XML, "test.xml"), null);
+
+		Element root = xmlDocument.getDocumentElement();
+		Assert.assertEquals("root", root.getTagName());
+		Assert.assertTrue(root.isDocumentElement());
+		Assert.assertEquals("http://root", root.getNamespaceURI());
+		Assert.assertSame(xmlDocument, root.getParentNode());
+
+		// one view per node
+		Assert.assertSame(root, xmlDocument.getDocumentElement());
+
+		Node item = root.getFirstChild();
+		Assert.assertEquals("item", item.getNodeName());
+		Assert.assertSame(root, item.getParentNode());
+		Assert.assertEquals("1", ((Attr) item.getAttributes().getNamedItem("id")).getValue());
+		Node secondItem = item.getNextSibling();
+		Assert.assertEquals("2", ((Element) secondItem).getAttribute("id"));
+		Assert.assertSame(item, secondItem.getPreviousSibling());
+		Assert.assertEquals("data", ((CDataSection) secondItem.getFirstChild()).getData());
+
+		Node entry = xmlDocument.findNodeAt(XML.indexOf("<entry/>") + 1);
+		Assert.assertEquals("entry", entry.getNodeName());
+		Assert.assertEquals("a:list", entry.getParentNode().getNodeName());
+		Assert.assertEquals("http://a", ((Element) entry.getParentNode()).getNamespaceURI());
+
+		// views created from the compact nodes with their ancestors
+		Node list = xmlDocument.compactNodes.getNode(((Node) entry).compactIndex - 1).getParentNode();
+		Assert.assertSame(entry.getParentNode(), list);
+		Assert.assertSame(root, list.getParentNode());
+		Assert.assertSame(entry, list.getChildren().get(0));
+	}
+
+	@Test
+	public void testOneViewPerNodeBetweenThreads() throws Exception {
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(new TextDocument(XML, "test.xml"), null);
+		int offset = XML.indexOf("<entry/>") + 1;
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Node>> entries = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				entries.add(executor.submit(() -> {
+					Node entry = xmlDocument.findNodeAt(offset);
+					// reach the children of the ancestors
+					entry.getParentNode().getParentNode().getChildren();
+					return entry.getParentNode().getFirstChild();
+				}));
+			}
+			Node entry = xmlDocument.findNodeAt(offset);
+			for (Future<Node> other : entries) {
+				Assert.assertSame(entry, other.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSiblings() {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		assertSiblings(XMLParser.getInstance().parse(document, null));
+		assertSiblings(XMLParser.getInstance().parseCompact(document, null));
+	}
+
+	private static void assertSiblings(Node parent) {
+		List<Node> children = parent.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			Node child = children.get(i);
+			Assert.assertSame(i > 0 ? children.get(i - 1) : null, child.getPreviousSibling());
+			Assert.assertSame(i < children.size() - 1 ? children.get(i + 1) : null, child.getNextSibling());
+			Node nextSibling = child.getNextSibling();
+			if (nextSibling != null) {
+				// a sibling which is not reached from the children list
+				Assert.assertSame(child, nextSibling.getPreviousSibling());
+			}
+			assertSiblings(child);
+		}
+	}
+
+	@Test
+	public void testServices() {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+		XMLDocument compactDocument = XMLParser.getInstance().parseCompact(document, null);
+		XMLLanguageService languageService = new XMLLanguageService();
+
+		List<SymbolInformation> symbols = languageService.findDocumentSymbols(xmlDocument);
+		Assert.assertEquals(symbols, languageService.findDocumentSymbols(compactDocument));
+
+		Position position = new Position(7, 6);
+		Assert.assertEquals(languageService.findDocumentHighlights(xmlDocument, position),
+				languageService.findDocumentHighlights(compactDocument, position));
+		Assert.assertEquals(languageService.doHover(xmlDocument, position),
+				languageService.doHover(compactDocument, position));
+		Assert.assertEquals(languageService.getFoldingRanges(xmlDocument, null),
+				languageService.getFoldingRanges(compactDocument, null));
+	}
+
+	@Test
+	public void testCompactIsKept() {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(document, null);
+		document.setVersion(document.getVersion() + 1);
+		XMLDocument newXmlDocument = XMLParser.getInstance().parse(document, xmlDocument, null);
+		Assert.assertNotSame(xmlDocument, newXmlDocument);
+		Assert.assertTrue(newXmlDocument.isCompact());
+	}
+}
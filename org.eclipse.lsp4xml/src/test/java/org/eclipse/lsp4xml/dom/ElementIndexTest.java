@@ -0,0 +1,137 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Arrays;
+
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests of getElementsByTagName, getElementsByTagNameNS and getElementById.
+ *
+ */
+public class ElementIndexTest {
+
+	private static final String XML = "<web-app xmlns:j=\"http://j\">\n" + //
+			"  <servlet id=\"s1\">\n" + //
+			"    <servlet-name>a</servlet-name>\n" + //
+			"  </servlet>\n" + //
+			"  <j:servlet id=\"s2\">\n" + //
+			"    <servlet-name>b</servlet-name>\n" + //
+			"  </j:servlet>\n" + //
+			"  <servlet-mapping xmlns=\"http://default\">\n" + //
+			"    <servlet-name id=\"n3\">a</servlet-name>\n" + //
+			"  </servlet-mapping>\n" + //
+			"  <other id=\"s1\" />\n" + //
+			"</web-app>";
+
+	@Test
+	public void testGetElementsByTagName() {
+		XMLDocument xmlDocument = parse(XML);
+		assertElements(xmlDocument.getElementsByTagName("servlet"), "servlet@2");
+		assertElements(xmlDocument.getElementsByTagName("j:servlet"), "j:servlet@5");
+		assertElements(xmlDocument.getElementsByTagName("servlet-name"), "servlet-name@3", "servlet-name@6",
+				"servlet-name@9");
+		assertElements(xmlDocument.getElementsByTagName("unknown"));
+		Assert.assertEquals(8, xmlDocument.getElementsByTagName("*").getLength());
+	}
+
+	@Test
+	public void testGetElementsByTagNameNS() {
+		XMLDocument xmlDocument = parse(XML);
+		assertElements(xmlDocument.getElementsByTagNameNS(null, "servlet"), "servlet@2");
+		assertElements(xmlDocument.getElementsByTagNameNS("http://j", "servlet"), "j:servlet@5");
+		assertElements(xmlDocument.getElementsByTagNameNS("*", "servlet"), "servlet@2", "j:servlet@5");
+		assertElements(xmlDocument.getElementsByTagNameNS("http://default", "*"), "servlet-mapping@8",
+				"servlet-name@9");
+		assertElements(xmlDocument.getElementsByTagNameNS("", "servlet-name"), "servlet-name@3", "servlet-name@6");
+	}
+
+	@Test
+	public void testElementGetElementsByTagName() {
+		XMLDocument xmlDocument = parse(XML);
+		Element servlet = (Element) xmlDocument.getElementsByTagName("j:servlet").item(0);
+		assertElements(servlet.getElementsByTagName("servlet-name"), "servlet-name@6");
+		assertElements(servlet.getElementsByTagNameNS("*", "*"), "servlet-name@6");
+		assertElements(servlet.getElementsByTagName("servlet"));
+	}
+
+	@Test
+	public void testGetElementById() {
+		XMLDocument xmlDocument = parse(XML);
+		Assert.assertEquals("servlet", xmlDocument.getElementById("s1").getTagName());
+		Assert.assertEquals("j:servlet", xmlDocument.getElementById("s2").getTagName());
+		Assert.assertEquals("servlet-name", xmlDocument.getElementById("n3").getTagName());
+		Assert.assertNull(xmlDocument.getElementById("unknown"));
+	}
+
+	@Test
+	public void testCompact() {
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(new TextDocument(XML, "test.xml"), null);
+		assertElements(xmlDocument.getElementsByTagName("servlet-name"), "servlet-name@3", "servlet-name@6",
+				"servlet-name@9");
+		assertElements(xmlDocument.getElementsByTagNameNS("http://j", "servlet"), "j:servlet@5");
+		Assert.assertEquals("j:servlet", xmlDocument.getElementById("s2").getTagName());
+	}
+
+	@Test
+	public void testIncremental() throws BadLocationException {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		document.setIncremental(true);
+		document.setVersion(1);
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+		assertElements(xmlDocument.getElementsByTagName("servlet-name"), "servlet-name@3", "servlet-name@6",
+				"servlet-name@9");
+
+		int offset = XML.indexOf("<servlet-name>b");
+		Range range = new Range(document.positionAt(offset), document.positionAt(offset));
+		document.setVersion(2);
+		document.update(Arrays.asList(new TextDocumentContentChangeEvent(range, 0, "<servlet-name id=\"new\"/>")));
+		XMLDocument newXmlDocument = XMLParser.getInstance().parse(document, xmlDocument, null);
+		Assert.assertNotSame(xmlDocument, newXmlDocument);
+
+		assertElements(newXmlDocument.getElementsByTagName("servlet-name"), "servlet-name@3", "servlet-name@6",
+				"servlet-name@6", "servlet-name@9");
+		Assert.assertNotNull(newXmlDocument.getElementById("new"));
+		// the previous XML document is not modified
+		Assert.assertEquals(3, xmlDocument.getElementsByTagName("servlet-name").getLength());
+		Assert.assertNull(xmlDocument.getElementById("new"));
+	}
+
+	private static XMLDocument parse(String xml) {
+		return XMLParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+
+	/**
+	 * Asserts the tag names and the lines (starting with 1) of the given elements.
+	 */
+	private static void assertElements(NodeList elements, String... expected) {
+		String[] actual = new String[elements.getLength()];
+		for (int i = 0; i < actual.length; i++) {
+			Element element = (Element) elements.item(i);
+			String text = element.getOwnerDocument().getText();
+			int line = 1;
+			for (int j = 0; j < element.getStart(); j++) {
+				if (text.charAt(j) == '\n') {
+					line++;
+				}
+			}
+			actual[i] = element.getTagName() + "@" + line;
+		}
+		Assert.assertArrayEquals(expected, actual);
+	}
+}
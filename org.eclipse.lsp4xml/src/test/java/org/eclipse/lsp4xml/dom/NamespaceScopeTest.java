@@ -0,0 +1,125 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Arrays;
+
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Namespace scope tests.
+ *
+ */
+public class NamespaceScopeTest {
+
+	private static final String XML = "<root xmlns=\"http://root\" xmlns:a='http://a'>\n" + //
+			"  <item>\n" + //
+			"    <a:item />\n" + //
+			"  </item>\n" + //
+			"  <b:list xmlns:b=\"http://b\" xmlns=\"http://default\">\n" + //
+			"    <entry xmlns:a=\"http://a2\" />\n" + //
+			"    <a:entry />\n" + //
+			"    <c:entry />\n" + //
+			"  </b:list>\n" + //
+			"</root>";
+
+	@Test
+	public void testNamespaceURI() {
+		XMLDocument xmlDocument = parse(XML);
+		assertNamespaces(xmlDocument);
+	}
+
+	@Test
+	public void testSharedScope() {
+		XMLDocument xmlDocument = parse(XML);
+		Element root = xmlDocument.getDocumentElement();
+		Element item = (Element) root.getChild(0);
+		Element list = (Element) root.getChild(1);
+
+		Assert.assertSame(root.getNamespaceScope(), item.getNamespaceScope());
+		Assert.assertSame(root.getNamespaceScope(), ((Element) item.getChild(0)).getNamespaceScope());
+		Assert.assertNotSame(root.getNamespaceScope(), list.getNamespaceScope());
+		Assert.assertSame(list.getNamespaceScope(), ((Element) list.getChild(1)).getNamespaceScope());
+	}
+
+	@Test
+	public void testPrefix() {
+		XMLDocument xmlDocument = parse(XML);
+		Element root = xmlDocument.getDocumentElement();
+		Element list = (Element) root.getChild(1);
+		Element entry = (Element) list.getChild(0);
+
+		Assert.assertEquals("", root.getPrefix("http://root"));
+		Assert.assertEquals("a", root.getPrefix("http://a"));
+		Assert.assertNull(root.getPrefix("http://b"));
+		Assert.assertEquals("a", entry.getPrefix("http://a2"));
+		Assert.assertEquals("b", entry.getPrefix("http://b"));
+		Assert.assertEquals("", entry.getPrefix("http://default"));
+		Assert.assertEquals("", entry.getPrefix("http://root"));
+		Assert.assertNull(entry.getPrefix("http://unknown"));
+
+		Assert.assertEquals("http://a2", entry.getNamespaceURI("a"));
+		Assert.assertEquals("http://b", entry.getNamespaceURI("b"));
+		Assert.assertNull(entry.getNamespaceURI("c"));
+	}
+
+	@Test
+	public void testCompact() {
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(new TextDocument(XML, "test.xml"), null);
+		Assert.assertTrue(xmlDocument.isCompact());
+		assertNamespaces(xmlDocument);
+	}
+
+	@Test
+	public void testIncremental() throws BadLocationException {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		document.setIncremental(true);
+		document.setVersion(1);
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+
+		// insert an element in <b:list>
+		int offset = XML.indexOf("<c:entry />");
+		Range range = new Range(document.positionAt(offset), document.positionAt(offset));
+		document.setVersion(2);
+		document.update(Arrays.asList(new TextDocumentContentChangeEvent(range, 0, "<b:new /><a:new />")));
+		XMLDocument newXmlDocument = XMLParser.getInstance().parse(document, xmlDocument, null);
+		Assert.assertNotSame(xmlDocument, newXmlDocument);
+
+		Element list = (Element) newXmlDocument.getDocumentElement().getChild(1);
+		Assert.assertEquals("http://b", ((Element) list.getChild(2)).getNamespaceURI());
+		Assert.assertEquals("http://a", ((Element) list.getChild(3)).getNamespaceURI());
+		Assert.assertEquals("http://default", ((Element) list.getChild(0)).getNamespaceURI());
+	}
+
+	private static XMLDocument parse(String xml) {
+		return XMLParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+
+	private static void assertNamespaces(XMLDocument xmlDocument) {
+		Element root = xmlDocument.getDocumentElement();
+		Assert.assertEquals("http://root", root.getNamespaceURI());
+
+		Element item = (Element) root.getChild(0);
+		Assert.assertEquals("http://root", item.getNamespaceURI());
+		Assert.assertEquals("http://a", ((Element) item.getChild(0)).getNamespaceURI());
+
+		Element list = (Element) root.getChild(1);
+		Assert.assertEquals("http://b", list.getNamespaceURI());
+		Assert.assertEquals("http://default", ((Element) list.getChild(0)).getNamespaceURI());
+		Assert.assertEquals("http://a", ((Element) list.getChild(1)).getNamespaceURI());
+		Assert.assertNull(((Element) list.getChild(2)).getNamespaceURI());
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Node index tests.
+ *
+ */
+public class NodeIndexTest {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n" + //
+			"<!DOCTYPE root>\n" + //
+			"<!-- comment -->\n" + //
+			"<root a=\"1\" b='2' c=d>\n" + //
+			"  <item>text &lt; </item>\n" + //
+			"  <![CDATA[data]]>\n" + //
+			"  <?pi content?>\n" + //
+			"  <empty/><br>\n" + //
+			"  <list><entry attr=\"value\"/><entry></list>\n" + //
+			"  </orphan>\n" + //
+			"  <unclosed attr=\n" + //
+			"</root>\n" + //
+			"<after";
+
+	@Test
+	public void testFindNodeAt() {
+		XMLDocument xmlDocument = parse(XML);
+		Assert.assertTrue(NodeIndex.create(xmlDocument).isSorted());
+		for (int offset = 0; offset <= XML.length(); offset++) {
+			Assert.assertSame("offset " + offset, descendNodeAt(xmlDocument, offset), xmlDocument.findNodeAt(offset));
+		}
+	}
+
+	@Test
+	public void testFindNodeBefore() {
+		XMLDocument xmlDocument = parse(XML);
+		for (int offset = 0; offset <= XML.length(); offset++) {
+			Assert.assertSame("offset " + offset, descendNodeBefore(xmlDocument, offset),
+					xmlDocument.findNodeBefore(offset));
+		}
+	}
+
+	@Test
+	public void testFindAttrAt() {
+		XMLDocument xmlDocument = parse(XML);
+		for (int offset = 0; offset <= XML.length(); offset++) {
+			Node node = xmlDocument.findNodeAt(offset);
+			Attr expected = null;
+			if (node.hasAttributes()) {
+				for (Attr attr : node.getAttributeNodes()) {
+					if (attr.isIncluded(offset)) {
+						expected = attr;
+						break;
+					}
+				}
+			}
+			Assert.assertSame("offset " + offset, expected, xmlDocument.findAttrAt(offset));
+		}
+		Assert.assertEquals("b", xmlDocument.findAttrAt(XML.indexOf("b='2'") + 1).getName());
+	}
+
+	@Test
+	public void testCompact() {
+		XMLDocument expected = parse(XML);
+		XMLDocument actual = XMLParser.getInstance().parseCompact(new TextDocument(XML, "test.xml"), null);
+		for (int offset = 0; offset <= XML.length(); offset++) {
+			assertSameNode(expected.findNodeAt(offset), actual.findNodeAt(offset));
+			assertSameNode(expected.findNodeBefore(offset), actual.findNodeBefore(offset));
+		}
+	}
+
+	@Test
+	public void testIncremental() throws BadLocationException {
+		TextDocument document = new TextDocument(XML, "test.xml");
+		document.setIncremental(true);
+		document.setVersion(1);
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+		int offset = XML.indexOf("<entry></list>");
+		Assert.assertEquals("entry", xmlDocument.findNodeAt(offset + 1).getNodeName());
+
+		Range range = new Range(document.positionAt(offset), document.positionAt(offset));
+		document.setVersion(2);
+		document.update(Arrays.asList(new TextDocumentContentChangeEvent(range, 0, "<new/>")));
+		XMLDocument newXmlDocument = XMLParser.getInstance().parse(document, xmlDocument, null);
+		Assert.assertNotSame(xmlDocument, newXmlDocument);
+
+		String text = document.getText();
+		Assert.assertEquals("new", newXmlDocument.findNodeAt(offset + 1).getNodeName());
+		for (int i = 0; i <= text.length(); i++) {
+			Assert.assertSame("offset " + i, descendNodeAt(newXmlDocument, i), newXmlDocument.findNodeAt(i));
+		}
+		// the previous XML document is not modified
+		Assert.assertEquals("entry", xmlDocument.findNodeAt(offset + 1).getNodeName());
+	}
+
+	@Test
+	public void testWideDocument() {
+		StringBuilder xml = new StringBuilder("<root>");
+		for (int i = 0; i < 10000; i++) {
+			xml.append("<item id=\"").append(i).append("\">").append(i).append("</item>");
+		}
+		xml.append("</root>");
+		String text = xml.toString();
+		XMLDocument xmlDocument = parse(text);
+
+		int offset = text.indexOf("<item id=\"5000\">") + 2;
+		Node node = xmlDocument.findNodeAt(offset);
+		Assert.assertEquals("5000", ((Element) node).getAttribute("id"));
+		Assert.assertSame(xmlDocument.getDocumentElement().getChild(5000), node);
+		Assert.assertEquals("id", xmlDocument.findAttrAt(offset + "item ".length()).getName());
+	}
+
+	private static XMLDocument parse(String xml) {
+		return XMLParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+
+	private static void assertSameNode(Node expected, Node actual) {
+		Assert.assertEquals(expected.getNodeName(), actual.getNodeName());
+		Assert.assertEquals(expected.getStart(), actual.getStart());
+		Assert.assertEquals(expected.getEnd(), actual.getEnd());
+	}
+
+	/**
+	 * Finds the node at the given offset by descending the tree child by child.
+	 */
+	private static Node descendNodeAt(Node node, int offset) {
+		Node child = findLastChildBefore(node, offset);
+		if (child != null && Node.isIncluded(child, offset)) {
+			return descendNodeAt(child, offset);
+		}
+		return node;
+	}
+
+	/**
+	 * Finds the node before the given offset by descending the tree child by
+	 * child.
+	 */
+	private static Node descendNodeBefore(Node node, int offset) {
+		Node child = findLastChildBefore(node, offset);
+		if (child == null) {
+			return node;
+		}
+		Node lastChild = child.getLastChild();
+		if (offset < child.end || (lastChild != null && lastChild.end == child.end)) {
+			return descendNodeBefore(child, offset);
+		}
+		return child;
+	}
+
+	private static Node findLastChildBefore(Node node, int offset) {
+		Node found = null;
+		List<Node> children = node.getChildren();
+		for (Node child : children) {
+			if (child.start < offset) {
+				found = child;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,291 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.commons.BadLocationException;
+import org.eclipse.lsp4xml.commons.TextChange;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.ScannerState;
+import org.eclipse.lsp4xml.dom.parser.TokenStream;
+import org.eclipse.lsp4xml.dom.parser.TokenType;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Incremental XML parser tests.
+ *
+ */
+public class XMLParserIncrementalTest {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n" + //
+			"<!-- comment -->\n" + //
+			"<root a=\"1\">\n" + //
+			"  <item id=\"1\">text</item>\n" + //
+			"  <item id=\"2\"><![CDATA[data]]></item>\n" + //
+			"  <list>\n" + //
+			"    <entry/>\n" + //
+			"    <?pi content?>\n" + //
+			"  </list>\n" + //
+			"</root>\n" + //
+			"<!-- end -->";
+
+	@Test
+	public void testInsertText() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		replace(document, "text", 0, "new text");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testInsertElement() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		replace(document, "<entry/>", "<entry/>".length(), "\n    <entry attr=\"value\" /><!-- c -->");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testRemoveElement() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		replace(document, "<![CDATA[data]]>", 0, "", "<![CDATA[data]]>".length());
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testSeveralChanges() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		replace(document, "text", 0, "a");
+		replace(document, "<entry/>", 0, "<b></b>");
+		replace(document, "atext", 0, "\n\n");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testSeveralParses() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+		for (int i = 0; i < 10; i++) {
+			replace(document, "<entry/>", 0, "<e" + i + "/>");
+			xmlDocument = assertIncremental(document, xmlDocument, true);
+		}
+	}
+
+	@Test
+	public void testChangeStartTag() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		// the start tag of the enclosing element is modified: the root element is
+		// reparsed
+		replace(document, "id=\"1\"", 5, "0");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testUnclosedElement() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		// the new element is closed by the end tag of the reparsed element
+		replace(document, "<entry/>", 0, "<unclosed>");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testOrphanEndTagBeforeElement() throws BadLocationException {
+		TextDocument document = createDocument("<root><!-- c --></ text<!-- c --><l><e/></l></root>");
+		XMLDocument xmlDocument = parse(document);
+
+		// the element created for the orphan end tag has an end tag open offset
+		// before the reparsed element, which must not be shifted
+		replace(document, "<e/>", 1, "<c/>");
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	@Test
+	public void testEndTagOfAncestorFallback() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		// the new end tag closes an ancestor: full parse
+		replace(document, "<entry/>", 0, "</root>");
+		assertIncremental(document, xmlDocument, false);
+	}
+
+	@Test
+	public void testChangeOutsideElementFallback() throws BadLocationException {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		replace(document, "comment", 0, "new comment");
+		assertIncremental(document, xmlDocument, false);
+	}
+
+	@Test
+	public void testFullTextChangeFallback() {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+
+		document.setVersion(document.getVersion() + 1);
+		document.update(Arrays.asList(new TextDocumentContentChangeEvent("<root></root>")));
+		assertIncremental(document, xmlDocument, false);
+	}
+
+	@Test
+	public void testNoChange() {
+		TextDocument document = createDocument(XML);
+		XMLDocument xmlDocument = parse(document);
+		assertIncremental(document, xmlDocument, true);
+	}
+
+	private static TextDocument createDocument(String text) {
+		TextDocument document = new TextDocument(text, "test.xml");
+		document.setIncremental(true);
+		document.setVersion(1);
+		return document;
+	}
+
+	private static XMLDocument parse(TextDocument document) {
+		return XMLParser.getInstance().parse(document, null);
+	}
+
+	/**
+	 * Replace in the given document the text after the given search text.
+	 */
+	private static void replace(TextDocument document, String search, int offsetInSearch, String newText)
+			throws BadLocationException {
+		replace(document, search, offsetInSearch, newText, 0);
+	}
+
+	private static void replace(TextDocument document, String search, int offsetInSearch, String newText,
+			int length) throws BadLocationException {
+		int offset = document.getText().indexOf(search) + offsetInSearch;
+		Position start = document.positionAt(offset);
+		Position end = document.positionAt(offset + length);
+		TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(new Range(start, end), length,
+				newText);
+		document.setVersion(document.getVersion() + 1);
+		document.update(Arrays.asList(change));
+	}
+
+	private static XMLDocument assertIncremental(TextDocument document, XMLDocument previousDocument,
+			boolean reparsed) {
+		String previous = toString(previousDocument);
+		XMLDocument expected = parse(document);
+		List<TextChange> changes = document.getChangesSince(previousDocument.getTextVersion());
+		Assert.assertEquals(reparsed,
+				changes != null && XMLParser.reparse(previousDocument, document.getSnapshot(), changes) != null);
+		XMLDocument actual = XMLParser.getInstance().parse(document, previousDocument, null);
+		Assert.assertEquals(document.getVersion(), actual.getTextVersion());
+		Assert.assertEquals(toString(expected), toString(actual));
+		Assert.assertEquals(toString(expected.getTokenStream()), toString(actual.getTokenStream()));
+		// the previous XML document can still be read by other threads
+		Assert.assertNotSame(previousDocument, actual);
+		Assert.assertEquals(previous, toString(previousDocument));
+		assertOwnerDocument(actual, actual);
+		return actual;
+	}
+
+	private static void assertOwnerDocument(Node node, XMLDocument xmlDocument) {
+		if (node != xmlDocument) {
+			Assert.assertSame(xmlDocument, node.getOwnerDocument());
+		}
+		if (node.hasAttributes()) {
+			for (Attr attr : node.getAttributeNodes()) {
+				Assert.assertSame(xmlDocument, attr.getOwnerDocument());
+				if (node.isElement()) {
+					Assert.assertSame(node, attr.getOwnerElement());
+				}
+			}
+		}
+		for (Node child : node.getChildren()) {
+			Assert.assertSame(node, child.getParentNode());
+			assertOwnerDocument(child, xmlDocument);
+		}
+	}
+
+	static String toString(TokenStream tokens) {
+		StringBuilder s = new StringBuilder();
+		Scanner scanner = tokens.createScanner(0, ScannerState.WithinContent);
+		TokenType token = scanner.scan();
+		while (token != TokenType.EOS) {
+			s.append(token).append(" [").append(scanner.getTokenOffset()).append(", ").append(scanner.getTokenEnd())
+					.append("] ").append(scanner.getScannerState()).append("\n");
+			token = scanner.scan();
+		}
+		return s.toString();
+	}
+
+	static String toString(Node node) {
+		StringBuilder s = new StringBuilder();
+		toString(node, s, 0);
+		return s.toString();
+	}
+
+	private static void toString(Node node, StringBuilder s, int indent) {
+		for (int i = 0; i < indent; i++) {
+			s.append("  ");
+		}
+		s.append(node.getClass().getSimpleName());
+		s.append(" [").append(node.start).append(", ").append(node.end).append("] closed=").append(node.closed);
+		if (node.parent != null) {
+			s.append(" parent=").append(node.parent.start);
+		}
+		if (node.isElement()) {
+			Element element = (Element) node;
+			s.append(" tag=").append(element.tag);
+			s.append(" selfClosed=").append(element.selfClosed);
+			s.append(" startTagOpen=").append(element.startTagOpenOffset);
+			s.append(" startTagClose=").append(element.startTagCloseOffset);
+			s.append(" endTagOpen=").append(element.endTagOpenOffset);
+		} else if (node.isComment()) {
+			Comment comment = (Comment) node;
+			s.append(" content=[").append(comment.startContent).append(", ").append(comment.endContent).append("]");
+			s.append(" sameLine=").append(comment.commentSameLineEndTag);
+		} else if (node.isCDATA()) {
+			CDataSection cdata = (CDataSection) node;
+			s.append(" content=[").append(cdata.startContent).append(", ").append(cdata.endContent).append("]");
+		} else if (node.isProcessingInstruction() || node.isProlog()) {
+			ProcessingInstruction pi = (ProcessingInstruction) node;
+			s.append(" target=").append(pi.target);
+			s.append(" content=[").append(pi.startContent).append(", ").append(pi.endContent).append("]");
+			s.append(" endTagOpen=").append(pi.endTagOpenOffset);
+		}
+		if (node.hasAttributes()) {
+			for (Attr attr : node.getAttributeNodes()) {
+				s.append(" ").append(attr.getName()).append("=[").append(attr.getNodeAttrName().start);
+				if (attr.getNodeAttrValue() != null) {
+					s.append(", ").append(attr.getValue()).append(" ").append(attr.getNodeAttrValue().start)
+							.append(", ").append(attr.getNodeAttrValue().end);
+				}
+				s.append("]");
+			}
+		}
+		s.append("\n");
+		for (Node child : node.getChildren()) {
+			toString(child, s, indent + 1);
+		}
+	}
+}
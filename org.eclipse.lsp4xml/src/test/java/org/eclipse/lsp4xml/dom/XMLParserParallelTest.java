@@ -0,0 +1,114 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Parallel parse tests: the XML document must be the same as the XML document
+ * created by a sequential parse.
+ *
+ */
+public class XMLParserParallelTest {
+
+	private static final String ITEMS = "  <item id=\"1\">text</item>\n" + //
+			"  <!-- comment <item> -->\n" + //
+			"  <empty attr='a > b' /> <!-- same line as empty -->\n" + //
+			"  <![CDATA[ </root> ]]>\n" + //
+			"  <?pi content?>\n" + //
+			"  <j:item>\n" + //
+			"    <child xmlns=\"http://child\"><grand-child /></child>\n" + //
+			"  </j:item>\n" + //
+			"  <!-- same line --><br/>text\n";
+
+	@Test
+	public void testWellFormed() {
+		String xml = "<?xml version=\"1.0\"?>\n" + //
+				"<!DOCTYPE root [ <!ELEMENT root ANY> ]>\n" + //
+				"<root xmlns:j=\"http://j\">\n" + //
+				repeat(ITEMS, 50) + //
+				"</root>\n" + //
+				"<!-- after -->";
+		XMLDocument actual = assertParallel(xml, 100);
+		Assert.assertNotNull(actual);
+		Element root = actual.getDocumentElement();
+		Assert.assertEquals(50 * 10, root.getChildren().size());
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			Assert.assertEquals(i, root.getChild(i).getChildIndex());
+		}
+		Element item = (Element) actual.getElementsByTagName("j:item").item(42);
+		Assert.assertEquals("http://j", item.getNamespaceURI());
+		Assert.assertEquals("http://child", ((Element) item.getFirstChild()).getNamespaceURI());
+	}
+
+	@Test
+	public void testMalformed() {
+		String[] malformed = { "<root>\n" + repeat(ITEMS, 20), // unclosed root
+				"<root>\n" + repeat(ITEMS, 20) + "<unclosed>" + repeat(ITEMS, 20) + "</root>",
+				"<root>\n" + repeat(ITEMS, 20) + "</orphan>" + repeat(ITEMS, 20) + "</root>",
+				"<root>\n" + repeat(ITEMS, 20) + "</root>" + repeat(ITEMS, 20),
+				"<root>\n" + repeat(ITEMS, 20) + "<a attr=\"</b>" + repeat(ITEMS, 20) + "</root>",
+				"<root>\n" + repeat(ITEMS, 20) + "<!-- " + repeat(ITEMS, 20) + "</root>",
+				"<root><item>" + repeat(ITEMS, 20) + "</item>" + repeat(ITEMS, 20) + "</root>",
+				repeat(ITEMS, 20) };
+		for (String xml : malformed) {
+			for (int chunkSize = 50; chunkSize < 1000; chunkSize += 150) {
+				assertParallel(xml, chunkSize);
+			}
+		}
+	}
+
+	@Test
+	public void testWithoutTokens() {
+		String xml = "<root>\n" + repeat(ITEMS, 20) + "</root>";
+		XMLDocument actual = XMLParser.parseParallel(xml, new TextDocument(xml, "test.xml"), null, false, 100, null);
+		Assert.assertNotNull(actual);
+		Assert.assertNull(actual.getTokenStream());
+		XMLDocument expected = XMLParser.getInstance().parseCompact(new TextDocument(xml, "test.xml"), null);
+		Assert.assertEquals(XMLParserIncrementalTest.toString(expected), XMLParserIncrementalTest.toString(actual));
+	}
+
+	@Test
+	public void testSplitOffsets() {
+		String xml = "<root><a/><b></b><!-- <c/> --><d x='/>'/><e><f/></e></root>";
+		int[] offsets = TopLevelSplitter.findSplitOffsets(xml, 1);
+		Assert.assertArrayEquals(new int[] { xml.indexOf("<b>"), xml.indexOf("<!--"), xml.indexOf("<e>"),
+				xml.indexOf("</root>") }, offsets);
+		Assert.assertArrayEquals(new int[] { xml.indexOf("<e>") },
+				TopLevelSplitter.findSplitOffsets(xml, xml.indexOf("<e>")));
+	}
+
+	/**
+	 * Parse the given text in parallel and asserts that the XML document, if the
+	 * text can be parsed in parallel, is the same as the sequential XML document.
+	 */
+	private static XMLDocument assertParallel(String xml, int chunkSize) {
+		TextDocument document = new TextDocument(xml, "test.xml");
+		XMLDocument expected = XMLParser.getInstance().parse(document, null);
+		XMLDocument actual = XMLParser.parseParallel(xml, document, null, true, chunkSize, null);
+		if (actual != null) {
+			Assert.assertEquals(XMLParserIncrementalTest.toString(expected), XMLParserIncrementalTest.toString(actual));
+			Assert.assertEquals(XMLParserIncrementalTest.toString(expected.getTokenStream()),
+					XMLParserIncrementalTest.toString(actual.getTokenStream()));
+		}
+		return actual;
+	}
+
+	private static String repeat(String s, int count) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			result.append(s);
+		}
+		return result.toString();
+	}
+}
@@ -347,6 +347,18 @@ public class XMLParserTest {
 		assertDocument("<!-- test -->", comment);
 	}
 
+	@Test
+	public void testCommentSameLineEndTag() {
+		String xml = "<a>\r\n  <b></b> <!-- 1 -->\r\n  <!-- 2 -->\r  <c/><!-- 3 -->\n<!-- 4 --></a><!-- 5 -->";
+		XMLDocument document = XMLParser.getInstance().parse(xml, "uri", null);
+		Node a = document.getChild(0);
+		Assert.assertTrue(((Comment) a.getChild(1)).isCommentSameLineEndTag());
+		Assert.assertFalse(((Comment) a.getChild(2)).isCommentSameLineEndTag());
+		Assert.assertTrue(((Comment) a.getChild(4)).isCommentSameLineEndTag());
+		Assert.assertFalse(((Comment) a.getChild(5)).isCommentSameLineEndTag());
+		Assert.assertTrue(((Comment) document.getChild(1)).isCommentSameLineEndTag());
+	}
+
 	@Test
 	public void testContentTextHasTag() {
 		Node textNode = createTextNode("  eek  ", 6, 13, true);
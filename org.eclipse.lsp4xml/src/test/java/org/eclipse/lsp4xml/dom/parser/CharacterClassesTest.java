@@ -0,0 +1,65 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Character classes tests: the character classes must match the same
+ * characters as the regex used before by the scanner.
+ *
+ */
+public class CharacterClassesTest {
+
+	@Test
+	public void testElementName() {
+		assertSameClass(Pattern.compile("[_:\\w]"), CharacterClasses.ELEMENT_NAME_START);
+		assertSameClass(Pattern.compile("[_:\\w-.\\d]"), CharacterClasses.ELEMENT_NAME_CHAR);
+	}
+
+	@Test
+	public void testAttributeName() {
+		assertSameClass(Pattern.compile("[^\\s\"'<>/=\\x00-\\x0F\\x7F\\x80-\\x9F]"),
+				CharacterClasses.ATTRIBUTE_NAME_CHAR);
+	}
+
+	@Test
+	public void testAttributeValue() {
+		assertSameClass(Pattern.compile("[^\\s\"'`=<>\\/]"), CharacterClasses.ATTRIBUTE_VALUE_CHAR);
+	}
+
+	@Test
+	public void testPIName() {
+		assertSameClass(Pattern.compile("[a-zA-Z0-9]"), CharacterClasses.PI_NAME_CHAR);
+	}
+
+	@Test
+	public void testWhitespace() {
+		assertSameClass(Pattern.compile("[ \\t\\n\\f\\r]"), CharacterClasses.WHITESPACE);
+		Assert.assertFalse(CharacterClasses.WHITESPACE.test(-1));
+		Assert.assertFalse(CharacterClasses.NOT_WHITESPACE.test(' '));
+		Assert.assertTrue(CharacterClasses.NOT_WHITESPACE.test('a'));
+	}
+
+	private static void assertSameClass(Pattern regex, IntPredicate characterClass) {
+		for (char ch = 0; ch < Character.MAX_VALUE; ch++) {
+			if (Character.isSurrogate(ch)) {
+				continue;
+			}
+			Assert.assertEquals("Character " + (int) ch, regex.matcher(String.valueOf(ch)).matches(),
+					characterClass.test(ch));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.lsp4xml.commons.Rope;
+import org.eclipse.lsp4xml.dom.Element;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Symbol table tests.
+ *
+ */
+public class SymbolTableTest {
+
+	@Test
+	public void testIntern() {
+		SymbolTable symbols = new SymbolTable(100);
+		String beans = symbols.intern("<beans>", 1, 6);
+		Assert.assertEquals("beans", beans);
+		Assert.assertSame(beans, symbols.intern(new StringBuilder("<beans/>"), 1, 6));
+		Assert.assertSame(beans, symbols.intern(Rope.of("<beans>"), 1, 6));
+		Assert.assertSame(beans, symbols.intern(new String("beans")));
+		Assert.assertNotSame(beans, symbols.intern("bean"));
+		Assert.assertEquals(2, symbols.size());
+		Assert.assertNull(symbols.intern(null));
+	}
+
+	@Test
+	public void testRehash() {
+		SymbolTable symbols = new SymbolTable(100_000);
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			names.add(symbols.intern("name" + i));
+		}
+		for (int i = 0; i < 10_000; i++) {
+			Assert.assertSame(names.get(i), symbols.intern("name" + i));
+		}
+		Assert.assertEquals(10_000, symbols.size());
+	}
+
+	@Test
+	public void testMaxSymbols() {
+		SymbolTable symbols = new SymbolTable(1);
+		String a = symbols.intern("a");
+		Assert.assertSame(a, symbols.intern(new String("a")));
+		// the table is full
+		String b = symbols.intern("b");
+		Assert.assertEquals("b", b);
+		Assert.assertNotSame(b, symbols.intern(new String("b")));
+		Assert.assertEquals(1, symbols.size());
+	}
+
+	@Test
+	public void testConcurrentIntern() throws Exception {
+		SymbolTable symbols = new SymbolTable(100_000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String[]>> results = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				results.add(executor.submit(() -> {
+					String[] names = new String[5_000];
+					for (int i = 0; i < names.length; i++) {
+						names[i] = symbols.intern(new String("name" + i));
+					}
+					return names;
+				}));
+			}
+			String[] expected = results.get(0).get();
+			for (Future<String[]> result : results) {
+				String[] actual = result.get();
+				for (int i = 0; i < expected.length; i++) {
+					Assert.assertSame(expected[i], actual[i]);
+				}
+			}
+			Assert.assertEquals(5_000, symbols.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testNamesAreSharedByDocuments() {
+		XMLDocument document1 = XMLParser.getInstance().parse("<beans><property name=\"a\" /></beans>", "a.xml",
+				null);
+		XMLDocument document2 = XMLParser.getInstance().parse("<beans>\n  <property name=\"b\"/>\n</beans>",
+				"b.xml", null);
+		Element beans1 = document1.getDocumentElement();
+		Element beans2 = document2.getDocumentElement();
+		Assert.assertSame(beans1.getTagName(), beans2.getTagName());
+		Element property1 = (Element) beans1.getFirstChild();
+		Element property2 = (Element) beans2.getFirstChild();
+		Assert.assertSame(property1.getTagName(), property2.getTagName());
+		Assert.assertSame(property1.getAttributeNodes().get(0).getName(),
+				property2.getAttributeNodes().get(0).getName());
+		Assert.assertTrue(beans1.isSameTag(beans2.getTagName()));
+		Assert.assertTrue(beans1.isSameTag("beans"));
+		Assert.assertFalse(beans1.isSameTag("property"));
+
+		// a tag which is not in lower case is not the same tag as itself
+		Element mixedCase = XMLParser.getInstance().parse("<Beans/>", "c.xml", null).getDocumentElement();
+		Assert.assertFalse(mixedCase.isSameTag(mixedCase.getTagName()));
+		Assert.assertTrue(mixedCase.isSameTag("beans"));
+	}
+}
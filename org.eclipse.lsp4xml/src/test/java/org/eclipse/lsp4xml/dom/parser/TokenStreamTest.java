@@ -0,0 +1,99 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Token stream tests.
+ *
+ */
+public class TokenStreamTest {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n" + //
+			"<!DOCTYPE root>\n" + //
+			"<!-- comment -->\n" + //
+			"<root a=\"1\" b='&amp;' c=d>\n" + //
+			"  <item>text &lt; </item>\n" + //
+			"  <![CDATA[data]]>\n" + //
+			"  <?pi content?>\n" + //
+			"  <empty/>\n" + //
+			"  <unclosed attr=\n" + //
+			"</root>";
+
+	@Test
+	public void testReplay() {
+		TokenStream tokens = record(XML);
+		Assert.assertEquals(XML.length(), tokens.getTokenEnd(tokens.size() - 1));
+		assertSameTokens(XMLScanner.createScanner(XML), tokens.createScanner(0, ScannerState.WithinContent));
+	}
+
+	@Test
+	public void testReplayFromOffset() {
+		TokenStream tokens = record(XML);
+		int replayed = 0;
+		for (int offset = 0; offset <= XML.length(); offset++) {
+			Scanner scanner = tokens.createScanner(offset, ScannerState.WithinContent);
+			if (scanner != null) {
+				assertSameTokens(XMLScanner.createScanner(XML, offset), scanner);
+				replayed++;
+			}
+		}
+		// start of the prolog, the doctype, the comment, the elements, etc
+		Assert.assertTrue(replayed > 10);
+
+		// no token starts in the middle of a tag name
+		Assert.assertNull(tokens.createScanner(XML.indexOf("root") + 1, ScannerState.WithinContent));
+		// the scanner state doesn't match
+		Assert.assertNull(tokens.createScanner(XML.indexOf("<root"), ScannerState.WithinTag));
+		Assert.assertNotNull(tokens.createScanner(XML.indexOf("a=\"1\""), ScannerState.WithinTag));
+	}
+
+	@Test
+	public void testReplace() {
+		String oldElement = "<item>text &lt; </item>";
+		String newElement = "<item><new attr=\"value\"/>text</item>";
+		int start = XML.indexOf(oldElement);
+		String newXML = XML.substring(0, start) + newElement + XML.substring(start + oldElement.length());
+
+		TokenStream elementTokens = new TokenStream(newXML);
+		Scanner scanner = elementTokens.record(XMLScanner.createScanner(newXML, start));
+		while (scanner.scan() != TokenType.EndTagClose) {
+		}
+		TokenStream tokens = record(XML).replace(start, start + oldElement.length(), elementTokens);
+
+		Assert.assertSame(newXML, tokens.getText());
+		assertSameTokens(XMLScanner.createScanner(newXML), tokens.createScanner(0, ScannerState.WithinContent));
+	}
+
+	private static TokenStream record(String text) {
+		TokenStream tokens = new TokenStream(text);
+		Scanner scanner = tokens.record(XMLScanner.createScanner(text));
+		while (scanner.scan() != TokenType.EOS) {
+		}
+		return tokens;
+	}
+
+	private static void assertSameTokens(Scanner expected, Scanner actual) {
+		TokenType token;
+		do {
+			token = expected.scan();
+			Assert.assertEquals(token, actual.scan());
+			Assert.assertEquals(expected.getTokenOffset(), actual.getTokenOffset());
+			Assert.assertEquals(expected.getTokenEnd(), actual.getTokenEnd());
+			Assert.assertEquals(expected.getTokenText(), actual.getTokenText());
+			Assert.assertEquals(expected.getScannerState(), actual.getScannerState());
+			Assert.assertEquals(expected.isTokenWhitespaceOnly(), actual.isTokenWhitespaceOnly());
+			Assert.assertEquals(expected.hasTokenEntityReference(), actual.hasTokenEntityReference());
+		} while (token != TokenType.EOS);
+	}
+}
@@ -11,6 +11,8 @@
 package org.eclipse.lsp4xml.dom.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.eclipse.lsp4xml.dom.parser.Scanner;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
@@ -833,6 +835,65 @@ public class XMLScannerTest {
 		assertOffsetAndToken(19, TokenType.EndTag);
 		assertOffsetAndToken(20, TokenType.EndTagClose);
 	}
+	@Test
+	public void testContentFlags() {
+		scanner = XMLScanner.createScanner("<a> \r\n\t</a><b>x &amp; y</b><c>text</c>");
+		assertOffsetAndToken(0, TokenType.StartTagOpen);
+		assertOffsetAndToken(1, TokenType.StartTag);
+		assertOffsetAndToken(2, TokenType.StartTagClose);
+		assertOffsetAndToken(3, TokenType.Content);
+		assertTrue(scanner.isTokenWhitespaceOnly());
+		assertFalse(scanner.hasTokenEntityReference());
+		assertOffsetAndToken(7, TokenType.EndTagOpen);
+		assertFalse(scanner.isTokenWhitespaceOnly());
+		assertOffsetAndToken(9, TokenType.EndTag);
+		assertOffsetAndToken(10, TokenType.EndTagClose);
+		assertOffsetAndToken(11, TokenType.StartTagOpen);
+		assertOffsetAndToken(12, TokenType.StartTag);
+		assertOffsetAndToken(13, TokenType.StartTagClose);
+		assertOffsetAndToken(14, TokenType.Content, "x &amp; y");
+		assertFalse(scanner.isTokenWhitespaceOnly());
+		assertTrue(scanner.hasTokenEntityReference());
+		assertOffsetAndToken(23, TokenType.EndTagOpen);
+		assertFalse(scanner.hasTokenEntityReference());
+		assertOffsetAndToken(25, TokenType.EndTag);
+		assertOffsetAndToken(26, TokenType.EndTagClose);
+		assertOffsetAndToken(27, TokenType.StartTagOpen);
+		assertOffsetAndToken(28, TokenType.StartTag);
+		assertOffsetAndToken(29, TokenType.StartTagClose);
+		assertOffsetAndToken(30, TokenType.Content);
+		assertFalse(scanner.isTokenWhitespaceOnly());
+		assertFalse(scanner.hasTokenEntityReference());
+	}
+
+	@Test
+	public void testAttributeValueFlags() {
+		scanner = XMLScanner.createScanner("<a b=\"&lt;\" c=\"d\">");
+		assertOffsetAndToken(0, TokenType.StartTagOpen);
+		assertOffsetAndToken(1, TokenType.StartTag);
+		assertOffsetAndToken(2, TokenType.Whitespace);
+		assertOffsetAndToken(3, TokenType.AttributeName);
+		assertOffsetAndToken(4, TokenType.DelimiterAssign);
+		assertOffsetAndToken(5, TokenType.AttributeValue, "\"&lt;\"");
+		assertTrue(scanner.hasTokenEntityReference());
+		assertOffsetAndToken(11, TokenType.Whitespace);
+		assertOffsetAndToken(12, TokenType.AttributeName);
+		assertOffsetAndToken(13, TokenType.DelimiterAssign);
+		assertOffsetAndToken(14, TokenType.AttributeValue, "\"d\"");
+		assertFalse(scanner.hasTokenEntityReference());
+	}
+
+	@Test
+	public void testTokenTextEqualsIgnoreCase() {
+		scanner = XMLScanner.createScanner("<Hello>");
+		assertOffsetAndToken(0, TokenType.StartTagOpen);
+		assertOffsetAndToken(1, TokenType.StartTag);
+		assertTrue(scanner.isTokenTextEqualsIgnoreCase("hello"));
+		assertTrue(scanner.isTokenTextEqualsIgnoreCase("Hello"));
+		assertFalse(scanner.isTokenTextEqualsIgnoreCase("hell"));
+		assertFalse(scanner.isTokenTextEqualsIgnoreCase(null));
+	}
+
   //----------Tools-------------------------------------------------------
 
   public void assertOffsetAndToken(int tokenOffset, TokenType tokenType) {
@@ -0,0 +1,304 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel;
+
+import static org.eclipse.lsp4xml.XMLAssert.d;
+import static org.eclipse.lsp4xml.XMLAssert.r;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4xml.XMLAssert;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.XMLSchemaErrorCode;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.CMValidator;
+import org.eclipse.lsp4xml.services.XMLLanguageService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test with {@link CMValidator}, the diagnostics must be the same as the
+ * diagnostics of Xerces (see {@link XMLSchemaDiagnosticsTest}).
+ *
+ */
+public class CMValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void cvc_complex_type_4() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" + //
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\" xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans-3.0.xsd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\r\n"
+				+ //
+				"	<bean>\r\n" + //
+				"		<property></property>\r\n" + //
+				"	</bean>\r\n" + //
+				"</beans>";
+		testFastDiagnosticsFor(xml, d(3, 3, 3, 11, XMLSchemaErrorCode.cvc_complex_type_4));
+	}
+
+	@Test
+	public void cvc_complex_type_2_4_a() throws Exception {
+		String xml = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\"\r\n" + //
+				"	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\r\n" + //
+				"	xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\r\n"
+				+ //
+				"	<XXX></XXX>\r\n" + // <- error
+				"</project>";
+		testFastDiagnosticsFor(xml, d(3, 2, 3, 5, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+	}
+
+	@Test
+	public void cvc_complex_type_3_2_2() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" + //
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\" xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans-3.0.xsd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\r\n"
+				+ //
+				"	<bean XXXX=\"\" >\r\n" + // <- error
+				"	</bean>              \r\n" + //
+				"</beans>";
+		testFastDiagnosticsFor(xml, d(2, 7, 2, 11, XMLSchemaErrorCode.cvc_complex_type_3_2_2));
+	}
+
+	@Test
+	public void cvc_enumeration_validOnAttribute() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" + //
+				"<beans xmlns=\"http://www.springframework.org/schema/beans\" xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans-3.0.xsd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\r\n"
+				+ //
+				"	<bean autowire=\"ERROR\" />\r\n" + // <- error
+				"</beans>";
+		// Xerces reports cvc-attribute.3 too, with the name of the attribute type
+		testFastDiagnosticsFor(xml, d(2, 16, 2, 23, XMLSchemaErrorCode.cvc_enumeration_valid));
+	}
+
+	@Test
+	public void cvc_enumeration_validOnText() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" + //
+				"<team\r\n" + //
+				"     xmlns=\"team_namespace\"\r\n" + //
+				"     xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\r\n" + //
+				"     xsi:schemaLocation=\"team_namespace src/test/resources/xsd/team.xsd \">\r\n" + //
+				"	<member\r\n" + //
+				"	       name=\"John\"\r\n" + //
+				"	       badgeNumber=\"1\"\r\n" + //
+				"	       role=\"architect\">\r\n" + //
+				"		<skills>\r\n" + //
+				"			<skill>XXXXX</skill>\r\n" + // <- error
+				"		</skills> \r\n" + //
+				"		<focus>\r\n" + //
+				"			<server\r\n" + //
+				"			       language=\"Java\" />\r\n" + //
+				"		</focus>\r\n" + //
+				"	</member>\r\n" + //
+				"</team>";
+		testFastDiagnosticsFor(xml, d(10, 10, 10, 15, XMLSchemaErrorCode.cvc_enumeration_valid),
+				d(10, 10, 10, 15, XMLSchemaErrorCode.cvc_type_3_1_3));
+	}
+
+	@Test
+	public void validDocument() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+				+ "<invoice xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\r\n"
+				+ " xsi:noNamespaceSchemaLocation=\"src/test/resources/xsd/invoice.xsd\">\r\n" + //
+				"  <date>2017-11-30</date>\r\n" + //
+				"  <number>0</number>\r\n" + //
+				"  <products>\r\n" + //
+				"  	<product price=\"1\" description=\"\"/>\r\n" + //
+				"  </products>\r\n" + //
+				"  <payments>\r\n" + //
+				"  	<payment amount=\"1\" method=\"credit\"/>\r\n" + //
+				"  </payments>\r\n" + //
+				"</invoice>";
+		testFastDiagnosticsFor(xml);
+	}
+
+	@Test
+	public void cvc_elt_1_a() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+				+ "<XXX xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\r\n"
+				+ " xsi:noNamespaceSchemaLocation=\"src/test/resources/xsd/invoice.xsd\" />";
+		testFastDiagnosticsFor(xml, d(1, 1, 1, 4, XMLSchemaErrorCode.cvc_elt_1_a));
+	}
+
+	@Test
+	public void constraintsCheckedByXercesAreNotReported() throws Exception {
+		// attribute on a simple type (cvc-type.3.1.1)
+		String xml = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\"\r\n" + //
+				"	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\r\n" + //
+				"	xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\r\n"
+				+ //
+				"<modelVersion XXXX=\"\" ></modelVersion>" + "</project>";
+		testFastDiagnosticsFor(xml);
+
+		// element in an element without element content (cvc-complex-type.2.4.d)
+		xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+				+ "<beans xmlns=\"http://www.springframework.org/schema/beans\" " + //
+				"xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans-3.0.xsd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\r\n"
+				+ //
+				"	<bean>\r\n" + //
+				"		<description>\r\n" + //
+				"			<XXXX />\r\n" + //
+				"		</description>\r\n" + //
+				"	</bean>\r\n" + //
+				"</beans>";
+		testFastDiagnosticsFor(xml);
+	}
+
+	@Test
+	public void wildcardsAndBoolean() throws Exception {
+		File xsd = createSchema("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\">\r\n" + //
+				"    <xs:complexType>\r\n" + //
+				"      <xs:sequence>\r\n" + //
+				"        <xs:element name=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\">\r\n" + //
+				"          <xs:complexType>\r\n" + //
+				"            <xs:sequence>\r\n" + //
+				"              <xs:any processContents=\"skip\" minOccurs=\"0\" maxOccurs=\"unbounded\" />\r\n" + //
+				"            </xs:sequence>\r\n" + //
+				"            <xs:attribute name=\"enabled\" type=\"xs:boolean\" />\r\n" + //
+				"            <xs:anyAttribute processContents=\"skip\" />\r\n" + //
+				"          </xs:complexType>\r\n" + //
+				"        </xs:element>\r\n" + //
+				"      </xs:sequence>\r\n" + //
+				"    </xs:complexType>\r\n" + //
+				"  </xs:element>\r\n" + //
+				"</xs:schema>");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\">\r\n" + //
+				"  <item enabled=\"1\" other=\"\"><any><thing /></any></item>\r\n" + //
+				"  <XXX />\r\n" + // <- error
+				"</root>";
+		testFastDiagnosticsFor(xml, d(2, 3, 2, 6, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+	}
+
+	@Test
+	public void requiredAttributesAreMatchedWithTheirNamespace() throws Exception {
+		File xsd = createSchema("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:test\">\r\n" + //
+				"  <xs:element name=\"root\">\r\n" + //
+				"    <xs:complexType>\r\n" + //
+				"      <xs:attribute name=\"id\" type=\"xs:string\" use=\"required\" />\r\n" + //
+				"      <xs:attribute name=\"lang\" type=\"xs:string\" use=\"required\" form=\"qualified\" />\r\n" + //
+				"    </xs:complexType>\r\n" + //
+				"  </xs:element>\r\n" + //
+				"</xs:schema>");
+		String root = "<t:root xmlns:t=\"urn:test\" xmlns:o=\"urn:other\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"urn:test "
+				+ xsd.toURI().toString() + "\"";
+		testFastDiagnosticsFor(root + " id=\"1\" t:lang=\"en\" />");
+		// the qualified attribute o:id is not the unqualified attribute id
+		testFastDiagnosticsFor(root + " o:id=\"1\" t:lang=\"en\" />",
+				d(0, 1, 0, 7, XMLSchemaErrorCode.cvc_complex_type_4));
+		// the unqualified attribute lang is not the qualified attribute t:lang
+		testFastDiagnosticsFor(root + " id=\"1\" lang=\"en\" />",
+				d(0, 1, 0, 7, XMLSchemaErrorCode.cvc_complex_type_4));
+	}
+
+	@Test
+	public void modifiedSchemaIsLoadedAgain() throws Exception {
+		File xsd = createSchema("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+		testFastDiagnosticsFor(xml);
+
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"other\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		xsd.setLastModified(xsd.lastModified() + 2000);
+		testFastDiagnosticsFor(xml, d(0, 1, 0, 5, XMLSchemaErrorCode.cvc_elt_1_a));
+	}
+
+	@Test
+	public void previousDiagnosticsWhichAreNotComputedAgainAreKept() throws Exception {
+		File xsd = createSchema("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\">\r\n" + //
+				"    <xs:complexType>\r\n" + //
+				"      <xs:sequence>\r\n" + //
+				"        <xs:element name=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\">\r\n" + //
+				"          <xs:complexType>\r\n" + //
+				"            <xs:attribute name=\"id\" type=\"xs:string\" use=\"required\" />\r\n" + //
+				"            <xs:attribute name=\"count\" type=\"xs:int\" />\r\n" + //
+				"          </xs:complexType>\r\n" + //
+				"        </xs:element>\r\n" + //
+				"      </xs:sequence>\r\n" + //
+				"    </xs:complexType>\r\n" + //
+				"  </xs:element>\r\n" + //
+				"</xs:schema>");
+		// the full validation of '<item count="x" />' has reported the missing id and
+		// the invalid count
+		List<Diagnostic> previousDiagnostics = Arrays.asList(
+				d(1, 3, 1, 7, XMLSchemaErrorCode.cvc_complex_type_4),
+				d(1, 14, 1, 17, XMLSchemaErrorCode.cvc_datatype_valid_1_2_1),
+				d(1, 14, 1, 17, XMLSchemaErrorCode.cvc_attribute_3));
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\">\r\n" + //
+				"  <item id=\"1\" count=\"x\" />\r\n" + // <- the id has been added
+				"  <XXX />\r\n" + // <- error
+				"</root>";
+		testFastDiagnosticsFor(xml, previousDiagnostics, //
+				d(1, 14, 1, 17, XMLSchemaErrorCode.cvc_datatype_valid_1_2_1),
+				d(1, 14, 1, 17, XMLSchemaErrorCode.cvc_attribute_3),
+				d(2, 3, 2, 6, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+	}
+
+	@Test
+	public void previousDiagnosticsFollowTheChanges() {
+		XMLLanguageService xmlLanguageService = new XMLLanguageService();
+		List<Diagnostic> previousDiagnostics = Arrays.asList(
+				d(1, 3, 1, 7, XMLSchemaErrorCode.cvc_complex_type_4),
+				d(2, 14, 2, 17, XMLSchemaErrorCode.cvc_attribute_3),
+				d(4, 3, 4, 6, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+		// the invalid value of line 2 is replaced with 2 lines
+		List<Diagnostic> diagnostics = xmlLanguageService.updateDiagnostics(previousDiagnostics,
+				Collections.singletonList(new TextDocumentContentChangeEvent(r(2, 14, 2, 17), 3, "1\r\n2")));
+		XMLAssert.assertDiagnostics(diagnostics, //
+				d(1, 3, 1, 7, XMLSchemaErrorCode.cvc_complex_type_4),
+				d(5, 3, 5, 6, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+
+		// lines 1 to 3 are removed
+		diagnostics = xmlLanguageService.updateDiagnostics(diagnostics,
+				Collections.singletonList(new TextDocumentContentChangeEvent(r(1, 0, 4, 0), 0, "")));
+		XMLAssert.assertDiagnostics(diagnostics, //
+				d(2, 3, 2, 6, XMLSchemaErrorCode.cvc_complex_type_2_4_a));
+
+		// the whole text is replaced
+		diagnostics = xmlLanguageService.updateDiagnostics(diagnostics,
+				Collections.singletonList(new TextDocumentContentChangeEvent("<root />")));
+		XMLAssert.assertDiagnostics(diagnostics);
+	}
+
+	private File createSchema(String content) throws IOException {
+		File xsd = new File(folder.getRoot(), "test.xsd");
+		write(xsd, content);
+		return xsd;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void testFastDiagnosticsFor(String xml, Diagnostic... expected) {
+		XMLAssert.testFastDiagnosticsFor(xml, "src/test/resources/catalogs/catalog.xml", expected);
+	}
+
+	private static void testFastDiagnosticsFor(String xml, List<Diagnostic> previousDiagnostics,
+			Diagnostic... expected) {
+		XMLAssert.testFastDiagnosticsFor(xml, "src/test/resources/catalogs/catalog.xml", previousDiagnostics,
+				expected);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.CMDocument;
+import org.eclipse.lsp4xml.extensions.contentmodel.model.ContentModelManager;
+import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test with the cache of the content model documents loaded from local files.
+ *
+ */
+public class ContentModelManagerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ContentModelManager contentModelManager;
+
+	@Before
+	public void initializeContentModelManager() {
+		contentModelManager = new ContentModelManager(new URIResolverExtensionManager());
+	}
+
+	@Test
+	public void localDocumentIsCached() throws Exception {
+		XMLDocument document = createDocument("test.xsd");
+		CMDocument cmDocument = findCMDocument(document);
+		assertSame(cmDocument, findCMDocument(document));
+
+		contentModelManager.clearLocalCache();
+		assertNotSame(cmDocument, findCMDocument(document));
+	}
+
+	@Test
+	public void leastRecentlyUsedLocalDocumentIsEvicted() throws Exception {
+		XMLDocument document = createDocument("test.xsd");
+		CMDocument cmDocument = findCMDocument(document);
+		for (int i = 0; i < ContentModelManager.MAX_LOCAL_CM_DOCUMENTS; i++) {
+			findCMDocument(createDocument("test" + i + ".xsd"));
+		}
+		assertNotSame(cmDocument, findCMDocument(document));
+	}
+
+	private CMDocument findCMDocument(XMLDocument document) {
+		CMDocument cmDocument = contentModelManager.findCMDocument(document, null);
+		assertNotNull(cmDocument);
+		return cmDocument;
+	}
+
+	private XMLDocument createDocument(String fileName) throws IOException {
+		File xsd = new File(folder.getRoot(), fileName);
+		Files.write(xsd.toPath(), ("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>").getBytes(StandardCharsets.UTF_8));
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+		return XMLParser.getInstance().parse(xml, "test.xml", null);
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLGrammarCache;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLValidator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test with {@link XMLGrammarCache}.
+ *
+ */
+public class XMLGrammarCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void noNamespaceSchemasAreNotInConflict() {
+		XMLGrammarCache grammarCache = new XMLGrammarCache();
+		String invoiceXSD = new File("src/test/resources/xsd/invoice.xsd").toURI().toString();
+		String resourcesXSD = new File("src/test/resources/xsd/resources.xsd").toURI().toString();
+		String invoice = "<invoice xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ invoiceXSD + "\">\r\n" + //
+				"  <date>2017-11-30</date>\r\n" + //
+				"  <number>5235</number>\r\n" + //
+				"  <products>\r\n" + //
+				"    <product description=\"Doc\" price=\"1\" />\r\n" + //
+				"  </products>\r\n" + //
+				"  <payments>\r\n" + //
+				"    <payment method=\"credit\" amount=\"1\" />\r\n" + //
+				"  </payments>\r\n" + //
+				"</invoice>";
+		String resources = "<resources variant=\"0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ resourcesXSD + "\">\r\n" + //
+				"  <resource name=\"res00\" />\r\n" + //
+				"</resources>";
+
+		Assert.assertEquals(0, validate(invoice, grammarCache).size());
+		Assert.assertEquals(1, grammarCache.size());
+		Assert.assertEquals(0, validate(resources, grammarCache).size());
+		Assert.assertEquals(2, grammarCache.size());
+
+		long hits = grammarCache.getHitCount();
+		Assert.assertEquals(0, validate(invoice, grammarCache).size());
+		Assert.assertEquals(0, validate(resources, grammarCache).size());
+		Assert.assertEquals(hits + 2, grammarCache.getHitCount());
+
+		// the instance errors are reported with a cached grammar
+		List<Diagnostic> diagnostics = validate(resources.replace(" name=\"res00\"", ""), grammarCache);
+		Assert.assertEquals(1, diagnostics.size());
+		Assert.assertEquals("cvc-complex-type.4", diagnostics.get(0).getCode());
+	}
+
+	@Test
+	public void schemaWithErrorsIsNotCached() throws IOException {
+		XMLGrammarCache grammarCache = new XMLGrammarCache();
+		File xsd = folder.newFile("error.xsd");
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\" type=\"unknownType\" />\r\n" + //
+				"</xs:schema>");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+
+		int errors = validate(xml, grammarCache).size();
+		Assert.assertTrue(errors > 0);
+		Assert.assertEquals(0, grammarCache.size());
+		// the errors of the XML Schema are reported again
+		Assert.assertEquals(errors, validate(xml, grammarCache).size());
+	}
+
+	@Test
+	public void modifiedSchemaIsRecompiled() throws IOException {
+		XMLGrammarCache grammarCache = new XMLGrammarCache();
+		File xsd = folder.newFile("root.xsd");
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+		Assert.assertEquals(0, validate(xml, grammarCache).size());
+		Assert.assertEquals(1, grammarCache.size());
+
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"other\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		xsd.setLastModified(xsd.lastModified() + 2000);
+		List<Diagnostic> diagnostics = validate(xml, grammarCache);
+		Assert.assertEquals(1, grammarCache.getEvictionCount());
+		Assert.assertEquals(1, diagnostics.size());
+		Assert.assertEquals("cvc-elt.1.a", diagnostics.get(0).getCode());
+	}
+
+	@Test
+	public void schemaOfPreviousDocumentIsNotRetrieved() throws IOException {
+		// the validations of the thread reuse the same Xerces parser
+		XMLGrammarCache grammarCache = new XMLGrammarCache();
+		File rootXSD = folder.newFile("root.xsd");
+		write(rootXSD, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"root\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		File otherXSD = folder.newFile("other.xsd");
+		write(otherXSD, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"other\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ rootXSD.toURI().toString() + "\" />";
+		Assert.assertEquals(0, validate(xml, grammarCache).size());
+
+		xml = "<other xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ otherXSD.toURI().toString() + "\" />";
+		Assert.assertEquals(0, validate(xml, grammarCache).size());
+		Assert.assertEquals(2, grammarCache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedGrammarIsEvicted() throws IOException {
+		XMLGrammarCache grammarCache = new XMLGrammarCache(2);
+		String root = createXML("root", folder.newFile("root.xsd"));
+		String first = createXML("first", folder.newFile("first.xsd"));
+		String second = createXML("second", folder.newFile("second.xsd"));
+
+		Assert.assertEquals(0, validate(root, grammarCache).size());
+		Assert.assertEquals(0, validate(first, grammarCache).size());
+		// the grammar of root becomes the most recently used
+		Assert.assertEquals(0, validate(root, grammarCache).size());
+		Assert.assertEquals(0, validate(second, grammarCache).size());
+		Assert.assertEquals(2, grammarCache.size());
+		Assert.assertEquals(1, grammarCache.getEvictionCount());
+
+		long misses = grammarCache.getMissCount();
+		Assert.assertEquals(0, validate(root, grammarCache).size());
+		Assert.assertEquals(misses, grammarCache.getMissCount());
+		Assert.assertEquals(0, validate(first, grammarCache).size());
+		Assert.assertTrue(grammarCache.getMissCount() > misses);
+	}
+
+	private static String createXML(String element, File xsd) throws IOException {
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"" + element + "\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		return "<" + element + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+	}
+
+	private static List<Diagnostic> validate(String xml, XMLGrammarCache grammarCache) {
+		XMLDocument document = XMLParser.getInstance().parse(xml, "file:///test.xml", null);
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		XMLValidator.doDiagnostics(document, null, diagnostics, null, grammarCache, () -> {
+		});
+		return diagnostics;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -134,6 +134,21 @@ public class XMLSyntaxDiagnosticsTest {
 		testDiagnosticsFor(xml, d(0, 20, 0, 22, XMLSyntaxErrorCode.EncodingDeclRequired));
 	}
 
+	@Test
+	public void testEncodingDeclInvalid() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"1f!\"?>\r\n<a>\u00e9</a>";
+		testDiagnosticsFor(xml, d(0, 29, 0, 34, XMLSyntaxErrorCode.EncodingDeclInvalid));
+	}
+
+	@Test
+	public void testDeclaredEncodingIsNotUsedToDecodeText() throws Exception {
+		// the text has already been decoded by the client
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-16\"?>\r\n<a>\u00e9</a>";
+		testDiagnosticsFor(xml);
+		xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\r\n<a>\u00e9</b>";
+		testDiagnosticsFor(xml, d(1, 6, 1, 6, XMLSyntaxErrorCode.ETagRequired));
+	}
+
 	@Test
 	public void testEqRequiredInAttribute() throws Exception {
 		String xml = "<a Ccy>123.456</a>";
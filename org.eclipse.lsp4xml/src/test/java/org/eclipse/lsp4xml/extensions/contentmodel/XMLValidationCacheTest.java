@@ -0,0 +1,131 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.contentmodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLGrammarCache;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLValidationCache;
+import org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics.XMLValidator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test with {@link XMLValidationCache}.
+ *
+ */
+public class XMLValidationCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final XMLGrammarCache grammarCache = new XMLGrammarCache();
+
+	@Test
+	public void sameTextIsNotValidatedAgain() throws IOException {
+		XMLValidationCache validationCache = new XMLValidationCache();
+		File xsd = createSchema("root.xsd", "root");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\"><child /></root>";
+
+		List<Diagnostic> diagnostics = validate(xml, "file:///test.xml", validationCache);
+		Assert.assertEquals(1, diagnostics.size());
+		Assert.assertEquals("cvc-type.3.1.2", diagnostics.get(0).getCode());
+		Assert.assertEquals(0, validationCache.getHitCount());
+		Assert.assertEquals(1, validationCache.getMissCount());
+
+		// the same text is validated again (ex : undo)
+		Assert.assertEquals(diagnostics, validate(xml, "file:///test.xml", validationCache));
+		Assert.assertEquals(1, validationCache.getHitCount());
+
+		// same text with another URI
+		Assert.assertEquals(diagnostics.size(), validate(xml, "file:///other.xml", validationCache).size());
+		Assert.assertEquals(1, validationCache.getHitCount());
+		Assert.assertEquals(2, validationCache.size());
+	}
+
+	@Test
+	public void modifiedSchemaInvalidatesValidation() throws IOException {
+		XMLValidationCache validationCache = new XMLValidationCache();
+		File xsd = createSchema("root.xsd", "root");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\" />";
+		Assert.assertEquals(0, validate(xml, "file:///test.xml", validationCache).size());
+
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"other\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		xsd.setLastModified(xsd.lastModified() + 2000);
+		List<Diagnostic> diagnostics = validate(xml, "file:///test.xml", validationCache);
+		Assert.assertEquals(0, validationCache.getHitCount());
+		Assert.assertEquals(1, diagnostics.size());
+		Assert.assertEquals("cvc-elt.1.a", diagnostics.get(0).getCode());
+	}
+
+	@Test
+	public void createdSchemaInvalidatesValidation() throws IOException {
+		XMLValidationCache validationCache = new XMLValidationCache();
+		File xsd = new File(folder.getRoot(), "root.xsd");
+		String xml = "<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+				+ xsd.toURI().toString() + "\"><child /></root>";
+		int errors = validate(xml, "file:///test.xml", validationCache).size();
+
+		createSchema("root.xsd", "root");
+		List<Diagnostic> diagnostics = validate(xml, "file:///test.xml", validationCache);
+		Assert.assertEquals(0, validationCache.getHitCount());
+		Assert.assertNotEquals(errors, diagnostics.size());
+		Assert.assertEquals("cvc-type.3.1.2", diagnostics.get(0).getCode());
+	}
+
+	@Test
+	public void cacheIsBounded() throws IOException {
+		XMLValidationCache validationCache = new XMLValidationCache(2);
+		for (int i = 0; i < 3; i++) {
+			validate("<root" + i + " />", "file:///test.xml", validationCache);
+		}
+		Assert.assertEquals(2, validationCache.size());
+		// the least recently used validation has been evicted
+		validate("<root0 />", "file:///test.xml", validationCache);
+		Assert.assertEquals(0, validationCache.getHitCount());
+		validate("<root2 />", "file:///test.xml", validationCache);
+		Assert.assertEquals(1, validationCache.getHitCount());
+	}
+
+	private List<Diagnostic> validate(String xml, String uri, XMLValidationCache validationCache) {
+		XMLDocument document = XMLParser.getInstance().parse(xml, uri, null);
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		XMLValidator.doDiagnostics(document, null, diagnostics, null, grammarCache, validationCache, () -> {
+		});
+		return diagnostics;
+	}
+
+	private File createSchema(String name, String elementName) throws IOException {
+		File xsd = new File(folder.getRoot(), name);
+		write(xsd, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\r\n" + //
+				"  <xs:element name=\"" + elementName + "\" type=\"xs:string\" />\r\n" + //
+				"</xs:schema>");
+		return xsd;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
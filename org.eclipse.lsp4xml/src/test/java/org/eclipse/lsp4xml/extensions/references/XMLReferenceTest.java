@@ -0,0 +1,77 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.extensions.references;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.Node;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.NodeList;
+
+/**
+ * XML reference tests.
+ *
+ */
+public class XMLReferenceTest {
+
+	private static final String XML = "<web-app xmlns:j=\"http://j\">\n" + //
+			"  <servlet>\n" + //
+			"    <servlet-name>a</servlet-name>\n" + //
+			"  </servlet>\n" + //
+			"  <j:servlet>\n" + //
+			"    <servlet-name>b</servlet-name>\n" + //
+			"  </j:servlet>\n" + //
+			"  <servlet-mapping>\n" + //
+			"    <servlet-name name=\"c\">a</servlet-name>\n" + //
+			"  </servlet-mapping>\n" + //
+			"  <default xmlns=\"http://default\">\n" + //
+			"    <servlet-name name=\"d\">a</servlet-name>\n" + //
+			"  </default>\n" + //
+			"</web-app>";
+
+	@Test
+	public void testIndexedExpressions() throws XPathExpressionException {
+		assertSameNodes("//servlet");
+		assertSameNodes("//servlet-name");
+		assertSameNodes("//servlet-name/@name");
+		assertSameNodes("//unknown");
+	}
+
+	@Test
+	public void testXPathExpressions() throws XPathExpressionException {
+		assertSameNodes("//servlet-mapping/servlet-name");
+		assertSameNodes("//servlet-name/text()");
+	}
+
+	private static void assertSameNodes(String to) throws XPathExpressionException {
+		XMLDocument document = XMLParser.getInstance().parse(new TextDocument(XML, "web.xml"), null);
+		Node node = document.findNodeAt(XML.indexOf("servlet-mapping") + 1);
+
+		NodeList expected = (NodeList) XPathFactory.newInstance().newXPath().compile(to).evaluate(node,
+				XPathConstants.NODESET);
+		List<Node> actual = new ArrayList<>();
+		new XMLReference("servlet-mapping").to(to).collect(node, actual::add);
+
+		Assert.assertEquals(to, expected.getLength(), actual.size());
+		for (int i = 0; i < actual.size(); i++) {
+			Assert.assertSame(to, expected.item(i), actual.get(i));
+		}
+	}
+}
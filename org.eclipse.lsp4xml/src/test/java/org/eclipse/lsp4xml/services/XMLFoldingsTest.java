@@ -17,6 +17,8 @@ import java.util.List;
 import org.eclipse.lsp4j.FoldingRange;
 import org.eclipse.lsp4j.FoldingRangeCapabilities;
 import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.XMLDocument;
+import org.eclipse.lsp4xml.dom.XMLParser;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -215,6 +217,24 @@ public class XMLFoldingsTest {
 		assertRanges(input,  new ExpectedIndentRange[] {r(0, 19), r(1, 18)}, "limit 2", 2);
 		assertRanges(input,  new ExpectedIndentRange[] {r(0, 19)}, "limit 1", 1);
 	}
+
+	@Test
+	public void testMaxDepth() {
+		String[] input = new String[] {
+			/*0*/"<div>",
+			/*1*/" <span>",
+			/*2*/"  <b>",
+			/*3*/"  ",
+			/*4*/"  </b>",
+			/*5*/"  <!-- ",
+			/*6*/"  -->",
+			/*7*/" </span>",
+			/*8*/"</div>",
+		};
+		assertMaxDepthRanges(input, 1, r(0, 7));
+		assertMaxDepthRanges(input, 2, r(0, 7), r(1, 6));
+		assertMaxDepthRanges(input, 3, r(0, 7), r(1, 6), r(2, 3), r(5, 6, "comment"));
+	}
 			
 	private static void assertRanges(String[] lines, ExpectedIndentRange[] expected) {
 		assertRanges(lines, expected, "", null);
@@ -228,6 +248,9 @@ public class XMLFoldingsTest {
 		FoldingRangeCapabilities context = new FoldingRangeCapabilities();
 		context.setRangeLimit(nRanges);
 		List<FoldingRange> actual = languageService.getFoldingRanges(document, context);
+		// the folding ranges computed with the tokens of the XML document are the same
+		XMLDocument xmlDocument = XMLParser.getInstance().parse(document, null);
+		Assert.assertEquals(actual, languageService.getFoldingRanges(xmlDocument, context));
 
 		List<ExpectedIndentRange> actualRanges = new ArrayList<>();
 		for (FoldingRange f : actual) {
@@ -237,6 +260,22 @@ public class XMLFoldingsTest {
 		Assert.assertArrayEquals(message, expected, actualRanges.toArray());
 	}
 
+	private static void assertMaxDepthRanges(String[] lines, int maxDepth, ExpectedIndentRange... expected) {
+		TextDocument document = new TextDocument(String.join("\n", lines), "test://foo/bar.xml");
+		XMLLanguageService languageService = new XMLLanguageService();
+		// the max depth is used for large files, which are parsed into compact XML
+		// documents
+		XMLDocument xmlDocument = XMLParser.getInstance().parseCompact(document, null);
+		List<FoldingRange> actual = languageService.getFoldingRanges(xmlDocument, new FoldingRangeCapabilities(),
+				maxDepth);
+		List<ExpectedIndentRange> actualRanges = new ArrayList<>();
+		for (FoldingRange f : actual) {
+			actualRanges.add(r(f.getStartLine(), f.getEndLine(), f.getKind()));
+		}
+		Collections.sort(actualRanges, (r1, r2) -> r1.startLine - r2.startLine);
+		Assert.assertArrayEquals("max depth " + maxDepth, expected, actualRanges.toArray());
+	}
+
 	private static ExpectedIndentRange r(int startLine, int endLine) {
 		return r(startLine, endLine, null);
 	}
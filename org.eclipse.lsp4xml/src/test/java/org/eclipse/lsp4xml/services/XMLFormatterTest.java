@@ -13,11 +13,14 @@ package org.eclipse.lsp4xml.services;
 import static java.lang.System.lineSeparator;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.XMLDocument;
@@ -597,6 +600,30 @@ public class XMLFormatterTest {
 	}
 
 
+	@Test
+	public void cancelFormattingOfLargeFile() {
+		StringBuilder content = new StringBuilder("<root>");
+		for (int i = 0; i < 10000; i++) {
+			content.append("<item id=\"1\"><name>Item</name><!-- comment --></item>");
+		}
+		content.append("</root>");
+		TextDocument document = new TextDocument(content.toString(), "test://large.xml");
+
+		// cancel the formatting once the cancel checker has been called 100 times
+		AtomicInteger checks = new AtomicInteger();
+		CancelChecker monitor = () -> {
+			if (checks.incrementAndGet() == 100) {
+				throw new CancellationException();
+			}
+		};
+		try {
+			new XMLLanguageService().format(document, null, createDefaultFormattingOptions(), monitor);
+			Assert.fail("Formatting was not cancelled after " + checks.get() + " checks");
+		} catch (CancellationException e) {
+			// the formatting stops as soon as it is cancelled
+			Assert.assertEquals(100, checks.get());
+		}
+	}
 
 	//-------------------------Tools-----------------------------------------
 
@@ -174,6 +174,27 @@ public class XMLSymbolsTest {
         assertSymbols(expectedSymbolInfos, actualSymbolInfos);
     }
     
+    @Test
+    public void testMaxDepth() {
+        String xmlText = "<?xml version=\"1.0\"?><a><b><c></c></b></a>";
+        xmlDocument = XMLParser.getInstance().parse(xmlText, testURI, null);
+        expectedSymbolInfos = new ArrayList<SymbolInformation>();
+
+        currentLocation = createLocation(testURI, 0, 21, xmlDocument);
+        currentSymbolInfo = createSymbolInformation("xml", SymbolKind.Property, currentLocation, "");
+        expectedSymbolInfos.add(currentSymbolInfo);
+
+        currentLocation = createLocation(testURI, 21, 42, xmlDocument);
+        currentSymbolInfo = createSymbolInformation("a", SymbolKind.Field, currentLocation, "");
+        expectedSymbolInfos.add(currentSymbolInfo);
+        assertSymbols(expectedSymbolInfos, languageService.findDocumentSymbols(xmlDocument, 1));
+
+        currentLocation = createLocation(testURI, 24, 38, xmlDocument);
+        currentSymbolInfo = createSymbolInformation("b", SymbolKind.Field, currentLocation, "a");
+        expectedSymbolInfos.add(currentSymbolInfo);
+        assertSymbols(expectedSymbolInfos, languageService.findDocumentSymbols(xmlDocument, 2));
+    }
+
     @Test
 	public void singleEndTag() throws BadLocationException {
     	String xmlText = "</meta>";
@@ -50,6 +50,13 @@ public class SettingsTest {
 				"			\"joinCDATALines\": true,\r\n" + //
 				"			\"formatComments\": true,\r\n" + //
 				"			\"joinCommentLines\": true\r\n" + //
+				"		},\r\n" + //
+				"		\"largeFile\": {\r\n" + //
+				"			\"maxSize\": 1000,\r\n" + //
+				"			\"validation\": true\r\n" + //
+				"		},\r\n" + //
+				"		\"scheduler\": {\r\n" + //
+				"			\"bulkThreads\": 2\r\n" + //
 				"		}\r\n" + "	}\r\n" + "}";
 		// Emulate InitializeParams#getInitializationOptions() object created as
 		// JSONObject when XMLLanguageServer#initialize(InitializeParams params) is
@@ -60,6 +67,15 @@ public class SettingsTest {
 		// Test client commons settings
 		XMLClientSettings settings = XMLClientSettings.getSettings(initializationOptionsSettings);
 		Assert.assertNotNull(settings);
+		// Large file
+		Assert.assertNotNull(settings.getLargeFile());
+		Assert.assertEquals(1000, settings.getLargeFile().getMaxSize());
+		Assert.assertEquals(250000, settings.getLargeFile().getMaxLines()); // default value
+		Assert.assertTrue(settings.getLargeFile().isValidation());
+		// Request scheduler
+		Assert.assertNotNull(settings.getScheduler());
+		Assert.assertEquals(Integer.valueOf(2), settings.getScheduler().getBulkThreads());
+		Assert.assertNull(settings.getScheduler().getInteractiveThreads()); // default value
 
 		// Test content model extension settings
 		ContentModelSettings cmSettings = ContentModelSettings.getSettings(initializationOptionsSettings);